@@ -0,0 +1,432 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.analysis
+
+import de.fraunhofer.aisec.cpg.TranslationResult
+import de.fraunhofer.aisec.cpg.graph.GraphModifications
+import de.fraunhofer.aisec.cpg.graph.Node
+import de.fraunhofer.aisec.cpg.graph.declarations.FunctionDeclaration
+import de.fraunhofer.aisec.cpg.graph.edge.Properties
+import java.util.ArrayDeque
+import java.util.Collections
+import java.util.IdentityHashMap
+
+/**
+ * Provides dominator trees, post-dominator trees and control dependences over the EOG of
+ * functions. They are computed lazily per function on first use and computed again once the EOG of
+ * the graph was modified (see [GraphModifications.eogCount]). Use [of] or [forResult] to share the
+ * cached results between all users of a graph.
+ *
+ * The dominator trees are computed with the iterative algorithm of Cooper, Harvey and Kennedy ("A
+ * Simple, Fast Dominance Algorithm"). The EOG of a function starts at the [FunctionDeclaration],
+ * every node without successors is an exit of the function. EOG edges which are marked as
+ * [Properties.UNREACHABLE] are ignored, as well as nodes which are not reachable from the start.
+ */
+class DominatorAnalysis {
+    private val results = IdentityHashMap<FunctionDeclaration, Dominance>()
+
+    /**
+     * Returns the (cached) dominance information of [function]. It is computed again if the EOG of
+     * the graph was modified in the meantime.
+     */
+    @Synchronized
+    fun resultFor(function: FunctionDeclaration): Dominance {
+        val eogCount = GraphModifications.of(function).eogCount
+        val cached = results[function]
+        if (cached != null && cached.eogCount == eogCount) {
+            return cached
+        }
+
+        val dominance = Dominance(function, eogCount)
+        results[function] = dominance
+        return dominance
+    }
+
+    /** Clears the cache. */
+    @Synchronized
+    fun clear() {
+        results.clear()
+    }
+
+    /**
+     * Returns true, if [dominator] dominates [node], i.e., every path of the EOG from the start of
+     * the function to [node] passes [dominator]. In other words, [dominator] is always executed
+     * before [node]. Both nodes need to be part of the same function.
+     */
+    fun dominates(dominator: Node, node: Node): Boolean {
+        val function = commonFunction(dominator, node) ?: return false
+        return resultFor(function).dominatorTree.dominates(dominator, node)
+    }
+
+    /**
+     * Returns true, if [postDominator] post-dominates [node], i.e., every path of the EOG from
+     * [node] to an exit of the function passes [postDominator]. Both nodes need to be part of the
+     * same function.
+     */
+    fun postDominates(postDominator: Node, node: Node): Boolean {
+        val function = commonFunction(postDominator, node) ?: return false
+        return resultFor(function).postDominatorTree.dominates(postDominator, node)
+    }
+
+    /** Returns true, if [node] is control dependent on the branching node [on]. */
+    fun isControlDependent(node: Node, on: Node): Boolean {
+        val function = commonFunction(node, on) ?: return false
+        return resultFor(function).controlDependence.isControlDependent(node, on)
+    }
+
+    private fun commonFunction(a: Node, b: Node): FunctionDeclaration? {
+        val function = a.enclosingFunction ?: return null
+        return if (b.enclosingFunction === function) function else null
+    }
+
+    companion object {
+        /**
+         * Returns the analysis shared by all users of the graph of [node], so that its results
+         * survive between queries.
+         */
+        @JvmStatic
+        fun of(node: Node?): DominatorAnalysis {
+            return GraphModifications.of(node).shared(DominatorAnalysis::class.java) {
+                DominatorAnalysis()
+            }
+        }
+
+        /** Returns the analysis shared by all users of the nodes of [result]. */
+        @JvmStatic
+        fun forResult(result: TranslationResult): DominatorAnalysis {
+            return result.scopeManager.modifications.shared(DominatorAnalysis::class.java) {
+                DominatorAnalysis()
+            }
+        }
+    }
+}
+
+/**
+ * The dominance information of a single [function]. All parts are computed on first access and
+ * share the indexing of the EOG nodes.
+ */
+class Dominance
+internal constructor(
+    val function: FunctionDeclaration,
+    /** The [GraphModifications.eogCount] of the graph at the time of the computation. */
+    internal val eogCount: Long
+) {
+    /** The reachable EOG nodes of the function in reverse post-order. */
+    private val nodes: List<Node>
+    private val index = IdentityHashMap<Node, Int>()
+    private val successors: Array<IntArray>
+    private val predecessors: Array<IntArray>
+
+    init {
+        nodes = reversePostOrder(function)
+        nodes.forEachIndexed { i, node -> index[node] = i }
+        successors =
+            Array(nodes.size) { i ->
+                successorsOf(nodes[i]).mapNotNull { index[it] }.distinct().toIntArray()
+            }
+        val incoming = Array(nodes.size) { mutableListOf<Int>() }
+        successors.forEachIndexed { i, next -> next.forEach { incoming[it].add(i) } }
+        predecessors = Array(nodes.size) { incoming[it].toIntArray() }
+    }
+
+    /** The dominator tree, rooted at the [function]. */
+    val dominatorTree: DominatorTree by lazy {
+        DominatorTree(nodes, index, computeDominators(nodes.size, 0, successors, predecessors), 0)
+    }
+
+    /**
+     * The post-dominator tree. It is rooted at a virtual exit node, which succeeds all nodes
+     * without successors. Nodes which cannot reach an exit (e.g., in an endless loop) are not part
+     * of the tree.
+     */
+    val postDominatorTree: DominatorTree by lazy {
+        // The virtual exit has the index nodes.size and we compute on the reversed graph
+        val exit = nodes.size
+        val exits = nodes.indices.filter { successors[it].isEmpty() }.toIntArray()
+        val reversedSuccessors = Array(nodes.size + 1) { predecessors.getOrNull(it) ?: exits }
+        val reversedPredecessors =
+            Array(nodes.size + 1) { i ->
+                if (i == exit) IntArray(0)
+                else if (successors[i].isEmpty()) intArrayOf(exit) else successors[i]
+            }
+        DominatorTree(
+            nodes,
+            index,
+            computeDominators(nodes.size + 1, exit, reversedSuccessors, reversedPredecessors),
+            exit
+        )
+    }
+
+    /** The control dependences, derived from the [postDominatorTree]. */
+    val controlDependence: ControlDependence by lazy {
+        val tree = postDominatorTree
+        val dependencies = Array(nodes.size) { linkedSetOf<Int>() }
+        for (branch in nodes.indices) {
+            if (successors[branch].size < 2) {
+                continue
+            }
+            // All nodes on the post-dominator tree path from the successor up to (excluding) the
+            // immediate post-dominator of the branch are control dependent on it
+            val stop = tree.idom[branch]
+            for (successor in successors[branch]) {
+                var runner = successor
+                while (runner != stop && runner in nodes.indices) {
+                    dependencies[runner].add(branch)
+                    runner = tree.idom[runner]
+                }
+            }
+        }
+        ControlDependence(nodes, index, Array(nodes.size) { dependencies[it].toIntArray() })
+    }
+
+    private fun successorsOf(node: Node): List<Node> {
+        return node.nextEOGEdges
+            .filter { it.getProperty(Properties.UNREACHABLE) != true }
+            .map { it.end }
+    }
+
+    private fun reversePostOrder(start: Node): List<Node> {
+        val postOrder = mutableListOf<Node>()
+        val visited = Collections.newSetFromMap(IdentityHashMap<Node, Boolean>())
+        val stack = ArrayDeque<Pair<Node, Iterator<Node>>>()
+        visited.add(start)
+        stack.push(Pair(start, successorsOf(start).iterator()))
+        while (stack.isNotEmpty()) {
+            val (node, it) = stack.peek()
+            if (it.hasNext()) {
+                val next = it.next()
+                if (visited.add(next)) {
+                    stack.push(Pair(next, successorsOf(next).iterator()))
+                }
+            } else {
+                postOrder.add(node)
+                stack.pop()
+            }
+        }
+
+        return postOrder.asReversed()
+    }
+}
+
+/**
+ * A dominator (or post-dominator) tree over the nodes of a [Dominance]. Dominance queries are
+ * answered in constant time using the pre-order numbering of the tree.
+ */
+class DominatorTree
+internal constructor(
+    private val nodes: List<Node>,
+    private val index: IdentityHashMap<Node, Int>,
+    /** The immediate dominator by index, -1 for nodes which are not part of the tree. */
+    internal val idom: IntArray,
+    private val root: Int
+) {
+    /** The pre-order number of each node in the tree, -1 for nodes which are not part of it. */
+    private val preOrder = IntArray(idom.size) { -1 }
+
+    /** The largest pre-order number in the subtree of each node. */
+    private val lastDescendant = IntArray(idom.size) { -1 }
+
+    private val children = Array(idom.size) { mutableListOf<Int>() }
+
+    init {
+        for (i in idom.indices) {
+            if (i != root && idom[i] >= 0) {
+                children[idom[i]].add(i)
+            }
+        }
+
+        var counter = 0
+        val stack = ArrayDeque<Int>()
+        stack.push(root)
+        while (stack.isNotEmpty()) {
+            val i = stack.pop()
+            if (i >= 0) {
+                preOrder[i] = counter++
+                // Mark the exit of the subtree, then descend into the children
+                stack.push(-i - 1)
+                children[i].asReversed().forEach { stack.push(it) }
+            } else {
+                lastDescendant[-i - 1] = counter - 1
+            }
+        }
+    }
+
+    /** Returns true, if [node] is part of the tree. */
+    operator fun contains(node: Node): Boolean {
+        val i = index[node] ?: return false
+        return preOrder[i] >= 0
+    }
+
+    /**
+     * Returns the immediate dominator of [node] or null, if it is the root (or not part of the
+     * tree). In a post-dominator tree, the exits of the function have no immediate post-dominator.
+     */
+    fun immediateDominator(node: Node): Node? {
+        val i = index[node] ?: return null
+        return nodes.getOrNull(idom[i].takeIf { i != root && it >= 0 } ?: return null)
+    }
+
+    /** Returns true, if [dominator] dominates [node]. Every node dominates itself. */
+    fun dominates(dominator: Node, node: Node): Boolean {
+        val a = index[dominator] ?: return false
+        val b = index[node] ?: return false
+        return preOrder[a] >= 0 &&
+            preOrder[b] >= 0 &&
+            preOrder[a] <= preOrder[b] &&
+            preOrder[b] <= lastDescendant[a]
+    }
+
+    /** Returns true, if [dominator] dominates [node] and both are different. */
+    fun strictlyDominates(dominator: Node, node: Node): Boolean {
+        return dominator !== node && dominates(dominator, node)
+    }
+
+    /** Returns all dominators of [node], starting with [node] itself up to the root. */
+    fun dominators(node: Node): List<Node> {
+        val result = mutableListOf<Node>()
+        var i = index[node]?.takeIf { preOrder[it] >= 0 } ?: return result
+        while (i != root && i < nodes.size) {
+            result.add(nodes[i])
+            i = idom[i]
+        }
+        nodes.getOrNull(root)?.let { result.add(it) }
+        return result
+    }
+
+    /** Returns the nodes which are immediately dominated by [node]. */
+    fun children(node: Node): List<Node> {
+        val i = index[node] ?: return listOf()
+        return children[i].map { nodes[it] }
+    }
+}
+
+/** The control dependences between the nodes of a [Dominance]. */
+class ControlDependence
+internal constructor(
+    private val nodes: List<Node>,
+    private val index: IdentityHashMap<Node, Int>,
+    private val dependencies: Array<IntArray>
+) {
+    private val dependents: Array<IntArray> by lazy {
+        val result = Array(nodes.size) { mutableListOf<Int>() }
+        dependencies.forEachIndexed { i, on -> on.forEach { result[it].add(i) } }
+        Array(nodes.size) { result[it].toIntArray() }
+    }
+
+    /** Returns the branching nodes [node] is directly control dependent on. */
+    fun dependencies(node: Node): List<Node> {
+        val i = index[node] ?: return listOf()
+        return dependencies[i].map { nodes[it] }
+    }
+
+    /** Returns the nodes which are directly control dependent on [branch]. */
+    fun dependents(branch: Node): List<Node> {
+        val i = index[branch] ?: return listOf()
+        return dependents[i].map { nodes[it] }
+    }
+
+    /** Returns true, if [node] is directly control dependent on [on]. */
+    fun isControlDependent(node: Node, on: Node): Boolean {
+        val i = index[node] ?: return false
+        val j = index[on] ?: return false
+        return j in dependencies[i]
+    }
+}
+
+/**
+ * Computes the immediate dominators of a graph with [size] nodes with the algorithm of Cooper,
+ * Harvey and Kennedy. Nodes which are unreachable from [root] have the immediate dominator -1, the
+ * root is its own immediate dominator.
+ */
+internal fun computeDominators(
+    size: Int,
+    root: Int,
+    successors: Array<IntArray>,
+    predecessors: Array<IntArray>
+): IntArray {
+    // Number the nodes in reverse post-order, starting at the root
+    val order = IntArray(size) { -1 }
+    val postOrder = mutableListOf<Int>()
+    val position = IntArray(size)
+    val stack = ArrayDeque<Int>()
+    order[root] = 0
+    stack.push(root)
+    while (stack.isNotEmpty()) {
+        val i = stack.peek()
+        val next = successors[i]
+        if (position[i] < next.size) {
+            val j = next[position[i]++]
+            if (order[j] < 0) {
+                order[j] = 0
+                stack.push(j)
+            }
+        } else {
+            postOrder.add(stack.pop())
+        }
+    }
+    val reversePostOrder = postOrder.asReversed()
+    reversePostOrder.forEachIndexed { number, i -> order[i] = number }
+
+    val idom = IntArray(size) { -1 }
+    idom[root] = root
+    var changed = true
+    while (changed) {
+        changed = false
+        for (i in reversePostOrder) {
+            if (i == root) {
+                continue
+            }
+
+            var newIdom = -1
+            for (p in predecessors[i]) {
+                if (idom[p] < 0) {
+                    continue
+                }
+                newIdom = if (newIdom < 0) p else intersect(p, newIdom, idom, order)
+            }
+            if (idom[i] != newIdom) {
+                idom[i] = newIdom
+                changed = true
+            }
+        }
+    }
+
+    return idom
+}
+
+private fun intersect(a: Int, b: Int, idom: IntArray, order: IntArray): Int {
+    var finger1 = a
+    var finger2 = b
+    while (finger1 != finger2) {
+        while (order[finger1] > order[finger2]) {
+            finger1 = idom[finger1]
+        }
+        while (order[finger2] > order[finger1]) {
+            finger2 = idom[finger2]
+        }
+    }
+    return finger1
+}
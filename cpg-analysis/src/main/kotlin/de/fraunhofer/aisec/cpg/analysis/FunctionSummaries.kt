@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.analysis
+
+import de.fraunhofer.aisec.cpg.TranslationResult
+import de.fraunhofer.aisec.cpg.graph.CallGraph
+import de.fraunhofer.aisec.cpg.graph.Node
+import de.fraunhofer.aisec.cpg.graph.declarations.FunctionDeclaration
+import de.fraunhofer.aisec.cpg.graph.declarations.ParamVariableDeclaration
+import de.fraunhofer.aisec.cpg.graph.followNextDFGEdgesUntilHit
+import de.fraunhofer.aisec.cpg.graph.statements.expressions.CallExpression
+import de.fraunhofer.aisec.cpg.helpers.SubgraphWalker
+import java.util.ArrayDeque
+import java.util.Collections
+import java.util.IdentityHashMap
+import java.util.concurrent.CompletableFuture
+
+/**
+ * The data-flow summary of a [function]. It describes how data flows through the function from the
+ * point of view of its callers, including the flows through all (transitive) callees.
+ */
+class FunctionSummary
+internal constructor(
+    val function: FunctionDeclaration,
+    /** The indices of the parameters whose values may flow to the return value. */
+    val parametersToReturn: Set<Int>,
+    /** The sinks which the values of the parameters may reach, by the index of the parameter. */
+    val parametersToSinks: Map<Int, Set<Node>>,
+    /** The sources whose values may flow to the return value. */
+    val sourcesToReturn: Set<Node>
+) {
+    /** The number of facts in this summary. Summaries only grow during the fixpoint iteration. */
+    internal val size: Int
+        get() =
+            parametersToReturn.size +
+                parametersToSinks.values.sumOf { it.size } +
+                sourcesToReturn.size
+
+    override fun toString(): String {
+        return "FunctionSummary(function=${function.name}, " +
+            "parametersToReturn=$parametersToReturn, parametersToSinks=$parametersToSinks, " +
+            "sourcesToReturn=$sourcesToReturn)"
+    }
+}
+
+/**
+ * Computes [FunctionSummary]s for all functions of [result] and uses them to answer
+ * interprocedural data-flow questions without following the DFG into the bodies of the callees.
+ *
+ * Sources and sinks are defined by [isSource] and [isSink]. The summaries are computed bottom-up
+ * over the strongly connected components of the [CallGraph], so that the summaries of all callees
+ * are available when a function is summarized. (Mutually) recursive functions are iterated until
+ * their summaries are stable. Components which do not depend on each other are summarized
+ * concurrently on up to [parallelism] threads, hence [isSource] and [isSink] have to be
+ * thread-safe if [parallelism] is larger than 1.
+ *
+ * The summaries are computed on first use and kept until the DFG or a
+ * [CallExpression.invokes] edge of the graph is modified.
+ *
+ * Functions without a body have an empty summary, in line with the DFG which does not contain any
+ * edges for them.
+ */
+class FunctionSummaries(
+    val result: TranslationResult,
+    val isSource: (Node) -> Boolean = { false },
+    val isSink: (Node) -> Boolean = { false },
+    val parallelism: Int = Runtime.getRuntime().availableProcessors()
+) {
+    private var state: State? = null
+
+    /** Returns the summary of [function]. */
+    operator fun get(function: FunctionDeclaration): FunctionSummary {
+        return current().summaries[function] ?: emptySummary(function)
+    }
+
+    /**
+     * Returns all sinks which may be reached by the value of [node]. Calls are not followed into
+     * the callees, instead the summaries of the callees are applied. Return values are followed to
+     * all call sites of a function, like in the DFG.
+     */
+    fun sinksReachableFrom(node: Node): Set<Node> {
+        val state = current()
+        return explore(node, null, state) { state.summaries[it] }.sinks
+    }
+
+    /**
+     * Checks whether the value of [from] may flow to [to]. If [to] is a sink, the summaries are
+     * used (see [sinksReachableFrom]). Otherwise, we fall back to following the DFG.
+     */
+    fun flowsTo(from: Node, to: Node): Boolean {
+        if (!isSink(to)) {
+            return from.followNextDFGEdgesUntilHit { it == to }.fulfilled.isNotEmpty()
+        }
+
+        return sinksReachableFrom(from).contains(to)
+    }
+
+    @Synchronized
+    private fun current(): State {
+        val modifications = result.scopeManager.modifications
+        val generation = Pair(modifications.dfgCount, modifications.invokesCount)
+        val state = this.state
+        if (state != null && state.generation == generation) {
+            return state
+        }
+
+        return computeState(generation).also { this.state = it }
+    }
+
+    private fun computeState(generation: Pair<Long, Long>): State {
+        val graph = CallGraph.of(result)
+        val state = State(generation)
+        for (call in graph.calls) {
+            for ((index, argument) in call.arguments.withIndex()) {
+                state.callArguments
+                    .computeIfAbsent(argument) { mutableListOf() }
+                    .add(Pair(call, index))
+            }
+        }
+
+        val components = graph.bottomUpComponents
+        if (parallelism <= 1 || components.size <= 1) {
+            for (component in components) {
+                state.summaries.putAll(summarizeComponent(component, graph, state))
+            }
+            return state
+        }
+
+        // A component can be summarized once the components of all its callees are done
+        val executor = ParallelExecution.executor(parallelism)
+        val futures = IdentityHashMap<List<FunctionDeclaration>, CompletableFuture<Void>>()
+        for (component in components) {
+            val dependencies =
+                component
+                    .flatMap { graph.callees(it) }
+                    .mapNotNull { futures[graph.componentOf(it)] }
+                    .toTypedArray()
+            futures[component] =
+                CompletableFuture.allOf(*dependencies)
+                    .thenRunAsync(
+                        { state.summaries.putAll(summarizeComponent(component, graph, state)) },
+                        executor
+                    )
+        }
+        futures.values.forEach { it.join() }
+
+        return state
+    }
+
+    /**
+     * Summarizes the functions of [component]. The summaries of all other components it depends on
+     * must already be part of [state].
+     */
+    private fun summarizeComponent(
+        component: List<FunctionDeclaration>,
+        graph: CallGraph,
+        state: State
+    ): Map<FunctionDeclaration, FunctionSummary> {
+        val local = IdentityHashMap<FunctionDeclaration, FunctionSummary>()
+        component.forEach { local[it] = emptySummary(it) }
+
+        val recursive = component.size > 1 || graph.isRecursive(component.first())
+        do {
+            var changed = false
+            for (function in component) {
+                val summary = summarize(function, state) { local[it] ?: state.summaries[it] }
+                changed = changed || summary.size != local.getValue(function).size
+                local[function] = summary
+            }
+        } while (recursive && changed)
+
+        return local
+    }
+
+    private fun summarize(
+        function: FunctionDeclaration,
+        state: State,
+        summaryOf: (FunctionDeclaration) -> FunctionSummary?
+    ): FunctionSummary {
+        if (function.body == null) {
+            return emptySummary(function)
+        }
+
+        val parametersToReturn = sortedSetOf<Int>()
+        val parametersToSinks = sortedMapOf<Int, Set<Node>>()
+        for ((index, parameter) in function.parameters.withIndex()) {
+            val reach = explore(parameter, function, state, summaryOf)
+            if (reach.reachesReturn) {
+                parametersToReturn += index
+            }
+            if (reach.sinks.isNotEmpty()) {
+                parametersToSinks[index] = reach.sinks
+            }
+        }
+
+        val sourcesToReturn = identitySet<Node>()
+        for (node in SubgraphWalker.flattenAST(function)) {
+            // Calls to functions returning a source are sources themselves
+            val sources = identitySet<Node>()
+            if (isSource(node)) {
+                sources += node
+            }
+            if (node is CallExpression) {
+                node.invokes.forEach { callee ->
+                    summaryOf(callee)?.let { sources.addAll(it.sourcesToReturn) }
+                }
+            }
+
+            if (
+                sources.isNotEmpty() &&
+                    !sourcesToReturn.containsAll(sources) &&
+                    explore(node, function, state, summaryOf).reachesReturn
+            ) {
+                sourcesToReturn.addAll(sources)
+            }
+        }
+
+        return FunctionSummary(function, parametersToReturn, parametersToSinks, sourcesToReturn)
+    }
+
+    /**
+     * Follows the DFG starting at [start] and collects the reached sinks. Instead of entering the
+     * callees of a call, their summaries are applied to its arguments.
+     *
+     * If [function] is set, the exploration stays within the function: Reaching the function
+     * itself means that the return value is reached, and no other function is left through its
+     * return value. Otherwise, return values are followed to the call sites.
+     */
+    private fun explore(
+        start: Node,
+        function: FunctionDeclaration?,
+        state: State,
+        summaryOf: (FunctionDeclaration) -> FunctionSummary?
+    ): Reach {
+        val reach = Reach()
+        val visited = identitySet<Node>()
+        val worklist = ArrayDeque<Node>()
+        visited += start
+        worklist += start
+
+        while (worklist.isNotEmpty()) {
+            val node = worklist.poll()
+            if (node !== start && isSink(node)) {
+                reach.sinks += node
+            }
+            if (function != null && node is FunctionDeclaration) {
+                reach.reachesReturn = reach.reachesReturn || node === function
+                continue
+            }
+
+            // The parameters of the callees are skipped, their summaries are applied instead
+            val skipped = identitySet<Node>()
+            for ((call, index) in state.callArguments[node] ?: listOf()) {
+                for (callee in call.invokes) {
+                    val parameterIndex = parameterIndex(callee, index) ?: continue
+                    skipped += callee.parameters[parameterIndex]
+
+                    val summary = summaryOf(callee) ?: continue
+                    if (parameterIndex in summary.parametersToReturn && visited.add(call)) {
+                        worklist += call
+                    }
+                    summary.parametersToSinks[parameterIndex]?.let { reach.sinks.addAll(it) }
+                }
+            }
+
+            for (next in node.nextDFG) {
+                if (next is ParamVariableDeclaration && next in skipped) {
+                    continue
+                }
+                if (visited.add(next)) {
+                    worklist += next
+                }
+            }
+        }
+
+        return reach
+    }
+
+    /**
+     * Returns the index of the parameter of [callee] which receives the argument at
+     * [argumentIndex], analogous to [de.fraunhofer.aisec.cpg.helpers.Util.attachCallParameters].
+     */
+    private fun parameterIndex(callee: FunctionDeclaration, argumentIndex: Int): Int? {
+        for ((index, parameter) in callee.parameters.withIndex()) {
+            if (parameter.isVariadic || index == argumentIndex) {
+                return index
+            }
+        }
+
+        return null
+    }
+
+    private fun emptySummary(function: FunctionDeclaration): FunctionSummary {
+        return FunctionSummary(function, setOf(), mapOf(), setOf())
+    }
+
+    /** The result of [explore]. */
+    private class Reach {
+        val sinks = identitySet<Node>()
+        var reachesReturn = false
+    }
+
+    /** The summaries and the index of call arguments which are valid for [generation]. */
+    private class State(val generation: Pair<Long, Long>) {
+        val summaries: MutableMap<FunctionDeclaration, FunctionSummary> =
+            Collections.synchronizedMap(IdentityHashMap())
+        val callArguments = IdentityHashMap<Node, MutableList<Pair<CallExpression, Int>>>()
+    }
+}
+
+private fun <T> identitySet(): MutableSet<T> = Collections.newSetFromMap(IdentityHashMap())
@@ -0,0 +1,652 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.analysis
+
+import de.fraunhofer.aisec.cpg.TranslationResult
+import de.fraunhofer.aisec.cpg.graph.AccessValues
+import de.fraunhofer.aisec.cpg.graph.GraphModifications
+import de.fraunhofer.aisec.cpg.graph.Node
+import de.fraunhofer.aisec.cpg.graph.declarations.FunctionDeclaration
+import de.fraunhofer.aisec.cpg.graph.declarations.ParamVariableDeclaration
+import de.fraunhofer.aisec.cpg.graph.declarations.ValueDeclaration
+import de.fraunhofer.aisec.cpg.graph.declarations.VariableDeclaration
+import de.fraunhofer.aisec.cpg.graph.edge.Properties
+import de.fraunhofer.aisec.cpg.graph.statements.ForStatement
+import de.fraunhofer.aisec.cpg.graph.statements.IfStatement
+import de.fraunhofer.aisec.cpg.graph.statements.WhileStatement
+import de.fraunhofer.aisec.cpg.graph.statements.expressions.*
+import de.fraunhofer.aisec.cpg.passes.scopes.FunctionScope
+import java.util.ArrayDeque
+import java.util.BitSet
+import java.util.Collections
+import java.util.IdentityHashMap
+
+/**
+ * An abstract interpreter which computes the range of values of integral variables and expressions
+ * of a function. It uses the [LongInterval] domain and iterates over the EOG of the function with a
+ * worklist until a fixpoint is reached. To guarantee termination on loops, the states at loop heads
+ * are widened after they have been updated [wideningDelay] times. Afterwards, [narrowingIterations]
+ * descending iterations recover the bounds lost by widening (e.g., the bound of a loop condition).
+ *
+ * The states are refined with the conditions of [IfStatement]s, [WhileStatement]s and
+ * [ForStatement]s on their outgoing EOG edges. Edges which are marked as
+ * [Properties.UNREACHABLE] are ignored.
+ *
+ * Only local variables and parameters with a primitive integral type are tracked. Variables whose
+ * address is taken are considered unknown, as well as all other values (fields, calls, array
+ * elements, ...). Overflows saturate instead of wrapping around.
+ */
+class IntervalAnalysis(
+    private val wideningDelay: Int = 2,
+    private val narrowingIterations: Int = 2
+) {
+    private val results = IdentityHashMap<FunctionDeclaration, IntervalAnalysisResult>()
+    private var modifications: GraphModifications? = null
+    private var dfgGeneration = 0L
+    private var eogGeneration = 0L
+
+    /** Analyzes [function] and returns the ranges of all its nodes. */
+    fun analyze(function: FunctionDeclaration): IntervalAnalysisResult {
+        return FunctionAnalysis(function).run()
+    }
+
+    /**
+     * Returns the (cached) result of the analysis of [function]. The cache is cleared once the DFG
+     * or the EOG (including the branch conditions marked on its edges) of the graph is modified.
+     */
+    @Synchronized
+    fun resultFor(function: FunctionDeclaration): IntervalAnalysisResult {
+        val modifications = GraphModifications.of(function)
+        if (
+            modifications !== this.modifications ||
+                dfgGeneration != modifications.dfgCount ||
+                eogGeneration != modifications.eogCount
+        ) {
+            results.clear()
+            this.modifications = modifications
+            dfgGeneration = modifications.dfgCount
+            eogGeneration = modifications.eogCount
+        }
+        return results.getOrPut(function) { analyze(function) }
+    }
+
+    companion object {
+        /**
+         * Returns the analysis shared by all evaluations on the graph of [node], so that its
+         * results survive between queries.
+         */
+        @JvmStatic
+        fun of(node: Node?): IntervalAnalysis {
+            return GraphModifications.of(node).shared(IntervalAnalysis::class.java) {
+                IntervalAnalysis()
+            }
+        }
+
+        /** Returns the analysis shared by all evaluations on the nodes of [result]. */
+        @JvmStatic
+        fun forResult(result: TranslationResult): IntervalAnalysis {
+            return result.scopeManager.modifications.shared(IntervalAnalysis::class.java) {
+                IntervalAnalysis()
+            }
+        }
+    }
+
+    /** The state of a single analysis run. An abstract state maps each variable to its range. */
+    private inner class FunctionAnalysis(private val function: FunctionDeclaration) {
+        /** The reachable EOG nodes of the function in reverse post-order. */
+        private val nodes = mutableListOf<Node>()
+        private val nodeIndex = IdentityHashMap<Node, Int>()
+        private val successors = mutableListOf<IntArray>()
+        private val predecessors = mutableListOf<MutableList<Int>>()
+        private val loopHeads = BitSet()
+
+        /** The tracked variables, their index is the position in the abstract state. */
+        private val variables = IdentityHashMap<ValueDeclaration, Int>()
+
+        /** References which are written by a handled assignment or increment. */
+        private val handledWrites = Collections.newSetFromMap(IdentityHashMap<Node, Boolean>())
+
+        /** The in-states of all nodes. `null` denotes an unreachable node. */
+        private lateinit var inStates: Array<Array<LongInterval?>?>
+
+        /** The value of each node, computed with its last in-state. `null` denotes unknown. */
+        private lateinit var values: Array<LongInterval?>
+
+        fun run(): IntervalAnalysisResult {
+            collectNodes()
+            collectVariables()
+
+            inStates = arrayOfNulls(nodes.size)
+            values = arrayOfNulls(nodes.size)
+            if (nodes.isEmpty()) {
+                return IntervalAnalysisResult(IdentityHashMap(), nodeIndex, successors)
+            }
+            inStates[0] = arrayOfNulls(variables.size)
+
+            iterate()
+            repeat(narrowingIterations) { narrow() }
+
+            // Compute the final values with the final states
+            for (i in nodes.indices) {
+                inStates[i]?.let { transfer(i, it.copyOf()) }
+            }
+
+            val result = IdentityHashMap<Node, LongInterval>()
+            for (i in nodes.indices) {
+                val value = values[i]
+                if (inStates[i] != null && value != null) {
+                    result[nodes[i]] = value
+                }
+            }
+            return IntervalAnalysisResult(result, nodeIndex, successors)
+        }
+
+        /** Collects all reachable nodes in reverse post-order and detects the loop heads. */
+        private fun collectNodes() {
+            val postOrder = mutableListOf<Node>()
+            val visited = Collections.newSetFromMap(IdentityHashMap<Node, Boolean>())
+            val stack = ArrayDeque<Pair<Node, Iterator<Node>>>()
+            visited.add(function)
+            stack.push(Pair(function, reachableSuccessors(function).iterator()))
+            while (stack.isNotEmpty()) {
+                val (node, it) = stack.peek()
+                if (it.hasNext()) {
+                    val next = it.next()
+                    if (visited.add(next)) {
+                        stack.push(Pair(next, reachableSuccessors(next).iterator()))
+                    }
+                } else {
+                    postOrder.add(node)
+                    stack.pop()
+                }
+            }
+            postOrder.reverse()
+
+            nodes.addAll(postOrder)
+            nodes.forEachIndexed { i, node -> nodeIndex[node] = i }
+            nodes.forEach { predecessors.add(mutableListOf()) }
+            for ((i, node) in nodes.withIndex()) {
+                val next = reachableSuccessors(node).mapNotNull { nodeIndex[it] }.toIntArray()
+                successors.add(next)
+                for (j in next) {
+                    predecessors[j].add(i)
+                    // In reverse post-order, only back edges point to an earlier node
+                    if (j <= i) loopHeads.set(j)
+                }
+            }
+        }
+
+        private fun reachableSuccessors(node: Node): List<Node> {
+            return node.nextEOGEdges
+                .filter { it.getProperty(Properties.UNREACHABLE) != true }
+                .map { it.end }
+        }
+
+        /**
+         * Collects the local variables of integral type which can be tracked, i.e., whose address
+         * is never taken, as well as the references written by assignments we can interpret.
+         */
+        private fun collectVariables() {
+            val candidates = mutableListOf<ValueDeclaration>()
+            candidates.addAll(function.parameters)
+            val addressTaken = Collections.newSetFromMap(IdentityHashMap<Node, Boolean>())
+            for (node in nodes) {
+                when (node) {
+                    is VariableDeclaration -> candidates.add(node)
+                    is BinaryOperator ->
+                        if (node.operatorCode in assignmentOperators) handledWrites.add(node.lhs)
+                    is UnaryOperator ->
+                        when (node.operatorCode) {
+                            "++",
+                            "--" -> handledWrites.add(node.input)
+                            "&" ->
+                                (node.input as? DeclaredReferenceExpression)?.refersTo?.let {
+                                    addressTaken.add(it)
+                                }
+                        }
+                }
+            }
+            for (candidate in candidates) {
+                if (candidate !in addressTaken && isIntegral(candidate)) {
+                    variables.putIfAbsent(candidate, variables.size)
+                }
+            }
+        }
+
+        private fun isIntegral(declaration: ValueDeclaration): Boolean {
+            if (declaration !is VariableDeclaration && declaration !is ParamVariableDeclaration) {
+                return false
+            }
+            val type = declaration.type
+            return type.isPrimitive && type.name.split(" ").none { it in nonIntegralTypes }
+        }
+
+        /** The ascending iterations with widening at the loop heads. */
+        private fun iterate() {
+            val worklist = BitSet()
+            val updates = IntArray(nodes.size)
+            worklist.set(0)
+            while (!worklist.isEmpty) {
+                // Always process the earliest node in reverse post-order
+                val i = worklist.nextSetBit(0)
+                worklist.clear(i)
+                val out = transfer(i, inStates[i]!!.copyOf())
+                for (j in successors[i]) {
+                    val state = refine(i, j, out) ?: continue
+                    val old = inStates[j]
+                    var new = if (old == null) state else join(old, state)
+                    if (old != null && loopHeads[j] && updates[j] >= wideningDelay) {
+                        new = widen(old, new)
+                    }
+                    if (old == null || !old.contentEquals(new)) {
+                        inStates[j] = new
+                        updates[j]++
+                        worklist.set(j)
+                    }
+                }
+            }
+        }
+
+        /**
+         * A descending iteration, which recomputes all in-states in reverse post-order, so that the
+         * refined states directly propagate to the following nodes. The loop heads are narrowed to
+         * ensure termination.
+         */
+        private fun narrow() {
+            val outStates = arrayOfNulls<Array<LongInterval?>>(nodes.size)
+            outStates[0] = transfer(0, inStates[0]!!.copyOf())
+            for (j in 1 until nodes.size) {
+                var new: Array<LongInterval?>? = null
+                for (i in predecessors[j]) {
+                    // The out-states of back edges are not yet recomputed in this iteration
+                    val out = outStates[i] ?: inStates[i]?.let { transfer(i, it.copyOf()) }
+                    val state = out?.let { refine(i, j, it) } ?: continue
+                    new = if (new == null) state else join(new, state)
+                }
+                val old = inStates[j]
+                inStates[j] =
+                    if (old != null && new != null && loopHeads[j]) narrow(old, new) else new
+                outStates[j] = inStates[j]?.let { transfer(j, it.copyOf()) }
+            }
+        }
+
+        /**
+         * Computes the value of node [i] in [state] and applies its effect on [state], which is
+         * then returned.
+         */
+        private fun transfer(i: Int, state: Array<LongInterval?>): Array<LongInterval?> {
+            val node = nodes[i]
+            val value = evaluate(node, state)
+            values[i] = value
+
+            when (node) {
+                is VariableDeclaration -> set(state, node, value)
+                is BinaryOperator ->
+                    if (node.operatorCode in assignmentOperators) {
+                        set(state, (node.lhs as? DeclaredReferenceExpression)?.refersTo, value)
+                    }
+                is UnaryOperator ->
+                    if (node.operatorCode == "++" || node.operatorCode == "--") {
+                        val input = valueOf(node.input) ?: return state
+                        val one = LongInterval.of(1)
+                        set(
+                            state,
+                            (node.input as? DeclaredReferenceExpression)?.refersTo,
+                            if (node.operatorCode == "++") input + one else input - one
+                        )
+                    }
+                is DeclaredReferenceExpression ->
+                    // Any other write, e.g., by a for-each loop or by a stream operator
+                    if (node.access != AccessValues.READ && node !in handledWrites) {
+                        set(state, node.refersTo, null)
+                    }
+            }
+
+            return state
+        }
+
+        private fun set(state: Array<LongInterval?>, declaration: Node?, value: LongInterval?) {
+            variables[declaration]?.let { state[it] = value }
+        }
+
+        /** The value of an already evaluated operand [node]. */
+        private fun valueOf(node: Node?): LongInterval? {
+            return nodeIndex[node]?.let { values[it] }
+        }
+
+        /** Evaluates [node] in [state] using the values of its (already evaluated) operands. */
+        private fun evaluate(node: Node, state: Array<LongInterval?>): LongInterval? {
+            return when (node) {
+                is Literal<*> -> literalValue(node.value)
+                is DeclaredReferenceExpression ->
+                    variables[node.refersTo]?.let { state[it] ?: LongInterval.TOP }
+                is VariableDeclaration -> valueOf(node.initializer)
+                is CastExpression -> valueOf(node.expression)
+                is ConditionalExpression -> {
+                    val thenValue = valueOf(node.thenExpr) ?: return null
+                    val elseValue = valueOf(node.elseExpr) ?: return null
+                    thenValue.join(elseValue)
+                }
+                is UnaryOperator -> {
+                    val input = valueOf(node.input) ?: return null
+                    when (node.operatorCode) {
+                        "-" -> -input
+                        "+" -> input
+                        "++" -> if (node.isPostfix) input else input + LongInterval.of(1)
+                        "--" -> if (node.isPostfix) input else input - LongInterval.of(1)
+                        else -> null
+                    }
+                }
+                is BinaryOperator -> {
+                    val rhs = valueOf(node.rhs) ?: return null
+                    if (node.operatorCode == "=") {
+                        return rhs
+                    }
+                    val lhs = valueOf(node.lhs) ?: return null
+                    compute(node.operatorCode.removeSuffix("="), lhs, rhs)
+                }
+                else -> null
+            }
+        }
+
+        /**
+         * Refines the [state] after node [from] for the edge to node [to] with the branch condition
+         * of [from]. Returns `null` if the edge cannot be taken in [state].
+         */
+        private fun refine(
+            from: Int,
+            to: Int,
+            state: Array<LongInterval?>
+        ): Array<LongInterval?>? {
+            val node = nodes[from]
+            val condition =
+                when (node) {
+                    is IfStatement -> node.condition
+                    is WhileStatement -> node.condition
+                    is ForStatement -> node.condition
+                    else -> null
+                }
+            val edges = node.nextEOGEdges.filter { it.end === nodes[to] }
+            if (condition == null || node.nextEOGEdges.size != 2 || edges.size != 1) {
+                return state
+            }
+            // The first edge leads to the body (or then-branch), the second one exits the loop (or
+            // leads to the else-branch)
+            val branch =
+                when (edges.first().getProperty(Properties.INDEX)) {
+                    0 -> true
+                    1 -> false
+                    else -> return state
+                }
+            return refine(state.copyOf(), condition, branch)
+        }
+
+        private fun refine(
+            state: Array<LongInterval?>,
+            condition: Node?,
+            branch: Boolean
+        ): Array<LongInterval?>? {
+            when (condition) {
+                is BinaryOperator -> {
+                    val op = condition.operatorCode
+                    when {
+                        op == "&&" && branch || op == "||" && !branch -> {
+                            val lhs = refine(state, condition.lhs, branch) ?: return null
+                            return refine(lhs, condition.rhs, branch)
+                        }
+                        op == "&&" || op == "||" -> {
+                            val lhs = refine(state.copyOf(), condition.lhs, branch)
+                            val rhs = refine(state.copyOf(), condition.rhs, branch)
+                            if (lhs == null) return rhs
+                            return if (rhs == null) lhs else join(lhs, rhs)
+                        }
+                        op in comparisonOperators ->
+                            return refineComparison(
+                                state,
+                                if (branch) op else negatedComparisons.getValue(op),
+                                condition.lhs,
+                                operandValue(state, condition.lhs),
+                                condition.rhs,
+                                operandValue(state, condition.rhs)
+                            )
+                    }
+                }
+                is UnaryOperator ->
+                    if (condition.operatorCode == "!") {
+                        return refine(state, condition.input, !branch)
+                    }
+                is DeclaredReferenceExpression ->
+                    return refineComparison(
+                        state,
+                        if (branch) "!=" else "==",
+                        condition,
+                        operandValue(state, condition),
+                        null,
+                        LongInterval.of(0)
+                    )
+            }
+            return state
+        }
+
+        private fun refineComparison(
+            state: Array<LongInterval?>,
+            op: String,
+            lhs: Expression?,
+            lhsValue: LongInterval,
+            rhs: Expression?,
+            rhsValue: LongInterval
+        ): Array<LongInterval?>? {
+            val newLhs = lhsValue.meet(constraint(op, rhsValue, lhsValue))
+            val newRhs =
+                rhsValue.meet(constraint(flippedComparisons.getValue(op), lhsValue, rhsValue))
+            if (newLhs.isEmpty || newRhs.isEmpty) {
+                return null
+            }
+            set(state, trackedReference(lhs)?.refersTo, newLhs)
+            set(state, trackedReference(rhs)?.refersTo, newRhs)
+            return state
+        }
+
+        /** The value of [operand] in [state], which might be more precise than its value. */
+        private fun operandValue(state: Array<LongInterval?>, operand: Expression): LongInterval {
+            if (operand is Literal<*>) {
+                return literalValue(operand.value) ?: LongInterval.TOP
+            }
+            val variable = variables[trackedReference(operand)?.refersTo]
+            if (variable != null) {
+                return state[variable] ?: LongInterval.TOP
+            }
+            return valueOf(operand) ?: LongInterval.TOP
+        }
+
+        /** Returns the reference in [expression], looking through casts. */
+        private fun trackedReference(expression: Expression?): DeclaredReferenceExpression? {
+            return when (expression) {
+                is DeclaredReferenceExpression -> expression
+                is CastExpression -> trackedReference(expression.expression)
+                else -> null
+            }
+        }
+
+        private fun join(a: Array<LongInterval?>, b: Array<LongInterval?>): Array<LongInterval?> {
+            return Array(a.size) { i ->
+                val x = a[i]
+                val y = b[i]
+                if (x == null || y == null) null else x.join(y)
+            }
+        }
+
+        private fun widen(a: Array<LongInterval?>, b: Array<LongInterval?>): Array<LongInterval?> {
+            return Array(a.size) { i ->
+                val x = a[i]
+                val y = b[i]
+                if (x == null || y == null) null else x.widen(y)
+            }
+        }
+
+        private fun narrow(a: Array<LongInterval?>, b: Array<LongInterval?>): Array<LongInterval?> {
+            return Array(a.size) { i ->
+                val x = a[i]
+                val y = b[i]
+                if (x == null) y else if (y == null) x else x.narrow(y)
+            }
+        }
+    }
+
+    companion object {
+        private val assignmentOperators = setOf("=", "+=", "-=", "*=", "/=", "%=")
+
+        private val comparisonOperators = setOf("<", "<=", ">", ">=", "==", "!=")
+
+        private val negatedComparisons =
+            mapOf("<" to ">=", "<=" to ">", ">" to "<=", ">=" to "<", "==" to "!=", "!=" to "==")
+
+        private val flippedComparisons =
+            mapOf("<" to ">", "<=" to ">=", ">" to "<", ">=" to "<=", "==" to "==", "!=" to "!=")
+
+        private val nonIntegralTypes = setOf("float", "double", "bool", "boolean")
+
+        private fun literalValue(value: Any?): LongInterval? {
+            return when (value) {
+                is Byte,
+                is Short,
+                is Int,
+                is Long -> LongInterval.of((value as Number).toLong())
+                is Char -> LongInterval.of(value.code.toLong())
+                else -> null
+            }
+        }
+
+        private fun compute(op: String, lhs: LongInterval, rhs: LongInterval): LongInterval? {
+            return when (op) {
+                "+" -> lhs + rhs
+                "-" -> lhs - rhs
+                "*" -> lhs * rhs
+                "/" -> lhs / rhs
+                "%" -> lhs % rhs
+                "&" ->
+                    // Masking with a non-negative value limits the result
+                    when {
+                        lhs.lower >= 0 || rhs.lower >= 0 ->
+                            LongInterval(
+                                0,
+                                minOf(
+                                    if (lhs.lower >= 0) lhs.upper else LongInterval.POS_INF,
+                                    if (rhs.lower >= 0) rhs.upper else LongInterval.POS_INF
+                                )
+                            )
+                        else -> null
+                    }
+                else -> null
+            }
+        }
+
+        /**
+         * The range of values which satisfy the comparison `x [op] [other]`. [self] is the current
+         * range of `x`.
+         */
+        private fun constraint(op: String, other: LongInterval, self: LongInterval): LongInterval {
+            val one = LongInterval.of(1)
+            return when (op) {
+                "<" -> LongInterval(LongInterval.NEG_INF, (other - one).upper)
+                "<=" -> LongInterval(LongInterval.NEG_INF, other.upper)
+                ">" -> LongInterval((other + one).lower, LongInterval.POS_INF)
+                ">=" -> LongInterval(other.lower, LongInterval.POS_INF)
+                "==" -> other
+                "!=" ->
+                    if (other.lower == other.upper && other.isFinite) {
+                        // We can only exclude a single value at the bounds of the interval
+                        LongInterval(
+                            if (self.lower == other.lower) self.lower + 1
+                            else LongInterval.NEG_INF,
+                            if (self.upper == other.upper) self.upper - 1
+                            else LongInterval.POS_INF
+                        )
+                    } else {
+                        LongInterval.TOP
+                    }
+                else -> LongInterval.TOP
+            }
+        }
+    }
+}
+
+/**
+ * The result of the [IntervalAnalysis] of a function: The range of values of each node, i.e., of
+ * each expression and each declaration, the latter after its initialization.
+ */
+class IntervalAnalysisResult
+internal constructor(
+    private val ranges: IdentityHashMap<Node, LongInterval>,
+    private val order: IdentityHashMap<Node, Int>,
+    private val successors: List<IntArray>
+) {
+    /**
+     * Returns the range of values of [node] or `null` if the node is not reachable or its value is
+     * unknown.
+     */
+    operator fun get(node: Node): LongInterval? {
+        return ranges[node]
+    }
+
+    /**
+     * Checks whether the data flow from [definition] to [use] is carried by a loop, i.e., [use] can
+     * only be reached from [definition] via a back edge of the EOG.
+     */
+    fun isLoopCarried(definition: Node, use: Node): Boolean {
+        val from = order[definition] ?: return false
+        val to = order[use] ?: return false
+        // Search for a path along the forward edges, which lead to a later node in reverse
+        // post-order. Thus, we can skip all nodes after the use.
+        val visited = BitSet()
+        val stack = ArrayDeque<Int>()
+        stack.push(from)
+        while (stack.isNotEmpty()) {
+            val i = stack.pop()
+            if (i == to) {
+                return false
+            }
+            for (j in successors[i]) {
+                if (j in (i + 1)..to && !visited[j]) {
+                    visited.set(j)
+                    stack.push(j)
+                }
+            }
+        }
+        return true
+    }
+}
+
+/** Returns the [FunctionDeclaration] which contains this node, using its scope. */
+internal val Node.enclosingFunction: FunctionDeclaration?
+    get() {
+        if (this is FunctionDeclaration) return this
+        var scope = this.scope
+        while (scope != null && scope !is FunctionScope) {
+            scope = scope.parent
+        }
+        return scope?.astNode as? FunctionDeclaration
+    }
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.analysis
+
+import de.fraunhofer.aisec.cpg.graph.Node
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+/**
+ * This [ValueEvaluator] returns the range of values of a node as computed by the
+ * [IntervalAnalysis] of its function. The result is an [Interval] which can directly be consumed by
+ * [de.fraunhofer.aisec.cpg.query.min] and [de.fraunhofer.aisec.cpg.query.max]. Nodes which are not
+ * part of a function or whose range is unknown are evaluated by the [ValueEvaluator].
+ *
+ * Unless a specific [IntervalAnalysis] is given, the one shared by the graph of the node is used
+ * (see [IntervalAnalysis.of]), so that its results are reused by later evaluations.
+ */
+class IntervalEvaluator(private val analysis: IntervalAnalysis? = null) : ValueEvaluator() {
+    override val log: Logger
+        get() = LoggerFactory.getLogger(IntervalEvaluator::class.java)
+
+    override fun evaluate(node: Any?): Any? {
+        if (node !is Node) {
+            return super.evaluate(node)
+        }
+        val function = node.enclosingFunction ?: return super.evaluate(node)
+        val analysis = analysis ?: IntervalAnalysis.of(function)
+        val range = analysis.resultFor(function)[node] ?: return super.evaluate(node)
+        this.path += node
+        return range.toNumberSet()
+    }
+}
@@ -28,7 +28,6 @@ package de.fraunhofer.aisec.cpg.analysis
 import de.fraunhofer.aisec.cpg.graph.Node
 import de.fraunhofer.aisec.cpg.graph.declarations.FieldDeclaration
 import de.fraunhofer.aisec.cpg.graph.declarations.VariableDeclaration
-import de.fraunhofer.aisec.cpg.graph.statements.DeclarationStatement
 import de.fraunhofer.aisec.cpg.graph.statements.ForStatement
 import de.fraunhofer.aisec.cpg.graph.statements.expressions.*
 import de.fraunhofer.aisec.cpg.passes.astParent
@@ -40,21 +39,32 @@ import org.slf4j.LoggerFactory
  *
  * It requires running the [EdgeCachePass] after the translation to add all necessary edges.
  */
-class MultiValueEvaluator : ValueEvaluator() {
+class MultiValueEvaluator(cache: ValueEvaluationCache? = null) : ValueEvaluator(cache = cache) {
     companion object {
         const val MAX_DEPTH: Int = 20
+
+        /** The maximum number of values of a loop variable which are enumerated. */
+        const val MAX_ENUMERATED_VALUES: Int = 1000
     }
 
     override val log: Logger
         get() = LoggerFactory.getLogger(MultiValueEvaluator::class.java)
 
     override fun evaluate(node: Any?): Any? {
-        val result = evaluateInternal(node as? Node, 0)
+        val result = evaluateCached(node as? Node, 0)
         return if (result is Collection<*> && result.all { r -> r is Number })
             ConcreteNumberSet(result.map { r -> (r as Number).toLong() }.toMutableSet())
         else result
     }
 
+    /**
+     * A cached result can only be used if it would not have hit the [MAX_DEPTH] limit when being
+     * evaluated at [depth].
+     */
+    override fun canReuse(height: Int, depth: Int): Boolean {
+        return depth + height <= MAX_DEPTH
+    }
+
     /** Tries to evaluate this node. Anything can happen. */
     override fun evaluateInternal(node: Node?, depth: Int): Any? {
         if (node == null) {
@@ -62,6 +72,8 @@ class MultiValueEvaluator : ValueEvaluator() {
         }
 
         if (depth > MAX_DEPTH) {
+            // The result depends on the depth at which we started
+            markContextDependent()
             return cannotEvaluate(node, this)
         }
         // Add the expression to the current path
@@ -69,17 +81,17 @@ class MultiValueEvaluator : ValueEvaluator() {
 
         when (node) {
             is FieldDeclaration -> {
-                return evaluateInternal(node.initializer, depth + 1)
+                return evaluateCached(node.initializer, depth + 1)
             }
-            is ArrayCreationExpression -> return evaluateInternal(node.initializer, depth + 1)
-            is VariableDeclaration -> return evaluateInternal(node.initializer, depth + 1)
+            is ArrayCreationExpression -> return evaluateCached(node.initializer, depth + 1)
+            is VariableDeclaration -> return evaluateCached(node.initializer, depth + 1)
             // For a literal, we can just take its value, and we are finished
             is Literal<*> -> return node.value
             is DeclaredReferenceExpression -> return handleDeclaredReferenceExpression(node, depth)
             is UnaryOperator -> return handleUnaryOp(node, depth)
             is BinaryOperator -> return handleBinaryOperator(node, depth)
             // Casts are just a wrapper in this case, we are interested in the inner expression
-            is CastExpression -> return this.evaluateInternal(node.expression, depth + 1)
+            is CastExpression -> return this.evaluateCached(node.expression, depth + 1)
             is ArraySubscriptionExpression -> return handleArraySubscriptionExpression(node, depth)
             // While we are not handling different paths of variables with If statements, we can
             // easily be partly path-sensitive in a conditional expression
@@ -97,9 +109,9 @@ class MultiValueEvaluator : ValueEvaluator() {
      */
     override fun handleBinaryOperator(expr: BinaryOperator, depth: Int): Any? {
         // Resolve lhs
-        val lhsValue = evaluateInternal(expr.lhs, depth + 1)
+        val lhsValue = evaluateCached(expr.lhs, depth + 1)
         // Resolve rhs
-        val rhsValue = evaluateInternal(expr.rhs, depth + 1)
+        val rhsValue = evaluateCached(expr.rhs, depth + 1)
 
         if (lhsValue !is Collection<*> && rhsValue !is Collection<*>) {
             return computeBinaryOpEffect(lhsValue, rhsValue, expr)
@@ -125,8 +137,8 @@ class MultiValueEvaluator : ValueEvaluator() {
 
     override fun handleConditionalExpression(expr: ConditionalExpression, depth: Int): Any {
         val result = mutableSetOf<Any?>()
-        val elseResult = evaluateInternal(expr.elseExpr, depth + 1)
-        val thenResult = evaluateInternal(expr.thenExpr, depth + 1)
+        val elseResult = evaluateCached(expr.elseExpr, depth + 1)
+        val thenResult = evaluateCached(expr.thenExpr, depth + 1)
         if (thenResult is Collection<*>) result.addAll(thenResult) else result.add(thenResult)
         if (elseResult is Collection<*>) result.addAll(elseResult) else result.add(elseResult)
         return result
@@ -135,7 +147,7 @@ class MultiValueEvaluator : ValueEvaluator() {
     override fun handleUnaryOp(expr: UnaryOperator, depth: Int): Any? {
         return when (expr.operatorCode) {
             "-" -> {
-                when (val input = evaluateInternal(expr.input, depth + 1)) {
+                when (val input = evaluateCached(expr.input, depth + 1)) {
                     is Collection<*> -> input.map { n -> (n as? Number)?.negate() }
                     is Number -> input.negate()
                     else -> cannotEvaluate(expr, this)
@@ -143,9 +155,9 @@ class MultiValueEvaluator : ValueEvaluator() {
             }
             "--" -> {
                 if (expr.astParent is ForStatement) {
-                    evaluateInternal(expr.input, depth + 1)
+                    evaluateCached(expr.input, depth + 1)
                 } else {
-                    when (val input = evaluateInternal(expr.input, depth + 1)) {
+                    when (val input = evaluateCached(expr.input, depth + 1)) {
                         is Number -> input.decrement()
                         is Collection<*> -> input.map { n -> (n as? Number)?.decrement() }
                         else -> cannotEvaluate(expr, this)
@@ -154,17 +166,17 @@ class MultiValueEvaluator : ValueEvaluator() {
             }
             "++" -> {
                 if (expr.astParent is ForStatement) {
-                    evaluateInternal(expr.input, depth + 1)
+                    evaluateCached(expr.input, depth + 1)
                 } else {
-                    when (val input = evaluateInternal(expr.input, depth + 1)) {
+                    when (val input = evaluateCached(expr.input, depth + 1)) {
                         is Number -> input.increment()
                         is Collection<*> -> input.map { n -> (n as? Number)?.increment() }
                         else -> cannotEvaluate(expr, this)
                     }
                 }
             }
-            "*" -> evaluateInternal(expr.input, depth + 1)
-            "&" -> evaluateInternal(expr.input, depth + 1)
+            "*" -> evaluateCached(expr.input, depth + 1)
+            "&" -> evaluateCached(expr.input, depth + 1)
             else -> cannotEvaluate(expr, this)
         }
     }
@@ -178,7 +190,7 @@ class MultiValueEvaluator : ValueEvaluator() {
     override fun handleDeclaredReferenceExpression(
         expr: DeclaredReferenceExpression,
         depth: Int
-    ): Collection<Any?> {
+    ): Any? {
         // For a reference, we are interested in its last assignment into the reference
         // denoted by the previous DFG edge. We need to filter out any self-references for READWRITE
         // references.
@@ -186,12 +198,12 @@ class MultiValueEvaluator : ValueEvaluator() {
 
         if (prevDFG.size == 1) {
             // There's only one incoming DFG edge, so we follow this one.
-            val internalRes = evaluateInternal(prevDFG.first(), depth + 1)
+            val internalRes = evaluateCached(prevDFG.first(), depth + 1)
             return if (internalRes is Collection<*>) internalRes else mutableSetOf(internalRes)
         }
 
-        if (prevDFG.size == 2 && prevDFG.all(::isSimpleForLoop)) {
-            return handleSimpleLoopVariable(expr, depth)
+        if (prevDFG.size > 1) {
+            handleLoopVariable(expr, prevDFG)?.let { return it }
         }
 
         val result = mutableSetOf<Any?>()
@@ -199,7 +211,7 @@ class MultiValueEvaluator : ValueEvaluator() {
             // No previous expression?? Let's try with a variable declaration and its initialization
             val decl = prevDFG.filterIsInstance<VariableDeclaration>()
             for (declaration in decl) {
-                val res = evaluateInternal(declaration, depth + 1)
+                val res = evaluateCached(declaration, depth + 1)
                 if (res is Collection<*>) {
                     result.addAll(res)
                 } else {
@@ -209,7 +221,7 @@ class MultiValueEvaluator : ValueEvaluator() {
         }
 
         for (expression in prevDFG) {
-            val res = evaluateInternal(expression, depth + 1)
+            val res = evaluateCached(expression, depth + 1)
             if (res is Collection<*>) {
                 result.addAll(res)
             } else {
@@ -219,177 +231,32 @@ class MultiValueEvaluator : ValueEvaluator() {
         return result
     }
 
-    private fun isSimpleForLoop(node: Node): Boolean {
-        // Are we in the for statement somehow?
-        var forStatement = node.astParent as? ForStatement
-        if (forStatement == null) forStatement = node.astParent?.astParent as? ForStatement
-
-        if (forStatement == null) return false // ...no, we're not.
-
-        val initializerDecl =
-            (forStatement.initializerStatement as? DeclarationStatement)?.singleDeclaration
-
-        return initializerDecl == node || // The node is the declaration of the loop variable
-        forStatement.initializerStatement == node || // The node is the initialization
-            (initializerDecl != null &&
-                initializerDecl ==
-                    node.astParent) || // The parent of the node is the initializer of the loop
-            // variable
-            forStatement.iterationStatement ==
-                node || // The node or its parent are the iteration statement of the loop
-            forStatement.iterationStatement == node.astParent
-    }
-
-    private fun handleSimpleLoopVariable(
+    /**
+     * Determines the values of a variable which is modified in a loop, i.e., one of the definitions
+     * in [prevDFG] flows back to [expr]. Instead of iterating over the loop, we use the range of
+     * [expr] computed by the [IntervalAnalysis] of the function. Small ranges are enumerated, larger
+     * ones are returned as an [Interval]. Returns `null` if [expr] is not loop-carried or its range
+     * is unbounded.
+     */
+    private fun handleLoopVariable(
         expr: DeclaredReferenceExpression,
-        depth: Int
-    ): Collection<Any?> {
-        val loop =
-            expr.prevDFG.firstOrNull { e -> e.astParent is ForStatement }?.astParent
-                as? ForStatement
-        if (loop == null || loop.condition !is BinaryOperator) return setOf()
-
-        var loopVar: Number? =
-            evaluateInternal(loop.initializerStatement.declarations.first(), depth) as? Number
-                ?: return setOf()
-
-        val cond = loop.condition as BinaryOperator
-        val result = mutableSetOf<Any?>()
-        var lhs =
-            if ((cond.lhs as? DeclaredReferenceExpression)?.refersTo == expr.refersTo) {
-                loopVar
-            } else {
-                evaluateInternal(cond.lhs, depth + 1)
-            }
-        var rhs =
-            if ((cond.rhs as? DeclaredReferenceExpression)?.refersTo == expr.refersTo) {
-                loopVar
-            } else {
-                evaluateInternal(cond.rhs, depth + 1)
-            }
-
-        var comparisonResult = computeBinaryOpEffect(lhs, rhs, cond)
-        while (comparisonResult == true) {
-            result.add(
-                loopVar
-            ) // We skip the last iteration on purpose because that last operation will be added by
-            // the statement which made us end up here.
-
-            val loopOp = loop.iterationStatement
-            loopVar =
-                when (loopOp) {
-                    is BinaryOperator -> {
-                        if (
-                            loopOp.operatorCode == "=" &&
-                                (loopOp.lhs as? DeclaredReferenceExpression)?.refersTo ==
-                                    expr.refersTo &&
-                                loopOp.rhs is BinaryOperator
-                        ) {
-                            // Assignment to the variable, take the rhs and see if it's also a
-                            // binary operator
-                            val opLhs =
-                                if (
-                                    ((loopOp.rhs as BinaryOperator).lhs
-                                            as? DeclaredReferenceExpression)
-                                        ?.refersTo == expr.refersTo
-                                ) {
-                                    loopVar
-                                } else {
-                                    (loopOp.rhs as BinaryOperator).lhs
-                                }
-                            val opRhs =
-                                if (
-                                    ((loopOp.rhs as BinaryOperator).rhs
-                                            as? DeclaredReferenceExpression)
-                                        ?.refersTo == expr.refersTo
-                                ) {
-                                    loopVar
-                                } else {
-                                    evaluateInternal((loopOp.rhs as BinaryOperator).rhs, depth + 1)
-                                }
-                            computeBinaryOpEffect(opLhs, opRhs, (loopOp.rhs as BinaryOperator))
-                                as? Number
-                        } else {
-                            // No idea what this is but it's a binary op...
-                            val opLhs =
-                                if (
-                                    (loopOp.lhs as? DeclaredReferenceExpression)?.refersTo ==
-                                        expr.refersTo
-                                ) {
-                                    loopVar
-                                } else {
-                                    loopOp.lhs
-                                }
-                            val opRhs =
-                                if (
-                                    (loopOp.rhs as? DeclaredReferenceExpression)?.refersTo ==
-                                        expr.refersTo
-                                ) {
-                                    loopVar
-                                } else {
-                                    loopOp.rhs
-                                }
-                            computeBinaryOpEffect(opLhs, opRhs, loopOp) as? Number
-                        }
-                    }
-                    is UnaryOperator -> {
-                        computeUnaryOpEffect(
-                            if (
-                                (loopOp.input as? DeclaredReferenceExpression)?.refersTo ==
-                                    expr.refersTo
-                            ) {
-                                loopVar!!
-                            } else {
-                                loopOp.input
-                            },
-                            loopOp
-                        )
-                            as? Number
-                    }
-                    else -> {
-                        null
-                    }
-                }
-            if (loopVar == null) {
-                return result
-            }
-            // result.add(loopVar)
+        prevDFG: List<Node>
+    ): Any? {
+        val function = expr.enclosingFunction ?: return null
+        val result = IntervalAnalysis.of(function).resultFor(function)
+        if (prevDFG.none { result.isLoopCarried(it, expr) }) {
+            return null
+        }
 
-            if ((cond.lhs as? DeclaredReferenceExpression)?.refersTo == expr.refersTo) {
-                lhs = loopVar
-            }
-            if ((cond.rhs as? DeclaredReferenceExpression)?.refersTo == expr.refersTo) {
-                rhs = loopVar
-            }
-            comparisonResult = computeBinaryOpEffect(lhs, rhs, cond)
+        val range = result[expr]
+        if (range == null || !range.isFinite) {
+            return null
         }
-        return result
-    }
 
-    private fun computeUnaryOpEffect(input: Any, expr: UnaryOperator): Any? {
-        return when (expr.operatorCode) {
-            "-" -> {
-                when (input) {
-                    is Collection<*> -> input.map { n -> (n as? Number)?.negate() }
-                    is Number -> input.negate()
-                    else -> cannotEvaluate(expr, this)
-                }
-            }
-            "--" -> {
-                when (input) {
-                    is Number -> input.decrement()
-                    is Collection<*> -> input.map { n -> (n as? Number)?.decrement() }
-                    else -> cannotEvaluate(expr, this)
-                }
-            }
-            "++" -> {
-                when (input) {
-                    is Number -> input.increment()
-                    is Collection<*> -> input.map { n -> (n as? Number)?.increment() }
-                    else -> cannotEvaluate(expr, this)
-                }
-            }
-            else -> cannotEvaluate(expr, this)
+        return if (range.upper - range.lower < MAX_ENUMERATED_VALUES) {
+            (range.lower..range.upper).toMutableSet()
+        } else {
+            range.toNumberSet()
         }
     }
 }
@@ -77,3 +77,161 @@ class ConcreteNumberSet(var values: MutableSet<Long> = mutableSetOf()) : NumberS
         values.clear()
     }
 }
+
+/**
+ * An immutable interval of [Long] values, which serves as abstract domain of the
+ * [IntervalAnalysis]. The bounds [Long.MIN_VALUE] and [Long.MAX_VALUE] represent negative and
+ * positive infinity and all arithmetic operations saturate at these bounds. An interval with
+ * [lower] > [upper] is empty.
+ */
+data class LongInterval(val lower: Long, val upper: Long) {
+    companion object {
+        const val NEG_INF = Long.MIN_VALUE
+        const val POS_INF = Long.MAX_VALUE
+
+        /** The interval containing all values. */
+        @JvmField val TOP = LongInterval(NEG_INF, POS_INF)
+
+        /** Creates an interval containing only [value]. */
+        @JvmStatic
+        fun of(value: Long): LongInterval {
+            return LongInterval(value, value)
+        }
+
+        private fun isInf(a: Long) = a == NEG_INF || a == POS_INF
+
+        private fun infWithSign(positive: Boolean) = if (positive) POS_INF else NEG_INF
+
+        private fun add(a: Long, b: Long): Long {
+            if (isInf(a)) return a
+            if (isInf(b)) return b
+            val r = a + b
+            // Overflow iff both operands have the same sign which differs from the result
+            return if (((a xor r) and (b xor r)) < 0) infWithSign(a > 0) else r
+        }
+
+        private fun neg(a: Long): Long {
+            return when (a) {
+                NEG_INF -> POS_INF
+                POS_INF -> NEG_INF
+                else -> -a
+            }
+        }
+
+        private fun mul(a: Long, b: Long): Long {
+            if (a == 0L || b == 0L) return 0
+            if (isInf(a) || isInf(b)) return infWithSign((a > 0) == (b > 0))
+            val r = a * b
+            return if (r / b != a) infWithSign((a > 0) == (b > 0)) else r
+        }
+
+        private fun div(a: Long, b: Long): Long {
+            if (isInf(a)) return infWithSign((a > 0) == (b > 0))
+            if (isInf(b)) return 0
+            return a / b
+        }
+    }
+
+    val isEmpty: Boolean
+        get() = lower > upper
+
+    /** Whether both bounds of this (non-empty) interval are finite. */
+    val isFinite: Boolean
+        get() = !isEmpty && !isInf(lower) && !isInf(upper)
+
+    operator fun contains(value: Long): Boolean {
+        return value in lower..upper
+    }
+
+    /** The smallest interval containing this and [other]. */
+    fun join(other: LongInterval): LongInterval {
+        if (isEmpty) return other
+        if (other.isEmpty) return this
+        return LongInterval(minOf(lower, other.lower), maxOf(upper, other.upper))
+    }
+
+    /** The intersection of this and [other], which might be empty. */
+    fun meet(other: LongInterval): LongInterval {
+        return LongInterval(maxOf(lower, other.lower), minOf(upper, other.upper))
+    }
+
+    /** Extrapolates each bound of this interval which is not stable in [other] to infinity. */
+    fun widen(other: LongInterval): LongInterval {
+        if (isEmpty) return other
+        if (other.isEmpty) return this
+        return LongInterval(
+            if (other.lower < lower) NEG_INF else lower,
+            if (other.upper > upper) POS_INF else upper
+        )
+    }
+
+    /** Refines the infinite bounds of this interval with the ones of [other]. */
+    fun narrow(other: LongInterval): LongInterval {
+        return LongInterval(
+            if (lower == NEG_INF) other.lower else lower,
+            if (upper == POS_INF) other.upper else upper
+        )
+    }
+
+    operator fun plus(other: LongInterval): LongInterval {
+        return LongInterval(add(lower, other.lower), add(upper, other.upper))
+    }
+
+    operator fun minus(other: LongInterval): LongInterval {
+        return LongInterval(add(lower, neg(other.upper)), add(upper, neg(other.lower)))
+    }
+
+    operator fun unaryMinus(): LongInterval {
+        return LongInterval(neg(upper), neg(lower))
+    }
+
+    operator fun times(other: LongInterval): LongInterval {
+        val corners =
+            listOf(
+                mul(lower, other.lower),
+                mul(lower, other.upper),
+                mul(upper, other.lower),
+                mul(upper, other.upper)
+            )
+        return LongInterval(corners.min(), corners.max())
+    }
+
+    operator fun div(other: LongInterval): LongInterval {
+        if (0L in other) return TOP
+        val corners =
+            listOf(
+                div(lower, other.lower),
+                div(lower, other.upper),
+                div(upper, other.lower),
+                div(upper, other.upper)
+            )
+        return LongInterval(corners.min(), corners.max())
+    }
+
+    operator fun rem(other: LongInterval): LongInterval {
+        if (!other.isFinite) {
+            return if (lower >= 0) LongInterval(0, upper) else TOP
+        }
+        // The result is smaller than the largest absolute value of the divisor and takes the sign
+        // of the dividend
+        val bound = maxOf(neg(other.lower), other.upper) - 1
+        if (bound < 0) return TOP
+        return if (lower >= 0) LongInterval(0, minOf(upper, bound)) else LongInterval(-bound, bound)
+    }
+
+    /** Converts this interval into an [Interval] which can be consumed by [min] and [max]. */
+    fun toNumberSet(): Interval {
+        val interval = Interval()
+        if (!isEmpty) {
+            interval.addValue(lower)
+            interval.addValue(upper)
+        }
+        return interval
+    }
+
+    override fun toString(): String {
+        val lowerString = if (lower == NEG_INF) "-inf" else lower.toString()
+        val upperString = if (upper == POS_INF) "+inf" else upper.toString()
+        return "[$lowerString, $upperString]"
+    }
+}
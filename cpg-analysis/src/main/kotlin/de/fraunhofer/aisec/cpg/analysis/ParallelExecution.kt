@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.analysis
+
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Holds the thread pool shared by the concurrent analyses of this module. Its threads are daemon
+ * threads which are created on demand and terminate after being idle for a minute, so the pool
+ * never has to be shut down. As the pool is not limited, nested concurrent analyses cannot block
+ * each other.
+ */
+internal object ParallelExecution {
+    private val threads = AtomicInteger()
+
+    private val shared: ExecutorService =
+        Executors.newCachedThreadPool { runnable ->
+            Thread(runnable, "cpg-analysis-${threads.incrementAndGet()}").apply { isDaemon = true }
+        }
+
+    /**
+     * Returns an [Executor] which runs its tasks on the shared thread pool, but at most
+     * [parallelism] of them at the same time. The tasks are started in the order of submission.
+     */
+    fun executor(parallelism: Int): Executor = BoundedExecutor(parallelism)
+
+    private class BoundedExecutor(private val parallelism: Int) : Executor {
+        private val queue = ConcurrentLinkedQueue<Runnable>()
+        private val running = AtomicInteger()
+
+        override fun execute(command: Runnable) {
+            queue.add(command)
+            startWorker()
+        }
+
+        /** Starts a worker on the shared pool if there are queued tasks and a free slot. */
+        private fun startWorker() {
+            while (true) {
+                val current = running.get()
+                if (current >= parallelism || queue.isEmpty()) {
+                    return
+                }
+                if (running.compareAndSet(current, current + 1)) {
+                    shared.execute { work() }
+                    return
+                }
+            }
+        }
+
+        private fun work() {
+            try {
+                while (true) {
+                    val task = queue.poll() ?: break
+                    task.run()
+                }
+            } finally {
+                running.decrementAndGet()
+                // A task may have been queued after the last poll but before the decrement
+                startWorker()
+            }
+        }
+    }
+}
@@ -35,7 +35,7 @@ import org.slf4j.LoggerFactory
  * Simple evaluation of the size of an object. Right now, it can only support a statically given
  * size of arrays and strings.
  */
-class SizeEvaluator : ValueEvaluator() {
+class SizeEvaluator(cache: ValueEvaluationCache? = null) : ValueEvaluator(cache = cache) {
     override val log: Logger
         get() = LoggerFactory.getLogger(SizeEvaluator::class.java)
 
@@ -43,7 +43,7 @@ class SizeEvaluator : ValueEvaluator() {
         if (node is String) {
             return node.length
         }
-        val result = evaluateInternal(node as? Node, 0)
+        val result = evaluateCached(node as? Node, 0)
         return result
     }
 
@@ -54,12 +54,12 @@ class SizeEvaluator : ValueEvaluator() {
         return when (node) {
             is ArrayCreationExpression ->
                 if (node.initializer != null) {
-                    evaluateInternal(node.initializer, depth + 1)
+                    evaluateCached(node.initializer, depth + 1)
                 } else {
-                    evaluateInternal(node.dimensions.firstOrNull(), depth + 1)
+                    evaluateCached(node.dimensions.firstOrNull(), depth + 1)
                 }
-            is VariableDeclaration -> evaluateInternal(node.initializer, depth + 1)
-            is DeclaredReferenceExpression -> evaluateInternal(node.refersTo, depth + 1)
+            is VariableDeclaration -> evaluateCached(node.initializer, depth + 1)
+            is DeclaredReferenceExpression -> evaluateCached(node.refersTo, depth + 1)
             // For a literal, we can just take its value, and we are finished
             is Literal<*> -> if (node.value is String) (node.value as String).length else node.value
             is ArraySubscriptionExpression -> evaluate(node.arrayExpression)
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.analysis
+
+import de.fraunhofer.aisec.cpg.TranslationResult
+import de.fraunhofer.aisec.cpg.graph.GraphModifications
+import de.fraunhofer.aisec.cpg.graph.Node
+
+/**
+ * A cache for the results of [ValueEvaluator]s which can be shared between multiple evaluator
+ * instances, e.g., all evaluations of a query or a pass. Results are stored per node (by identity)
+ * and kind of evaluator, i.e., its class and its [ValueEvaluator.cannotEvaluate] function.
+ *
+ * Since all results are derived from the DFG, the cache is cleared as soon as DFG edges of its graph
+ * have been modified (see [GraphModifications.dfgCount]). Cached results are shared and must not
+ * be modified.
+ */
+class ValueEvaluationCache(
+    /** The modifications of the graph whose nodes are evaluated. */
+    private val modifications: GraphModifications
+) {
+    private val results = HashMap<Key, Entry>()
+    private var generation = modifications.dfgCount
+
+    /** The number of evaluations which were answered by the cache. */
+    var hits = 0L
+        private set
+
+    /** The number of evaluations which had to be computed. */
+    var misses = 0L
+        private set
+
+    /** The number of currently cached results. */
+    val size: Int
+        @Synchronized get() = results.size
+
+    @Synchronized
+    internal fun get(evaluator: ValueEvaluator, node: Node): Entry? {
+        invalidateIfOutdated()
+        val entry = results[Key(evaluator.javaClass, evaluator.cannotEvaluate, node)]
+        if (entry != null) hits++ else misses++
+        return entry
+    }
+
+    @Synchronized
+    internal fun put(evaluator: ValueEvaluator, node: Node, entry: Entry) {
+        invalidateIfOutdated()
+        results[Key(evaluator.javaClass, evaluator.cannotEvaluate, node)] = entry
+    }
+
+    /** Removes all cached results. */
+    @Synchronized
+    fun clear() {
+        results.clear()
+        generation = modifications.dfgCount
+    }
+
+    private fun invalidateIfOutdated() {
+        if (generation != modifications.dfgCount) {
+            clear()
+        }
+    }
+
+    /**
+     * A cached [value] together with the [path] of nodes visited to compute it and the [height],
+     * i.e., how much deeper than the node itself the evaluation went.
+     */
+    internal class Entry(val value: Any?, val path: List<Node>, val height: Int)
+
+    /** Identifies a node by identity rather than by [Node.equals]. */
+    private class Key(val kind: Class<*>, val cannotEvaluate: Any, val node: Node) {
+        override fun equals(other: Any?): Boolean {
+            return other is Key &&
+                other.node === node &&
+                other.kind == kind &&
+                other.cannotEvaluate == cannotEvaluate
+        }
+
+        override fun hashCode(): Int {
+            return 31 * System.identityHashCode(node) + kind.hashCode()
+        }
+    }
+
+    companion object {
+        /**
+         * Returns the cache shared by all evaluations on the graph of [node], e.g., the evaluators
+         * of queries, so that its results survive between them.
+         */
+        @JvmStatic
+        fun of(node: Node?): ValueEvaluationCache {
+            val modifications = GraphModifications.of(node)
+            return modifications.shared(ValueEvaluationCache::class.java) {
+                ValueEvaluationCache(modifications)
+            }
+        }
+
+        /** Returns the cache shared by all evaluations on the nodes of [result]. */
+        @JvmStatic
+        fun forResult(result: TranslationResult): ValueEvaluationCache {
+            val modifications = result.scopeManager.modifications
+            return modifications.shared(ValueEvaluationCache::class.java) {
+                ValueEvaluationCache(modifications)
+            }
+        }
+    }
+}
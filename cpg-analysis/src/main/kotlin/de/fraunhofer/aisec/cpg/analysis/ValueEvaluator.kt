@@ -29,7 +29,9 @@ import de.fraunhofer.aisec.cpg.graph.AccessValues
 import de.fraunhofer.aisec.cpg.graph.Node
 import de.fraunhofer.aisec.cpg.graph.declarations.VariableDeclaration
 import de.fraunhofer.aisec.cpg.graph.statements.expressions.*
+import java.util.IdentityHashMap
 import kotlin.UnsupportedOperationException
+import kotlin.math.max
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 
@@ -49,6 +51,10 @@ class CouldNotResolve
  * literal values. Furthermore, its behaviour can be adjusted by implementing the [cannotEvaluate]
  * function, which is called when the default behaviour would not be able to resolve the value. This
  * way, language specific features such as string formatting can be modelled.
+ *
+ * Since the same declarations and initializers are often evaluated over and over again, results
+ * (including intermediate ones) can be memoized in a [ValueEvaluationCache], which is shared
+ * between evaluators.
  */
 open class ValueEvaluator(
     /**
@@ -62,7 +68,12 @@ open class ValueEvaluator(
         } else {
             CouldNotResolve()
         }
-    }
+    },
+    /**
+     * An optional cache for the results of evaluations, which can be shared between multiple
+     * evaluators, e.g., using [ValueEvaluationCache.forResult].
+     */
+    val cache: ValueEvaluationCache? = null
 ) {
     protected open val log: Logger
         get() = LoggerFactory.getLogger(ValueEvaluator::class.java)
@@ -70,10 +81,77 @@ open class ValueEvaluator(
     /** This property contains the path of the latest execution of [evaluateInternal]. */
     val path: MutableList<Node> = mutableListOf()
 
+    /** The nodes which are currently being evaluated, to detect cycles in the DFG. */
+    private val inProgress = IdentityHashMap<Node, Int>()
+
+    /** Whether the current evaluation depends on its context and must not be cached. */
+    private var contextDependent = false
+
+    /** The deepest depth reached by the current evaluation. */
+    private var deepest = 0
+
     open fun evaluate(node: Any?): Any? {
         if (node !is Node) return node
 
-        return evaluateInternal(node as? Node, 0)
+        return evaluateCached(node as? Node, 0)
+    }
+
+    /**
+     * Evaluates [node] using [evaluateInternal], but looks up and stores the result in the [cache]
+     * if one is set. All recursive evaluations should use this function, so that intermediate
+     * results are cached as well. Results which depend on the context of the evaluation, e.g., on
+     * the current [path] or on a cycle in the DFG, are not cached (see [markContextDependent]).
+     */
+    protected fun evaluateCached(node: Node?, depth: Int): Any? {
+        val cache = cache
+        if (cache == null || node == null) {
+            return evaluateInternal(node, depth)
+        }
+
+        val entry = cache.get(this, node)
+        if (entry != null && canReuse(entry.height, depth)) {
+            path += entry.path
+            deepest = max(deepest, depth + entry.height)
+            return entry.value
+        }
+
+        val start = path.size
+        val outerContextDependent = contextDependent
+        val outerDeepest = deepest
+        // If the node is already being evaluated, we are in a cycle of the DFG. The results within
+        // the cycle depend on where we entered it, so they are not cached.
+        val active = inProgress.getOrDefault(node, 0)
+        inProgress[node] = active + 1
+        contextDependent = active > 0
+        deepest = depth
+        try {
+            val result = evaluateInternal(node, depth)
+            if (!contextDependent) {
+                val visited = path.subList(start, path.size).toList()
+                cache.put(this, node, ValueEvaluationCache.Entry(result, visited, deepest - depth))
+            }
+            return result
+        } finally {
+            if (active > 0) inProgress[node] = active else inProgress.remove(node)
+            contextDependent = contextDependent || outerContextDependent
+            deepest = max(deepest, outerDeepest)
+        }
+    }
+
+    /**
+     * Marks the current evaluation (and all evaluations depending on it) as dependent on its
+     * context, so that its result is not cached.
+     */
+    protected fun markContextDependent() {
+        contextDependent = true
+    }
+
+    /**
+     * Checks if a cached result, whose evaluation went [height] levels deeper than the node itself,
+     * can be used for an evaluation at [depth].
+     */
+    protected open fun canReuse(height: Int, depth: Int): Boolean {
+        return true
     }
 
     /** Tries to evaluate this node. Anything can happen. */
@@ -82,15 +160,15 @@ open class ValueEvaluator(
         node?.let { this.path += it }
 
         when (node) {
-            is ArrayCreationExpression -> return evaluateInternal(node.initializer, depth + 1)
-            is VariableDeclaration -> return evaluateInternal(node.initializer, depth + 1)
+            is ArrayCreationExpression -> return evaluateCached(node.initializer, depth + 1)
+            is VariableDeclaration -> return evaluateCached(node.initializer, depth + 1)
             // For a literal, we can just take its value, and we are finished
             is Literal<*> -> return node.value
             is DeclaredReferenceExpression -> return handleDeclaredReferenceExpression(node, depth)
             is UnaryOperator -> return handleUnaryOp(node, depth)
             is BinaryOperator -> return handleBinaryOperator(node, depth)
             // Casts are just a wrapper in this case, we are interested in the inner expression
-            is CastExpression -> return this.evaluateInternal(node.expression, depth + 1)
+            is CastExpression -> return this.evaluateCached(node.expression, depth + 1)
             is ArraySubscriptionExpression -> return handleArraySubscriptionExpression(node, depth)
             // While we are not handling different paths of variables with If statements, we can
             // easily be partly path-sensitive in a conditional expression
@@ -108,10 +186,10 @@ open class ValueEvaluator(
      */
     protected open fun handleBinaryOperator(expr: BinaryOperator, depth: Int): Any? {
         // Resolve rhs
-        val rhsValue = evaluateInternal(expr.rhs, depth + 1)
+        val rhsValue = evaluateCached(expr.rhs, depth + 1)
 
         // Resolve lhs
-        val lhsValue = evaluateInternal(expr.lhs, depth + 1)
+        val lhsValue = evaluateCached(expr.lhs, depth + 1)
 
         return computeBinaryOpEffect(lhsValue, rhsValue, expr)
     }
@@ -268,25 +346,25 @@ open class ValueEvaluator(
     protected open fun handleUnaryOp(expr: UnaryOperator, depth: Int): Any? {
         return when (expr.operatorCode) {
             "-" -> {
-                when (val input = evaluateInternal(expr.input, depth + 1)) {
+                when (val input = evaluateCached(expr.input, depth + 1)) {
                     is Number -> input.negate()
                     else -> cannotEvaluate(expr, this)
                 }
             }
             "--" -> {
-                when (val input = evaluateInternal(expr.input, depth + 1)) {
+                when (val input = evaluateCached(expr.input, depth + 1)) {
                     is Number -> input.decrement()
                     else -> cannotEvaluate(expr, this)
                 }
             }
             "++" -> {
-                when (val input = evaluateInternal(expr.input, depth + 1)) {
+                when (val input = evaluateCached(expr.input, depth + 1)) {
                     is Number -> input.increment()
                     else -> cannotEvaluate(expr, this)
                 }
             }
-            "*" -> evaluateInternal(expr.input, depth + 1)
-            "&" -> evaluateInternal(expr.input, depth + 1)
+            "*" -> evaluateCached(expr.input, depth + 1)
+            "&" -> evaluateCached(expr.input, depth + 1)
             else -> cannotEvaluate(expr, this)
         }
     }
@@ -305,7 +383,7 @@ open class ValueEvaluator(
         val ile = array?.initializer as? InitializerListExpression
 
         ile?.let {
-            return evaluateInternal(
+            return evaluateCached(
                 it.initializers
                     .filterIsInstance(KeyValueExpression::class.java)
                     .firstOrNull { kve ->
@@ -321,7 +399,7 @@ open class ValueEvaluator(
         }
 
         if (expr.arrayExpression is ArraySubscriptionExpression) {
-            return evaluateInternal(expr.arrayExpression, depth + 1)
+            return evaluateCached(expr.arrayExpression, depth + 1)
         }
 
         return cannotEvaluate(expr, this)
@@ -330,13 +408,13 @@ open class ValueEvaluator(
     protected open fun handleConditionalExpression(expr: ConditionalExpression, depth: Int): Any? {
         // Assume that condition is a binary operator
         if (expr.condition is BinaryOperator) {
-            val lhs = evaluateInternal((expr.condition as? BinaryOperator)?.lhs, depth)
-            val rhs = evaluateInternal((expr.condition as? BinaryOperator)?.rhs, depth)
+            val lhs = evaluateCached((expr.condition as? BinaryOperator)?.lhs, depth)
+            val rhs = evaluateCached((expr.condition as? BinaryOperator)?.rhs, depth)
 
             return if (lhs == rhs) {
-                evaluateInternal(expr.thenExpr, depth + 1)
+                evaluateCached(expr.thenExpr, depth + 1)
             } else {
-                evaluateInternal(expr.elseExpr, depth + 1)
+                evaluateCached(expr.elseExpr, depth + 1)
             }
         }
 
@@ -358,7 +436,7 @@ open class ValueEvaluator(
 
         return if (prevDFG.size == 1) {
             // There's only one incoming DFG edge, so we follow this one.
-            evaluateInternal(prevDFG.first(), depth + 1)
+            evaluateCached(prevDFG.first(), depth + 1)
         } else if (prevDFG.size > 1) {
             // We cannot have more than ONE valid solution, so we need to abort
             log.warn(
@@ -396,6 +474,11 @@ open class ValueEvaluator(
         // Determines if we are in case 2
         val isCase2 = path.size > 2 && ref in path.subList(0, path.size - 2)
 
+        if (ref.access == AccessValues.READWRITE) {
+            // The result depends on the current path
+            markContextDependent()
+        }
+
         if (ref.access == AccessValues.READWRITE && isCase2) {
             // Remove the self reference
             list =
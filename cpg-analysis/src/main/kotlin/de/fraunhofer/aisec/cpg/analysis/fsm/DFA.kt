@@ -145,6 +145,21 @@ class DFA : Cloneable {
         return newDFA
     }
 
+    /**
+     * Creates a lightweight copy of the FSM which continues the current execution independently.
+     * In contrast to [clone], the copy shares the states and edges with this FSM and only copies
+     * the current state and the (shallow) execution trace. It must therefore only be used once the
+     * structure of the FSM is complete, e.g., when following multiple paths during the evaluation.
+     */
+    fun fork(): DFA {
+        val newDFA = DFA()
+        newDFA.states = states
+        newDFA.stateCounter = stateCounter
+        newDFA.currentState = currentState
+        newDFA.executionTrace = executionTrace.toMutableList()
+        return newDFA
+    }
+
     /** Checks if the FSM is currently in an accepting state. */
     fun isAccepted(): Boolean {
         return currentState?.isAcceptingState == true
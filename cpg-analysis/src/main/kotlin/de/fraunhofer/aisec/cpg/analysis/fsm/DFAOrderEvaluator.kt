@@ -25,6 +25,7 @@
  */
 package de.fraunhofer.aisec.cpg.analysis.fsm
 
+import de.fraunhofer.aisec.cpg.analysis.ParallelExecution
 import de.fraunhofer.aisec.cpg.graph.Node
 import de.fraunhofer.aisec.cpg.graph.declarations.ParamVariableDeclaration
 import de.fraunhofer.aisec.cpg.graph.declarations.VariableDeclaration
@@ -36,6 +37,7 @@ import de.fraunhofer.aisec.cpg.graph.statements.expressions.ConstructExpression
 import de.fraunhofer.aisec.cpg.graph.statements.expressions.DeclaredReferenceExpression
 import de.fraunhofer.aisec.cpg.graph.statements.expressions.MemberCallExpression
 import de.fraunhofer.aisec.cpg.passes.astParent
+import java.util.concurrent.CompletableFuture
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 
@@ -60,7 +62,6 @@ open class DFAOrderEvaluator(
     var thisPositionOfNode: Map<Node, Int> = mapOf(),
     var eliminateUnreachableCode: Boolean = true
 ) {
-    private val nodeIDtoEOGPathSet = mutableMapOf<Long, MutableSet<String>>()
     private val log: Logger = LoggerFactory.getLogger(DFAOrderEvaluator::class.java)
 
     /**
@@ -117,6 +118,13 @@ open class DFAOrderEvaluator(
      * given by the [dfa]. If the sequence of statements violates the rules, the method returns
      * `false`, if it is correct, the method returns `true`. The flag [stopOnWrongBase] makes the
      * FSM stop evaluation of a base if an unexpected operation was observed for that base.
+     *
+     * Paths which reach a node in the same state as an earlier path are merged into the earlier
+     * one, as they would behave identically from there on. Hence, the actions
+     * [actionMissingTransitionForNode], [actionNonAcceptingTermination] and
+     * [actionAcceptingTermination] are invoked once per distinct state rather than once per path:
+     * An order violation after a sequence of n unrelated branches is reported once and not 2^n
+     * times.
      */
     fun evaluateOrder(dfa: DFA, startNode: Node, stopOnWrongBase: Boolean = true): Boolean {
         // First dummy edge to simulate that we are in the start state.
@@ -124,29 +132,23 @@ open class DFAOrderEvaluator(
             Triple(dfa.currentState!!, startNode, BaseOpEdge(DFA.EPSILON, "", dfa.currentState!!))
         )
 
-        // Stores the current markings in the FSM (i.e., which base is at which FSM-node).
-        val baseToFSM = mutableMapOf<String, DFA>()
-        // Stores the states (i.e., nodes and their states in the fsm) to avoid endless loops.
-        val seenStates = mutableSetOf<String>()
+        // Holds the markings in the FSM, the paths and the states seen so far.
+        val state = OrderEvaluationState(dfa)
         // Maps a node to all the paths which were followed to reach the node.
-        startNode.addEogPath("")
-        // Collect bases (with their eogPath) which have already been found to be incorrect due to
-        // an out-of-order call.
-        val wrongBases = mutableSetOf<String>()
+        state.addEogPath(startNode, state.root)
 
         var isValidOrder = true
-        val interproceduralFlows = mutableMapOf<String, Boolean>()
 
-        val worklist = mutableListOf(startNode) // Keeps the nodes which have to be processed.
+        val worklist = ArrayDeque<Node>() // Keeps the nodes which have to be processed.
+        worklist.add(startNode)
         while (worklist.isNotEmpty()) {
             // Pop the next item from the worklist.
             val node = worklist.removeFirst()
             // Add the node to be processed together with an encoding of the path/fsm-state
             // to the list of already processed states.
-            val currentState = getStateSnapshot(node.id!!, baseToFSM)
-            seenStates.add(currentState)
+            state.seenStates.add(state.getStateSnapshot(node.id!!))
 
-            val eogPathSet = node.getEogPaths()
+            val eogPathSet = state.getEogPaths(node)
             if (eogPathSet == null) {
                 log.debug("Error during order-evaluation, no path set for node ${node.id}")
                 continue
@@ -155,45 +157,39 @@ open class DFAOrderEvaluator(
             // Iterate through the paths which can reach the current node and
             // try to make the transition in the DFA and retrieve the next nodes
             // to process for each of the paths.
-            for (eogPath in eogPathSet) {
+            for (eogPath in eogPathSet.toList()) {
                 // Currently, we only handle CallExpressions as "operation".
                 // Check if the current node is of interest for the DFA.
                 // This is the case if the map nodesToOp contains the node.
                 if (node is CallExpression && nodeToRelevantMethod.contains(node)) {
-                    val baseAndOp = getBaseAndOpOfNode(node, eogPath, interproceduralFlows)
+                    val baseAndOp = getBaseAndOpOfNode(node, eogPath, state)
 
                     if (
                         baseAndOp != null &&
-                            (!stopOnWrongBase ||
-                                wrongBases.none { wb ->
-                                    wb.endsWith(baseAndOp.first.split("|")[1]) &&
-                                        baseAndOp.first.startsWith(wb.split("|")[0])
-                                })
+                            (!stopOnWrongBase || !state.isWrongBase(baseAndOp.first))
                     ) {
                         // Make a transition in the DFA. In case, it is not possible,
                         // there was an error in the order of statements and allOk is
                         // set to false. If this is the first time we use the base (i.e.,
-                        // we're at the starting node of the DFA), we clone the fsm and
+                        // we're at the starting node of the DFA), we copy the fsm and
                         // start the analysis for that base from scratch.
                         val allOk =
-                            baseToFSM
-                                .computeIfAbsent(baseAndOp.first) { dfa.clone() }
-                                .makeTransitionWithOp(baseAndOp.second, node)
+                            state.makeTransition(baseAndOp.first, baseAndOp.second, node)
 
                         if (!allOk) {
                             actionMissingTransitionForNode(
                                 node,
-                                baseToFSM.computeIfAbsent(baseAndOp.first) { dfa.clone() },
-                                interproceduralFlows[baseAndOp.first] == true
+                                state.fsm(baseAndOp.first),
+                                state.interproceduralFlows[baseAndOp.first] == true
                             )
-                            wrongBases.add(baseAndOp.first)
+                            state.addWrongBase(baseAndOp.first)
                             isValidOrder = false
                         } else {
                             // Reset the flag interproceduralFlow to false because the effects of
                             // the previous flow should
                             // not affect the subsequent calls. We just had a successful transition
                             // in the DFA.
-                            interproceduralFlows[baseAndOp.first] = false
+                            state.setInterproceduralFlow(baseAndOp.first, false)
                         }
                     }
                 } else if (node is CallExpression) {
@@ -203,40 +199,66 @@ open class DFAOrderEvaluator(
                     // If we run into actionMissingTransitionForNode() for the next relevant node,
                     // it could be due to missing the effects of this method call.
                     callUsesInterestingBase(node, eogPath).forEach {
-                        interproceduralFlows[it] = true
+                        state.setInterproceduralFlow(it, true)
                     }
                 }
 
                 // Retrieve the nodes which have to be processed later and add them at the
                 // end of the worklist.
-                worklist.addAll(
-                    getNextNodes(node, eogPath, baseToFSM, seenStates, interproceduralFlows)
-                )
+                worklist.addAll(getNextNodes(node, eogPath, state))
             }
             // The current node has been analyzed with all its eogPaths.
             // Remove from map, if we visit it in another iteration
-            nodeIDtoEOGPathSet.remove(node.id)
+            state.removeEogPaths(node)
         }
 
         // Check if all the FSM are in an accepting state
-        for (e in baseToFSM.entries) {
+        for (e in state.baseToFSM.entries) {
             log.info("Checking fsm in current state ${e.value.currentState}")
+            val interproceduralFlow = state.interproceduralFlows[e.key] == true
             if (!e.value.isAccepted()) {
-                actionNonAcceptingTermination(e.key, e.value, interproceduralFlows[e.key] == true)
+                actionNonAcceptingTermination(e.key.toString(), e.value, interproceduralFlow)
                 isValidOrder = false
             } else {
-                actionAcceptingTermination(e.key, e.value, interproceduralFlows[e.key] == true)
+                actionAcceptingTermination(e.key.toString(), e.value, interproceduralFlow)
             }
         }
 
         return isValidOrder
     }
 
+    /**
+     * Evaluates the order for each of the [startNodes] independently, see [evaluateOrder]. Each
+     * start node is evaluated with its own copy of [dfa] and the evaluations run concurrently on up
+     * to [parallelism] threads. Hence, the actions of subclasses may be invoked concurrently and
+     * have to be thread-safe if [parallelism] is larger than 1.
+     *
+     * Returns the results in the order of [startNodes].
+     */
+    fun evaluateOrder(
+        dfa: DFA,
+        startNodes: List<Node>,
+        stopOnWrongBase: Boolean = true,
+        parallelism: Int = Runtime.getRuntime().availableProcessors()
+    ): List<Boolean> {
+        if (parallelism <= 1 || startNodes.size <= 1) {
+            return startNodes.map { evaluateOrder(dfa.fork(), it, stopOnWrongBase) }
+        }
+
+        val executor = ParallelExecution.executor(parallelism)
+        val futures =
+            startNodes.map {
+                val fsm = dfa.fork()
+                CompletableFuture.supplyAsync({ evaluateOrder(fsm, it, stopOnWrongBase) }, executor)
+            }
+        return futures.map { it.join() }
+    }
+
     /**
      * Checks if the call expression [node] has a considered base as an argument. If so, this base
      * could be used inside the function called and we might miss transitions in the DFA.
      */
-    private fun callUsesInterestingBase(node: CallExpression, eogPath: String): List<String> {
+    private fun callUsesInterestingBase(node: CallExpression, eogPath: EogPath): List<PathBase> {
         val allUsedBases =
             node.arguments
                 .map { arg -> (arg as? DeclaredReferenceExpression)?.refersTo }
@@ -249,7 +271,7 @@ open class DFAOrderEvaluator(
             allUsedBases.add((node.base as DeclaredReferenceExpression).refersTo)
         }
 
-        val prefixedBases = allUsedBases.map { "$eogPath|${it?.name}.${it?.id}" }
+        val prefixedBases = allUsedBases.map { PathBase(eogPath, "${it?.name}.${it?.id}") }
         return prefixedBases
     }
 
@@ -289,14 +311,14 @@ open class DFAOrderEvaluator(
      * If the base cannot be retrieved, or if the [node] is not considered by the analysis (i.e., no
      * entry for [node] exists in the map [consideredBases]), the method returns `null`.
      *
-     * The [interproceduralFlows] map is updated if the base is an argument of the function under
-     * analysis.
+     * The interprocedural flows of the [state] are updated if the base is an argument of the
+     * function under analysis.
      */
     private fun getBaseAndOpOfNode(
         node: CallExpression,
-        eogPath: String,
-        interproceduralFlows: MutableMap<String, Boolean>
-    ): Pair<String, String>? {
+        eogPath: EogPath,
+        state: OrderEvaluationState
+    ): Pair<PathBase, String>? {
         // The "base" node, on which the DFA is based on. Ideally, this is a variable declaration in
         // the end.
         var base = getBaseOfNode(node)
@@ -308,10 +330,10 @@ open class DFAOrderEvaluator(
         if (base != null && consideredBases.contains(base.id)) {
             // We add the path as prefix to the base in order to differentiate between
             // the different paths of execution which both can use the same base.
-            val prefixedBase = "$eogPath|${base.name}.${base.id}"
+            val prefixedBase = PathBase(eogPath, "${base.name}.${base.id}")
             if (base is ParamVariableDeclaration) {
                 // The base was the parameter of the function? We have an inter-procedural flow!
-                interproceduralFlows[prefixedBase] = true
+                state.setInterproceduralFlow(prefixedBase, true)
             }
             return Pair(prefixedBase, nodeToRelevantMethod[node]!!)
         }
@@ -325,14 +347,6 @@ open class DFAOrderEvaluator(
         return null
     }
 
-    private fun Node.addEogPath(path: String) {
-        nodeIDtoEOGPathSet.computeIfAbsent(this.id!!) { mutableSetOf() }.add(path)
-    }
-
-    private fun Node.getEogPaths(): Set<String>? {
-        return nodeIDtoEOGPathSet[this.id]
-    }
-
     /**
      * If it's not an object-oriented language, we need to retrieve the base in a different way.
      * Usually, it's the argument at index 0 but here, it's more obscure.
@@ -377,19 +391,17 @@ open class DFAOrderEvaluator(
      * which have to be analyzed later.
      *
      * If the graph contains a single next statement, we use that node. We do not need to change the
-     * [eogPath] and simply add it to [nodeIDtoEOGPathSet] for the respective node.
+     * [eogPath] and simply add it to the paths of the respective node.
      *
      * If the graph contains multiple next statements, we copy the current DFA for each of the paths
-     * and generate a unique base for each path. The different FSMs are kept in [baseToFSM]. In the
+     * and generate a unique base for each path. The different FSMs are kept in the [state]. In the
      * case of multiple possible next statements, we also generate a different eogPath for each
-     * statement and add the path ([eogPath]) to [nodeIDtoEOGPathSet].
+     * statement and add the path ([eogPath]) to the paths of the respective node.
      */
     private fun getNextNodes(
         node: Node,
-        eogPath: String,
-        baseToFSM: MutableMap<String, DFA>,
-        seenStates: MutableSet<String>,
-        interproceduralFlows: MutableMap<String, Boolean>
+        eogPath: EogPath,
+        state: OrderEvaluationState
     ): List<Node> {
         val outNodes = mutableListOf<Node>()
         if (eliminateUnreachableCode) {
@@ -407,13 +419,13 @@ open class DFAOrderEvaluator(
         if (outNodes.size == 1 && node.nextEOG.size == 1) {
             // We only have one node following this node, so we
             // simply propagate the current eogPath to the next node.
-            outNodes[0].addEogPath(eogPath)
+            state.addEogPath(outNodes[0], eogPath)
         } else if (outNodes.size == 1) {
             // We still add this node but this time, we also check if have seen the state it before
             // to avoid endless loops etc.
-            outNodes[0].addEogPath(eogPath)
-            val stateOfNext: String = getStateSnapshot(outNodes[0].id!!, baseToFSM)
-            if (seenStates.contains(stateOfNext)) {
+            state.addEogPath(outNodes[0], eogPath)
+            val stateOfNext = state.getStateSnapshot(outNodes[0].id!!)
+            if (state.seenStates.contains(stateOfNext)) {
                 log.debug("Node/FSM state already visited: ${stateOfNext}. Remove from next nodes.")
                 outNodes.removeAt(0)
             }
@@ -421,61 +433,31 @@ open class DFAOrderEvaluator(
             // We have multiple outgoing nodes, so we generate multiple new entries:
             //  - Each node gets its own eogPath which is split up
             //  - Each node gets a copy of the current DFA
-            val newBases = mutableMapOf<String, DFA>()
-            // Remove all the entries from baseToFSM which are now replaced with multiple new ones.
-            // We store these entries without the eogPath prefix and update them in (1)
-            val iterator = baseToFSM.entries.iterator()
-            while (iterator.hasNext()) {
-                val entry = iterator.next()
-                if (entry.key.startsWith(eogPath)) {
-                    // keep the "|" before the real base, as we need it later anyway
-                    newBases[entry.key.substring(eogPath.length)] = entry.value
-                    // Remove the old entry as it will be replaced with 2 new ones.
-                    iterator.remove()
-                }
-            }
+            // Remove all the entries of this path which are now replaced with multiple new ones
+            // and update them in (1).
+            val oldEntries = state.removePath(eogPath)
 
-            // (1) Update all entries previously removed from the baseToFSM map with
-            // the new eog-path as prefix to the base
+            // (1) Add all entries previously removed with the new eog-path.
             for (i in outNodes.indices.reversed()) {
-                val stateOfNext: String = getStateSnapshot(outNodes[i].id!!, baseToFSM)
-                if (seenStates.contains(stateOfNext)) {
+                val stateOfNext = state.getStateSnapshot(outNodes[i].id!!)
+                if (state.seenStates.contains(stateOfNext)) {
                     log.debug(
                         "Node/FSM state already visited: ${stateOfNext}. Remove from next nodes."
                     )
                     outNodes.removeAt(i)
                 } else {
-                    val newEOGPath = "$eogPath$i"
-                    // Clone the FSM for each of the paths in the baseToFSM map.
-                    // Also, copy the value in interproceduralFlows
-                    newBases.forEach { (k: String, v: DFA) ->
-                        baseToFSM[newEOGPath + k] = v.clone()
-                        interproceduralFlows[newEOGPath + k] =
-                            interproceduralFlows.computeIfAbsent(eogPath) { false }
+                    val newEOGPath = eogPath.branch(i)
+                    // Copy the FSM for each of the paths together with its interprocedural flow.
+                    for ((key, fsm, interproceduralFlow) in oldEntries) {
+                        val newKey = PathBase(newEOGPath, key.base)
+                        fsm?.let { state.put(newKey, it.fork()) }
+                        state.setInterproceduralFlow(newKey, interproceduralFlow)
                     }
                     // Update the eog-path directly in the map of paths for the respective node.
-                    outNodes[i].addEogPath(newEOGPath)
+                    state.addEogPath(outNodes[i], newEOGPath)
                 }
             }
         }
         return outNodes
     }
-
-    /**
-     * Returns a String representation of all paths that have been observed so far together with the
-     * [nodeId]. It is used to keep track of the states which have already been analyzed and to
-     * avoid getting stuck in loops.
-     */
-    private fun getStateSnapshot(nodeId: Long, baseToFSM: Map<String, DFA>): String {
-        val grouped =
-            baseToFSM.entries
-                .groupBy { e -> e.key.split("|")[1] }
-                .map { x ->
-                    "${x.key}(${x.value.map({ y -> y.value.currentState!! }).toSet().joinToString(",")})"
-                }
-                .sorted()
-                .joinToString(",")
-
-        return "$nodeId $grouped"
-    }
 }
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.analysis.fsm
+
+import de.fraunhofer.aisec.cpg.graph.Node
+
+/**
+ * A path through the EOG, identified by the branches taken since the start node of the evaluation.
+ * Paths are interned: [branch] always returns the same instance for the same index, so paths can be
+ * compared by identity and share their common prefix instead of copying it.
+ */
+internal class EogPath private constructor(private val parent: EogPath?, private val index: Int) {
+    private val depth: Int = if (parent == null) 0 else parent.depth + 1
+    private var children: MutableMap<Int, EogPath>? = null
+
+    /** Returns the path which follows the [index]-th outgoing EOG edge at the end of this path. */
+    fun branch(index: Int): EogPath {
+        val map = children ?: HashMap<Int, EogPath>().also { children = it }
+        return map.getOrPut(index) { EogPath(this, index) }
+    }
+
+    /** Checks if this path is [other] or a prefix of it. */
+    fun isPrefixOf(other: EogPath): Boolean {
+        var current = other
+        repeat(other.depth - depth) { current = current.parent ?: return false }
+        return current === this
+    }
+
+    override fun toString(): String {
+        val builder = StringBuilder()
+        var current: EogPath? = this
+        while (current?.parent != null) {
+            builder.insert(0, current.index)
+            current = current.parent
+        }
+        return builder.toString()
+    }
+
+    companion object {
+        /** Creates the (empty) path of a new evaluation. */
+        fun root() = EogPath(null, -1)
+    }
+}
+
+/**
+ * Identifies the DFA of a [base] (encoded as `name.id`) on a specific [path]. The string
+ * representation is the one passed to the actions of the [DFAOrderEvaluator].
+ */
+internal data class PathBase(val path: EogPath, val base: String) {
+    override fun toString() = "$path|$base"
+}
+
+/**
+ * The states of all paths at a node, grouped by base. It is used to keep track of the states which
+ * have already been analyzed and to avoid getting stuck in loops.
+ */
+internal data class StateSnapshot(val nodeId: Long, val states: Map<String, Set<State?>>)
+
+/** The state of a single base on a single path. */
+internal data class BaseState(
+    val state: State?,
+    val interproceduralFlow: Boolean,
+    val wrongBase: Boolean
+)
+
+/**
+ * The state of a single path at a node. Two paths reaching the same node in the same state behave
+ * identically from there on, so only the first one needs to be followed.
+ */
+internal data class PathState(val nodeId: Long, val states: Map<String, BaseState>)
+
+/**
+ * The mutable state of a single run of [DFAOrderEvaluator.evaluateOrder]. It is kept out of the
+ * evaluator itself so that independent start nodes can be evaluated concurrently.
+ */
+internal class OrderEvaluationState(private val dfa: DFA) {
+    /** Stores the current markings in the FSM (i.e., which base is at which FSM-node). */
+    val baseToFSM = LinkedHashMap<PathBase, DFA>()
+
+    /** Stores whether a base might have been modified by a call which is not analyzed. */
+    val interproceduralFlows = HashMap<PathBase, Boolean>()
+
+    /** Stores the states (i.e., nodes and their states in the fsm) to avoid endless loops. */
+    val seenStates = HashSet<StateSnapshot>()
+
+    /** The path at the start node of the evaluation. */
+    val root = EogPath.root()
+
+    /** Counts per base how many paths are currently in each state, to build [StateSnapshot]s. */
+    private val stateCounts = HashMap<String, HashMap<State?, Int>>()
+
+    /** All keys of [baseToFSM] and [interproceduralFlows] per path. */
+    private val keysOfPath = HashMap<EogPath, MutableSet<PathBase>>()
+
+    /** The paths on which a base has been found to be incorrect due to an out-of-order call. */
+    private val wrongBases = HashMap<String, MutableList<EogPath>>()
+
+    /** Maps a node ID to all the paths which were followed to reach the node. */
+    private val nodeIDtoEOGPathSet = HashMap<Long, MutableSet<EogPath>>()
+
+    /** Maps the state of a path at a node to the first path reaching the node in that state. */
+    private val pathStates = HashMap<PathState, EogPath>()
+
+    /**
+     * Returns the DFA of [key]. If this is the first time we use the base, we copy the initial DFA
+     * and start the analysis for that base from scratch.
+     */
+    fun fsm(key: PathBase): DFA = baseToFSM[key] ?: dfa.fork().also { put(key, it) }
+
+    fun put(key: PathBase, fsm: DFA) {
+        baseToFSM.put(key, fsm)?.let { count(key.base, it.currentState, -1) }
+        count(key.base, fsm.currentState, 1)
+        keysOfPath.getOrPut(key.path) { LinkedHashSet() }.add(key)
+    }
+
+    /** Makes the transition [op] at [node] in the DFA of [key], see [DFA.makeTransitionWithOp]. */
+    fun makeTransition(key: PathBase, op: String, node: Node): Boolean {
+        val fsm = fsm(key)
+        count(key.base, fsm.currentState, -1)
+        val result = fsm.makeTransitionWithOp(op, node)
+        count(key.base, fsm.currentState, 1)
+        return result
+    }
+
+    fun setInterproceduralFlow(key: PathBase, value: Boolean) {
+        interproceduralFlows[key] = value
+        keysOfPath.getOrPut(key.path) { LinkedHashSet() }.add(key)
+    }
+
+    fun addWrongBase(key: PathBase) {
+        wrongBases.getOrPut(key.base) { mutableListOf() }.add(key.path)
+    }
+
+    /** Checks if the base of [key] has been found to be incorrect on the path or a prefix of it. */
+    fun isWrongBase(key: PathBase) = wrongBases[key.base]?.any { it.isPrefixOf(key.path) } == true
+
+    /**
+     * Removes all DFAs and flags of [path] and returns them. Only the entries of the path itself
+     * are affected: a path is split up when its branch is reached, so there are no entries of
+     * longer paths starting with [path] at this point.
+     */
+    fun removePath(path: EogPath): List<Triple<PathBase, DFA?, Boolean>> {
+        val keys = keysOfPath.remove(path) ?: return listOf()
+        return keys.map { key ->
+            val fsm = baseToFSM.remove(key)
+            fsm?.let { count(key.base, it.currentState, -1) }
+            Triple(key, fsm, interproceduralFlows.remove(key) == true)
+        }
+    }
+
+    fun getEogPaths(node: Node): Set<EogPath>? = nodeIDtoEOGPathSet[node.id]
+
+    fun removeEogPaths(node: Node) {
+        nodeIDtoEOGPathSet.remove(node.id)
+    }
+
+    /**
+     * Adds [path] to the paths reaching [node]. If another path has already reached [node] in the
+     * same state, following [path] would not yield any new results, so it is dropped instead.
+     */
+    fun addEogPath(node: Node, path: EogPath) {
+        val paths = nodeIDtoEOGPathSet.getOrPut(node.id!!) { LinkedHashSet() }
+        if (path in paths) {
+            return
+        }
+
+        val first = pathStates.putIfAbsent(PathState(node.id!!, stateOf(path)), path)
+        if (first == null) {
+            paths.add(path)
+        } else if (first !== path) {
+            removePath(path)
+        }
+    }
+
+    /** Returns a snapshot of the states of all paths together with the [nodeId]. */
+    fun getStateSnapshot(nodeId: Long): StateSnapshot {
+        return StateSnapshot(nodeId, stateCounts.mapValues { it.value.keys.toSet() })
+    }
+
+    private fun stateOf(path: EogPath): Map<String, BaseState> {
+        return keysOfPath[path]?.associate {
+            it.base to
+                BaseState(
+                    baseToFSM[it]?.currentState,
+                    interproceduralFlows[it] == true,
+                    isWrongBase(it)
+                )
+        }
+            ?: mapOf()
+    }
+
+    private fun count(base: String, state: State?, delta: Int) {
+        val counts = stateCounts.getOrPut(base) { HashMap() }
+        val newCount = counts.getOrDefault(state, 0) + delta
+        if (newCount > 0) {
+            counts[state] = newCount
+        } else {
+            counts.remove(state)
+            if (counts.isEmpty()) {
+                stateCounts.remove(base)
+            }
+        }
+    }
+}
@@ -26,12 +26,15 @@
 package de.fraunhofer.aisec.cpg.passes
 
 import de.fraunhofer.aisec.cpg.TranslationResult
+import de.fraunhofer.aisec.cpg.analysis.ValueEvaluationCache
 import de.fraunhofer.aisec.cpg.analysis.ValueEvaluator
+import de.fraunhofer.aisec.cpg.graph.GraphModifications
 import de.fraunhofer.aisec.cpg.graph.Node
 import de.fraunhofer.aisec.cpg.graph.edge.Properties
 import de.fraunhofer.aisec.cpg.graph.statements.IfStatement
 import de.fraunhofer.aisec.cpg.graph.statements.WhileStatement
 import de.fraunhofer.aisec.cpg.passes.order.DependsOn
+import de.fraunhofer.aisec.cpg.passes.order.TranslationUnitLocal
 import de.fraunhofer.aisec.cpg.processing.IVisitor
 import de.fraunhofer.aisec.cpg.processing.strategy.Strategy
 
@@ -40,8 +43,12 @@ import de.fraunhofer.aisec.cpg.processing.strategy.Strategy
  * by setting the [Properties.UNREACHABLE] property of an eog-edge to true.
  */
 @DependsOn(ControlFlowSensitiveDFGPass::class)
+@TranslationUnitLocal
 class UnreachableEOGPass : Pass() {
+    private var cache: ValueEvaluationCache? = null
+
     override fun accept(t: TranslationResult) {
+        cache = ValueEvaluationCache.forResult(t)
         for (tu in t.translationUnits) {
             tu.accept(
                 Strategy::AST_FORWARD,
@@ -60,15 +67,11 @@ class UnreachableEOGPass : Pass() {
     }
 
     private fun handleIfStatement(n: IfStatement) {
-        val evalResult = ValueEvaluator().evaluate(n.condition)
+        val evalResult = ValueEvaluator(cache = cache).evaluate(n.condition)
         if (evalResult is Boolean && evalResult == true) {
-            n.nextEOGEdges
-                .firstOrNull { e -> e.getProperty(Properties.INDEX) == 1 }
-                ?.addProperty(Properties.UNREACHABLE, true)
+            markUnreachable(n, 1)
         } else if (evalResult is Boolean && evalResult == false) {
-            n.nextEOGEdges
-                .firstOrNull { e -> e.getProperty(Properties.INDEX) == 0 }
-                ?.addProperty(Properties.UNREACHABLE, true)
+            markUnreachable(n, 0)
         }
     }
 
@@ -81,19 +84,26 @@ class UnreachableEOGPass : Pass() {
          * differentiate between the first and subsequent evaluations of the
          * condition.
          */
-        val evalResult = ValueEvaluator().evaluate(n.condition)
+        val evalResult = ValueEvaluator(cache = cache).evaluate(n.condition)
         if (evalResult is Boolean && evalResult == true) {
-            n.nextEOGEdges
-                .firstOrNull { e -> e.getProperty(Properties.INDEX) == 1 }
-                ?.addProperty(Properties.UNREACHABLE, true)
+            markUnreachable(n, 1)
         } else if (evalResult is Boolean && evalResult == false) {
-            n.nextEOGEdges
-                .firstOrNull { e -> e.getProperty(Properties.INDEX) == 0 }
-                ?.addProperty(Properties.UNREACHABLE, true)
+            markUnreachable(n, 0)
         }
     }
 
     override fun cleanup() {
-        // nothing to do
+        cache = null
+    }
+
+    /**
+     * Marks the outgoing EOG edge of [n] with the given [index] as unreachable and counts this as a
+     * modification of the EOG.
+     */
+    private fun markUnreachable(n: Node, index: Int) {
+        val edge =
+            n.nextEOGEdges.firstOrNull { e -> e.getProperty(Properties.INDEX) == index } ?: return
+        edge.addProperty(Properties.UNREACHABLE, true)
+        GraphModifications.of(n).eogModified()
     }
 }
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.query
+
+import de.fraunhofer.aisec.cpg.analysis.ParallelExecution
+import de.fraunhofer.aisec.cpg.graph.Node
+import de.fraunhofer.aisec.cpg.graph.allChildren
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.math.min
+
+/**
+ * Parallel version of [allExtended]: The conditions specified in [mustSatisfy] are evaluated
+ * concurrently on up to [parallelism] threads. Hence, [mustSatisfy] has to be thread-safe, which is
+ * the case for the functions of the query API. The children of the resulting [QueryTree] have the
+ * same order as in [allExtended].
+ */
+inline fun <reified T> Node.allExtendedParallel(
+    noinline sel: ((T) -> Boolean)? = null,
+    parallelism: Int = Runtime.getRuntime().availableProcessors(),
+    noinline mustSatisfy: (T) -> QueryTree<Boolean>
+): QueryTree<Boolean> {
+    val nodes = this.allChildren(sel)
+
+    val queryChildren =
+        evaluateParallel(nodes, parallelism) { n ->
+            val res = mustSatisfy(n)
+            res.prefixRepresentation { "Starting at $n: " }
+            res
+        }
+    return QueryTree(queryChildren.all { it.value }, witnesses(queryChildren) { !it.value }, "all")
+}
+
+/**
+ * Parallel version of [all]: The conditions specified in [mustSatisfy] are evaluated concurrently
+ * on up to [parallelism] threads. The failed nodes are returned in the same order as in [all].
+ */
+inline fun <reified T> Node.allParallel(
+    noinline sel: ((T) -> Boolean)? = null,
+    parallelism: Int = Runtime.getRuntime().availableProcessors(),
+    noinline mustSatisfy: (T) -> Boolean
+): Pair<Boolean, List<Node>> {
+    val nodes = this.allChildren(sel)
+
+    val results = evaluateParallel(nodes, parallelism, evaluate = mustSatisfy)
+    val failedNodes = nodes.filterIndexed { i, _ -> !results[i] } as List<Node>
+    return Pair(failedNodes.isEmpty(), failedNodes)
+}
+
+/**
+ * Parallel version of [existsExtended]: The conditions specified in [mustSatisfy] are evaluated
+ * concurrently on up to [parallelism] threads.
+ *
+ * If [earlyTermination] is set, no further nodes are evaluated once a node fulfills the condition.
+ * To keep the result deterministic, the resulting [QueryTree] then contains the children up to the
+ * first node (in the order of [existsExtended]) which fulfills the condition.
+ */
+inline fun <reified T : Node> Node.existsExtendedParallel(
+    noinline sel: ((T) -> Boolean)? = null,
+    parallelism: Int = Runtime.getRuntime().availableProcessors(),
+    earlyTermination: Boolean = true,
+    noinline mustSatisfy: (T) -> QueryTree<Boolean>
+): QueryTree<Boolean> {
+    val nodes = this.allChildren(sel)
+
+    val queryChildren =
+        evaluateParallel(
+            nodes,
+            parallelism,
+            if (earlyTermination) { res: QueryTree<Boolean> -> res.value } else null
+        ) { n ->
+            val res = mustSatisfy(n)
+            res.prefixRepresentation { "Starting at $n: " }
+            res
+        }
+    return QueryTree(
+        queryChildren.any { it.value },
+        witnesses(queryChildren) { it.value },
+        "exists"
+    )
+}
+
+/**
+ * Parallel version of [exists]: The conditions specified in [mustSatisfy] are evaluated
+ * concurrently on up to [parallelism] threads.
+ *
+ * If [earlyTermination] is set, no further nodes are evaluated once a node fulfills the condition
+ * and only the first node (in the order of [exists]) which fulfills it is returned.
+ */
+inline fun <reified T : Node> Node.existsParallel(
+    noinline sel: ((T) -> Boolean)? = null,
+    parallelism: Int = Runtime.getRuntime().availableProcessors(),
+    earlyTermination: Boolean = true,
+    noinline mustSatisfy: (T) -> Boolean
+): Pair<Boolean, List<Node>> {
+    val nodes = this.allChildren(sel)
+
+    val results =
+        evaluateParallel(
+            nodes,
+            parallelism,
+            if (earlyTermination) { res: Boolean -> res } else null,
+            mustSatisfy
+        )
+    val queryChildren = nodes.filterIndexed { i, _ -> results.getOrNull(i) == true } as List<Node>
+    return Pair(queryChildren.isNotEmpty(), queryChildren)
+}
+
+/**
+ * The minimum number of nodes for which [evaluateParallel] distributes the evaluation to other
+ * threads. For fewer nodes, the overhead of the hand-over outweighs the gain.
+ */
+internal const val MIN_PARALLEL_NODES = 8
+
+/**
+ * Evaluates [evaluate] for each of the [nodes] on up to [parallelism] threads and returns the
+ * results in the order of [nodes]. The evaluation uses the [QueryTreeSettings] of the calling
+ * thread.
+ *
+ * If [stopAt] holds for a result, the evaluation of the following nodes is skipped and the returned
+ * list ends with this result. Since all previous nodes are evaluated in any case, the result does
+ * not depend on the scheduling of the threads. The same holds for exceptions: The exception of the
+ * first failing node is rethrown.
+ *
+ * Less than [MIN_PARALLEL_NODES] nodes are evaluated in the calling thread.
+ */
+@PublishedApi
+internal fun <T, R> evaluateParallel(
+    nodes: List<T>,
+    parallelism: Int,
+    stopAt: ((R) -> Boolean)? = null,
+    evaluate: (T) -> R
+): List<R> {
+    if (parallelism <= 1 || nodes.size < MIN_PARALLEL_NODES) {
+        val results = mutableListOf<R>()
+        for (node in nodes) {
+            val result = evaluate(node)
+            results += result
+            if (stopAt?.invoke(result) == true) {
+                break
+            }
+        }
+        return results
+    }
+
+    // The workers use the settings of the calling thread
+    val settings = QueryTreeSettings.current
+    // The index of the first node for which stopAt holds
+    val stop = AtomicInteger(Int.MAX_VALUE)
+    val executor = ParallelExecution.executor(parallelism)
+    val futures =
+        nodes.mapIndexed { i, node ->
+            CompletableFuture.supplyAsync(
+                {
+                    if (i > stop.get()) {
+                        // A previous node already fulfilled stopAt
+                        null
+                    } else {
+                        val result = QueryTreeSettings.withSettings(settings) { evaluate(node) }
+                        if (stopAt?.invoke(result) == true) {
+                            stop.accumulateAndGet(i) { a, b -> min(a, b) }
+                        }
+                        listOf(result)
+                    }
+                },
+                executor
+            )
+        }
+
+    // Collect the results in order. All futures up to the first stopping node are evaluated
+    val results = mutableListOf<R>()
+    try {
+        for (future in futures) {
+            val result =
+                try {
+                    future.join()!!.first()
+                } catch (e: CompletionException) {
+                    throw e.cause ?: e
+                }
+            results += result
+            if (stopAt?.invoke(result) == true) {
+                break
+            }
+        }
+    } finally {
+        // Skip the evaluations which have not started yet
+        futures.forEach { it.cancel(false) }
+    }
+    return results
+}
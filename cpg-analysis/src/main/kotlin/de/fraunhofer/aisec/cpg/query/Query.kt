@@ -25,9 +25,13 @@
  */
 package de.fraunhofer.aisec.cpg.query
 
+import de.fraunhofer.aisec.cpg.analysis.DominatorAnalysis
+import de.fraunhofer.aisec.cpg.analysis.FunctionSummaries
+import de.fraunhofer.aisec.cpg.analysis.FunctionSummary
 import de.fraunhofer.aisec.cpg.analysis.MultiValueEvaluator
 import de.fraunhofer.aisec.cpg.analysis.NumberSet
 import de.fraunhofer.aisec.cpg.analysis.SizeEvaluator
+import de.fraunhofer.aisec.cpg.analysis.ValueEvaluationCache
 import de.fraunhofer.aisec.cpg.analysis.ValueEvaluator
 import de.fraunhofer.aisec.cpg.graph.*
 import de.fraunhofer.aisec.cpg.graph.statements.expressions.CallExpression
@@ -54,10 +58,10 @@ inline fun <reified T> Node.allExtended(
     val queryChildren =
         nodes.map { n ->
             val res = mustSatisfy(n)
-            res.stringRepresentation = "Starting at $n: " + res.stringRepresentation
+            res.prefixRepresentation { "Starting at $n: " }
             res
         }
-    return QueryTree(queryChildren.all { it.value }, queryChildren.toMutableList(), "all")
+    return QueryTree(queryChildren.all { it.value }, witnesses(queryChildren) { !it.value }, "all")
 }
 
 /**
@@ -92,10 +96,14 @@ inline fun <reified T : Node> Node.existsExtended(
     val queryChildren =
         nodes.map { n ->
             val res = mustSatisfy(n)
-            res.stringRepresentation = "Starting at $n: " + res.stringRepresentation
+            res.prefixRepresentation { "Starting at $n: " }
             res
         }
-    return QueryTree(queryChildren.any { it.value }, queryChildren.toMutableList(), "exists")
+    return QueryTree(
+        queryChildren.any { it.value },
+        witnesses(queryChildren) { it.value },
+        "exists"
+    )
 }
 
 /**
@@ -118,9 +126,12 @@ inline fun <reified T : Node> Node.exists(
  *
  * @eval can be used to specify the evaluator but this method has to interpret the result correctly!
  */
-fun sizeof(n: Node?, eval: ValueEvaluator = SizeEvaluator()): QueryTree<Int> {
+fun sizeof(
+    n: Node?,
+    eval: ValueEvaluator = SizeEvaluator(ValueEvaluationCache.of(n))
+): QueryTree<Int> {
     // The cast could potentially go wrong, but if it's not an int, it's not really a size
-    return QueryTree(eval.evaluate(n) as? Int ?: -1, mutableListOf(), "sizeof($n)")
+    return LazyQueryTree(eval.evaluate(n) as? Int ?: -1, mutableListOf()) { "sizeof($n)" }
 }
 
 /**
@@ -128,13 +139,16 @@ fun sizeof(n: Node?, eval: ValueEvaluator = SizeEvaluator()): QueryTree<Int> {
  *
  * @eval can be used to specify the evaluator but this method has to interpret the result correctly!
  */
-fun min(n: Node?, eval: ValueEvaluator = MultiValueEvaluator()): QueryTree<Number> {
+fun min(
+    n: Node?,
+    eval: ValueEvaluator = MultiValueEvaluator(ValueEvaluationCache.of(n))
+): QueryTree<Number> {
     val evalRes = eval.evaluate(n)
     if (evalRes is Number) {
-        return QueryTree(evalRes, mutableListOf(QueryTree(n)), "min($n)")
+        return LazyQueryTree(evalRes, explanation(QueryTree(n))) { "min($n)" }
     }
     // Extend this when we have other evaluators.
-    return QueryTree((evalRes as? NumberSet)?.min() ?: -1, mutableListOf(), "min($n)")
+    return LazyQueryTree((evalRes as? NumberSet)?.min() ?: -1, mutableListOf()) { "min($n)" }
 }
 
 /**
@@ -142,7 +156,10 @@ fun min(n: Node?, eval: ValueEvaluator = MultiValueEvaluator()): QueryTree<Numbe
  *
  * @eval can be used to specify the evaluator but this method has to interpret the result correctly!
  */
-fun min(n: List<Node>?, eval: ValueEvaluator = MultiValueEvaluator()): QueryTree<Number> {
+fun min(
+    n: List<Node>?,
+    eval: ValueEvaluator = MultiValueEvaluator(ValueEvaluationCache.of(n?.firstOrNull()))
+): QueryTree<Number> {
     var result = Long.MAX_VALUE
     if (n == null) return QueryTree(result, mutableListOf(QueryTree(null)))
 
@@ -155,7 +172,7 @@ fun min(n: List<Node>?, eval: ValueEvaluator = MultiValueEvaluator()): QueryTree
         }
         // Extend this when we have other evaluators.
     }
-    return QueryTree(result, mutableListOf(), "min($n)")
+    return LazyQueryTree(result, mutableListOf()) { "min($n)" }
 }
 
 /**
@@ -163,7 +180,10 @@ fun min(n: List<Node>?, eval: ValueEvaluator = MultiValueEvaluator()): QueryTree
  *
  * @eval can be used to specify the evaluator but this method has to interpret the result correctly!
  */
-fun max(n: List<Node>?, eval: ValueEvaluator = MultiValueEvaluator()): QueryTree<Number> {
+fun max(
+    n: List<Node>?,
+    eval: ValueEvaluator = MultiValueEvaluator(ValueEvaluationCache.of(n?.firstOrNull()))
+): QueryTree<Number> {
     var result = Long.MIN_VALUE
     if (n == null) return QueryTree(result, mutableListOf(QueryTree(null)))
 
@@ -176,7 +196,7 @@ fun max(n: List<Node>?, eval: ValueEvaluator = MultiValueEvaluator()): QueryTree
         }
         // Extend this when we have other evaluators.
     }
-    return QueryTree(result, mutableListOf(), "max($n)")
+    return LazyQueryTree(result, mutableListOf()) { "max($n)" }
 }
 
 /**
@@ -184,37 +204,59 @@ fun max(n: List<Node>?, eval: ValueEvaluator = MultiValueEvaluator()): QueryTree
  *
  * @eval can be used to specify the evaluator but this method has to interpret the result correctly!
  */
-fun max(n: Node?, eval: ValueEvaluator = MultiValueEvaluator()): QueryTree<Number> {
+fun max(
+    n: Node?,
+    eval: ValueEvaluator = MultiValueEvaluator(ValueEvaluationCache.of(n))
+): QueryTree<Number> {
     val evalRes = eval.evaluate(n)
     if (evalRes is Number) {
-        return QueryTree(evalRes, mutableListOf(QueryTree(n)))
+        return QueryTree(evalRes, explanation(QueryTree(n)))
     }
     // Extend this when we have other evaluators.
-    return QueryTree((evalRes as? NumberSet)?.max() ?: -1, mutableListOf(), "max($n)")
+    return LazyQueryTree((evalRes as? NumberSet)?.max() ?: -1, mutableListOf()) { "max($n)" }
 }
 
 /** Checks if a data flow is possible between the nodes [from] as a source and [to] as sink. */
 fun dataFlow(from: Node, to: Node): QueryTree<Boolean> {
     val evalRes = from.followNextDFGEdgesUntilHit { it == to }
-    val allPaths = evalRes.fulfilled.map { QueryTree(it) }.toMutableList()
-    allPaths.addAll(evalRes.failed.map { QueryTree(it) })
-    return QueryTree(
-        evalRes.fulfilled.isNotEmpty(),
-        allPaths.toMutableList(),
+    return LazyQueryTree(evalRes.fulfilled.isNotEmpty(), pathChildren(evalRes)) {
         "data flow from $from to $to"
-    )
+    }
+}
+
+/**
+ * Checks if a data flow is possible between the nodes [from] and [to]. If [to] is a sink of
+ * [summaries], the data flow is not followed into called functions but their [FunctionSummary] is
+ * used instead.
+ */
+fun dataFlow(from: Node, to: Node, summaries: FunctionSummaries): QueryTree<Boolean> {
+    return LazyQueryTree(summaries.flowsTo(from, to), explanation(QueryTree(from), QueryTree(to))) {
+        "data flow from $from to $to (using summaries)"
+    }
+}
+
+/**
+ * Checks if [first] is always executed before [second], i.e., if [first] dominates [second] in the
+ * EOG of their function. By default, the [DominatorAnalysis] shared by the graph of [first] is
+ * used.
+ */
+fun alwaysExecutedBefore(
+    first: Node,
+    second: Node,
+    analysis: DominatorAnalysis = DominatorAnalysis.of(first)
+): QueryTree<Boolean> {
+    val dominates = analysis.dominates(first, second)
+    return LazyQueryTree(dominates, explanation(QueryTree(first), QueryTree(second))) {
+        "$first is always executed before $second"
+    }
 }
 
 /** Checks if a path of execution flow is possible between the nodes [from] and [to]. */
 fun executionPath(from: Node, to: Node): QueryTree<Boolean> {
     val evalRes = from.followNextEOGEdgesUntilHit { it == to }
-    val allPaths = evalRes.fulfilled.map { QueryTree(it) }.toMutableList()
-    allPaths.addAll(evalRes.failed.map { QueryTree(it) })
-    return QueryTree(
-        evalRes.fulfilled.isNotEmpty(),
-        allPaths.toMutableList(),
+    return LazyQueryTree(evalRes.fulfilled.isNotEmpty(), pathChildren(evalRes)) {
         "executionPath($from, $to)"
-    )
+    }
 }
 
 /**
@@ -223,13 +265,9 @@ fun executionPath(from: Node, to: Node): QueryTree<Boolean> {
  */
 fun executionPath(from: Node, predicate: (Node) -> Boolean): QueryTree<Boolean> {
     val evalRes = from.followNextEOGEdgesUntilHit(predicate)
-    val allPaths = evalRes.fulfilled.map { QueryTree(it) }.toMutableList()
-    allPaths.addAll(evalRes.failed.map { QueryTree(it) })
-    return QueryTree(
-        evalRes.fulfilled.isNotEmpty(),
-        allPaths.toMutableList(),
+    return LazyQueryTree(evalRes.fulfilled.isNotEmpty(), pathChildren(evalRes)) {
         "executionPath($from, $predicate)"
-    )
+    }
 }
 
 /**
@@ -238,18 +276,31 @@ fun executionPath(from: Node, predicate: (Node) -> Boolean): QueryTree<Boolean>
  */
 fun executionPathBackwards(to: Node, predicate: (Node) -> Boolean): QueryTree<Boolean> {
     val evalRes = to.followPrevEOGEdgesUntilHit(predicate)
-    val allPaths = evalRes.fulfilled.map { QueryTree(it) }.toMutableList()
-    allPaths.addAll(evalRes.failed.map { QueryTree(it) })
-    return QueryTree(
-        evalRes.fulfilled.isNotEmpty(),
-        allPaths.toMutableList(),
+    return LazyQueryTree(evalRes.fulfilled.isNotEmpty(), pathChildren(evalRes)) {
         "executionPathBackwards($to, $predicate)"
-    )
+    }
+}
+
+/**
+ * Returns the paths of [evalRes] as children of a path query. In the lightweight mode, only up to
+ * [QueryTreeSettings.maxWitnesses] fulfilled paths are retained.
+ */
+private fun pathChildren(evalRes: FulfilledAndFailedPaths): MutableList<QueryTree<*>> {
+    val settings = QueryTreeSettings.current
+    if (settings.lightweight) {
+        return evalRes.fulfilled.take(settings.maxWitnesses).mapTo(mutableListOf<QueryTree<*>>()) {
+            QueryTree(it)
+        }
+    }
+    val allPaths: MutableList<QueryTree<*>> =
+        evalRes.fulfilled.map { QueryTree(it) }.toMutableList()
+    allPaths.addAll(evalRes.failed.map { QueryTree(it) })
+    return allPaths
 }
 
 /** Calls [ValueEvaluator.evaluate] for this expression, thus trying to resolve a constant value. */
 operator fun Expression?.invoke(): QueryTree<Any?> {
-    return QueryTree(this?.evaluate(), mutableListOf(QueryTree(this)))
+    return QueryTree(this?.evaluate(), explanation(QueryTree(this)))
 }
 
 /**
@@ -267,7 +318,7 @@ fun maxSizeOfType(type: Type): QueryTree<Number> {
             "double" -> Double.MAX_VALUE
             else -> Long.MAX_VALUE
         }
-    return QueryTree(maxVal, mutableListOf(QueryTree(type)), "maxSizeOfType($type)")
+    return LazyQueryTree(maxVal, explanation(QueryTree(type))) { "maxSizeOfType($type)" }
 }
 
 /**
@@ -285,7 +336,7 @@ fun minSizeOfType(type: Type): QueryTree<Number> {
             "double" -> Double.MIN_VALUE
             else -> Long.MIN_VALUE
         }
-    return QueryTree(maxVal, mutableListOf(QueryTree(type)), "minSizeOfType($type)")
+    return LazyQueryTree(maxVal, explanation(QueryTree(type))) { "minSizeOfType($type)" }
 }
 
 /** The size of this expression. It uses the default argument for `eval` of [size] */
@@ -313,7 +364,7 @@ val Expression.max: QueryTree<Number>
 /** Calls [ValueEvaluator.evaluate] for this expression, thus trying to resolve a constant value. */
 val Expression.value: QueryTree<Any?>
     get() {
-        return QueryTree(evaluate(), mutableListOf(), "$this")
+        return LazyQueryTree(evaluate(), mutableListOf()) { "$this" }
     }
 
 /**
@@ -323,7 +374,7 @@ val Expression.value: QueryTree<Any?>
 val Expression.intValue: QueryTree<Int>?
     get() {
         val evalRes = evaluate() as? Int ?: return null
-        return QueryTree(evalRes, mutableListOf(), "$this")
+        return LazyQueryTree(evalRes, mutableListOf()) { "$this" }
     }
 
 /**
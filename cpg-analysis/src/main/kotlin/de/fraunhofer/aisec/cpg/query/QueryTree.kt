@@ -60,6 +60,12 @@ open class QueryTree<T>(
     open val children: MutableList<QueryTree<*>> = mutableListOf(),
     open var stringRepresentation: String = ""
 ) : Comparable<QueryTree<T>> {
+    /** Prefixes the [stringRepresentation] with [prefix]. */
+    @PublishedApi
+    internal open fun prefixRepresentation(prefix: () -> String) {
+        stringRepresentation = prefix() + stringRepresentation
+    }
+
     fun printNicely(depth: Int = 0): String {
         var res =
             "  ".repeat(depth) +
@@ -78,7 +84,9 @@ open class QueryTree<T>(
     /** Checks for equality of two [QueryTree]s. */
     infix fun eq(other: QueryTree<T>): QueryTree<Boolean> {
         val result = this.value == other.value
-        return QueryTree(result, mutableListOf(this, other), "${this.value} == ${other.value}")
+        val lhs = this.value
+        val rhs = other.value
+        return LazyQueryTree(result, explanation(this, other)) { "$lhs == $rhs" }
     }
 
     /**
@@ -87,13 +95,16 @@ open class QueryTree<T>(
      */
     infix fun eq(other: T): QueryTree<Boolean> {
         val result = this.value == other
-        return QueryTree(result, mutableListOf(this, QueryTree(other)), "${this.value} == $value")
+        val lhs = this.value
+        return LazyQueryTree(result, explanation(this, QueryTree(other))) { "$lhs == $lhs" }
     }
 
     /** Checks for inequality of two [QueryTree]s. */
     infix fun ne(other: QueryTree<T>): QueryTree<Boolean> {
         val result = this.value != other.value
-        return QueryTree(result, mutableListOf(this, other), "${this.value} != ${other.value}")
+        val lhs = this.value
+        val rhs = other.value
+        return LazyQueryTree(result, explanation(this, other)) { "$lhs != $rhs" }
     }
 
     /**
@@ -102,31 +113,40 @@ open class QueryTree<T>(
      */
     infix fun ne(other: T): QueryTree<Boolean> {
         val result = this.value != other
-        return QueryTree(result, mutableListOf(this, QueryTree(other)), "${this.value} != $value")
+        val lhs = this.value
+        return LazyQueryTree(result, explanation(this, QueryTree(other))) { "$lhs != $lhs" }
     }
 
     /** Checks if the value is contained in the collection of the other [QueryTree]. */
     infix fun IN(other: QueryTree<Collection<*>>): QueryTree<Boolean> {
         val result = other.value.contains(this.value)
-        return QueryTree(result, mutableListOf(this, other), "${this.value} in ${other.value}")
+        val lhs = this.value
+        val rhs = other.value
+        return LazyQueryTree(result, explanation(this, other)) { "$lhs in $rhs" }
     }
 
     /** Checks if the value is contained in the collection [other]. */
     infix fun IN(other: Collection<*>): QueryTree<Boolean> {
         val result = other.contains(this.value)
-        return QueryTree(result, mutableListOf(this, QueryTree(other)), "${this.value} in $other")
+        val lhs = this.value
+        val rhs = other
+        return LazyQueryTree(result, explanation(this, QueryTree(other))) { "$lhs in $rhs" }
     }
 
     /** Checks if the value is a member of the type of the other [QueryTree]. */
     infix fun IS(other: QueryTree<Class<*>>): QueryTree<Boolean> {
         val result = other.value.isInstance(this.value)
-        return QueryTree(result, mutableListOf(this, other), "${this.value} is ${other.value}")
+        val lhs = this.value
+        val rhs = other.value
+        return LazyQueryTree(result, explanation(this, other)) { "$lhs is $rhs" }
     }
 
     /** Checks if the value is a member of the type of [oter]. */
     infix fun IS(other: Class<*>): QueryTree<Boolean> {
         val result = other.isInstance(this.value)
-        return QueryTree(result, mutableListOf(this, QueryTree(other)), "${this.value} is $other")
+        val lhs = this.value
+        val rhs = other
+        return LazyQueryTree(result, explanation(this, QueryTree(other))) { "$lhs is $rhs" }
     }
 
     override fun hashCode(): Int {
@@ -158,56 +178,84 @@ open class QueryTree<T>(
     }
 }
 
+/**
+ * A [QueryTree] whose [stringRepresentation] is only built by [representation] once it is
+ * accessed. [representation] should not capture other [QueryTree]s, so that they can be garbage
+ * collected in the lightweight mode (see [lightweightQueries]).
+ */
+internal class LazyQueryTree<T>(
+    value: T,
+    children: MutableList<QueryTree<*>>,
+    private var representation: (() -> String)?
+) : QueryTree<T>(value, children) {
+    override var stringRepresentation: String
+        get() {
+            representation?.let {
+                super.stringRepresentation = it()
+                representation = null
+            }
+            return super.stringRepresentation
+        }
+        set(value) {
+            representation = null
+            super.stringRepresentation = value
+        }
+
+    /** Prefixes the [stringRepresentation] with [prefix] without building it. */
+    override fun prefixRepresentation(prefix: () -> String) {
+        val inner = representation
+        val innerValue = super.stringRepresentation
+        representation = { prefix() + (inner?.invoke() ?: innerValue) }
+    }
+
+    /** Renders like a plain [QueryTree], as some representations contain other trees. */
+    override fun toString() = "${QueryTree::class.java.name}@${Integer.toHexString(hashCode())}"
+}
+
 /** Performs a logical and (&&) operation between the values of two [QueryTree]s. */
 infix fun QueryTree<Boolean>.and(other: QueryTree<Boolean>): QueryTree<Boolean> {
-    return QueryTree(
-        this.value && other.value,
-        mutableListOf(this, other),
-        stringRepresentation = "${this.value} && ${other.value}"
-    )
+    val lhs = this.value
+    val rhs = other.value
+    return LazyQueryTree(this.value && other.value, explanation(this, other)) { "$lhs && $rhs" }
 }
 
 /** Performs a logical or (||) operation between the values of two [QueryTree]s. */
 infix fun QueryTree<Boolean>.or(other: QueryTree<Boolean>): QueryTree<Boolean> {
-    return QueryTree(
-        this.value || other.value,
-        mutableListOf(this, other),
-        stringRepresentation = "${this.value} || ${other.value}"
-    )
+    val lhs = this.value
+    val rhs = other.value
+    return LazyQueryTree(this.value || other.value, explanation(this, other)) { "$lhs || $rhs" }
 }
 
 /** Performs a logical xor operation between the values of two [QueryTree]s. */
 infix fun QueryTree<Boolean>.xor(other: QueryTree<Boolean>): QueryTree<Boolean> {
-    return QueryTree(
-        this.value xor other.value,
-        mutableListOf(this, other),
-        stringRepresentation = "${this.value} xor ${other.value}"
-    )
+    val lhs = this.value
+    val rhs = other.value
+    return LazyQueryTree(this.value xor other.value, explanation(this, other)) { "$lhs xor $rhs" }
 }
 
 /** Evaluates a logical implication (->) operation between the values of two [QueryTree]s. */
 infix fun QueryTree<Boolean>.implies(other: QueryTree<Boolean>): QueryTree<Boolean> {
-    return QueryTree(
-        !this.value || other.value,
-        mutableListOf(this, other),
-        stringRepresentation = "${this.value} => ${other.value}"
-    )
+    val lhs = this.value
+    val rhs = other.value
+    return LazyQueryTree(!lhs || rhs, explanation(this, other)) { "$lhs => $rhs" }
 }
 
 /** Evaluates a logical implication (->) operation between the values of two [QueryTree]s. */
 infix fun QueryTree<Boolean>.implies(other: Lazy<QueryTree<Boolean>>): QueryTree<Boolean> {
-    return QueryTree(
-        !this.value || other.value.value,
-        if (!this.value) mutableListOf(this) else mutableListOf(this, other.value),
-        stringRepresentation =
-            if (!this.value) "false => XYZ" else "${this.value} => ${other.value}"
-    )
+    if (!this.value) {
+        return LazyQueryTree(true, explanation(this)) { "false => XYZ" }
+    }
+    // The representation contains the tree of the right-hand side, not its value
+    val rhs = other.value.toString()
+    return LazyQueryTree(other.value.value, explanation(this, other.value)) { "true => $rhs" }
 }
 
 /** Compares the numeric values of two [QueryTree]s for this being "greater than" (>) [other]. */
 infix fun <T : Number, S : Number> QueryTree<T>.gt(other: QueryTree<S>): QueryTree<Boolean> {
     val result = this.value.compareTo(other.value) > 0
-    return QueryTree(result, mutableListOf(this, other), "${this.value} > ${other.value}")
+    val lhs = this.value
+    val rhs = other.value
+    return LazyQueryTree(result, explanation(this, other)) { "$lhs > $rhs" }
 }
 
 /**
@@ -216,7 +264,9 @@ infix fun <T : Number, S : Number> QueryTree<T>.gt(other: QueryTree<S>): QueryTr
  */
 infix fun <T : Number, S : Number> QueryTree<T>.gt(other: S): QueryTree<Boolean> {
     val result = this.value.compareTo(other) > 0
-    return QueryTree(result, mutableListOf(this, QueryTree(other)), "${this.value} > $other")
+    val lhs = this.value
+    val rhs = other
+    return LazyQueryTree(result, explanation(this, QueryTree(other))) { "$lhs > $rhs" }
 }
 
 /**
@@ -225,7 +275,9 @@ infix fun <T : Number, S : Number> QueryTree<T>.gt(other: S): QueryTree<Boolean>
  */
 infix fun <T : Number, S : Number> QueryTree<T>.ge(other: QueryTree<S>): QueryTree<Boolean> {
     val result = this.value.compareTo(other.value) >= 0
-    return QueryTree(result, mutableListOf(this, other), "${this.value} >= ${other.value}")
+    val lhs = this.value
+    val rhs = other.value
+    return LazyQueryTree(result, explanation(this, other)) { "$lhs >= $rhs" }
 }
 
 /**
@@ -234,13 +286,17 @@ infix fun <T : Number, S : Number> QueryTree<T>.ge(other: QueryTree<S>): QueryTr
  */
 infix fun <T : Number, S : Number> QueryTree<T>.ge(other: S): QueryTree<Boolean> {
     val result = this.value.compareTo(other) >= 0
-    return QueryTree(result, mutableListOf(this, QueryTree(other)), "${this.value} >= $other")
+    val lhs = this.value
+    val rhs = other
+    return LazyQueryTree(result, explanation(this, QueryTree(other))) { "$lhs >= $rhs" }
 }
 
 /** Compares the numeric values of two [QueryTree]s for this being "less than" (<) [other]. */
 infix fun <T : Number, S : Number> QueryTree<T>.lt(other: QueryTree<S>): QueryTree<Boolean> {
     val result = this.value.compareTo(other.value) < 0
-    return QueryTree(result, mutableListOf(this, other), "${this.value} < ${other.value}")
+    val lhs = this.value
+    val rhs = other.value
+    return LazyQueryTree(result, explanation(this, other)) { "$lhs < $rhs" }
 }
 
 /**
@@ -249,7 +305,9 @@ infix fun <T : Number, S : Number> QueryTree<T>.lt(other: QueryTree<S>): QueryTr
  */
 infix fun <T : Number, S : Number> QueryTree<T>.lt(other: S): QueryTree<Boolean> {
     val result = this.value.compareTo(other) < 0
-    return QueryTree(result, mutableListOf(this, QueryTree(other)), "${this.value} < $other")
+    val lhs = this.value
+    val rhs = other
+    return LazyQueryTree(result, explanation(this, QueryTree(other))) { "$lhs < $rhs" }
 }
 
 /**
@@ -257,7 +315,9 @@ infix fun <T : Number, S : Number> QueryTree<T>.lt(other: S): QueryTree<Boolean>
  */
 infix fun <T : Number, S : Number> QueryTree<T>.le(other: QueryTree<S>): QueryTree<Boolean> {
     val result = this.value.compareTo(other.value) <= 0
-    return QueryTree(result, mutableListOf(this, other), "${this.value} <= ${other.value}")
+    val lhs = this.value
+    val rhs = other.value
+    return LazyQueryTree(result, explanation(this, other)) { "$lhs <= $rhs" }
 }
 
 /**
@@ -266,19 +326,21 @@ infix fun <T : Number, S : Number> QueryTree<T>.le(other: QueryTree<S>): QueryTr
  */
 infix fun <T : Number, S : Number> QueryTree<T>.le(other: S): QueryTree<Boolean> {
     val result = this.value.compareTo(other) <= 0
-    return QueryTree(result, mutableListOf(this, QueryTree(other)), "${this.value} <= $other")
+    val lhs = this.value
+    val rhs = other
+    return LazyQueryTree(result, explanation(this, QueryTree(other))) { "$lhs <= $rhs" }
 }
 
 /** Negates the value of [arg] and returns the resulting [QueryTree]. */
 fun not(arg: QueryTree<Boolean>): QueryTree<Boolean> {
     val result = !arg.value
-    return QueryTree(result, mutableListOf(arg), "! ${arg.value}")
+    return LazyQueryTree(result, explanation(arg)) { "! ${!result}" }
 }
 
 /** Negates the value of [arg] and returns the resulting [QueryTree]. */
 fun not(arg: Boolean): QueryTree<Boolean> {
     val result = !arg
-    return QueryTree(result, mutableListOf(QueryTree(arg)), "! ${arg}")
+    return LazyQueryTree(result, explanation(QueryTree(arg))) { "! $arg" }
 }
 
 /**
@@ -297,4 +359,82 @@ fun <T> const(n: T): QueryTree<T> {
     return QueryTree(n, stringRepresentation = "$n")
 }
 
+/**
+ * The settings of the query API for the current thread. By default, all steps of the evaluation are
+ * retained in the [QueryTree]s, see [lightweightQueries] for the lightweight mode.
+ */
+class QueryTreeSettings
+internal constructor(
+    /** Whether the explanations of the operators are dropped. */
+    val lightweight: Boolean,
+    /** The maximum number of witnesses retained by quantifiers and path queries. */
+    val maxWitnesses: Int
+) {
+    companion object {
+        private val DEFAULT = QueryTreeSettings(false, Int.MAX_VALUE)
+
+        private val settings = ThreadLocal.withInitial { DEFAULT }
+
+        /** The settings of the current thread. */
+        @JvmStatic
+        val current: QueryTreeSettings
+            get() = settings.get()
+
+        /** Runs [block] with the given [settings] on the current thread. */
+        @PublishedApi
+        internal fun <R> withSettings(settings: QueryTreeSettings, block: () -> R): R {
+            val previous = this.settings.get()
+            this.settings.set(settings)
+            try {
+                return block()
+            } finally {
+                this.settings.set(previous)
+            }
+        }
+    }
+}
+
+/**
+ * Evaluates the queries in [block] in a lightweight mode, which only keeps the values of the
+ * [QueryTree]s and a few witnesses, but not the complete reasoning. This saves a lot of memory when
+ * running many queries over large graphs. In this mode,
+ * - the operators (e.g., [eq], [and] or [gt]) do not retain their operands as children,
+ * - [allExtended] only retains the nodes which violate the condition, [existsExtended] only the
+ *   nodes which fulfill it, and [dataFlow] and [executionPath] only the fulfilled paths, each up to
+ *   [maxWitnesses] children.
+ *
+ * The [QueryTree.stringRepresentation]s are built lazily in both modes.
+ */
+fun <R> lightweightQueries(maxWitnesses: Int = 10, block: () -> R): R {
+    return QueryTreeSettings.withSettings(QueryTreeSettings(true, maxWitnesses), block)
+}
+
+/** Returns the [children] explaining an operation unless we are in the lightweight mode. */
+@PublishedApi
+internal fun explanation(vararg children: QueryTree<*>): MutableList<QueryTree<*>> {
+    return if (QueryTreeSettings.current.lightweight) mutableListOf()
+    else mutableListOf(*children)
+}
+
+/**
+ * Returns the children of a quantifier or path query. In the lightweight mode, only up to
+ * [QueryTreeSettings.maxWitnesses] of the [children] for which [isWitness] holds are retained.
+ */
+@PublishedApi
+internal fun <Q : QueryTree<*>> witnesses(
+    children: List<Q>,
+    isWitness: (Q) -> Boolean
+): MutableList<QueryTree<*>> {
+    val settings = QueryTreeSettings.current
+    return if (settings.lightweight) {
+        children
+            .asSequence()
+            .filter(isWitness)
+            .take(settings.maxWitnesses)
+            .toCollection(mutableListOf())
+    } else {
+        ArrayList(children)
+    }
+}
+
 class QueryException(override val message: String) : Exception(message)
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.analysis
+
+import de.fraunhofer.aisec.cpg.TestUtils
+import de.fraunhofer.aisec.cpg.graph.allChildren
+import de.fraunhofer.aisec.cpg.graph.calls
+import de.fraunhofer.aisec.cpg.graph.functions
+import de.fraunhofer.aisec.cpg.graph.get
+import de.fraunhofer.aisec.cpg.graph.invoke
+import de.fraunhofer.aisec.cpg.graph.statements.IfStatement
+import de.fraunhofer.aisec.cpg.graph.statements.ReturnStatement
+import de.fraunhofer.aisec.cpg.graph.statements.WhileStatement
+import de.fraunhofer.aisec.cpg.graph.statements.expressions.UnaryOperator
+import de.fraunhofer.aisec.cpg.query.alwaysExecutedBefore
+import java.nio.file.Path
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertNotNull
+import kotlin.test.assertNotSame
+import kotlin.test.assertNull
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+
+class DominatorAnalysisTest {
+    private val topLevel = Path.of("src", "test", "resources", "analyses", "dominators")
+
+    @Test
+    fun testDominators() {
+        val result =
+            TestUtils.analyze(
+                listOf(topLevel.resolve("dominators.cpp").toFile()),
+                topLevel,
+                true
+            )
+
+        val main = result.functions["main"]
+        assertNotNull(main)
+        val init = main.calls["init"]
+        assertNotNull(init)
+        val uses = main.calls("use")
+        assertEquals(2, uses.size)
+        val ifStatement = main.allChildren<IfStatement>().firstOrNull()
+        assertNotNull(ifStatement)
+        val whileStatement = main.allChildren<WhileStatement>().firstOrNull()
+        assertNotNull(whileStatement)
+        val decrement = main.allChildren<UnaryOperator>().firstOrNull()
+        assertNotNull(decrement)
+        val returnStatement = main.allChildren<ReturnStatement>().firstOrNull()
+        assertNotNull(returnStatement)
+
+        val analysis = DominatorAnalysis.forResult(result)
+        assertSame(analysis, DominatorAnalysis.of(main))
+        val dominance = analysis.resultFor(main)
+        assertSame(dominance, analysis.resultFor(main))
+
+        // init is always executed before both uses, the first use only in one branch
+        assertTrue(analysis.dominates(init, uses[0]))
+        assertTrue(analysis.dominates(init, uses[1]))
+        assertFalse(analysis.dominates(uses[0], uses[1]))
+        assertTrue(analysis.dominates(ifStatement, uses[1]))
+        assertTrue(analysis.dominates(whileStatement, decrement))
+        assertTrue(alwaysExecutedBefore(init, returnStatement).value)
+        assertFalse(alwaysExecutedBefore(uses[0], returnStatement).value)
+
+        val tree = dominance.dominatorTree
+        assertTrue(tree.dominates(main, returnStatement))
+        assertFalse(tree.strictlyDominates(init, init))
+        assertNull(tree.immediateDominator(main))
+        assertEquals(main, tree.dominators(init).last())
+        assertEquals(init, tree.dominators(init).first())
+
+        // The second use and the return statement are executed on every path
+        assertTrue(analysis.postDominates(uses[1], init))
+        assertTrue(analysis.postDominates(returnStatement, uses[0]))
+        assertFalse(analysis.postDominates(uses[0], init))
+        assertFalse(analysis.postDominates(decrement, whileStatement))
+        assertNull(dominance.postDominatorTree.immediateDominator(returnStatement))
+
+        // Only the nodes in the branches depend on the conditions
+        assertTrue(analysis.isControlDependent(uses[0], ifStatement))
+        assertFalse(analysis.isControlDependent(uses[1], ifStatement))
+        assertFalse(analysis.isControlDependent(init, ifStatement))
+        assertTrue(analysis.isControlDependent(decrement, whileStatement))
+        assertFalse(analysis.isControlDependent(returnStatement, whileStatement))
+        assertTrue(dominance.controlDependence.dependents(ifStatement).contains(uses[0]))
+        assertEquals(
+            listOf(whileStatement),
+            dominance.controlDependence.dependencies(decrement).filterIsInstance<WhileStatement>()
+        )
+
+        // Modifying the EOG invalidates the cached result
+        result.scopeManager.modifications.eogModified()
+        assertNotSame(dominance, analysis.resultFor(main))
+    }
+}
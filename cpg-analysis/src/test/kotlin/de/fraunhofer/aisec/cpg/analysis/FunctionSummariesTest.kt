@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.analysis
+
+import de.fraunhofer.aisec.cpg.TestUtils
+import de.fraunhofer.aisec.cpg.graph.Node
+import de.fraunhofer.aisec.cpg.graph.calls
+import de.fraunhofer.aisec.cpg.graph.functions
+import de.fraunhofer.aisec.cpg.graph.get
+import de.fraunhofer.aisec.cpg.query.dataFlow
+import java.nio.file.Path
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertNotNull
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+
+class FunctionSummariesTest {
+    private val topLevel = Path.of("src", "test", "resources", "analyses", "summaries")
+
+    @Test
+    fun testSummaries() {
+        val result =
+            TestUtils.analyze(
+                listOf(topLevel.resolve("summaries.cpp").toFile()),
+                topLevel,
+                true
+            )
+
+        val getenv = result.calls["getenv"]
+        assertNotNull(getenv)
+        val sink = result.calls["system"]?.arguments?.firstOrNull()
+        assertNotNull(sink)
+
+        val isSource = { node: Node -> node === getenv }
+        val isSink = { node: Node -> node === sink }
+        val summaries = FunctionSummaries(result, isSource, isSink)
+
+        val identity = result.functions["identity"]
+        assertNotNull(identity)
+        assertEquals(setOf(0), summaries[identity].parametersToReturn)
+        assertTrue(summaries[identity].parametersToSinks.isEmpty())
+
+        val execute = result.functions["execute"]
+        assertNotNull(execute)
+        assertEquals(setOf<Node>(sink), summaries[execute].parametersToSinks[0])
+
+        // The flow through identity and execute is composed from their summaries
+        val forward = result.functions["forward"]
+        assertNotNull(forward)
+        assertEquals(setOf(0), summaries[forward].parametersToSinks.keys)
+        assertEquals(setOf<Node>(sink), summaries[forward].parametersToSinks[0])
+        assertTrue(summaries[forward].parametersToReturn.isEmpty())
+
+        val source = result.functions["source"]
+        assertNotNull(source)
+        assertEquals(setOf<Node>(getenv), summaries[source].sourcesToReturn)
+
+        val main = result.functions["main"]
+        assertNotNull(main)
+        assertTrue(summaries[main].sourcesToReturn.isEmpty())
+
+        val countdown = result.functions["countdown"]
+        assertNotNull(countdown)
+        assertEquals(setOf(0), summaries[countdown].parametersToReturn)
+
+        // Summaries are cached until the graph changes
+        assertSame(summaries[execute], summaries[execute])
+
+        assertEquals(setOf<Node>(sink), summaries.sinksReachableFrom(getenv))
+        assertTrue(summaries.flowsTo(getenv, sink))
+        assertTrue(dataFlow(getenv, sink, summaries).value)
+
+        val unused = forward.parameters[1]
+        assertTrue(summaries.sinksReachableFrom(unused).isEmpty())
+        assertFalse(dataFlow(unused, sink, summaries).value)
+
+        // The sequential computation yields the same summaries
+        val sequential = FunctionSummaries(result, isSource, isSink, 1)
+        for (function in result.functions) {
+            val expected = summaries[function]
+            assertEquals(expected.parametersToReturn, sequential[function].parametersToReturn)
+            assertEquals(expected.parametersToSinks, sequential[function].parametersToSinks)
+            assertEquals(expected.sourcesToReturn, sequential[function].sourcesToReturn)
+        }
+    }
+}
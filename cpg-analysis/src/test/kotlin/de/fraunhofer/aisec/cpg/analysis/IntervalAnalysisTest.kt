@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.analysis
+
+import de.fraunhofer.aisec.cpg.TestUtils
+import de.fraunhofer.aisec.cpg.graph.allChildren
+import de.fraunhofer.aisec.cpg.graph.bodyOrNull
+import de.fraunhofer.aisec.cpg.graph.byNameOrNull
+import de.fraunhofer.aisec.cpg.graph.declarations.FunctionDeclaration
+import de.fraunhofer.aisec.cpg.graph.statements.CompoundStatement
+import de.fraunhofer.aisec.cpg.graph.statements.ForStatement
+import de.fraunhofer.aisec.cpg.graph.statements.ReturnStatement
+import de.fraunhofer.aisec.cpg.graph.statements.expressions.BinaryOperator
+import de.fraunhofer.aisec.cpg.graph.statements.expressions.Expression
+import de.fraunhofer.aisec.cpg.passes.EdgeCachePass
+import de.fraunhofer.aisec.cpg.query.max
+import de.fraunhofer.aisec.cpg.query.min
+import java.nio.file.Path
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertNotNull
+import kotlin.test.assertNotSame
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+
+class IntervalAnalysisTest {
+    private val topLevel = Path.of("src", "test", "resources", "value_evaluation")
+
+    @Test
+    fun testDomain() {
+        val a = LongInterval(0, 10)
+        val b = LongInterval(-5, 5)
+        assertEquals(LongInterval(-5, 15), a + b)
+        assertEquals(LongInterval(-5, 15), a - b)
+        assertEquals(LongInterval(-50, 50), a * b)
+        assertEquals(LongInterval.TOP, a / b)
+        assertEquals(LongInterval(0, 5), a / LongInterval(2, 3))
+        assertEquals(LongInterval(0, 2), a % LongInterval.of(3))
+        assertEquals(LongInterval(-10, 0), -a)
+        assertEquals(LongInterval(-5, 10), a.join(b))
+        assertEquals(LongInterval(0, 5), a.meet(b))
+        assertTrue(LongInterval(6, 10).meet(b).isEmpty)
+
+        // Arithmetic saturates at the infinite bounds
+        val large = LongInterval(0, Long.MAX_VALUE - 1)
+        assertEquals(LongInterval(0, LongInterval.POS_INF), large + large)
+        assertEquals(LongInterval(0, LongInterval.POS_INF), large * LongInterval.of(2))
+        assertFalse((large + large).isFinite)
+
+        // Widening extrapolates unstable bounds, narrowing refines them again
+        val widened = a.widen(LongInterval(0, 11))
+        assertEquals(LongInterval(0, LongInterval.POS_INF), widened)
+        assertEquals(LongInterval(0, 11), widened.narrow(LongInterval(0, 11)))
+
+        val numberSet = a.toNumberSet()
+        assertEquals(0, numberSet.min())
+        assertEquals(10, numberSet.max())
+    }
+
+    @Test
+    fun testLoops() {
+        val tu =
+            TestUtils.analyzeAndGetFirstTU(
+                listOf(topLevel.resolve("cfexample.cpp").toFile()),
+                topLevel,
+                true
+            ) { it.registerPass(EdgeCachePass()) }
+        assertNotNull(tu)
+
+        val loop = tu.byNameOrNull<FunctionDeclaration>("loop")
+        assertNotNull(loop)
+        val forLoop = loop.bodyOrNull<ForStatement>()
+        assertNotNull(forLoop)
+
+        val result = IntervalAnalysis().analyze(loop)
+        val iVar = ((forLoop.statement as CompoundStatement).statements[0] as BinaryOperator).rhs
+        assertEquals(LongInterval(0, 5), result[iVar])
+        assertEquals(LongInterval(0, 6), result[(forLoop.condition as BinaryOperator).lhs])
+
+        val iDecl = forLoop.initializerStatement.declarations.first()
+        assertEquals(LongInterval(0, 0), result[iDecl])
+    }
+
+    @Test
+    fun testEvaluators() {
+        val result =
+            TestUtils.analyze(
+                listOf(topLevel.resolve("intervals.cpp").toFile()),
+                topLevel,
+                true
+            ) { it.registerPass(EdgeCachePass()) }
+        val tu = result.translationUnits.first()
+
+        // A large loop bound is no problem, since we do not iterate over the loop
+        val largeLoop = tu.byNameOrNull<FunctionDeclaration>("large_loop")
+        assertNotNull(largeLoop)
+        val forLoop = largeLoop.bodyOrNull<ForStatement>()
+        assertNotNull(forLoop)
+        val iVar = ((forLoop.statement as CompoundStatement).statements[0] as BinaryOperator).rhs
+        val value = MultiValueEvaluator().evaluate(iVar) as? Interval
+        assertNotNull(value)
+        assertEquals(0, value.min())
+        assertEquals(99999, value.max())
+
+        assertEquals(LongInterval(0, 99999), rangeOfReturnValue(largeLoop))
+        assertEquals(LongInterval(0, 0), rangeOfReturnValue(tu.byNameOrNull("countdown")))
+        assertEquals(LongInterval(-1, 100), rangeOfReturnValue(tu.byNameOrNull("branches")))
+
+        // The query functions can directly consume the result of the interval evaluator
+        val returnValue = largeLoop.allChildren<ReturnStatement>().first().returnValue
+        assertEquals(0L, min(returnValue, IntervalEvaluator()).value)
+        assertEquals(99999L, max(returnValue, IntervalEvaluator()).value)
+
+        // All evaluators share the analysis of the graph, so the queries above reuse its results
+        val analysis = IntervalAnalysis.forResult(result)
+        assertSame(analysis, IntervalAnalysis.of(largeLoop))
+        val cached = analysis.resultFor(largeLoop)
+        assertSame(cached, analysis.resultFor(largeLoop))
+
+        // Modifying the EOG invalidates the results
+        largeLoop.clearNextEOG()
+        assertNotSame(cached, analysis.resultFor(largeLoop))
+    }
+
+    private fun rangeOfReturnValue(function: FunctionDeclaration?): LongInterval? {
+        assertNotNull(function)
+        val returnValue: Expression? = function.allChildren<ReturnStatement>().first().returnValue
+        assertNotNull(returnValue)
+        return IntervalAnalysis().analyze(function)[returnValue]
+    }
+}
@@ -36,6 +36,7 @@ import kotlin.test.Test
 import kotlin.test.assertEquals
 import kotlin.test.assertFalse
 import kotlin.test.assertNotNull
+import kotlin.test.assertSame
 
 class ValueEvaluatorTest {
 
@@ -142,6 +143,66 @@ class ValueEvaluatorTest {
         m.fields
     }
 
+    @Test
+    fun testCache() {
+        val topLevel = Path.of("src", "test", "resources", "value_evaluation")
+        val result =
+            TestUtils.analyze(listOf(topLevel.resolve("example.cpp").toFile()), topLevel, true)
+        val tu = result.translationUnits.firstOrNull()
+        assertNotNull(tu)
+
+        val main = tu.byNameOrNull<FunctionDeclaration>("main")
+        assertNotNull(main)
+
+        val printB = main.bodyOrNull<CallExpression>()
+        assertNotNull(printB)
+        val arg = printB.arguments.firstOrNull()
+        assertNotNull(arg)
+
+        val cache = ValueEvaluationCache.forResult(result)
+        assertSame(cache, ValueEvaluationCache.forResult(result))
+        // queries share the same cache through the nodes of the result
+        assertSame(cache, ValueEvaluationCache.of(arg))
+
+        val first = ValueEvaluator(cache = cache)
+        assertEquals(2L, first.evaluate(arg))
+        assertEquals(0L, cache.hits)
+        assertEquals(5, cache.size)
+
+        // Another evaluator of the same kind directly uses the cached result, including its path
+        val second = ValueEvaluator(cache = cache)
+        assertEquals(2L, second.evaluate(arg))
+        assertEquals(1L, cache.hits)
+        assertEquals(first.path, second.path)
+
+        // Other kinds of evaluators do not share their results
+        MultiValueEvaluator(cache).evaluate(arg)
+        assertEquals(1L, cache.hits)
+
+        // Modifying the DFG of another graph does not invalidate the results
+        val other = Node()
+        other.modifications = GraphModifications()
+        other.addNextDFG(Node())
+        assertEquals(2L, ValueEvaluator(cache = cache).evaluate(arg))
+        assertEquals(2L, cache.hits)
+
+        // Modifying the DFG invalidates all results
+        val c = main.bodyOrNull<DeclarationStatement>(2)?.singleDeclaration
+        assertNotNull(c)
+        arg.addPrevDFG(c)
+
+        assertEquals("{b}", ValueEvaluator(cache = cache).evaluate(arg))
+        assertEquals(2L, cache.hits)
+        assertEquals(1, cache.size)
+
+        // Replacing the DFG edges of a node invalidates them as well
+        assertEquals("{b}", ValueEvaluator(cache = cache).evaluate(arg))
+        assertEquals(3L, cache.hits)
+        arg.prevDFG = HashSet(arg.prevDFG)
+        assertEquals("{b}", ValueEvaluator(cache = cache).evaluate(arg))
+        assertEquals(3L, cache.hits)
+    }
+
     @Test
     fun testComplex() {
         val topLevel = Path.of("src", "test", "resources", "value_evaluation")
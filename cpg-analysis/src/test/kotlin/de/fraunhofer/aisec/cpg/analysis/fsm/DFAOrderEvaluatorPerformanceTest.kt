@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.analysis.fsm
+
+import de.fraunhofer.aisec.cpg.TestUtils
+import de.fraunhofer.aisec.cpg.frontends.java.JavaLanguage
+import de.fraunhofer.aisec.cpg.graph.Node
+import de.fraunhofer.aisec.cpg.graph.bodyOrNull
+import de.fraunhofer.aisec.cpg.graph.byNameOrNull
+import de.fraunhofer.aisec.cpg.graph.calls
+import de.fraunhofer.aisec.cpg.graph.declarations.FunctionDeclaration
+import de.fraunhofer.aisec.cpg.graph.declarations.RecordDeclaration
+import de.fraunhofer.aisec.cpg.graph.declarations.TranslationUnitDeclaration
+import de.fraunhofer.aisec.cpg.graph.statements.DeclarationStatement
+import de.fraunhofer.aisec.cpg.helpers.Benchmark
+import de.fraunhofer.aisec.cpg.passes.EdgeCachePass
+import de.fraunhofer.aisec.cpg.passes.IdentifierPass
+import de.fraunhofer.aisec.cpg.passes.UnreachableEOGPass
+import java.time.Duration
+import java.time.temporal.ChronoUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.io.path.createTempDirectory
+import kotlin.io.path.writeText
+import kotlin.test.*
+import org.junit.jupiter.api.assertTimeout
+
+class DFAOrderEvaluatorPerformanceTest {
+    private val branches = 64
+    private val functions = 8
+
+    @Test
+    fun testManyBranches() {
+        // Every function starts cm correctly, has many independent branches calling process() and
+        // only the functions with an even index call finish() in the end.
+        val code = StringBuilder("public class ManyBranches {\n")
+        for (f in 0 until functions) {
+            code.append("  void f$f(int x) {\n")
+            code.append("    Botan2 p1 = new Botan2(1);\n")
+            code.append("    p1.create();\n    p1.init();\n    p1.start();\n")
+            for (i in 0 until branches) {
+                code.append("    if (x > $i) {\n      p1.process();\n    }\n")
+            }
+            if (f % 2 == 0) {
+                code.append("    p1.finish();\n")
+            }
+            code.append("  }\n")
+        }
+        code.append("}\n\n")
+        code.append("public class Botan2 {\n")
+        for (op in listOf("create", "init", "start", "process", "finish")) {
+            code.append("  public void $op() {}\n")
+        }
+        code.append("}\n")
+
+        val tu = analyze("ManyBranches", code.toString())
+        val record = tu.byNameOrNull<RecordDeclaration>("ManyBranches")
+        assertNotNull(record)
+
+        val consideredBases = mutableSetOf<Long>()
+        val nodesToOp = mutableMapOf<Node, String>()
+        val startNodes = mutableListOf<Node>()
+        for (f in 0 until functions) {
+            val function = record.byNameOrNull<FunctionDeclaration>("f$f")
+            assertNotNull(function)
+            val p1Decl = function.bodyOrNull<DeclarationStatement>(0)
+            assertNotNull(p1Decl)
+            consideredBases += p1Decl.declarations[0]?.id!!
+            function.calls
+                .filter { it.name in setOf("create", "init", "start", "process", "finish") }
+                .forEach { nodesToOp[it] = "${it.name}()" }
+            startNodes += p1Decl
+        }
+
+        val expected = List(functions) { it % 2 == 0 }
+        val orderEvaluator = DFAOrderEvaluator(consideredBases, nodesToOp)
+
+        assertTimeout(Duration.of(30, ChronoUnit.SECONDS)) {
+            var b = Benchmark(DFAOrderEvaluatorPerformanceTest::class.java, "Sequential")
+            assertEquals(
+                expected,
+                orderEvaluator.evaluateOrder(getDFA(), startNodes, parallelism = 1)
+            )
+            b.addMeasurement()
+
+            b = Benchmark(DFAOrderEvaluatorPerformanceTest::class.java, "Concurrent")
+            assertEquals(expected, orderEvaluator.evaluateOrder(getDFA(), startNodes))
+            b.addMeasurement()
+        }
+    }
+
+    @Test
+    fun testMergedPathsAreReportedOnce() {
+        // The branches do not use p1, so all paths reach the wrong init() call in the same state
+        val code = StringBuilder("public class MergedPaths {\n")
+        code.append("  void f(int x) {\n")
+        code.append("    Botan2 p1 = new Botan2(1);\n")
+        code.append("    p1.create();\n    p1.init();\n    p1.start();\n")
+        for (i in 0 until 3) {
+            code.append("    if (x > $i) {\n      x = $i;\n    } else {\n      x = 0;\n    }\n")
+        }
+        code.append("    p1.init();\n  }\n}\n\n")
+        code.append("public class Botan2 {\n")
+        for (op in listOf("create", "init", "start", "process", "finish")) {
+            code.append("  public void $op() {}\n")
+        }
+        code.append("}\n")
+
+        val tu = analyze("MergedPaths", code.toString())
+        val record = tu.byNameOrNull<RecordDeclaration>("MergedPaths")
+        assertNotNull(record)
+        val function = record.byNameOrNull<FunctionDeclaration>("f")
+        assertNotNull(function)
+        val p1Decl = function.bodyOrNull<DeclarationStatement>(0)
+        assertNotNull(p1Decl)
+        val nodesToOp =
+            function.calls
+                .filter { it.name in setOf("create", "init", "start") }
+                .associateWith { "${it.name}()" }
+
+        val missingTransitions = AtomicInteger()
+        val nonAcceptingTerminations = AtomicInteger()
+        val orderEvaluator =
+            object : DFAOrderEvaluator(setOf(p1Decl.declarations[0]?.id!!), nodesToOp) {
+                override fun actionMissingTransitionForNode(
+                    node: Node,
+                    fsm: DFA,
+                    interproceduralFlow: Boolean
+                ) {
+                    missingTransitions.incrementAndGet()
+                }
+
+                override fun actionNonAcceptingTermination(
+                    base: String,
+                    fsm: DFA,
+                    interproceduralFlow: Boolean
+                ) {
+                    nonAcceptingTerminations.incrementAndGet()
+                }
+            }
+
+        assertFalse(orderEvaluator.evaluateOrder(getDFA(), p1Decl))
+        // Without merging the paths, each of the 8 paths would be reported
+        assertEquals(1, missingTransitions.get())
+        assertEquals(1, nonAcceptingTerminations.get())
+    }
+
+    private fun analyze(className: String, code: String): TranslationUnitDeclaration {
+        val topLevel = createTempDirectory("dfa")
+        val file = topLevel.resolve("$className.java")
+        file.writeText(code)
+
+        return TestUtils.analyzeAndGetFirstTU(listOf(file.toFile()), topLevel, true) {
+            it.registerLanguage<JavaLanguage>()
+                .registerPass(UnreachableEOGPass())
+                .registerPass(IdentifierPass())
+                .registerPass(EdgeCachePass())
+        }
+    }
+
+    private fun getDFA(): DFA {
+        // allowed: cm.create(), cm.init(), (cm.start(), cm.process()*, cm.finish())+, cm.reset()?
+        val dfa = DFA()
+        val q1 = dfa.addState(isStart = true)
+        val q2 = dfa.addState()
+        val q3 = dfa.addState()
+        val q4 = dfa.addState()
+        val q5 = dfa.addState()
+        val q6 = dfa.addState(isAcceptingState = true)
+        val q7 = dfa.addState(isAcceptingState = true)
+        dfa.addEdge(q1, q2, "create()", "cm")
+        dfa.addEdge(q2, q3, "init()", "cm")
+        dfa.addEdge(q3, q4, "start()", "cm")
+        dfa.addEdge(q4, q5, DFA.EPSILON, "cm")
+        dfa.addEdge(q5, q5, "process()", "cm")
+        dfa.addEdge(q5, q6, "finish()", "cm")
+        dfa.addEdge(q6, q4, "start()", "cm")
+        dfa.addEdge(q6, q7, "reset()", "cm")
+        return dfa
+    }
+}
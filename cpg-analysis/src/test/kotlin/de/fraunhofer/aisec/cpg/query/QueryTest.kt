@@ -34,7 +34,9 @@ import de.fraunhofer.aisec.cpg.graph.declarations.FunctionDeclaration
 import de.fraunhofer.aisec.cpg.graph.statements.expressions.*
 import de.fraunhofer.aisec.cpg.passes.EdgeCachePass
 import java.io.File
+import java.util.concurrent.ConcurrentHashMap
 import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
 import kotlin.test.assertFalse
 import kotlin.test.assertTrue
 import org.junit.jupiter.api.Test
@@ -72,6 +74,140 @@ class QueryTest {
         // result.calls.name("memcpy").all { n -> sizeof(n.arguments[0]) >= sizeof(n.arguments[1]) }
     }
 
+    @Test
+    fun testParallelQueries() {
+        val config =
+            TranslationConfiguration.builder()
+                .sourceLocations(File("src/test/resources/query/vulnerable.cpp"))
+                .defaultPasses()
+                .defaultLanguages()
+                .build()
+
+        val analyzer = TranslationManager.builder().config(config).build()
+        val result = analyzer.analyze().get()
+
+        val queryTreeResult =
+            result.allExtended<CallExpression>(
+                { it.name == "memcpy" },
+                { sizeof(it.arguments[0]) gt sizeof(it.arguments[1]) }
+            )
+        val parallelResult =
+            result.allExtendedParallel<CallExpression>({ it.name == "memcpy" }, 4) {
+                sizeof(it.arguments[0]) gt sizeof(it.arguments[1])
+            }
+        assertEquals(queryTreeResult.value, parallelResult.value)
+        assertEquals(
+            queryTreeResult.children.map { it.stringRepresentation },
+            parallelResult.children.map { it.stringRepresentation }
+        )
+
+        assertEquals(
+            result.all<CallExpression>(mustSatisfy = { it.name != "free" }),
+            result.allParallel<CallExpression>(parallelism = 4) { it.name != "free" }
+        )
+
+        // By default, exists stops at the first node which fulfills the condition
+        val existsResult = result.exists<CallExpression>(mustSatisfy = { it.name == "free" })
+        val existsParallelResult =
+            result.existsParallel<CallExpression>(parallelism = 4) { it.name == "free" }
+        assertTrue(existsParallelResult.first)
+        assertEquals(listOf(existsResult.second.first()), existsParallelResult.second)
+        assertEquals(
+            existsResult,
+            result.existsParallel<CallExpression>(parallelism = 4, earlyTermination = false) {
+                it.name == "free"
+            }
+        )
+
+        val existsExtendedResult =
+            result.existsExtendedParallel<CallExpression>(parallelism = 4) {
+                const("free") eq it.name
+            }
+        assertTrue(existsExtendedResult.value)
+        assertTrue(existsExtendedResult.children.last().value)
+        assertEquals(1, existsExtendedResult.children.count { it.value })
+    }
+
+    @Test
+    fun testEvaluateParallel() {
+        val nodes = (0 until 100).toList()
+
+        // Below the threshold, the nodes are evaluated by the calling thread
+        val threads = ConcurrentHashMap.newKeySet<Thread>()
+        evaluateParallel(nodes.take(MIN_PARALLEL_NODES - 1), 4) {
+            threads += Thread.currentThread()
+        }
+        assertEquals(setOf(Thread.currentThread()), threads)
+
+        assertEquals(nodes.map { it * 2 }, evaluateParallel(nodes, 4) { it * 2 })
+        // The results end with the first node fulfilling stopAt, independent of the scheduling
+        assertEquals((0..42).toList(), evaluateParallel(nodes, 4, { it >= 42 }) { it })
+        // The exception of the first failing node is rethrown
+        val exception =
+            assertFailsWith<IllegalStateException> {
+                evaluateParallel(nodes, 4) { check(it < 50 || it % 10 != 0) { "$it" } }
+            }
+        assertEquals("50", exception.message)
+    }
+
+    @Test
+    fun testLightweightQueries() {
+        val config =
+            TranslationConfiguration.builder()
+                .sourceLocations(File("src/test/resources/query/vulnerable.cpp"))
+                .defaultPasses()
+                .defaultLanguages()
+                .build()
+
+        val analyzer = TranslationManager.builder().config(config).build()
+        val result = analyzer.analyze().get()
+
+        val queryTreeResult =
+            result.allExtended<CallExpression>(
+                { it.name == "memcpy" },
+                { sizeof(it.arguments[0]) gt sizeof(it.arguments[1]) }
+            )
+        val lightweightResult =
+            lightweightQueries(maxWitnesses = 1) {
+                result.allExtended<CallExpression>(
+                    { it.name == "memcpy" },
+                    { sizeof(it.arguments[0]) gt sizeof(it.arguments[1]) }
+                )
+            }
+        assertFalse(QueryTreeSettings.current.lightweight)
+
+        assertFalse(lightweightResult.value)
+        // Only one violating node is retained, without the operands of the comparison
+        assertEquals(1, lightweightResult.children.size)
+        val witness = lightweightResult.children.first()
+        assertEquals(false, witness.value)
+        assertTrue(witness.children.isEmpty())
+        assertEquals(
+            queryTreeResult.children.first { it.value == false }.stringRepresentation,
+            witness.stringRepresentation
+        )
+    }
+
+    @Test
+    fun testStringRepresentations() {
+        val t = QueryTree(true)
+        val f = QueryTree(false)
+        assertEquals("true => false", (t implies f).stringRepresentation)
+        assertEquals("false => XYZ", (f implies lazy { t }).stringRepresentation)
+        assertEquals("true => $f", (t implies lazy { f }).stringRepresentation)
+        assertEquals("1 == 1", (QueryTree(1) eq 2).stringRepresentation)
+        assertEquals("1 != 1", (QueryTree(1) ne 2).stringRepresentation)
+        assertEquals("3 > 2", (QueryTree(3) gt QueryTree(2)).stringRepresentation)
+        assertEquals("! true", not(t).stringRepresentation)
+
+        val tree = QueryTree(1, mutableListOf(), "one")
+        tree.prefixRepresentation { "Starting at x: " }
+        assertEquals("Starting at x: one", tree.stringRepresentation)
+        val lazyTree = QueryTree(3) gt 2
+        lazyTree.prefixRepresentation { "Starting at y: " }
+        assertEquals("Starting at y: 3 > 2", lazyTree.stringRepresentation)
+    }
+
     @Test
     fun testMemcpyTooLargeQuery() {
         val config =
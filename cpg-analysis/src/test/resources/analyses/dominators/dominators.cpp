@@ -0,0 +1,16 @@
+int init();
+int use(int x);
+
+int main(int argc) {
+  int a = init();
+  if (argc > 1) {
+    a = use(a);
+  } else {
+    a = 2;
+  }
+  use(a);
+  while (a > 0) {
+    a--;
+  }
+  return a;
+}
@@ -0,0 +1,31 @@
+char *getenv(const char *name);
+int system(const char *command);
+
+char *identity(char *value) {
+  return value;
+}
+
+void execute(char *command) {
+  system(command);
+}
+
+void forward(char *command, int unused) {
+  execute(identity(command));
+}
+
+char *source() {
+  return getenv("CMD");
+}
+
+int countdown(int n) {
+  if (n > 0) {
+    countdown(n - 1);
+  }
+  return n;
+}
+
+int main() {
+  char *cmd = source();
+  forward(cmd, 1);
+  return countdown(10);
+}
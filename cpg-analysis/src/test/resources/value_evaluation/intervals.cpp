@@ -0,0 +1,27 @@
+int large_loop() {
+    int sum = 0;
+    for(int i = 0; i < 100000; i++) {
+        sum = i;
+    }
+    return sum;
+}
+
+int countdown(int n) {
+    int j = 10;
+    while(j > 0) {
+        j--;
+    }
+    return j;
+}
+
+int branches(int x) {
+    int y = 0;
+    if(x < 0) {
+        y = -1;
+    } else if(x > 100) {
+        y = 100;
+    } else {
+        y = x;
+    }
+    return y;
+}
@@ -49,13 +49,24 @@ class OutOfBoundsCheck {
         get() = LoggerFactory.getLogger(OutOfBoundsCheck::class.java)
 
     fun run(result: TranslationResult) {
+        // The interval analysis is shared between all accesses, so that each function is only
+        // analyzed once
+        val intervalEvaluator = IntervalEvaluator()
         for (tu in result.translationUnits) {
             tu.accept(
                 Strategy::AST_FORWARD,
                 object : IVisitor<Node?>() {
                     fun visit(v: ArraySubscriptionExpression) {
                         val evaluator = ValueEvaluator()
-                        val resolvedIndex = evaluator.evaluate(v.subscriptExpression)
+                        var resolvedIndex = evaluator.evaluate(v.subscriptExpression)
+                        if (resolvedIndex !is Int) {
+                            // Fall back to the largest possible value, e.g., of a loop variable
+                            val range =
+                                intervalEvaluator.evaluate(v.subscriptExpression) as? NumberSet
+                            if (range != null && range.max() in 0..Int.MAX_VALUE) {
+                                resolvedIndex = range.max().toInt()
+                            }
+                        }
 
                         if (resolvedIndex is Int) {
                             // check, if we know that the array was initialized with a fixed length
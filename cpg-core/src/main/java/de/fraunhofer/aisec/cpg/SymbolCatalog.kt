@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg
+
+import de.fraunhofer.aisec.cpg.graph.declarations.*
+
+/**
+ * A compact catalog of the global symbols of all translation units that were analyzed using
+ * [TranslationManager.analyzeStreaming]. In contrast to the translation units themselves, which are
+ * released once they are exported, the catalog only consists of (shared) strings and is retained
+ * during the whole analysis. It can be used to look up symbols that are declared in other
+ * translation units, e.g., by a [TranslationUnitSink] or a subsequent analysis.
+ *
+ * The catalog is not used to resolve symbols across translation units: while a translation unit is
+ * analyzed, it only contains the translation units that happened to be analyzed before, so the
+ * result of the resolution would depend on the order of the files.
+ */
+class SymbolCatalog {
+    enum class Kind {
+        FUNCTION,
+        METHOD,
+        CONSTRUCTOR,
+        RECORD,
+        FIELD,
+        VARIABLE
+    }
+
+    /**
+     * A global symbol. The [signature] is only set for functions, the [type] for records (their
+     * kind), fields and variables. Only functions distinguish between declarations and definitions.
+     */
+    data class Symbol(
+        val kind: Kind,
+        val name: String,
+        val signature: String?,
+        val type: String?,
+        val isDefinition: Boolean,
+        val file: String
+    )
+
+    private val symbols = LinkedHashMap<String, MutableList<Symbol>>()
+    private val strings = HashMap<String, String>()
+    private val files = mutableListOf<String>()
+
+    /** The names of the translation units that were summarized. */
+    val translationUnits: List<String>
+        @Synchronized get() = files.toList()
+
+    /** The number of symbols in this catalog. */
+    val size: Int
+        @Synchronized get() = symbols.values.sumOf { it.size }
+
+    /** Returns all symbols with the given fully qualified [name]. */
+    @Synchronized
+    operator fun get(name: String): List<Symbol> {
+        return symbols[name]?.toList() ?: listOf()
+    }
+
+    /**
+     * Returns the symbol of the given [kind] and [name], preferring definitions over declarations.
+     */
+    @Synchronized
+    fun lookup(name: String, kind: Kind): Symbol? {
+        val candidates = symbols[name]?.filter { it.kind == kind } ?: return null
+
+        return candidates.firstOrNull { it.isDefinition } ?: candidates.firstOrNull()
+    }
+
+    /** Adds the global symbols of [tu] to this catalog. */
+    @Synchronized
+    fun add(tu: TranslationUnitDeclaration) {
+        val file = intern(tu.name)
+        files += file
+        tu.declarations.forEach { collect(it, file) }
+    }
+
+    private fun collect(declaration: Declaration, file: String) {
+        when (declaration) {
+            is ConstructorDeclaration -> add(Kind.CONSTRUCTOR, declaration, file)
+            is MethodDeclaration -> add(Kind.METHOD, declaration, file)
+            is FunctionDeclaration -> add(Kind.FUNCTION, declaration, file)
+            is FieldDeclaration -> add(Kind.FIELD, declaration, file, declaration.type.typeName)
+            is VariableDeclaration ->
+                add(Kind.VARIABLE, declaration, file, declaration.type.typeName)
+            is RecordDeclaration -> {
+                add(Kind.RECORD, declaration, file, declaration.kind)
+                declaration.declarations.forEach { collect(it, file) }
+            }
+            is NamespaceDeclaration -> declaration.declarations.forEach { collect(it, file) }
+        }
+    }
+
+    private fun add(kind: Kind, function: FunctionDeclaration, file: String) {
+        add(
+            Symbol(
+                kind,
+                intern(function.fullName.toString()),
+                intern(function.signature),
+                null,
+                function.isDefinition,
+                file
+            )
+        )
+    }
+
+    private fun add(kind: Kind, declaration: Declaration, file: String, type: String?) {
+        add(
+            Symbol(
+                kind,
+                intern(declaration.fullName.toString()),
+                null,
+                type?.let(::intern),
+                true,
+                file
+            )
+        )
+    }
+
+    private fun add(symbol: Symbol) {
+        symbols.computeIfAbsent(symbol.name) { ArrayList(1) } += symbol
+    }
+
+    private fun intern(value: String): String = strings.getOrPut(value) { value }
+}
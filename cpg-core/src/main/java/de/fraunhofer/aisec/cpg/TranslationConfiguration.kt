@@ -31,6 +31,7 @@ import com.fasterxml.jackson.annotation.ObjectIdGenerators
 import de.fraunhofer.aisec.cpg.frontends.CompilationDatabase
 import de.fraunhofer.aisec.cpg.frontends.Language
 import de.fraunhofer.aisec.cpg.frontends.LanguageFrontend
+import de.fraunhofer.aisec.cpg.frontends.SourceBuffer
 import de.fraunhofer.aisec.cpg.frontends.cpp.CLanguage
 import de.fraunhofer.aisec.cpg.frontends.cpp.CPPLanguage
 import de.fraunhofer.aisec.cpg.frontends.java.JavaLanguage
@@ -105,7 +106,10 @@ private constructor(
     inferenceConfiguration: InferenceConfiguration,
     compilationDatabase: CompilationDatabase?,
     matchCommentsToNodes: Boolean,
-    addIncludesToGraph: Boolean
+    addIncludesToGraph: Boolean,
+    collectHandlerStatistics: Boolean,
+    codeFromSourceBuffers: Boolean,
+    memoryMapSourceBuffers: Boolean
 ) {
     /** This list contains all languages which we want to translate. */
     val languages: List<Language<out LanguageFrontend>>
@@ -120,6 +124,19 @@ private constructor(
     /** should the code of a node be shown as parameter in the node * */
     @JvmField val codeInNodes: Boolean
 
+    /**
+     * If true (and [codeInNodes] is set), nodes do not store a copy of their code. Instead, the
+     * frontend keeps one shared [SourceBuffer] per file and the code of a node is read from the
+     * region of its location in this buffer when it is needed.
+     */
+    val codeFromSourceBuffers: Boolean
+
+    /**
+     * If true, the [SourceBuffer]s used by [codeFromSourceBuffers] are memory-mapped, so that the
+     * source files are not held on the heap.
+     */
+    val memoryMapSourceBuffers: Boolean
+
     /** Set to true to process annotations or annotation-like elements. */
     val processAnnotations: Boolean
 
@@ -163,6 +180,12 @@ private constructor(
     /** If true the (cpp) frontend connects a node to required includes. */
     val addIncludesToGraph: Boolean
 
+    /**
+     * If true, the frontend handlers count and time the raw AST nodes they translate, grouped by
+     * their class. The results are added to the benchmarks of the [TranslationResult].
+     */
+    val collectHandlerStatistics: Boolean
+
     @get:JsonIdentityReference(alwaysAsId = true)
     @get:JsonIdentityInfo(
         generator = ObjectIdGenerators.PropertyGenerator::class,
@@ -178,6 +201,8 @@ private constructor(
         this.languages = languages
         // Make sure to init this AFTER sourceLocations has been set
         this.codeInNodes = codeInNodes
+        this.codeFromSourceBuffers = codeFromSourceBuffers
+        this.memoryMapSourceBuffers = memoryMapSourceBuffers
         this.processAnnotations = processAnnotations
         this.disableCleanup = disableCleanup
         this.useUnityBuild = useUnityBuild
@@ -187,6 +212,7 @@ private constructor(
         this.compilationDatabase = compilationDatabase
         this.matchCommentsToNodes = matchCommentsToNodes
         this.addIncludesToGraph = addIncludesToGraph
+        this.collectHandlerStatistics = collectHandlerStatistics
     }
 
     /** Returns a list of all analyzed files. */
@@ -221,6 +247,8 @@ private constructor(
         private val includeBlocklist = mutableListOf<Path>()
         private val passes = mutableListOf<Pass>()
         private var codeInNodes = true
+        private var codeFromSourceBuffers = false
+        private var memoryMapSourceBuffers = false
         private var processAnnotations = false
         private var disableCleanup = false
         private var useUnityBuild = false
@@ -230,6 +258,7 @@ private constructor(
         private var compilationDatabase: CompilationDatabase? = null
         private var matchCommentsToNodes = false
         private var addIncludesToGraph = true
+        private var collectHandlerStatistics = false
         fun symbols(symbols: Map<String, String>): Builder {
             this.symbols = symbols
             return this
@@ -299,6 +328,12 @@ private constructor(
             return this
         }
 
+        /** Count and time the translated raw AST nodes per class in the frontend handlers. */
+        fun collectHandlerStatistics(collectHandlerStatistics: Boolean): Builder {
+            this.collectHandlerStatistics = collectHandlerStatistics
+            return this
+        }
+
         /** Fail analysis on first error. Try to continue otherwise. */
         fun failOnError(failOnError: Boolean): Builder {
             this.failOnError = failOnError
@@ -508,6 +543,21 @@ private constructor(
             return this
         }
 
+        /**
+         * Reads the code of nodes lazily from a shared buffer of each source file instead of
+         * storing it in each node. Optionally, the buffers are memory-mapped.
+         *
+         * @param b the new value
+         * @param memoryMapped whether the source files should be memory-mapped
+         * @return this
+         */
+        @JvmOverloads
+        fun codeFromSourceBuffers(b: Boolean, memoryMapped: Boolean = false): Builder {
+            codeFromSourceBuffers = b
+            memoryMapSourceBuffers = memoryMapped
+            return this
+        }
+
         /**
          * Specifies, whether annotations should be process or not. By default, they are not
          * processed, since they might populate the graph too much.
@@ -593,7 +643,10 @@ private constructor(
                 inferenceConfiguration,
                 compilationDatabase,
                 matchCommentsToNodes,
-                addIncludesToGraph
+                addIncludesToGraph,
+                collectHandlerStatistics,
+                codeFromSourceBuffers,
+                memoryMapSourceBuffers
             )
         }
 
@@ -25,16 +25,19 @@
  */
 package de.fraunhofer.aisec.cpg
 
+import de.fraunhofer.aisec.cpg.frontends.HandlerStatistics
 import de.fraunhofer.aisec.cpg.frontends.Language
 import de.fraunhofer.aisec.cpg.frontends.LanguageFrontend
 import de.fraunhofer.aisec.cpg.frontends.SupportsParallelParsing
 import de.fraunhofer.aisec.cpg.frontends.TranslationException
+import de.fraunhofer.aisec.cpg.frontends.cpp.CXXHeaderCache
 import de.fraunhofer.aisec.cpg.frontends.cpp.CXXLanguageFrontend
 import de.fraunhofer.aisec.cpg.graph.Component
 import de.fraunhofer.aisec.cpg.graph.TypeManager
 import de.fraunhofer.aisec.cpg.helpers.Benchmark
 import de.fraunhofer.aisec.cpg.helpers.Util
 import de.fraunhofer.aisec.cpg.passes.Pass
+import de.fraunhofer.aisec.cpg.passes.order.TranslationUnitLocal
 import de.fraunhofer.aisec.cpg.passes.scopes.ScopeManager
 import java.io.File
 import java.io.PrintWriter
@@ -91,6 +94,15 @@ private constructor(
                 executedFrontends = runFrontends(result, config)
                 bench.addMeasurement()
 
+                // The header cache is only needed while parsing
+                result.scopeManager.modifications
+                    .shared(CXXHeaderCache::class.java) { CXXHeaderCache() }
+                    .clear()
+
+                if (config.collectHandlerStatistics) {
+                    HandlerStatistics.of(result.scopeManager).addTo(result)
+                }
+
                 // Apply passes
                 for (pass in config.registeredPasses) {
                     bench = Benchmark(pass.javaClass, "Executing Pass", false, result)
@@ -122,6 +134,138 @@ private constructor(
         }
     }
 
+    /**
+     * Kicks off the analysis in streaming mode, which is intended for analyses of very large code
+     * bases that only need intra-procedural results.
+     *
+     * In contrast to [analyze], each file is parsed into its own [TranslationResult] and only the
+     * passes that are annotated with [TranslationUnitLocal], together with the passes they depend
+     * on (see [streamingPasses]), are executed. Afterwards, the translation unit is handed to the
+     * [sink] and released, together with the state of all passes and frontends. Only a compact
+     * [SymbolCatalog] of the global symbols of all translation units is retained, so the peak
+     * memory is bound by the largest translation unit rather than by the whole program. Cleanup is
+     * therefore always performed, regardless of [TranslationConfiguration.disableCleanup].
+     *
+     * Since every file is analyzed on its own, symbols of other files are not resolved in the
+     * graph, i.e., the passes behave as if the translation unit was the only one. The catalog is
+     * not used to resolve them either, since it would only contain the files that happened to be
+     * analyzed before; it is only collected for the [sink] and the caller, who can look up these
+     * symbols in it.
+     *
+     * @return a [CompletableFuture] with the [SymbolCatalog] of all translation units.
+     */
+    fun analyzeStreaming(sink: TranslationUnitSink): CompletableFuture<SymbolCatalog> {
+        val catalog = SymbolCatalog()
+        // The header cache is shared by the frontends of all translation units of this run
+        val headerCache = CXXHeaderCache()
+
+        return CompletableFuture.supplyAsync {
+            val bench = Benchmark(TranslationManager::class.java, "Streaming translation")
+            val passes = streamingPasses()
+
+            try {
+                components@ for ((name, sourceLocations) in config.softwareComponents) {
+                    val files =
+                        sourceLocations.flatMap { if (it.isDirectory) filesIn(it) else listOf(it) }
+                    for (file in files) {
+                        if (isCancelled()) {
+                            log.warn("Analysis interrupted, stopping streaming translation")
+                            break@components
+                        }
+
+                        analyzeTranslationUnit(name, file, passes, sink, catalog, headerCache)
+                    }
+                }
+
+                sink.finish(catalog)
+            } finally {
+                headerCache.clear()
+            }
+            bench.addMeasurement()
+
+            catalog
+        }
+    }
+
+    /**
+     * Returns the passes that are executed for each translation unit in streaming mode. These are
+     * all registered passes that are annotated with [TranslationUnitLocal] as well as all passes
+     * they (transitively) depend on, since the local passes rely on their results. For example, the
+     * EOG relies on the invocation targets of the CallResolver. The passes are executed in the
+     * order of [TranslationConfiguration.registeredPasses].
+     */
+    private fun streamingPasses(): List<Pass> {
+        val registered = config.registeredPasses.associateBy { it.javaClass }
+        val required = mutableSetOf<Class<out Pass>>()
+        val worklist = config.registeredPasses.filter { it.isTranslationUnitLocal }.toMutableList()
+        while (worklist.isNotEmpty()) {
+            val pass = worklist.removeLast()
+            if (required.add(pass.javaClass)) {
+                (pass.hardDependencies + pass.softDependencies).mapNotNullTo(worklist) {
+                    registered[it]
+                }
+            }
+        }
+
+        val passes = config.registeredPasses.filter { it.javaClass in required }
+        val dependencies = passes.filterNot { it.isTranslationUnitLocal }
+        if (dependencies.isNotEmpty()) {
+            log.info(
+                "Also executing {} on each translation unit, since local passes depend on them",
+                dependencies.map { it.javaClass.simpleName }
+            )
+        }
+
+        return passes
+    }
+
+    private fun analyzeTranslationUnit(
+        componentName: String,
+        file: File,
+        passes: List<Pass>,
+        sink: TranslationUnitSink,
+        catalog: SymbolCatalog,
+        headerCache: CXXHeaderCache
+    ) {
+        val result = TranslationResult(this, ScopeManager())
+        result.scopeManager.modifications.shared(CXXHeaderCache::class.java) { headerCache }
+        val component = Component()
+        component.name = componentName
+        result.addComponent(component)
+
+        val executedPasses = mutableListOf<Pass>()
+        var frontend: LanguageFrontend? = null
+
+        try {
+            TypeManager.setTypeSystemActive(config.typeSystemActiveInFrontend)
+            frontend = parse(component, result.scopeManager, file).orElse(null) ?: return
+
+            if (!config.typeSystemActiveInFrontend) {
+                TypeManager.setTypeSystemActive(true)
+                component.translationUnits.forEach { result.scopeManager.activateTypes(it) }
+            }
+
+            for (pass in passes) {
+                if (pass.runsWithCurrentFrontend(listOf(frontend))) {
+                    executedPasses.add(pass)
+                    pass.accept(result)
+                }
+            }
+
+            for (tu in component.translationUnits) {
+                catalog.add(tu)
+                sink.accept(result, tu)
+            }
+        } catch (ex: TranslationException) {
+            throw CompletionException(ex)
+        } finally {
+            // Release everything that still refers to the nodes of this translation unit
+            executedPasses.forEach { it.cleanup() }
+            frontend?.cleanup()
+            TypeManager.reset()
+        }
+    }
+
     val passes: List<Pass>
         get() = config.registeredPasses
 
@@ -157,15 +301,7 @@ private constructor(
             val list =
                 sourceLocations.flatMap { file ->
                     if (file.isDirectory) {
-                        Files.find(
-                                file.toPath(),
-                                999,
-                                { _: Path?, fileAttr: BasicFileAttributes ->
-                                    fileAttr.isRegularFile
-                                }
-                            )
-                            .map { it.toFile() }
-                            .collect(Collectors.toList())
+                        filesIn(file)
                     } else {
                         val frontendClass = file.language?.frontend
                         val supportsParallelParsing =
@@ -258,7 +394,7 @@ private constructor(
             IdentityHashMap()
 
         for (sourceLocation in sourceLocations) {
-            val scopeManager = ScopeManager()
+            val scopeManager = ScopeManager(result.scopeManager.modifications)
             parallelScopeManagers.add(scopeManager)
 
             val future =
@@ -315,6 +451,16 @@ private constructor(
         return usedFrontends
     }
 
+    private fun filesIn(directory: File): List<File> {
+        return Files.find(
+                directory.toPath(),
+                999,
+                { _: Path?, fileAttr: BasicFileAttributes -> fileAttr.isRegularFile }
+            )
+            .map { it.toFile() }
+            .collect(Collectors.toList())
+    }
+
     private fun handleCompletion(
         result: TranslationResult,
         usedFrontends: MutableSet<LanguageFrontend>,
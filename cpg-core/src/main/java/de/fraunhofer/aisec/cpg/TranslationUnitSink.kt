@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg
+
+import de.fraunhofer.aisec.cpg.graph.declarations.TranslationUnitDeclaration
+
+/**
+ * Receives the translation units of an analysis in streaming mode, see
+ * [TranslationManager.analyzeStreaming]. A sink usually exports the translation unit, e.g., into a
+ * database or a file. Since the translation unit (as well as its [TranslationResult]) is released
+ * once [accept] returns, a sink must not keep any references to its nodes.
+ */
+fun interface TranslationUnitSink {
+    /** Called for every translation unit after the translation-unit-local passes were executed. */
+    fun accept(result: TranslationResult, tu: TranslationUnitDeclaration)
+
+    /** Called once all translation units were analyzed. */
+    fun finish(catalog: SymbolCatalog) {}
+}
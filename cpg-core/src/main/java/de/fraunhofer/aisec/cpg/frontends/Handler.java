@@ -33,6 +33,7 @@ import de.fraunhofer.aisec.cpg.passes.scopes.Scope;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 import org.eclipse.cdt.internal.core.dom.parser.ASTNode;
 import org.jetbrains.annotations.NotNull;
@@ -54,7 +55,10 @@ import org.slf4j.LoggerFactory;
  * @param <L> the language frontend
  */
 public abstract class Handler<S extends Node, T, L extends LanguageFrontend>
-    implements LanguageProvider, CodeAndLocationProvider, ScopeProvider {
+    implements LanguageProvider,
+        CodeAndLocationProvider,
+        ScopeProvider,
+        GraphModificationsProvider {
 
   protected static final Logger log = LoggerFactory.getLogger(Handler.class);
 
@@ -63,10 +67,44 @@ public abstract class Handler<S extends Node, T, L extends LanguageFrontend>
   protected @NotNull L frontend;
   @Nullable private final Class<?> typeOfT;
 
+  /**
+   * Caches the handler of {@link #map} that is responsible for a concrete raw AST node class, so
+   * that the superclass chain only needs to be walked once per class. This requires that all
+   * handlers are registered in {@link #map} before the first node is handled.
+   */
+  private final HashMap<Class<?>, Dispatch<S, T>> dispatch = new HashMap<>();
+
+  /** Optional statistics about the handled nodes, see {@link HandlerStatistics}. */
+  @Nullable private final HandlerStatistics statistics;
+
   public Handler(Supplier<S> configConstructor, @NotNull L frontend) {
     this.configConstructor = configConstructor;
     this.frontend = frontend;
     this.typeOfT = retrieveTypeParameter();
+    this.statistics =
+        frontend.getConfig().getCollectHandlerStatistics()
+            ? HandlerStatistics.of(frontend.getScopeManager())
+            : null;
+  }
+
+  /** The resolved handler for a raw AST node class. */
+  private static class Dispatch<S extends Node, T> {
+    @Nullable private final HandlerInterface<S, T> handler;
+
+    /** The class for which {@link #handler} was registered. */
+    @Nullable private final Class<?> handledClass;
+
+    /** Whether it was already reported that we fall back to the handler of a superclass. */
+    private final AtomicBoolean reported;
+
+    private Dispatch(
+        @Nullable HandlerInterface<S, T> handler,
+        @Nullable Class<?> handledClass,
+        boolean needsReport) {
+      this.handler = handler;
+      this.handledClass = handledClass;
+      this.reported = new AtomicBoolean(!needsReport);
+    }
   }
 
   /**
@@ -78,6 +116,19 @@ public abstract class Handler<S extends Node, T, L extends LanguageFrontend>
    * @return most specific handler.
    */
   public S handle(T ctx) {
+    if (statistics == null || ctx == null) {
+      return handleNode(ctx);
+    }
+
+    long start = statistics.start();
+    try {
+      return handleNode(ctx);
+    } finally {
+      statistics.stop(ctx.getClass(), start);
+    }
+  }
+
+  private S handleNode(T ctx) {
     S ret;
     if (ctx == null) {
       log.error(
@@ -98,27 +149,18 @@ public abstract class Handler<S extends Node, T, L extends LanguageFrontend>
       }
     }
 
-    Class<?> toHandle = ctx.getClass();
-    HandlerInterface<S, T> handler = map.get(toHandle);
-    while (handler == null) {
-      toHandle = toHandle.getSuperclass();
-      handler = map.get(toHandle);
-      if (handler != null
-          &&
-          // always ok to handle as generic literal expr
-          !ctx.getClass().getSimpleName().contains("LiteralExpr")) {
-        errorWithFileLocation(
-            frontend,
-            ctx,
-            log,
-            "No handler for type {}, resolving for its superclass {}.",
-            ctx.getClass(),
-            toHandle);
-      }
-      if (toHandle == typeOfT || (typeOfT != null && !typeOfT.isAssignableFrom(toHandle))) {
-        break;
-      }
+    Dispatch<S, T> resolved = dispatch.computeIfAbsent(ctx.getClass(), this::resolve);
+    HandlerInterface<S, T> handler = resolved.handler;
+    if (!resolved.reported.get() && resolved.reported.compareAndSet(false, true)) {
+      errorWithFileLocation(
+          frontend,
+          ctx,
+          log,
+          "No handler for type {}, resolving for its superclass {}. Further nodes of this type will not be reported.",
+          ctx.getClass(),
+          resolved.handledClass);
     }
+
     if (handler != null) {
       S s = handler.handle(ctx);
 
@@ -160,6 +202,32 @@ public abstract class Handler<S extends Node, T, L extends LanguageFrontend>
     return ret;
   }
 
+  /**
+   * Searches {@link #map} for the handler of the most specific superclass of the raw AST node class
+   * {@code type}.
+   */
+  private Dispatch<S, T> resolve(Class<?> type) {
+    Class<?> toHandle = type;
+    HandlerInterface<S, T> handler = map.get(toHandle);
+    while (handler == null) {
+      toHandle = toHandle.getSuperclass();
+      if (toHandle == null) {
+        break;
+      }
+
+      handler = map.get(toHandle);
+      if (toHandle == typeOfT || (typeOfT != null && !typeOfT.isAssignableFrom(toHandle))) {
+        break;
+      }
+    }
+
+    // always ok to handle as generic literal expr
+    var needsReport =
+        handler != null && toHandle != type && !type.getSimpleName().contains("LiteralExpr");
+
+    return new Dispatch<>(handler, toHandle, needsReport);
+  }
+
   private Class<?> retrieveTypeParameter() {
     Class<?> clazz = this.getClass();
 
@@ -211,4 +279,10 @@ public abstract class Handler<S extends Node, T, L extends LanguageFrontend>
   public Scope getScope() {
     return this.frontend.getScopeManager().getCurrentScope();
   }
+
+  @Override
+  @NotNull
+  public GraphModifications getModifications() {
+    return this.frontend.getScopeManager().getModifications();
+  }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.frontends
+
+import de.fraunhofer.aisec.cpg.TranslationConfiguration
+import de.fraunhofer.aisec.cpg.graph.GraphModifications
+import de.fraunhofer.aisec.cpg.helpers.MeasurementHolder
+import de.fraunhofer.aisec.cpg.helpers.StatisticsHolder
+import de.fraunhofer.aisec.cpg.passes.scopes.ScopeManager
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * Collects how many raw AST nodes of each class the [Handler]s of all frontends of one translation
+ * have translated and how long this took. Since handlers call each other recursively, both the
+ * total time (including nested nodes) and the self time (excluding the time spent in nested
+ * [Handler.handle] calls) is recorded.
+ *
+ * Statistics are only collected if [TranslationConfiguration.collectHandlerStatistics] is set. The
+ * instance of a translation is shared through [GraphModifications.shared], see [of].
+ */
+class HandlerStatistics {
+
+    /** The statistic of one raw AST node class. Times are in nanoseconds. */
+    data class Entry(val count: Long, val totalTime: Long, val selfTime: Long)
+
+    private class Counters {
+        val count = LongAdder()
+        val totalTime = LongAdder()
+        val selfTime = LongAdder()
+
+        fun toEntry() = Entry(count.sum(), totalTime.sum(), selfTime.sum())
+    }
+
+    /** The time spent in nested calls, for each active [Handler.handle] call of a thread. */
+    private class Frames {
+        var childTimes = LongArray(32)
+        var depth = 0
+    }
+
+    private val counters = ConcurrentHashMap<Class<*>, Counters>()
+    private val frames = ThreadLocal.withInitial { Frames() }
+
+    /** Marks the start of handling a raw AST node. Returns the start time for [stop]. */
+    fun start(): Long {
+        val frames = frames.get()
+        if (frames.depth == frames.childTimes.size) {
+            frames.childTimes = frames.childTimes.copyOf(frames.depth * 2)
+        }
+        frames.childTimes[frames.depth++] = 0
+
+        return System.nanoTime()
+    }
+
+    /** Marks the end of handling a raw AST node of class [rawClass], started at [start]. */
+    fun stop(rawClass: Class<*>, start: Long) {
+        val elapsed = System.nanoTime() - start
+
+        val frames = frames.get()
+        val childTime = frames.childTimes[--frames.depth]
+        if (frames.depth > 0) {
+            frames.childTimes[frames.depth - 1] += elapsed
+        }
+
+        val counter = counters.computeIfAbsent(rawClass) { Counters() }
+        counter.count.increment()
+        counter.totalTime.add(elapsed)
+        counter.selfTime.add(elapsed - childTime)
+    }
+
+    /** A snapshot of the collected statistics, sorted by descending self time. */
+    val entries: Map<Class<*>, Entry>
+        get() {
+            return counters.entries
+                .map { it.key to it.value.toEntry() }
+                .sortedByDescending { it.second.selfTime }
+                .toMap(LinkedHashMap())
+        }
+
+    /** Adds the collected statistics as measurements to [holder]. */
+    fun addTo(holder: StatisticsHolder) {
+        val measurement =
+            MeasurementHolder(HandlerStatistics::class.java, "Handler statistics", true, holder)
+        for ((clazz, entry) in entries) {
+            measurement.addMeasurement(
+                "Handler ${clazz.name}",
+                "${entry.count} nodes, ${TimeUnit.NANOSECONDS.toMillis(entry.selfTime)} ms self, " +
+                    "${TimeUnit.NANOSECONDS.toMillis(entry.totalTime)} ms total"
+            )
+        }
+    }
+
+    companion object {
+        /**
+         * Returns the statistics shared by all handlers of the translation that [scopeManager]
+         * belongs to.
+         */
+        @JvmStatic
+        fun of(scopeManager: ScopeManager): HandlerStatistics {
+            return scopeManager.modifications.shared(HandlerStatistics::class.java) {
+                HandlerStatistics()
+            }
+        }
+    }
+}
@@ -27,6 +27,8 @@ package de.fraunhofer.aisec.cpg.frontends
 
 import de.fraunhofer.aisec.cpg.TranslationConfiguration
 import de.fraunhofer.aisec.cpg.graph.CodeAndLocationProvider
+import de.fraunhofer.aisec.cpg.graph.GraphModifications
+import de.fraunhofer.aisec.cpg.graph.GraphModificationsProvider
 import de.fraunhofer.aisec.cpg.graph.LanguageProvider
 import de.fraunhofer.aisec.cpg.graph.Node
 import de.fraunhofer.aisec.cpg.graph.ScopeProvider
@@ -36,6 +38,10 @@ import de.fraunhofer.aisec.cpg.passes.scopes.ScopeManager
 import de.fraunhofer.aisec.cpg.sarif.PhysicalLocation
 import de.fraunhofer.aisec.cpg.sarif.Region
 import java.io.File
+import java.io.IOException
+import java.net.URI
+import java.nio.file.FileSystemNotFoundException
+import java.nio.file.Path
 import java.util.*
 import org.apache.commons.lang3.StringUtils
 import org.slf4j.LoggerFactory
@@ -52,7 +58,12 @@ abstract class LanguageFrontend(
     override val language: Language<out LanguageFrontend>,
     val config: TranslationConfiguration,
     scopeManager: ScopeManager
-) : ProcessedListener(), CodeAndLocationProvider, LanguageProvider, ScopeProvider {
+) :
+    ProcessedListener(),
+    CodeAndLocationProvider,
+    LanguageProvider,
+    ScopeProvider,
+    GraphModificationsProvider {
     var scopeManager: ScopeManager = scopeManager
         set(scopeManager) {
             field = scopeManager
@@ -66,6 +77,9 @@ abstract class LanguageFrontend(
 
     var currentTU: TranslationUnitDeclaration? = null
 
+    /** The source buffers of all files of this frontend, see [getSourceBuffer]. */
+    private val sourceBuffers = HashMap<URI, SourceBuffer?>()
+
     @Throws(TranslationException::class)
     fun parseAll(): List<TranslationUnitDeclaration> {
         val units = ArrayList<TranslationUnitDeclaration>()
@@ -99,17 +113,67 @@ abstract class LanguageFrontend(
     abstract fun <T> getLocationFromRawNode(astNode: T): PhysicalLocation?
     override fun <N, S> setCodeAndLocation(cpgNode: N, astNode: S?) {
         if (cpgNode is Node && astNode != null) {
+            val location = getLocationFromRawNode<S?>(astNode)
             if (config.codeInNodes) {
                 // only set code, if it's not already set or empty
                 val code = getCodeFromRawNode<S?>(astNode)
                 if (code != null) {
-                    (cpgNode as Node).code = code
+                    setCode(cpgNode as Node, code, location)
                 } else {
                     log.warn("Unexpected: No code for node {}", astNode)
                 }
             }
-            (cpgNode as Node).location = getLocationFromRawNode<S?>(astNode)
+            (cpgNode as Node).location = location
+        }
+    }
+
+    /**
+     * Sets the [code] of [node]. If [TranslationConfiguration.codeFromSourceBuffers] is set and the
+     * code is exactly the text at [location] in the source file, the node only refers to this part
+     * of the shared [SourceBuffer] of the file. Otherwise, e.g., if the frontend normalizes the
+     * code, the code is stored in the node itself.
+     */
+    private fun setCode(node: Node, code: String, location: PhysicalLocation?) {
+        if (config.codeFromSourceBuffers && location != null) {
+            val buffer = getSourceBuffer(location.artifactLocation.uri)
+            if (buffer != null) {
+                val region = location.region
+                val start = buffer.offsetOf(region.startLine, region.startColumn)
+                val end = buffer.offsetOf(region.endLine, region.endColumn)
+                if (buffer.regionMatches(start, end, code)) {
+                    node.setCode(buffer, start, end)
+                    return
+                }
+            }
+        }
+
+        node.code = code
+    }
+
+    /**
+     * Returns the [SourceBuffer] of the file with the given [uri], which is shared by all nodes of
+     * this frontend. Returns null, if the file cannot be read.
+     */
+    fun getSourceBuffer(uri: URI): SourceBuffer? {
+        if (uri in sourceBuffers) {
+            return sourceBuffers[uri]
         }
+
+        val buffer =
+            try {
+                SourceBuffer.load(Path.of(uri), config.memoryMapSourceBuffers)
+            } catch (e: IOException) {
+                log.debug("Could not read source file {}, storing code in nodes", uri, e)
+                null
+            } catch (e: IllegalArgumentException) {
+                // Not a file URI
+                null
+            } catch (e: FileSystemNotFoundException) {
+                null
+            }
+        sourceBuffers[uri] = buffer
+
+        return buffer
     }
 
     /**
@@ -142,6 +206,11 @@ abstract class LanguageFrontend(
      * @return the code of the subregion.
      */
     fun getCodeOfSubregion(node: Node, nodeRegion: Region, subRegion: Region): String {
+        // If the code of the node comes from a source buffer, we can directly look up the subregion
+        node.sourceBuffer?.code(subRegion)?.let {
+            return it
+        }
+
         val code = node.code ?: return ""
         val nlType = getNewLineType(node)
         val start =
@@ -202,6 +271,7 @@ abstract class LanguageFrontend(
 
     open fun cleanup() {
         clearProcessed()
+        sourceBuffers.clear()
     }
 
     abstract fun <S, T> setComment(s: S, ctx: T)
@@ -221,4 +291,7 @@ abstract class LanguageFrontend(
     }
 
     override val scope: Scope? = this.scopeManager.currentScope
+
+    override val modifications: GraphModifications
+        get() = scopeManager.modifications
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.frontends
+
+import de.fraunhofer.aisec.cpg.TranslationConfiguration
+import de.fraunhofer.aisec.cpg.graph.Node
+import de.fraunhofer.aisec.cpg.sarif.Region
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+/**
+ * The content of a source file, together with a table of the offsets at which its lines start. All
+ * nodes of a file can share one buffer and lazily compute their [Node.code] from the offsets of
+ * their [Region] in it, instead of each storing a copy of their code (see
+ * [TranslationConfiguration.codeFromSourceBuffers]).
+ *
+ * Offsets and columns are counted in characters, just like the [Region]s of our frontends. The
+ * content is either held as a [String] or, for memory-mapped files that only consist of ASCII
+ * characters (where a byte is a character), read directly from the mapped file. In the latter case,
+ * only the [path] is kept when the buffer is persisted; the file is mapped again on first access.
+ */
+class SourceBuffer
+private constructor(
+    /** The file this buffer is mapped from, if it is memory-mapped. */
+    val path: Path?,
+    private val text: String?,
+    /** The number of characters in this buffer. */
+    val length: Int,
+    private val lineOffsets: IntArray
+) {
+    @Volatile private var mapped: ByteBuffer? = null
+
+    /** Whether the content of this buffer is read from a memory-mapped file. */
+    val isMemoryMapped: Boolean
+        get() = text == null
+
+    /** The number of lines in this buffer. */
+    val lines: Int
+        get() = lineOffsets.size
+
+    /**
+     * Returns the offset of the 1-based [line] and [column] in this buffer or -1, if the position
+     * is not within the buffer. The column directly after the last character of a line is still
+     * valid, since it is used as the (exclusive) end column of regions.
+     */
+    fun offsetOf(line: Int, column: Int): Int {
+        if (line < 1 || line > lineOffsets.size || column < 1) {
+            return -1
+        }
+
+        val offset = lineOffsets[line - 1] + column - 1
+        val lineEnd = if (line < lineOffsets.size) lineOffsets[line] else length
+
+        return if (offset <= lineEnd) offset else -1
+    }
+
+    /** Returns the code of [region] or null, if the region is not within this buffer. */
+    fun code(region: Region): String? {
+        val start = offsetOf(region.startLine, region.startColumn)
+        val end = offsetOf(region.endLine, region.endColumn)
+
+        return if (start < 0 || end < start) null else substring(start, end)
+    }
+
+    /** Returns the characters between [start] (inclusive) and [end] (exclusive). */
+    fun substring(start: Int, end: Int): String {
+        if (text != null) {
+            return text.substring(start, end)
+        }
+
+        val bytes = ByteArray(end - start)
+        val view = bytes().duplicate()
+        view.position(start)
+        view.get(bytes)
+
+        // The content is pure ASCII, so this is a plain copy of the bytes
+        return String(bytes, StandardCharsets.ISO_8859_1)
+    }
+
+    /** Checks, whether the characters between [start] and [end] are exactly [code]. */
+    fun regionMatches(start: Int, end: Int, code: String): Boolean {
+        if (start < 0 || end > length || end - start != code.length) {
+            return false
+        }
+        if (text != null) {
+            return text.regionMatches(start, code, 0, code.length)
+        }
+
+        val bytes = bytes()
+        for (i in code.indices) {
+            if (bytes[start + i].toInt().toChar() != code[i]) {
+                return false
+            }
+        }
+
+        return true
+    }
+
+    private fun bytes(): ByteBuffer {
+        return mapped ?: map(path!!, length).also { mapped = it }
+    }
+
+    companion object {
+        /** Creates a buffer holding [text]. */
+        @JvmStatic
+        fun of(text: CharSequence): SourceBuffer {
+            val string = text.toString()
+            val offsets = lineOffsets(string.length) { string[it] }
+
+            return SourceBuffer(null, string, string.length, offsets)
+        }
+
+        /**
+         * Loads the source file at [path], which is expected to be encoded in UTF-8. If
+         * [memoryMapped] is set and the file only consists of ASCII characters, its content is not
+         * copied to the heap, but read from the memory-mapped file when needed.
+         */
+        @JvmStatic
+        @JvmOverloads
+        @Throws(IOException::class)
+        fun load(path: Path, memoryMapped: Boolean = false): SourceBuffer {
+            val size = Files.size(path)
+            if (memoryMapped && size <= Int.MAX_VALUE) {
+                val bytes = map(path, size.toInt())
+                if ((0 until bytes.limit()).all { bytes[it] >= 0 }) {
+                    val offsets = lineOffsets(bytes.limit()) { bytes[it].toInt().toChar() }
+                    return SourceBuffer(path, null, bytes.limit(), offsets).also {
+                        it.mapped = bytes
+                    }
+                }
+            }
+
+            return of(String(Files.readAllBytes(path), StandardCharsets.UTF_8))
+        }
+
+        private fun map(path: Path, length: Int): ByteBuffer {
+            return FileChannel.open(path, StandardOpenOption.READ).use {
+                it.map(FileChannel.MapMode.READ_ONLY, 0, length.toLong())
+            }
+        }
+
+        private inline fun lineOffsets(length: Int, charAt: (Int) -> Char): IntArray {
+            var offsets = IntArray(64)
+            var lines = 1
+            for (i in 0 until length) {
+                if (charAt(i) == '\n') {
+                    if (lines == offsets.size) {
+                        offsets = offsets.copyOf(lines * 2)
+                    }
+                    offsets[lines++] = i + 1
+                }
+            }
+
+            return offsets.copyOf(lines)
+        }
+    }
+}
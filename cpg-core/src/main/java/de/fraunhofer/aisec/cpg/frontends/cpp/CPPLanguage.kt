@@ -60,7 +60,7 @@ class CPPLanguage :
     ): List<FunctionDeclaration> {
         var invocationCandidates = mutableListOf<FunctionDeclaration>()
         val records =
-            possibleContainingTypes.mapNotNull { callResolver.recordMap[it.root.typeName] }.toSet()
+            possibleContainingTypes.mapNotNull { callResolver.recordIndex[it.root.typeName] }.toSet()
         for (record in records) {
             invocationCandidates.addAll(
                 callResolver.getInvocationCandidatesFromRecord(record, call.name, call)
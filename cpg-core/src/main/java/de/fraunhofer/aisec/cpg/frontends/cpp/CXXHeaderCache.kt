@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.frontends.cpp
+
+import de.fraunhofer.aisec.cpg.graph.GraphModifications
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+import org.eclipse.cdt.core.parser.FileContent
+import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent
+
+/**
+ * A cache for include files, which is shared by all [CXXLanguageFrontend] instances of the same
+ * translation (see [GraphModifications.shared]). In larger projects, each translation unit includes
+ * more or less the same set of (system) headers, which Eclipse CDT would otherwise look up and read
+ * from disk (and decode) again for every inclusion.
+ *
+ * The cache holds four kinds of information:
+ * * whether a candidate path of an include exists at all,
+ * * in which entry of an include search path an include name was found. The preprocessor asks for
+ * every combination of include directive and include path until it finds the header, so this
+ * answers all candidates of an already resolved include without looking at the file system,
+ * * whether a path passes the include white- and blocklist of the configuration,
+ * * the decoded content of header files. Since the content of an [InternalFileContent] is
+ * immutable, we can hand out new [InternalFileContent] objects that all share the same character
+ * array. The total number of cached characters is bounded by [maxChars]; least recently used
+ * headers are evicted first.
+ */
+class CXXHeaderCache(val maxChars: Long = DEFAULT_MAX_CHARS) {
+    private val exists = ConcurrentHashMap<String, Boolean>()
+
+    /** The resolved include names, per include search path. */
+    private val resolved = ConcurrentHashMap<List<String>, ConcurrentHashMap<String, Int>>()
+
+    private val included = ConcurrentHashMap<String, Boolean>()
+
+    /** The header contents in access order, so that we can evict the least recently used ones. */
+    private val contents = LinkedHashMap<String, CharArray>(16, 0.75f, true)
+
+    /** The number of characters currently held in [contents]. */
+    private var cachedChars = 0L
+
+    /** The number of requests for header content that were served from the cache. */
+    val hits = AtomicLong()
+
+    /** The number of requests for header content that needed to read the file. */
+    val misses = AtomicLong()
+
+    /** Returns true, if a file exists at [path]. */
+    fun inclusionExists(path: String): Boolean {
+        return exists.computeIfAbsent(path) { File(it).exists() }
+    }
+
+    /**
+     * Returns true, if the candidate [path] of an include exists, which the preprocessor built
+     * while searching for the include in [searchPath]. If [path] is located in one of the entries
+     * of [searchPath], the answer is derived from the resolved include name instead of asking for
+     * every single candidate.
+     */
+    fun inclusionExists(path: String, searchPath: List<String>): Boolean {
+        val resolutions = resolved.computeIfAbsent(searchPath) { ConcurrentHashMap() }
+
+        for ((index, directory) in searchPath.withIndex()) {
+            if (!path.startsWith(directory + File.separator)) {
+                continue
+            }
+
+            val name = path.substring(directory.length + 1)
+            val found =
+                resolutions.computeIfAbsent(name) {
+                    searchPath.indexOfFirst { inclusionExists(it + File.separator + name) }
+                }
+
+            return when {
+                // the include does not exist in any entry of the search path
+                found == -1 -> false
+                // the first entry that contains the include is either this one or a later one
+                index <= found -> index == found
+                // an entry after the first one, e.g., because of #include_next
+                else -> inclusionExists(path)
+            }
+        }
+
+        return inclusionExists(path)
+    }
+
+    /**
+     * Returns true, if the include file at [path] should be included according to [predicate].
+     * Since the predicate only depends on the (fixed) configuration, it is only evaluated once per
+     * path.
+     */
+    fun isIncluded(path: String, predicate: (String) -> Boolean): Boolean {
+        return included.computeIfAbsent(path, predicate)
+    }
+
+    /**
+     * Returns the content of the file at [path] as a new [InternalFileContent], or null if it
+     * cannot be read.
+     */
+    fun getContent(path: String): InternalFileContent? {
+        var chars = synchronized(contents) { contents[path] }
+
+        if (chars != null) {
+            hits.incrementAndGet()
+        } else {
+            misses.incrementAndGet()
+
+            chars = load(path) ?: return null
+            store(path, chars)
+        }
+
+        return FileContent.create(path, chars) as? InternalFileContent
+    }
+
+    /** Reads the file using CDT, so that we end up with the same encoding as before. */
+    private fun load(path: String): CharArray? {
+        val content = FileContent.createForExternalFileLocation(path) as? InternalFileContent
+        val source = content?.source ?: return null
+
+        val chars = CharArray(source.length)
+        source.arraycopy(0, chars, 0, chars.size)
+
+        return chars
+    }
+
+    private fun store(path: String, chars: CharArray) {
+        // do not even try to cache files that would exceed the complete budget
+        if (chars.size > maxChars) {
+            return
+        }
+
+        synchronized(contents) {
+            val previous = contents.put(path, chars)
+            cachedChars += chars.size - (previous?.size ?: 0)
+
+            val it = contents.entries.iterator()
+            while (cachedChars > maxChars && it.hasNext()) {
+                val eldest = it.next()
+                cachedChars -= eldest.value.size
+                it.remove()
+            }
+        }
+    }
+
+    /** Clears the cache. */
+    fun clear() {
+        exists.clear()
+        resolved.clear()
+        included.clear()
+        synchronized(contents) {
+            contents.clear()
+            cachedChars = 0
+        }
+    }
+
+    companion object {
+        /** By default, we keep up to 64M characters (i.e., 128 MB) of header content. */
+        const val DEFAULT_MAX_CHARS = 64L * 1024 * 1024
+    }
+}
@@ -40,6 +40,7 @@ import de.fraunhofer.aisec.cpg.graph.types.*
 import de.fraunhofer.aisec.cpg.helpers.Benchmark
 import de.fraunhofer.aisec.cpg.passes.scopes.ScopeManager
 import de.fraunhofer.aisec.cpg.sarif.PhysicalLocation
+import de.fraunhofer.aisec.cpg.sarif.PhysicalLocation.ArtifactLocation
 import de.fraunhofer.aisec.cpg.sarif.Region
 import java.io.File
 import java.lang.reflect.Field
@@ -86,6 +87,16 @@ class CXXLanguageFrontend(
      */
     var dialect: AbstractCLikeLanguage? = null
 
+    /**
+     * The cache for include files, which is shared with all other C/C++ frontends of the same
+     * translation.
+     */
+    private val headerCache =
+        scopeManager.modifications.shared(CXXHeaderCache::class.java) { CXXHeaderCache() }
+
+    /** The include search path of the file that is currently parsed. */
+    private var includeSearchPath = listOf<String>()
+
     /**
      * Implements an [IncludeFileContentProvider] which features an inclusion/exclusion list for
      * header files.
@@ -93,19 +104,34 @@ class CXXLanguageFrontend(
     private val includeFileContentProvider: IncludeFileContentProvider =
         object : InternalFileContentProvider() {
             /**
-             * Returns the content of this path, without any cache.
+             * Returns the content of this path. The content itself as well as the decision whether
+             * to include the path at all are cached across all translation units in the
+             * [headerCache].
              *
              * @return the content of the path of null if it is to be excluded
              */
-            private fun getContentUncached(path: String): InternalFileContent? {
+            private fun getContentCached(path: String): InternalFileContent? {
                 if (!getInclusionExists(path)) {
                     return null
                 }
 
+                if (!headerCache.isIncluded(path, ::isIncluded)) {
+                    return null
+                }
+
+                LOGGER.debug("Loading include file {}", path)
+                return headerCache.getContent(path)
+            }
+
+            /**
+             * Checks, whether the include file at [path] should be included according to the
+             * include white- and blocklist.
+             */
+            private fun isIncluded(path: String): Boolean {
                 // check, if the file is on the blacklist
                 if (absoluteOrRelativePathIsInList(Path.of(path), config.includeBlocklist)) {
                     LOGGER.debug("Blacklisting include file: {}", path)
-                    return null
+                    return false
                 }
 
                 // check, if the white-list exists at all
@@ -114,11 +140,10 @@ class CXXLanguageFrontend(
                     !absoluteOrRelativePathIsInList(Path.of(path), config.includeWhitelist)
                 ) {
                     LOGGER.debug("Include file {} not on the whitelist. Ignoring.", path)
-                    return null
+                    return false
                 }
-                LOGGER.debug("Loading include file {}", path)
-                val content = FileContent.createForExternalFileLocation(path)
-                return content as? InternalFileContent
+
+                return true
             }
 
             private fun hasIncludeWhitelist(): Boolean {
@@ -168,18 +193,22 @@ class CXXLanguageFrontend(
                 }
             }
 
+            override fun getInclusionExists(path: String): Boolean {
+                return headerCache.inclusionExists(path, includeSearchPath)
+            }
+
             override fun getContentForInclusion(
                 path: String,
                 macroDictionary: IMacroDictionary
             ): InternalFileContent? {
-                return getContentUncached(path)
+                return getContentCached(path)
             }
 
             override fun getContentForInclusion(
                 ifl: IIndexFileLocation,
                 astPath: String
             ): InternalFileContent? {
-                return getContentUncached(astPath)
+                return getContentCached(astPath)
             }
         }
 
@@ -192,6 +221,9 @@ class CXXLanguageFrontend(
 
     private val comments = HashMap<Pair<String, Int>, String>()
 
+    /** The artifact locations of all files, so that they are not created again for every node. */
+    private val artifactLocations = HashMap<String, ArtifactLocation>()
+
     @Throws(TranslationException::class)
     override fun parse(file: File): TranslationUnitDeclaration {
         val content = FileContent.createForExternalFileLocation(file.absolutePath)
@@ -209,6 +241,7 @@ class CXXLanguageFrontend(
         config.compilationDatabase?.getIncludePaths(file)?.let { includePaths.addAll(it) }
         config.compilationDatabase?.getSymbols(file)?.let { symbols.putAll(it) }
 
+        includeSearchPath = includePaths.toList()
         val scannerInfo = ScannerInfo(symbols, includePaths.toTypedArray())
         val log = DefaultLogService()
         val opts = ILanguage.OPTION_PARSE_INACTIVE_CODE // | ILanguage.OPTION_ADD_COMMENTS;
@@ -346,7 +379,12 @@ class CXXLanguageFrontend(
         // for a SARIF compliant format, we need to add +1, since its index begins at 1 and
         // not 0
         val region = Region(startLine + 1, startColumn + 1, endLine + 1, endColumn + 1)
-        return PhysicalLocation(Path.of(node.containingFilename).toUri(), region)
+        val artifactLocation =
+            artifactLocations.getOrPut(node.containingFilename) {
+                ArtifactLocation.of(Path.of(node.containingFilename).toUri())
+            }
+
+        return PhysicalLocation(artifactLocation, region)
     }
 
     /**
@@ -436,6 +474,11 @@ class CXXLanguageFrontend(
         }
     }
 
+    override fun cleanup() {
+        super.cleanup()
+        artifactLocations.clear()
+    }
+
     override fun <S, T> setComment(s: S, ctx: T) {
         if (ctx is ASTNode && s is Node) {
             val cpgNode = s as Node
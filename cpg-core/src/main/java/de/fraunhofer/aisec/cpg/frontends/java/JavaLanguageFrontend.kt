@@ -60,10 +60,12 @@ import de.fraunhofer.aisec.cpg.helpers.CommonPath
 import de.fraunhofer.aisec.cpg.passes.scopes.Scope
 import de.fraunhofer.aisec.cpg.passes.scopes.ScopeManager
 import de.fraunhofer.aisec.cpg.sarif.PhysicalLocation
+import de.fraunhofer.aisec.cpg.sarif.PhysicalLocation.ArtifactLocation
 import de.fraunhofer.aisec.cpg.sarif.Region
 import java.io.File
 import java.io.FileNotFoundException
 import java.io.IOException
+import java.nio.file.Path
 import java.util.function.Consumer
 
 /** Main parser for ONE Java files. */
@@ -81,6 +83,9 @@ open class JavaLanguageFrontend(
     protected lateinit var statementHandler: StatementHandler
     protected lateinit var declarationHandler: DeclarationHandler
 
+    /** The artifact locations of all files, so that they are not created again for every node. */
+    private val artifactLocations = HashMap<Path, ArtifactLocation>()
+
     init {
         setupHandlers()
     }
@@ -200,7 +205,12 @@ open class JavaLanguageFrontend(
                         r.end.line,
                         r.end.column + 1
                     ) // +1 for SARIF compliance
-                return PhysicalLocation(storage.path.toUri(), region)
+                val artifactLocation =
+                    artifactLocations.getOrPut(storage.path) {
+                        ArtifactLocation.of(storage.path.toUri())
+                    }
+
+                return PhysicalLocation(artifactLocation, region)
             }
         }
         return null
@@ -412,6 +422,7 @@ open class JavaLanguageFrontend(
     override fun cleanup() {
         JavaParserFacade.clearInstances()
         super.cleanup()
+        artifactLocations.clear()
 
         context = null
     }
@@ -502,7 +502,7 @@ public class StatementHandler
         Region region =
             new Region(rstart.begin.line, rstart.begin.column, rend.end.line, rend.end.column + 1);
 
-        return new PhysicalLocation(parentLocation.getArtifactLocation().getUri(), region);
+        return new PhysicalLocation(parentLocation.getArtifactLocation(), region);
       }
     }
 
@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.graph
+
+import de.fraunhofer.aisec.cpg.TranslationResult
+import de.fraunhofer.aisec.cpg.graph.declarations.FunctionDeclaration
+import de.fraunhofer.aisec.cpg.graph.statements.expressions.CallExpression
+import de.fraunhofer.aisec.cpg.helpers.SubgraphWalker
+import java.util.ArrayDeque
+import java.util.Collections
+import java.util.IdentityHashMap
+import kotlin.math.min
+
+/**
+ * An explicit call graph of a [TranslationResult], built from the [CallExpression.invokes] edges
+ * in a single traversal of the AST. In contrast to [FunctionDeclaration.callees] and
+ * [TranslationResult.callersOf], which re-traverse the AST on every invocation, it provides the
+ * callees, callers and call sites of a function as well as the strongly connected components of
+ * the graph with a lookup in constant time.
+ *
+ * Nodes are distinguished by identity and not by [Node.equals], since different functions might
+ * share a name and a location (e.g. inferred declarations).
+ *
+ * Use [CallGraph.of] to obtain the (cached) call graph of a [TranslationResult]. It is rebuilt
+ * automatically, once any [CallExpression.invokes] is modified.
+ */
+class CallGraph private constructor(val generation: Long) {
+    private val calleeMap = IdentityHashMap<FunctionDeclaration, IdentityList>()
+    private val callerMap = IdentityHashMap<FunctionDeclaration, IdentityList>()
+    private val callSiteMap = IdentityHashMap<FunctionDeclaration, MutableList<CallExpression>>()
+    private val allFunctions = IdentityList()
+    private val allCalls = mutableListOf<CallExpression>()
+    private val componentMap = IdentityHashMap<FunctionDeclaration, List<FunctionDeclaration>>()
+
+    /**
+     * All functions of the graph, i.e., all [FunctionDeclaration]s of the AST and all functions
+     * that are invoked by a call, in the order of their appearance.
+     */
+    val functions: List<FunctionDeclaration>
+        get() = Collections.unmodifiableList(allFunctions.list)
+
+    /** All [CallExpression]s of the AST that invoke at least one function, in AST order. */
+    val calls: List<CallExpression>
+        get() = Collections.unmodifiableList(allCalls)
+
+    /**
+     * The strongly connected components of the graph in topological order, i.e., a component is
+     * listed before all components it calls. Functions that are (mutually) recursive share a
+     * component.
+     */
+    lateinit var components: List<List<FunctionDeclaration>>
+        private set
+
+    /**
+     * The strongly connected components of the graph in reverse topological order, i.e., all
+     * callees of a component are listed before it. This is the order needed for bottom-up
+     * (summary-based) analyses.
+     */
+    val bottomUpComponents: List<List<FunctionDeclaration>>
+        get() = components.asReversed()
+
+    /** The functions that are directly invoked by calls within [function]. */
+    fun callees(function: FunctionDeclaration): List<FunctionDeclaration> {
+        return calleeMap[function]?.list ?: listOf()
+    }
+
+    /** The functions containing calls that directly invoke [function]. */
+    fun callers(function: FunctionDeclaration): List<FunctionDeclaration> {
+        return callerMap[function]?.list ?: listOf()
+    }
+
+    /** The [CallExpression]s that invoke [function]. */
+    fun callSites(function: FunctionDeclaration): List<CallExpression> {
+        return callSiteMap[function] ?: listOf()
+    }
+
+    /** The strongly connected component [function] belongs to. */
+    fun componentOf(function: FunctionDeclaration): List<FunctionDeclaration> {
+        return componentMap[function] ?: listOf(function)
+    }
+
+    /**
+     * Returns true, if [function] is part of a cycle in the graph, i.e., it calls itself directly
+     * or indirectly.
+     */
+    fun isRecursive(function: FunctionDeclaration): Boolean {
+        return componentOf(function).size > 1 || callees(function).any { it === function }
+    }
+
+    private fun populate(root: Node) {
+        // The functions we are currently in. Calls are attributed to all of them, similar to
+        // FunctionDeclaration.calls, which also contains the calls of nested functions.
+        val enclosing = ArrayDeque<FunctionDeclaration>()
+        val walker = SubgraphWalker.IterativeGraphWalker()
+        walker.registerOnNodeVisit { node ->
+            if (node is FunctionDeclaration) {
+                allFunctions.add(node)
+                enclosing.push(node)
+            } else if (node is CallExpression) {
+                addCall(node, enclosing)
+            }
+        }
+        walker.registerOnScopeExit { node ->
+            if (node is FunctionDeclaration && enclosing.peek() === node) {
+                enclosing.pop()
+            }
+        }
+        walker.iterate(root)
+
+        components = computeComponents()
+        for (component in components) {
+            for (function in component) {
+                componentMap[function] = component
+            }
+        }
+    }
+
+    private fun addCall(call: CallExpression, enclosing: Collection<FunctionDeclaration>) {
+        val invokes = call.invokes
+        if (invokes.isEmpty()) {
+            return
+        }
+
+        allCalls.add(call)
+        for (callee in invokes) {
+            allFunctions.add(callee)
+            callSiteMap.computeIfAbsent(callee) { mutableListOf() }.add(call)
+            for (caller in enclosing) {
+                calleeMap.computeIfAbsent(caller) { IdentityList() }.add(callee)
+                callerMap.computeIfAbsent(callee) { IdentityList() }.add(caller)
+            }
+        }
+    }
+
+    /**
+     * Computes the strongly connected components using Tarjan's algorithm. The depth-first search
+     * is iterative, so that long call chains cannot overflow the stack.
+     */
+    private fun computeComponents(): List<List<FunctionDeclaration>> {
+        val index = IdentityHashMap<FunctionDeclaration, Int>()
+        val lowLink = IdentityHashMap<FunctionDeclaration, Int>()
+        val onStack = Collections.newSetFromMap(IdentityHashMap<FunctionDeclaration, Boolean>())
+        val stack = ArrayDeque<FunctionDeclaration>()
+        val frames = ArrayDeque<Pair<FunctionDeclaration, Iterator<FunctionDeclaration>>>()
+        val result = mutableListOf<List<FunctionDeclaration>>()
+
+        fun enter(function: FunctionDeclaration) {
+            val number = index.size
+            index[function] = number
+            lowLink[function] = number
+            stack.push(function)
+            onStack.add(function)
+            frames.push(Pair(function, callees(function).iterator()))
+        }
+
+        for (root in allFunctions.list) {
+            if (root in index) {
+                continue
+            }
+
+            enter(root)
+            while (frames.isNotEmpty()) {
+                val (function, iterator) = frames.peek()
+                if (iterator.hasNext()) {
+                    val callee = iterator.next()
+                    if (callee !in index) {
+                        enter(callee)
+                    } else if (callee in onStack) {
+                        lowLink[function] = min(lowLink.getValue(function), index.getValue(callee))
+                    }
+                    continue
+                }
+
+                frames.pop()
+                frames.peek()?.let { (parent, _) ->
+                    lowLink[parent] = min(lowLink.getValue(parent), lowLink.getValue(function))
+                }
+                if (lowLink[function] == index[function]) {
+                    val component = mutableListOf<FunctionDeclaration>()
+                    do {
+                        val member = stack.pop()
+                        onStack.remove(member)
+                        component.add(member)
+                    } while (member !== function)
+                    result.add(Collections.unmodifiableList(component))
+                }
+            }
+        }
+
+        // Tarjan's algorithm emits a component only after all components reachable from it
+        return result.asReversed()
+    }
+
+    /** An insertion-ordered list of functions without duplicates (by identity). */
+    private class IdentityList {
+        val list = mutableListOf<FunctionDeclaration>()
+        private val set = Collections.newSetFromMap(IdentityHashMap<FunctionDeclaration, Boolean>())
+
+        fun add(function: FunctionDeclaration) {
+            if (set.add(function)) {
+                list.add(function)
+            }
+        }
+    }
+
+    companion object {
+        /**
+         * Returns the call graph of [result]. It is built on the first request and cached in the
+         * [TranslationResult.getScratch] storage until a [CallExpression.invokes] edge of the graph
+         * is modified.
+         */
+        @JvmStatic
+        fun of(result: TranslationResult): CallGraph {
+            val key = CallGraph::class.java.name
+            val generation = result.scopeManager.modifications.invokesCount
+            val cached = result.scratch[key] as? CallGraph
+            if (cached != null && cached.generation == generation) {
+                return cached
+            }
+
+            return build(result, generation).also { result.scratch[key] = it }
+        }
+
+        /** Builds a new (uncached) call graph of all functions and calls below [root]. */
+        @JvmStatic
+        fun build(root: Node): CallGraph {
+            return build(root, GraphModifications.of(root).invokesCount)
+        }
+
+        private fun build(root: Node, generation: Long): CallGraph {
+            val graph = CallGraph(generation)
+            graph.populate(root)
+            return graph
+        }
+    }
+}
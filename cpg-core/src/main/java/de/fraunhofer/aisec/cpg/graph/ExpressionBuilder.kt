@@ -595,6 +595,7 @@ fun MetadataProvider.newProblemExpression(
 fun <T> Literal<T>.duplicate(implicit: Boolean): Literal<T> {
     val duplicate = Literal<T>()
     duplicate.language = this.language
+    duplicate.modifications = this.modifications
     duplicate.value = this.value
     duplicate.type = this.type
     duplicate.code = this.code
@@ -618,6 +619,7 @@ fun TypeExpression.duplicate(implicit: Boolean): TypeExpression {
     val duplicate = TypeExpression()
     duplicate.name = this.name
     duplicate.language = this.language
+    duplicate.modifications = this.modifications
     duplicate.type = this.type
     duplicate.isImplicit = implicit
     return duplicate
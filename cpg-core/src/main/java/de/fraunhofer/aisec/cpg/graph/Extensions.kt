@@ -491,9 +491,7 @@ val Node?.refs: List<DeclaredReferenceExpression>
 
 /** Returns all [CallExpression]s in this graph which call a method with the given [name]. */
 fun TranslationResult.callsByName(name: String): List<CallExpression> {
-    return SubgraphWalker.flattenAST(this).filter { node ->
-        (node as? CallExpression)?.invokes?.any { it.name == name } == true
-    } as List<CallExpression>
+    return CallGraph.of(this).calls.filter { call -> call.invokes.any { it.name == name } }
 }
 
 /** Set of all functions which are called from this function */
@@ -510,7 +508,7 @@ val FunctionDeclaration.callees: Set<FunctionDeclaration>
 
 /** Set of all functions calling [function] */
 fun TranslationResult.callersOf(function: FunctionDeclaration): Set<FunctionDeclaration> {
-    return this.functions.filter { function in it.callees }.toSet()
+    return CallGraph.of(this).callers(function).toSet()
 }
 
 /** All nodes which depend on this if statement */
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.graph
+
+import de.fraunhofer.aisec.cpg.graph.statements.expressions.CallExpression
+import de.fraunhofer.aisec.cpg.passes.inference.Inference
+import de.fraunhofer.aisec.cpg.passes.scopes.ScopeManager
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Counts the modifications of a graph which caches of results derived from the graph depend on. It
+ * allows these caches to detect that they are outdated.
+ *
+ * Each [ScopeManager] (and therefore each translation) has its own instance, which it passes on to
+ * all nodes that are created with it, so that modifying one graph does not invalidate the caches
+ * of another one. Modifications of nodes which do not belong to any graph are counted in
+ * [untracked]. Since such nodes might be added to a graph later on, they are included in the
+ * counts of every graph.
+ */
+class GraphModifications {
+    private val dfg = AtomicLong()
+    private val eog = AtomicLong()
+    private val invokes = AtomicLong()
+    private val inferences = AtomicLong()
+    private val shared = ConcurrentHashMap<Class<*>, Any>()
+
+    /** The number of modifications of DFG edges so far, e.g., using [Node.addNextDFG]. */
+    val dfgCount: Long
+        get() = count { it.dfg }
+
+    /**
+     * The number of modifications of EOG edges so far, e.g., using [Node.addNextEOG], including
+     * changes of their properties.
+     */
+    val eogCount: Long
+        get() = count { it.eog }
+
+    /** The number of modifications of [CallExpression.invokes] edges so far. */
+    val invokesCount: Long
+        get() = count { it.invokes }
+
+    /**
+     * The number of function, constructor, template and record declarations that have been
+     * inferred so far, see [Inference].
+     */
+    val inferenceCount: Long
+        get() = count { it.inferences }
+
+    internal fun dfgModified() {
+        dfg.incrementAndGet()
+    }
+
+    /**
+     * Counts a modification of EOG edges. This needs to be called by passes which change the
+     * properties of existing EOG edges, e.g., to mark them as unreachable.
+     */
+    fun eogModified() {
+        eog.incrementAndGet()
+    }
+
+    internal fun invokesModified() {
+        invokes.incrementAndGet()
+    }
+
+    internal fun declarationInferred() {
+        inferences.incrementAndGet()
+    }
+
+    /**
+     * Returns the instance of [type] which is shared by all users of this graph, e.g., an analysis
+     * which caches its results, and creates it with [init] if it does not exist yet. Nodes which do
+     * not belong to a graph do not share anything, so [init] is called for every request on
+     * [untracked].
+     */
+    fun <T : Any> shared(type: Class<T>, init: () -> T): T {
+        if (this === untracked) {
+            return init()
+        }
+        return type.cast(shared.computeIfAbsent(type) { init() })
+    }
+
+    private inline fun count(counter: (GraphModifications) -> AtomicLong): Long {
+        return if (this === untracked) {
+            counter(this).get()
+        } else {
+            counter(this).get() + counter(untracked).get()
+        }
+    }
+
+    companion object {
+        /** Counts the modifications of nodes which do not belong to a graph. */
+        internal val untracked = GraphModifications()
+
+        /** Returns the modifications of the graph that [node] belongs to. */
+        @JvmStatic
+        fun of(node: Node?): GraphModifications {
+            return node?.modifications ?: untracked
+        }
+    }
+}
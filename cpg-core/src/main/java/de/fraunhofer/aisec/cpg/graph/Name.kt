@@ -25,7 +25,6 @@
  */
 package de.fraunhofer.aisec.cpg.graph
 
-import java.util.*
 import kotlin.reflect.KProperty
 
 /**
@@ -41,22 +40,42 @@ class Name(
     /** A potential namespace delimiter, usually either `.` or `::`. */
     val delimiter: String = "."
 ) {
+    /**
+     * The cached result of [toString] together with the local name and the string of the [parent]
+     * it was built from, so that we notice if either has been changed in the meantime. Names are
+     * shared between threads, so all of them are published together in one immutable instance.
+     */
+    private class CachedString(val localName: String, val parentFqn: String?, val fqn: String)
+
+    @Volatile private var cached: CachedString? = null
+
     /**
      * Returns the string representation of this name using a fully qualified name notation with the
      * specified [delimiter].
      */
-    override fun toString() =
-        (if (parent != null) parent.toString() + delimiter else "") + localName
+    override fun toString(): String {
+        val localName = localName
+        val parentName = parent?.toString()
+        val cached = cached
+        if (cached != null && localName === cached.localName && parentName === cached.parentFqn) {
+            return cached.fqn
+        }
+
+        val name = if (parentName != null) parentName + delimiter + localName else localName
+        this.cached = CachedString(localName, parentName, name)
+
+        return name
+    }
 
     /** Implements kotlin propety delegation for a string getter. Returns the local name. */
     operator fun getValue(node: Node, property: KProperty<*>) = localName
 
     /**
      * Implements kotlin property delegation for a string setter. Sets the local name to the
-     * supplied string.
+     * supplied string. Since many nodes share the same names, the string is interned.
      */
     operator fun setValue(node: Node, property: KProperty<*>, s: String) {
-        localName = s
+        localName = s.intern()
     }
 
     override fun equals(other: Any?): Boolean {
@@ -69,20 +88,22 @@ class Name(
     }
 
     override fun hashCode(): Int {
-        return Objects.hash(localName, parent, delimiter)
+        // The hash code of the (cached) string is cached as well
+        return 31 * toString().hashCode() + delimiter.hashCode()
     }
 
     companion object {
         /**
          * Tries to parse the given fully qualified name using the specified [delimiter] into a
-         * [Name].
+         * [Name]. The strings of the individual parts are interned, since the same namespaces
+         * occur in many names.
          */
         fun parse(fqn: String, delimiter: String = "."): Name {
             val parts = fqn.split(delimiter)
 
             var name: Name? = null
             for (part in parts) {
-                name = Name(part, name, delimiter)
+                name = Name(part.intern(), name, delimiter)
             }
 
             // Actually this should not occur, but otherwise the compiler won't let us return a
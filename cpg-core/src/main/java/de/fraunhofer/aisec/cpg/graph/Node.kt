@@ -26,16 +26,19 @@
 package de.fraunhofer.aisec.cpg.graph
 
 import com.fasterxml.jackson.annotation.JsonBackReference
+import com.fasterxml.jackson.annotation.JsonIgnore
+import de.fraunhofer.aisec.cpg.TranslationConfiguration
 import de.fraunhofer.aisec.cpg.frontends.Handler
 import de.fraunhofer.aisec.cpg.frontends.Language
 import de.fraunhofer.aisec.cpg.frontends.LanguageFrontend
+import de.fraunhofer.aisec.cpg.frontends.SourceBuffer
 import de.fraunhofer.aisec.cpg.graph.declarations.MethodDeclaration
 import de.fraunhofer.aisec.cpg.graph.declarations.RecordDeclaration
 import de.fraunhofer.aisec.cpg.graph.declarations.TranslationUnitDeclaration
 import de.fraunhofer.aisec.cpg.graph.declarations.TypedefDeclaration
 import de.fraunhofer.aisec.cpg.graph.edge.Properties
 import de.fraunhofer.aisec.cpg.graph.edge.PropertyEdge
-import de.fraunhofer.aisec.cpg.graph.edge.PropertyEdge.Companion.unwrap
+import de.fraunhofer.aisec.cpg.graph.edge.PropertyEdgeNodeView
 import de.fraunhofer.aisec.cpg.helpers.LocationConverter
 import de.fraunhofer.aisec.cpg.helpers.SubgraphWalker
 import de.fraunhofer.aisec.cpg.passes.scopes.GlobalScope
@@ -55,7 +58,8 @@ import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 
 /** The base class for all graph objects that are going to be persisted in the database. */
-open class Node : IVisitable<Node>, Persistable, LanguageProvider, ScopeProvider {
+open class Node :
+    IVisitable<Node>, Persistable, LanguageProvider, ScopeProvider, GraphModificationsProvider {
     /**
      * This property holds the full name using our new [Name] class. In the future, we might migrate
      * this to the [name] field. It is currently not persisted in the graph database.
@@ -72,8 +76,22 @@ open class Node : IVisitable<Node>, Persistable, LanguageProvider, ScopeProvider
     /**
      * Original code snippet of this node. Most nodes will have a corresponding "code", but in cases
      * where nodes are created artificially, it may be null.
+     *
+     * If the frontend was configured to use [TranslationConfiguration.codeFromSourceBuffers], the
+     * code is not stored in the node itself, but read from the [SourceBuffer] of its file when
+     * needed.
      */
     var code: String? = null
+        get() = field ?: codeSource?.substring(codeStart, codeEnd)
+        set(value) {
+            field = value
+            codeSource = null
+        }
+
+    /** The buffer the [code] is read from, if it has been set using [setCode]. */
+    @Transient private var codeSource: SourceBuffer? = null
+    @Transient private var codeStart = 0
+    @Transient private var codeEnd = 0
 
     /**
      * The language of this node. This property is set in [Node.applyMetadata] by a
@@ -94,6 +112,12 @@ open class Node : IVisitable<Node>, Persistable, LanguageProvider, ScopeProvider
      */
     override var scope: Scope? = null
 
+    /**
+     * The modifications of the graph this node belongs to. This property is set in
+     * [Node.applyMetadata] by a [GraphModificationsProvider] at the time when the node is created.
+     */
+    @Transient @get:JsonIgnore override var modifications: GraphModifications? = null
+
     /** Optional comment of this node. */
     var comment: String? = null
 
@@ -109,12 +133,18 @@ open class Node : IVisitable<Node>, Persistable, LanguageProvider, ScopeProvider
     /** Incoming control flow edges. */
     @field:Relationship(value = "EOG", direction = "INCOMING")
     var prevEOGEdges: MutableList<PropertyEdge<Node>> = ArrayList()
-        protected set
+        protected set(value) {
+            field = value
+            eogModified(null)
+        }
 
     /** outgoing control flow edges. */
     @field:Relationship(value = "EOG", direction = "OUTGOING")
     var nextEOGEdges: MutableList<PropertyEdge<Node>> = ArrayList()
-        protected set
+        protected set(value) {
+            field = value
+            eogModified(null)
+        }
 
     /**
      * Virtual property to return a list of the node's children. Uses the [SubgraphWalker] to
@@ -126,9 +156,12 @@ open class Node : IVisitable<Node>, Persistable, LanguageProvider, ScopeProvider
     val astChildren: List<Node>
         get() = SubgraphWalker.getAstChildren(this)
 
-    /** Virtual property for accessing [prevEOGEdges] without property edges. */
+    /**
+     * Virtual property for accessing [prevEOGEdges] without property edges. This is a view on
+     * [prevEOGEdges] and not a copy.
+     */
     var prevEOG: List<Node>
-        get() = unwrap(prevEOGEdges, false)
+        get() = PropertyEdgeNodeView(prevEOGEdges, false)
         set(value) {
             val propertyEdgesEOG: MutableList<PropertyEdge<Node>> = ArrayList()
 
@@ -141,17 +174,29 @@ open class Node : IVisitable<Node>, Persistable, LanguageProvider, ScopeProvider
             this.prevEOGEdges = propertyEdgesEOG
         }
 
-    /** Virtual property for accessing [nextEOGEdges] without property edges. */
+    /**
+     * Virtual property for accessing [nextEOGEdges] without property edges. This is a view on
+     * [nextEOGEdges] and not a copy.
+     */
     var nextEOG: List<Node>
-        get() = unwrap(nextEOGEdges)
+        get() = PropertyEdgeNodeView(nextEOGEdges)
         set(value) {
             this.nextEOGEdges = PropertyEdge.transformIntoOutgoingPropertyEdgeList(value, this)
         }
 
     @field:Relationship(value = "DFG", direction = "INCOMING")
     var prevDFG: MutableSet<Node> = HashSet()
+        set(value) {
+            field = value
+            dfgModified(null)
+        }
 
-    @field:Relationship(value = "DFG") var nextDFG: MutableSet<Node> = HashSet()
+    @field:Relationship(value = "DFG")
+    var nextDFG: MutableSet<Node> = HashSet()
+        set(value) {
+            field = value
+            dfgModified(null)
+        }
 
     var typedefs: MutableSet<TypedefDeclaration> = HashSet()
 
@@ -188,46 +233,55 @@ open class Node : IVisitable<Node>, Persistable, LanguageProvider, ScopeProvider
             val remove = PropertyEdge.findPropertyEdgesByPredicate(prevEOGEdges) { it.start === n }
             prevEOGEdges.removeAll(remove)
         }
+        eogModified(prevEOGs.firstOrNull())
     }
 
     fun addPrevEOG(propertyEdge: PropertyEdge<Node>) {
         prevEOGEdges.add(propertyEdge)
+        eogModified(propertyEdge.start)
     }
 
     fun addNextEOG(propertyEdge: PropertyEdge<Node>) {
         nextEOGEdges.add(propertyEdge)
+        eogModified(propertyEdge.end)
     }
 
     fun clearNextEOG() {
         nextEOGEdges.clear()
+        eogModified(null)
     }
 
     fun addNextDFG(next: Node) {
         nextDFG.add(next)
         next.prevDFG.add(this)
+        dfgModified(next)
     }
 
     fun removeNextDFG(next: Node?) {
         if (next != null) {
             nextDFG.remove(next)
             next.prevDFG.remove(this)
+            dfgModified(next)
         }
     }
 
     fun addPrevDFG(prev: Node) {
         prevDFG.add(prev)
         prev.nextDFG.add(this)
+        dfgModified(prev)
     }
 
     fun addAllPrevDFG(prev: Collection<Node>) {
         prevDFG.addAll(prev)
         prev.forEach { it.nextDFG.add(this) }
+        dfgModified(prev.firstOrNull())
     }
 
     fun removePrevDFG(prev: Node?) {
         if (prev != null) {
             prevDFG.remove(prev)
             prev.nextDFG.remove(this)
+            dfgModified(prev)
         }
     }
 
@@ -243,6 +297,22 @@ open class Node : IVisitable<Node>, Persistable, LanguageProvider, ScopeProvider
         }
     }
 
+    /**
+     * Counts a modification of the DFG edges of this node in the [GraphModifications] of its graph
+     * or, if this node does not belong to a graph, in the ones of [other].
+     */
+    private fun dfgModified(other: Node?) {
+        GraphModifications.of(if (modifications != null) this else other).dfgModified()
+    }
+
+    /**
+     * Counts a modification of the EOG edges of this node in the [GraphModifications] of its graph
+     * or, if this node does not belong to a graph, in the ones of [other].
+     */
+    private fun eogModified(other: Node?) {
+        GraphModifications.of(if (modifications != null) this else other).eogModified()
+    }
+
     fun addTypedef(typedef: TypedefDeclaration) {
         typedefs.add(typedef)
     }
@@ -270,6 +340,7 @@ open class Node : IVisitable<Node>, Persistable, LanguageProvider, ScopeProvider
             n.nextDFG.remove(this)
         }
         prevDFG.clear()
+        dfgModified(null)
 
         for (n in nextEOGEdges) {
             val remove =
@@ -284,6 +355,7 @@ open class Node : IVisitable<Node>, Persistable, LanguageProvider, ScopeProvider
             n.start.nextEOGEdges.removeAll(remove)
         }
         prevEOGEdges.clear()
+        eogModified(null)
     }
 
     override fun toString(): String {
@@ -309,13 +381,40 @@ open class Node : IVisitable<Node>, Persistable, LanguageProvider, ScopeProvider
             false
         } else
             name == other.name &&
-                code == other.code &&
-                comment == other.comment &&
                 location == other.location &&
+                hasSameCode(other) &&
+                comment == other.comment &&
                 file == other.file &&
                 isImplicit == other.isImplicit
     }
 
+    /**
+     * Sets the [code] of this node to the characters between [start] and [end] in [source], which
+     * are only read once the code is requested.
+     */
+    internal fun setCode(source: SourceBuffer, start: Int, end: Int) {
+        code = null
+        codeSource = source
+        codeStart = start
+        codeEnd = end
+    }
+
+    /** The buffer the [code] of this node is read from, if any. */
+    @get:JsonIgnore
+    internal val sourceBuffer: SourceBuffer?
+        get() = codeSource
+
+    private fun hasSameCode(other: Node): Boolean {
+        // Avoid reading the code of nodes that refer to the same part of the same buffer
+        if (codeSource != null && codeSource === other.codeSource) {
+            if (codeStart == other.codeStart && codeEnd == other.codeEnd) {
+                return true
+            }
+        }
+
+        return code == other.code
+    }
+
     /**
      * Implementation of hash code. We are including the name and the location in this hash code as
      * a compromise between including too few attributes and performance. Please note that this
@@ -71,6 +71,14 @@ interface ScopeProvider : MetadataProvider {
     val scope: Scope?
 }
 
+/**
+ * This interface denotes that the class belongs to a specific graph and provides the
+ * [GraphModifications] of that graph, which are then also used for the nodes it creates.
+ */
+interface GraphModificationsProvider : MetadataProvider {
+    val modifications: GraphModifications?
+}
+
 /**
  * Applies various metadata on this [Node], based on the kind of provider in [provider]. This can
  * include:
@@ -78,6 +86,7 @@ interface ScopeProvider : MetadataProvider {
  * - Setting [Node.location], if a [LanguageProvider] is given
  * - Setting [Node.scope]. if a [ScopeProvider] is given
  * - Setting [Node.isInferred], if an [IsInferredProvider] is given
+ * - Setting [Node.modifications], if a [GraphModificationsProvider] is given
  *
  * Note, that one provider can implement multiple provider interfaces. Additionally, if
  * [codeOverride] is specified, the supplied source code is used to override anything from the
@@ -100,6 +109,10 @@ fun Node.applyMetadata(provider: MetadataProvider?, rawNode: Any?, codeOverride:
         this.scope = provider.scope
     }
 
+    if (provider is GraphModificationsProvider) {
+        this.modifications = provider.modifications
+    }
+
     if (codeOverride != null) {
         this.code = codeOverride
     }
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.graph.edge
+
+import java.util.*
+
+/**
+ * A compact [MutableMap] holding the [Properties] of a [PropertyEdge]. Most edges (especially EOG
+ * edges) only carry an [Properties.INDEX] and maybe [Properties.BRANCH] or
+ * [Properties.UNREACHABLE]. These are stored in primitive fields, so that no map and no boxed
+ * values need to be allocated for them. All other properties are stored in an [EnumMap], which is
+ * only created once such a property is set.
+ *
+ * In contrast to other maps, `null` values are not stored, i.e., setting a property to `null`
+ * removes it. The [entries] are a view that is backed by the map, as required by [MutableMap].
+ */
+class EdgeProperties() : AbstractMutableMap<Properties, Any?>() {
+    /** The value of [Properties.INDEX] or [NO_INDEX]. */
+    private var index = NO_INDEX
+
+    /** Bit flags for [Properties.BRANCH] and [Properties.UNREACHABLE]. */
+    private var flags = 0
+
+    /** All other properties (or properties with unusual values). */
+    private var others: EnumMap<Properties, Any?>? = null
+
+    constructor(other: Map<Properties, Any?>) : this() {
+        if (other is EdgeProperties) {
+            index = other.index
+            flags = other.flags
+            others = other.others?.let { EnumMap(it) }
+        } else {
+            putAll(other)
+        }
+    }
+
+    override val size: Int
+        get() {
+            var size = others?.size ?: 0
+            if (index != NO_INDEX) size++
+            if (flags and BRANCH_SET != 0) size++
+            if (flags and UNREACHABLE_SET != 0) size++
+
+            return size
+        }
+
+    override fun isEmpty(): Boolean {
+        return index == NO_INDEX && flags == 0 && others.isNullOrEmpty()
+    }
+
+    override fun containsKey(key: Properties): Boolean {
+        return get(key) != null
+    }
+
+    override fun get(key: Properties): Any? {
+        return when {
+            key == Properties.INDEX && index != NO_INDEX -> index
+            key == Properties.BRANCH && flags and BRANCH_SET != 0 -> flags and BRANCH_TRUE != 0
+            key == Properties.UNREACHABLE && flags and UNREACHABLE_SET != 0 ->
+                flags and UNREACHABLE_TRUE != 0
+            else -> others?.get(key)
+        }
+    }
+
+    override fun put(key: Properties, value: Any?): Any? {
+        val previous = remove(key)
+        if (value == null) {
+            return previous
+        }
+
+        when {
+            key == Properties.INDEX && value is Int && value >= 0 -> index = value
+            key == Properties.BRANCH && value is Boolean ->
+                flags = flags or BRANCH_SET or (if (value) BRANCH_TRUE else 0)
+            key == Properties.UNREACHABLE && value is Boolean ->
+                flags = flags or UNREACHABLE_SET or (if (value) UNREACHABLE_TRUE else 0)
+            else -> {
+                val others = others ?: EnumMap<Properties, Any?>(Properties::class.java)
+                others[key] = value
+                this.others = others
+            }
+        }
+
+        return previous
+    }
+
+    override fun remove(key: Properties): Any? {
+        val previous = get(key)
+        when (key) {
+            Properties.INDEX -> index = NO_INDEX
+            Properties.BRANCH -> flags = flags and (BRANCH_SET or BRANCH_TRUE).inv()
+            Properties.UNREACHABLE -> flags = flags and (UNREACHABLE_SET or UNREACHABLE_TRUE).inv()
+            else -> {}
+        }
+        others?.remove(key)
+
+        return previous
+    }
+
+    override fun clear() {
+        index = NO_INDEX
+        flags = 0
+        others = null
+    }
+
+    override val entries: MutableSet<MutableMap.MutableEntry<Properties, Any?>>
+        get() = EntrySet()
+
+    /** The entries of this map, in the order of [Properties]. */
+    private inner class EntrySet : AbstractMutableSet<MutableMap.MutableEntry<Properties, Any?>>() {
+        override val size: Int
+            get() = this@EdgeProperties.size
+
+        override fun add(element: MutableMap.MutableEntry<Properties, Any?>): Boolean {
+            throw UnsupportedOperationException()
+        }
+
+        override fun iterator(): MutableIterator<MutableMap.MutableEntry<Properties, Any?>> {
+            return object : MutableIterator<MutableMap.MutableEntry<Properties, Any?>> {
+                /** The ordinal of the next key to look at. */
+                private var next = 0
+
+                /** The key of the entry that was returned last, to support [remove]. */
+                private var last: Properties? = null
+
+                override fun hasNext(): Boolean {
+                    while (next < KEYS.size && get(KEYS[next]) == null) {
+                        next++
+                    }
+
+                    return next < KEYS.size
+                }
+
+                override fun next(): MutableMap.MutableEntry<Properties, Any?> {
+                    if (!hasNext()) {
+                        throw NoSuchElementException()
+                    }
+
+                    val key = KEYS[next++]
+                    last = key
+
+                    return Entry(key)
+                }
+
+                override fun remove() {
+                    val key = last ?: throw IllegalStateException()
+                    this@EdgeProperties.remove(key)
+                    last = null
+                }
+            }
+        }
+    }
+
+    /** An entry that reads and writes the value of [key] in this map. */
+    private inner class Entry(override val key: Properties) :
+        MutableMap.MutableEntry<Properties, Any?> {
+        override val value: Any?
+            get() = get(key)
+
+        override fun setValue(newValue: Any?): Any? {
+            return put(key, newValue)
+        }
+
+        override fun equals(other: Any?): Boolean {
+            return other is Map.Entry<*, *> && other.key == key && other.value == value
+        }
+
+        override fun hashCode(): Int {
+            return key.hashCode() xor (value?.hashCode() ?: 0)
+        }
+
+        override fun toString(): String {
+            return "$key=$value"
+        }
+    }
+
+    companion object {
+        private const val NO_INDEX = -1
+
+        private const val BRANCH_SET = 1
+        private const val BRANCH_TRUE = 2
+        private const val UNREACHABLE_SET = 4
+        private const val UNREACHABLE_TRUE = 8
+
+        private val KEYS = Properties.values()
+    }
+}
@@ -66,26 +66,28 @@ open class PropertyEdge<T : Node> : Persistable {
     constructor(start: Node, end: T) {
         this.start = start
         this.end = end
-        properties = EnumMap(Properties::class.java)
+        properties = EdgeProperties()
     }
 
     constructor(propertyEdge: PropertyEdge<T>) {
         start = propertyEdge.start
         end = propertyEdge.end
-        properties = EnumMap(Properties::class.java)
-        properties.putAll(propertyEdge.properties)
+        properties = EdgeProperties(propertyEdge.properties)
     }
 
-    constructor(start: Node, end: T, properties: MutableMap<Properties, Any?>) {
+    constructor(start: Node, end: T, properties: Map<Properties, Any?>) {
         this.start = start
         this.end = end
-        this.properties = properties
+        this.properties = EdgeProperties(properties)
     }
 
-    /** Map containing all properties of an edge */
-    @Convert(PropertyEdgeConverter::class) private var properties: MutableMap<Properties, Any?>
+    /**
+     * Map containing all properties of an edge. The [EdgeProperties] store the common properties
+     * without allocating a map for each edge.
+     */
+    @Convert(PropertyEdgeConverter::class) private var properties: EdgeProperties
     fun getProperty(property: Properties): Any? {
-        return properties.getOrDefault(property, null)
+        return properties[property]
     }
 
     /**
@@ -314,6 +316,26 @@ open class PropertyEdge<T : Node> : Persistable {
     }
 }
 
+/**
+ * A read-only view on the nodes at one end of a list of [PropertyEdge]s, i.e., the
+ * [PropertyEdge.end] nodes of outgoing edges or the [PropertyEdge.start] nodes of incoming edges.
+ * In contrast to [PropertyEdge.unwrap], the nodes are not copied into a new list. Changes to
+ * [edges] are therefore reflected by this view.
+ */
+class PropertyEdgeNodeView<T : Node>(
+    private val edges: List<PropertyEdge<*>>,
+    private val outgoing: Boolean = true
+) : kotlin.collections.AbstractList<T>() {
+    override val size: Int
+        get() = edges.size
+
+    @Suppress("UNCHECKED_CAST")
+    override fun get(index: Int): T {
+        val edge = edges[index]
+        return (if (outgoing) edge.end else edge.start) as T
+    }
+}
+
 /**
  * This class can be used to implement
  * [delegated properties](https://kotlinlang.org/docs/delegated-properties.html) in [Node] classes.
@@ -25,7 +25,6 @@
  */
 package de.fraunhofer.aisec.cpg.graph.edge;
 
-import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
@@ -60,6 +59,10 @@ public class PropertyEdgeConverter implements CompositeAttributeConverter<Map<Pr
   @Override
   public Map<String, Object> toGraphProperties(Map<Properties, Object> value) {
     Map<String, Object> result = new HashMap<>();
+    if (value == null) {
+      return result;
+    }
+
     for (Map.Entry<Properties, Object> entry : value.entrySet()) {
       Object propertyValue = entry.getValue();
       if (serializer.containsKey(propertyValue.getClass().getName())) {
@@ -76,7 +79,7 @@ public class PropertyEdgeConverter implements CompositeAttributeConverter<Map<Pr
 
   @Override
   public Map<Properties, Object> toEntityAttribute(Map<String, ?> value) {
-    Map<Properties, Object> result = new EnumMap<>(Properties.class);
+    Map<Properties, Object> result = new EdgeProperties();
 
     for (Properties prop : Properties.values()) {
       if (deserializer.containsKey(prop.name())) {
@@ -49,11 +49,19 @@ import org.neo4j.ogm.annotation.Relationship
  * and is connected via the INVOKES edge to its [FunctionDeclaration].
  */
 open class CallExpression : Expression(), HasType.TypeListener, HasBase, SecondaryTypeEdge {
-    /** Connection to its [FunctionDeclaration]. This will be populated by the [CallResolver]. */
+    /**
+     * Connection to its [FunctionDeclaration]. This will be populated by the [CallResolver]. Every
+     * modification, either of the list or by replacing it, is counted in the [GraphModifications]
+     * of the graph.
+     */
     @Relationship(value = "INVOKES", direction = Relationship.OUTGOING)
     @PopulatedByPass(CallResolver::class)
-    var invokesRelationship = mutableListOf<PropertyEdge<FunctionDeclaration>>()
-        protected set
+    var invokesRelationship: MutableList<PropertyEdge<FunctionDeclaration>> =
+        InvokesList(ArrayList())
+        protected set(value) {
+            field = InvokesList(ArrayList(value))
+            GraphModifications.of(this).invokesModified()
+        }
 
     /**
      * A virtual property to quickly access the list of declarations that this call invokes without
@@ -146,6 +154,56 @@ open class CallExpression : Expression(), HasType.TypeListener, HasBase, Seconda
         argumentsEdges.add(edge)
     }
 
+    /** Adds [function] to the functions that this call invokes. */
+    fun addInvoke(function: FunctionDeclaration) {
+        val edge = PropertyEdge(this, function)
+        edge.addProperty(Properties.INDEX, invokesRelationship.size)
+
+        invokesRelationship.add(edge)
+        function.registerTypeListener(this)
+    }
+
+    /** Removes [function] from the functions that this call invokes. */
+    fun removeInvoke(function: FunctionDeclaration) {
+        if (invokesRelationship.removeIf { it.end === function }) {
+            function.unregisterTypeListener(this)
+        }
+    }
+
+    /**
+     * The edges of [invokesRelationship], which count every modification in the
+     * [GraphModifications] of the graph. All other modifications of a list, e.g., through its
+     * iterator, are built on top of [add], [removeAt] and [set].
+     */
+    private inner class InvokesList(
+        private val edges: MutableList<PropertyEdge<FunctionDeclaration>>
+    ) : AbstractMutableList<PropertyEdge<FunctionDeclaration>>() {
+        override val size: Int
+            get() = edges.size
+
+        override fun get(index: Int) = edges[index]
+
+        override fun add(index: Int, element: PropertyEdge<FunctionDeclaration>) {
+            edges.add(index, element)
+            GraphModifications.of(this@CallExpression).invokesModified()
+        }
+
+        override fun removeAt(index: Int): PropertyEdge<FunctionDeclaration> {
+            val previous = edges.removeAt(index)
+            GraphModifications.of(this@CallExpression).invokesModified()
+            return previous
+        }
+
+        override fun set(
+            index: Int,
+            element: PropertyEdge<FunctionDeclaration>
+        ): PropertyEdge<FunctionDeclaration> {
+            val previous = edges.set(index, element)
+            GraphModifications.of(this@CallExpression).invokesModified()
+            return previous
+        }
+    }
+
     /** Returns the function signature as list of types of the call arguments. */
     val signature: List<Type>
         get() = argumentsEdges.map { it.end.type }
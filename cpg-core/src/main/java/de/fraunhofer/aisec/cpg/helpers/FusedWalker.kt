@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.helpers
+
+import de.fraunhofer.aisec.cpg.graph.Node
+import de.fraunhofer.aisec.cpg.graph.declarations.RecordDeclaration
+import de.fraunhofer.aisec.cpg.helpers.SubgraphWalker.ScopedWalker
+import de.fraunhofer.aisec.cpg.passes.scopes.ScopeManager
+
+/**
+ * Fuses several traversals based on a [ScopedWalker] into as few walks as possible.
+ *
+ * Handlers are registered for a numbered *phase*. Phases are executed in ascending order. All
+ * phases between two barriers (see [registerBarrier]) share a single walk, in which the handlers of
+ * all phases are invoked for each node before descending to its children, ordered by phase and then
+ * by registration. This is only valid if a handler of a later phase only depends on the results of
+ * earlier phases for the current node and the nodes visited before. If a phase needs the results
+ * of an earlier phase for the whole graph (e.g. all records have to be collected), a barrier needs
+ * to be placed between them, which starts a new walk.
+ *
+ * Scopes are entered and left only once per node and walk, regardless of the number of handlers.
+ *
+ * Walks are only fused within a single pass; fusion across passes is not supported. Passes are
+ * executed one after another, and a pass may rely on the results of an earlier pass for the whole
+ * graph, e.g., the CallResolver on the usages resolved by the VariableUsageResolver. Even a phase
+ * that looks identical in two passes, such as collecting declarations, cannot be shared, since the
+ * earlier pass may add (inferred) declarations to the graph. Each pass therefore creates its own
+ * [FusedWalker] and walks the graph at least once.
+ */
+class FusedWalker(scopeManager: ScopeManager) {
+    /** The underlying walker, e.g., to access the collected declarations within a handler. */
+    val walker = ScopedWalker(scopeManager)
+
+    private val handlers = sortedMapOf<Int, MutableList<Handler>>()
+
+    private val barriers = sortedMapOf<Int, MutableList<() -> Unit>>()
+
+    /** The number of walks over all roots performed by the last call to [iterate]. */
+    var walks = 0
+        private set
+
+    /**
+     * Registers a [handler] for [phase]. The handler receives the current record, the parent and
+     * the current node, similar to [ScopedWalker.registerHandler].
+     */
+    fun registerHandler(phase: Int, handler: (RecordDeclaration?, Node?, Node) -> Unit) {
+        handlers.getOrPut(phase) { mutableListOf() }.add(handler)
+    }
+
+    /**
+     * Registers a barrier after [phase]: All handlers of [phase] and the phases before are
+     * completed on all roots before any handler of a later phase is invoked. Afterwards, the
+     * optional [action] is executed.
+     */
+    fun registerBarrier(phase: Int, action: () -> Unit = {}) {
+        barriers.getOrPut(phase) { mutableListOf() }.add(action)
+    }
+
+    /** Removes all handlers and barriers. */
+    fun clear() {
+        handlers.clear()
+        barriers.clear()
+    }
+
+    /** Runs all registered phases on [roots] in as few walks as possible. */
+    fun iterate(roots: Collection<Node>) {
+        walks = 0
+        val group = mutableListOf<Handler>()
+        val phases = (handlers.keys + barriers.keys).toSortedSet()
+        for (phase in phases) {
+            handlers[phase]?.let { group.addAll(it) }
+
+            val actions = barriers[phase] ?: continue
+            walk(roots, group)
+            group.clear()
+            actions.forEach { it() }
+        }
+        walk(roots, group)
+    }
+
+    private fun walk(roots: Collection<Node>, group: List<Handler>) {
+        if (group.isEmpty()) {
+            return
+        }
+
+        val fused = group.toList()
+        walker.clearCallbacks()
+        walker.registerHandler { currentClass, parent, node ->
+            for (handler in fused) {
+                handler(currentClass, parent, node)
+            }
+        }
+        for (root in roots) {
+            walker.iterate(root)
+        }
+        walks++
+    }
+}
+
+private typealias Handler = (RecordDeclaration?, Node?, Node) -> Unit
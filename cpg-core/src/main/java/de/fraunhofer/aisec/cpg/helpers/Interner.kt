@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.helpers
+
+import java.lang.ref.WeakReference
+import java.util.*
+
+/**
+ * A pool of canonical instances of [T], similar to [String.intern]. Values that are equal but
+ * allocated separately (e.g., the same file location of many nodes) can be replaced by one shared
+ * instance. The pool only weakly references its instances, so they can still be garbage-collected
+ * once they are not used anymore.
+ *
+ * Interned instances are shared, therefore they must not be modified afterwards.
+ */
+class Interner<T : Any> {
+    private val pool = WeakHashMap<T, WeakReference<T>>()
+
+    /** Returns the canonical instance that is equal to [value]. */
+    @Synchronized
+    fun intern(value: T): T {
+        val existing = pool[value]?.get()
+        if (existing != null) {
+            return existing
+        }
+
+        pool[value] = WeakReference(value)
+
+        return value
+    }
+
+    /** The number of canonical instances in this pool. */
+    val size: Int
+        @Synchronized get() = pool.size
+}
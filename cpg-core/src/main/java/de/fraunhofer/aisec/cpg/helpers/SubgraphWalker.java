@@ -243,7 +243,15 @@ public class SubgraphWalker {
 
   public static class IterativeGraphWalker {
 
-    private Deque<kotlin.Pair<Node, Node>> todo;
+    /**
+     * The nodes that still need to be visited, together with their parents in {@link
+     * #todoParents}. We use plain arrays as an explicit stack so that pushing a node does not
+     * allocate anything.
+     */
+    private Node[] todoNodes = new Node[16];
+
+    private Node[] todoParents = new Node[16];
+    private int todoSize;
     private Deque<Node> backlog;
 
     /**
@@ -285,37 +293,60 @@ public class SubgraphWalker {
      * @param root The node where we should start
      */
     public void iterate(Node root) {
-      todo = new ArrayDeque<>();
+      todoSize = 0;
       backlog = new ArrayDeque<>();
-      Set<Node> seen = new LinkedHashSet<>();
-
-      todo.push(new kotlin.Pair<>(root, null));
-      while (!todo.isEmpty()) {
-        kotlin.Pair<Node, Node> pair = todo.pop();
-        Node current = pair.getFirst();
-        Node parent = pair.getSecond();
-        if (!backlog.isEmpty() && backlog.peek().equals(current)) {
+      // Nodes are tracked by identity, since different nodes can be equal according to
+      // Node.equals (e.g. same name and location)
+      Set<Node> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+      seen.add(root);
+
+      push(root, null);
+      while (todoSize > 0) {
+        todoSize--;
+        Node current = todoNodes[todoSize];
+        Node parent = todoParents[todoSize];
+        todoNodes[todoSize] = null;
+        todoParents[todoSize] = null;
+
+        if (!backlog.isEmpty() && backlog.peek() == current) {
           Node exiting = backlog.pop();
-          onScopeExit.forEach(c -> c.accept(exiting));
+          for (var callback : onScopeExit) {
+            callback.accept(exiting);
+          }
         } else {
           // re-place the current node as a marker for the above check to find out when we need to
           // exit a scope
-          todo.push(new kotlin.Pair<>(current, parent));
-          onNodeVisit.forEach(c -> c.accept(current));
-          onNodeVisit2.forEach(c -> c.accept(current, parent));
-
-          var unseenChildren =
-              SubgraphWalker.getAstChildren(current).stream()
-                  .filter(Predicate.not(seen::contains))
-                  .collect(Collectors.toList());
-          seen.addAll(unseenChildren);
-          Util.reverse(unseenChildren.stream())
-              .forEach(child -> todo.push(new kotlin.Pair<>(child, current)));
+          push(current, parent);
+          for (var callback : onNodeVisit) {
+            callback.accept(current);
+          }
+          for (var callback : onNodeVisit2) {
+            callback.accept(current, parent);
+          }
+
+          // Push the unseen children in reverse order, so that the first child is visited first
+          var children = SubgraphWalker.getAstChildren(current);
+          for (int i = children.size() - 1; i >= 0; i--) {
+            Node child = children.get(i);
+            if (seen.add(child)) {
+              push(child, current);
+            }
+          }
           backlog.push(current);
         }
       }
     }
 
+    private void push(Node node, Node parent) {
+      if (todoSize == todoNodes.length) {
+        todoNodes = Arrays.copyOf(todoNodes, todoSize * 2);
+        todoParents = Arrays.copyOf(todoParents, todoSize * 2);
+      }
+      todoNodes[todoSize] = node;
+      todoParents[todoSize] = parent;
+      todoSize++;
+    }
+
     public void registerOnNodeVisit(Consumer<Node> callback) {
       onNodeVisit.add(callback);
     }
@@ -334,8 +365,11 @@ public class SubgraphWalker {
     }
 
     public Deque<Node> getTodo() {
-      return new ArrayDeque<>(
-          todo.stream().map(kotlin.Pair<Node, Node>::getFirst).collect(Collectors.toList()));
+      Deque<Node> todo = new ArrayDeque<>(todoSize);
+      for (int i = 0; i < todoSize; i++) {
+        todo.push(todoNodes[i]);
+      }
+      return todo;
     }
 
     public Deque<Node> getBacklog() {
@@ -42,8 +42,6 @@ import java.util.*;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 
@@ -368,11 +366,6 @@ public class Util {
     }
   }
 
-  static <T> Stream<T> reverse(Stream<T> input) {
-    Object[] temp = input.toArray();
-    return (Stream<T>) IntStream.range(0, temp.length).mapToObj(i -> temp[temp.length - i - 1]);
-  }
-
   public enum Connect {
     NODE,
     SUBTREE
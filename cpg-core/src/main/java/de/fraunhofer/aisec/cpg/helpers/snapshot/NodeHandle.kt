@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.helpers.snapshot
+
+import de.fraunhofer.aisec.cpg.graph.Node
+import de.fraunhofer.aisec.cpg.helpers.snapshot.OffHeapGraph.Column
+import de.fraunhofer.aisec.cpg.helpers.snapshot.OffHeapGraph.Relation
+import de.fraunhofer.aisec.cpg.sarif.PhysicalLocation
+import de.fraunhofer.aisec.cpg.sarif.Region
+import java.net.URI
+
+/**
+ * A thin handle to a node of an [OffHeapGraph]. A handle only consists of the graph and the id of
+ * the node, all attributes are read from the (memory-mapped) columns of the graph when they are
+ * accessed. Handles are therefore cheap to create and should not be kept around.
+ */
+class NodeHandle internal constructor(val graph: OffHeapGraph, val id: Int) {
+    /** The fully qualified name of the class of the node. */
+    val className: String
+        get() = graph.string(graph.int(Column.CLASS, id))!!
+
+    /** The class of the node. It is resolved only once per class of the graph. */
+    val nodeClass: Class<out Node>
+        get() = graph.nodeClass(id)
+
+    /** The (fully qualified) name of the node, see [Node.fullName]. */
+    val name: String
+        get() = graph.string(graph.int(Column.NAME, id))!!
+
+    /** See [Node.code]. */
+    val code: String?
+        get() = graph.string(graph.int(Column.CODE, id))
+
+    /** See [Node.location]. */
+    val location: PhysicalLocation?
+        get() {
+            val file = graph.string(graph.int(Column.FILE, id)) ?: return null
+
+            return PhysicalLocation(
+                URI.create(file),
+                Region(
+                    graph.int(Column.START_LINE, id),
+                    graph.int(Column.START_COLUMN, id),
+                    graph.int(Column.END_LINE, id),
+                    graph.int(Column.END_COLUMN, id)
+                )
+            )
+        }
+
+    /** See [Node.isInferred]. */
+    val isInferred: Boolean
+        get() = graph.int(Column.FLAGS, id) and OffHeapGraph.FLAG_INFERRED != 0
+
+    /** See [Node.isImplicit]. */
+    val isImplicit: Boolean
+        get() = graph.int(Column.FLAGS, id) and OffHeapGraph.FLAG_IMPLICIT != 0
+
+    val astChildren: List<NodeHandle>
+        get() = graph.neighbors(id, Relation.AST)
+
+    val nextEOG: List<NodeHandle>
+        get() = graph.neighbors(id, Relation.NEXT_EOG)
+
+    val prevEOG: List<NodeHandle>
+        get() = graph.neighbors(id, Relation.PREV_EOG)
+
+    val nextDFG: List<NodeHandle>
+        get() = graph.neighbors(id, Relation.NEXT_DFG)
+
+    val prevDFG: List<NodeHandle>
+        get() = graph.neighbors(id, Relation.PREV_DFG)
+
+    /**
+     * The [Node] this handle refers to. If it is not materialized yet, it is created from the
+     * columns together with its AST subtree and the nodes it references. Its other edges are
+     * materialized once they are accessed, see [OffHeapGraph].
+     */
+    val node: Node
+        get() = graph.node(id)
+
+    /** Checks, whether the node is an instance of [T] without materializing it. */
+    inline fun <reified T : Node> isA(): Boolean {
+        return T::class.java.isAssignableFrom(nodeClass)
+    }
+
+    override fun equals(other: Any?): Boolean {
+        return other is NodeHandle && other.graph === graph && other.id == id
+    }
+
+    override fun hashCode(): Int = id
+
+    override fun toString(): String = "$className[$id]: $name"
+}
@@ -0,0 +1,777 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.helpers.snapshot
+
+import de.fraunhofer.aisec.cpg.TranslationResult
+import de.fraunhofer.aisec.cpg.graph.Name
+import de.fraunhofer.aisec.cpg.graph.Node
+import de.fraunhofer.aisec.cpg.graph.SubGraph
+import de.fraunhofer.aisec.cpg.graph.edge.Properties
+import de.fraunhofer.aisec.cpg.graph.edge.PropertyEdge
+import java.io.BufferedOutputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import java.lang.ref.ReferenceQueue
+import java.lang.ref.WeakReference
+import java.lang.reflect.Field
+import java.lang.reflect.Modifier
+import java.lang.reflect.ParameterizedType
+import java.nio.ByteBuffer
+import java.nio.IntBuffer
+import java.nio.LongBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.util.IdentityHashMap
+import java.util.concurrent.ConcurrentHashMap
+import org.neo4j.ogm.annotation.Relationship
+import org.neo4j.ogm.annotation.Transient
+
+/**
+ * A read-only storage of a [TranslationResult] that keeps (almost) nothing on the heap. It is
+ * intended for very large results that do not fit into memory as a whole, e.g., when analyzing a
+ * complete distribution.
+ *
+ * All nodes that are reachable from the translation units via their AST, EOG and DFG edges or any
+ * other reference to a node (e.g., types, the targets of references and calls) are assigned a
+ * dense id. Their attributes (class, name, code, location and flags) and their adjacency lists are
+ * stored in columns of a memory-mapped file, so that they are paged in by the operating system only
+ * when needed and are never scanned by the garbage collector. The nodes are accessed through thin
+ * [NodeHandle]s, which only consist of the graph and an id.
+ *
+ * Queries that need more than the stored attributes and edges can access a regular [Node] using
+ * [NodeHandle.node]. It is materialized from the columns together with its AST subtree and the
+ * nodes it references in single-valued fields (e.g., [Node] typed fields such as the type or the
+ * declaration a reference refers to). Its EOG and DFG edges as well as collections of references
+ * (e.g., the invoked functions of a call) are only materialized once they are accessed, so that a
+ * single node does not pull the whole graph onto the heap. The materialized nodes are only weakly
+ * cached, so the heap only holds the parts of the graph that are actually in use.
+ *
+ * Scopes and languages are not part of the graph and therefore not available on materialized
+ * nodes, neither are references to nodes that cannot be created without constructor arguments.
+ */
+class OffHeapGraph private constructor(val directory: Path) : AutoCloseable {
+    private val channel = FileChannel.open(directory.resolve(COLUMNS_FILE), StandardOpenOption.READ)
+
+    /** The number of nodes in this graph. */
+    val size: Int
+
+    private val translationUnitCount: Int
+    private val columns: Array<IntBuffer>
+    private val offsets: Array<IntBuffer>
+    private val targets: Array<IntBuffer>
+    private val labels: Array<IntBuffer>
+    private val stringOffsets: LongBuffer
+    private val stringChunks: Array<ByteBuffer>
+
+    /** The classes of the nodes, resolved once per entry of the string table. */
+    private val classes = ConcurrentHashMap<Int, Class<out Node>>()
+
+    /** The nodes that are currently materialized, see [node]. */
+    private val materialized = HashMap<Int, NodeReference>()
+    private val released = ReferenceQueue<Node>()
+
+    init {
+        val fileSize = channel.size()
+        val footer = map(fileSize - FOOTER_SIZE, FOOTER_SIZE.toLong())
+        if (footer.int != MAGIC || footer.int != VERSION) {
+            throw IOException("Not an off-heap graph: $directory")
+        }
+        val trailerOffset = footer.long
+        val trailer = map(trailerOffset, fileSize - FOOTER_SIZE - trailerOffset)
+        size = trailer.int
+        translationUnitCount = trailer.int
+        val stringCount = trailer.int
+
+        fun section(): ByteBuffer = map(trailer.long, trailer.long)
+
+        columns = Array(Column.values().size) { section().asIntBuffer() }
+        offsets = Array(Relation.values().size) { IntBuffer.allocate(0) }
+        targets = Array(Relation.values().size) { IntBuffer.allocate(0) }
+        labels = Array(Relation.values().size) { IntBuffer.allocate(0) }
+        for (relation in Relation.values()) {
+            offsets[relation.ordinal] = section().asIntBuffer()
+            targets[relation.ordinal] = section().asIntBuffer()
+            labels[relation.ordinal] = section().asIntBuffer()
+        }
+        stringOffsets = section().asLongBuffer()
+
+        val dataOffset = trailer.long
+        val dataLength = trailer.long
+        stringChunks =
+            Array(((dataLength + CHUNK_SIZE - 1) / CHUNK_SIZE).toInt()) {
+                val start = it * CHUNK_SIZE.toLong()
+                map(dataOffset + start, minOf(CHUNK_SIZE.toLong(), dataLength - start))
+            }
+
+        if (stringOffsets.limit() != stringCount + 1) {
+            throw IOException("Malformed off-heap graph: $directory")
+        }
+    }
+
+    /** The translation units of this graph. */
+    val translationUnits: List<NodeHandle>
+        get() = handles(0, translationUnitCount) { it }
+
+    /** All nodes of this graph, in the order of their ids. */
+    val nodes: Sequence<NodeHandle>
+        get() = (0 until size).asSequence().map { NodeHandle(this, it) }
+
+    /** Returns the handle of the node with the given [id]. */
+    operator fun get(id: Int): NodeHandle {
+        if (id < 0 || id >= size) {
+            throw IndexOutOfBoundsException("Node $id does not exist")
+        }
+
+        return NodeHandle(this, id)
+    }
+
+    /**
+     * Returns the materialized node with the given [id]. If it is not materialized yet, it is
+     * created together with all nodes of its AST subtree and all nodes referenced by single-valued
+     * fields that are not materialized yet. All other edges are loaded on first access, see
+     * [restoreEdges].
+     *
+     * Since a node holds its AST children, a node that is still materialized always has a
+     * complete AST subtree and can be re-used as a part of the subtree of its parent.
+     */
+    @Synchronized
+    internal fun node(id: Int): Node {
+        expunge()
+        materialized(id)?.let {
+            return it
+        }
+
+        val created = LinkedHashMap<Int, Node>()
+        val order = arrayListOf(id)
+        created[id] = create(id)
+
+        val resolve = { targetId: Int ->
+            created[targetId]
+                ?: materialized(targetId)
+                    ?: create(targetId).also {
+                        created[targetId] = it
+                        order += targetId
+                    }
+        }
+
+        var i = 0
+        while (i < order.size) {
+            val nodeId = order[i++]
+            val node = created.getValue(nodeId)
+
+            val fields = astFields.get(node.javaClass)
+            forEachEdge(nodeId, Relation.AST) { childId, index ->
+                addChild(node, fieldAt(fields, index), resolve(childId))
+            }
+
+            restoreEdges(nodeId, node, resolve)
+        }
+
+        return created.getValue(id)
+    }
+
+    /**
+     * Restores the EOG, DFG and reference edges of the new node [owner]. Single-valued references
+     * are set right away, [resolve] materializes their targets. All collections are replaced by
+     * lazy collections, which materialize their targets on first access.
+     */
+    private fun restoreEdges(id: Int, owner: Node, resolve: (Int) -> Node) {
+        val nextEOG = storedEdges(id, Relation.NEXT_EOG)
+        owner.nextEOGEdges = LazyList(this) { nextEOG.map { (t, b) -> eogEdge(owner, node(t), b) } }
+        val prevEOG = storedEdges(id, Relation.PREV_EOG)
+        owner.prevEOGEdges = LazyList(this) { prevEOG.map { (s, b) -> eogEdge(node(s), owner, b) } }
+        val nextDFG = storedEdges(id, Relation.NEXT_DFG)
+        owner.nextDFG = LazySet(this) { nextDFG.map { node(it.first) } }
+        val prevDFG = storedEdges(id, Relation.PREV_DFG)
+        owner.prevDFG = LazySet(this) { prevDFG.map { node(it.first) } }
+
+        val fields = referenceFields.get(owner.javaClass)
+        for ((index, references) in storedEdges(id, Relation.REFERENCE).groupBy { it.second }) {
+            val field = fieldAt(fields, index)
+            val targetIds = references.map { it.first }
+            if (!Collection::class.java.isAssignableFrom(field.type)) {
+                field.set(owner, resolve(targetIds.single()))
+                continue
+            }
+
+            val load = {
+                targetIds.mapIndexed { position, target ->
+                    if (isPropertyEdgeField(field)) {
+                        val edge =
+                            if (isOutgoing(field)) PropertyEdge(owner, node(target))
+                            else PropertyEdge(node(target), owner)
+                        edge.addProperty(Properties.INDEX, position)
+                        edge
+                    } else {
+                        node(target)
+                    }
+                }
+            }
+            when {
+                field.type.isAssignableFrom(LazyList::class.java) ->
+                    field.set(owner, LazyList(this, load))
+                field.type.isAssignableFrom(LazySet::class.java) ->
+                    field.set(owner, LazySet(this, load))
+                else -> targetIds.forEach { addChild(owner, field, resolve(it)) }
+            }
+        }
+    }
+
+    /** Returns the targets of the edges of [id] in [relation], together with their labels. */
+    private fun storedEdges(id: Int, relation: Relation): List<Pair<Int, Int>> {
+        val targets = mutableListOf<Pair<Int, Int>>()
+        forEachEdge(id, relation) { target, label -> targets += Pair(target, label) }
+
+        return targets
+    }
+
+    /** Returns the class of the node with the given [id]. */
+    internal fun nodeClass(id: Int): Class<out Node> {
+        return classes.computeIfAbsent(int(Column.CLASS, id)) {
+            val name = string(it)
+            val cls =
+                try {
+                    Class.forName(name, false, OffHeapGraph::class.java.classLoader)
+                } catch (e: ClassNotFoundException) {
+                    throw IOException("Malformed off-heap graph: unknown class $name", e)
+                }
+            if (!Node::class.java.isAssignableFrom(cls)) {
+                throw IOException("Malformed off-heap graph: $name is not a node")
+            }
+
+            cls.asSubclass(Node::class.java)
+        }
+    }
+
+    internal fun int(column: Column, id: Int): Int = columns[column.ordinal].get(id)
+
+    internal fun neighbors(id: Int, relation: Relation): List<NodeHandle> {
+        val offsets = offsets[relation.ordinal]
+        val targets = targets[relation.ordinal]
+        val start = offsets.get(id)
+
+        return handles(start, offsets.get(id + 1) - start) { targets.get(it) }
+    }
+
+    /** Returns the string with the given [index] or `null`, if the index is [NO_STRING]. */
+    internal fun string(index: Int): String? {
+        if (index == NO_STRING) {
+            return null
+        }
+
+        val start = stringOffsets.get(index)
+        val length = (stringOffsets.get(index + 1) - start).toInt()
+        val chunk = stringChunks[(start / CHUNK_SIZE).toInt()].duplicate()
+        chunk.position((start % CHUNK_SIZE).toInt())
+
+        val bytes = ByteArray(length)
+        chunk.get(bytes)
+
+        return String(bytes, Charsets.UTF_8)
+    }
+
+    private inline fun forEachEdge(id: Int, relation: Relation, action: (Int, Int) -> Unit) {
+        val offsets = offsets[relation.ordinal]
+        val targets = targets[relation.ordinal]
+        val labels = labels[relation.ordinal]
+
+        for (i in offsets.get(id) until offsets.get(id + 1)) {
+            action(targets.get(i), labels.get(i))
+        }
+    }
+
+    private fun materialized(id: Int): Node? = materialized[id]?.get()
+
+    private fun fieldAt(fields: List<Field>, index: Int): Field {
+        return fields.getOrNull(index)
+            ?: throw IOException("Malformed off-heap graph: unknown field")
+    }
+
+    /** Creates the node with the given [id] from the columns, without any edges. */
+    private fun create(id: Int): Node {
+        val constructor = nodeClass(id).getDeclaredConstructor()
+        constructor.trySetAccessible()
+
+        val node = constructor.newInstance()
+        val handle = NodeHandle(this, id)
+        node.name = string(int(Column.LOCAL_NAME, id))!!
+        node.fullName.parent =
+            string(int(Column.PARENT_NAME, id))?.let {
+                Name.parse(it, string(int(Column.DELIMITER, id))!!)
+            }
+        node.code = handle.code
+        node.location = handle.location
+        node.isInferred = handle.isInferred
+        node.isImplicit = handle.isImplicit
+
+        materialized[id] = NodeReference(node, id, released)
+
+        return node
+    }
+
+    /** Removes the nodes that have been garbage collected from [materialized]. */
+    private fun expunge() {
+        while (true) {
+            val reference = released.poll() as? NodeReference ?: break
+            materialized.remove(reference.id, reference)
+        }
+    }
+
+    private inline fun handles(start: Int, count: Int, crossinline id: (Int) -> Int) =
+        object : AbstractList<NodeHandle>() {
+            override val size = count
+
+            override fun get(index: Int): NodeHandle {
+                if (index < 0 || index >= count) {
+                    throw IndexOutOfBoundsException("Index $index out of bounds for size $count")
+                }
+
+                return NodeHandle(this@OffHeapGraph, id(start + index))
+            }
+        }
+
+    private fun map(offset: Long, length: Long): ByteBuffer {
+        if (offset < 0 || length < 0 || length > Int.MAX_VALUE) {
+            throw IOException("Malformed off-heap graph or section too large: $directory")
+        }
+
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length)
+    }
+
+    /**
+     * Closes the underlying file. Note that the JVM only releases the mapped memory once the
+     * buffers are garbage collected.
+     */
+    override fun close() {
+        channel.close()
+    }
+
+    private class NodeReference(node: Node, val id: Int, queue: ReferenceQueue<Node>) :
+        WeakReference<Node>(node, queue)
+
+    /** A list whose elements are only loaded on first access, while holding [lock]. */
+    private class LazyList<T>(lock: Any, load: () -> List<T>) : AbstractMutableList<T>() {
+        private val elements by lazy(lock) { load().toMutableList() }
+
+        override val size: Int
+            get() = elements.size
+
+        override fun get(index: Int): T = elements[index]
+
+        override fun add(index: Int, element: T) = elements.add(index, element)
+
+        override fun removeAt(index: Int): T = elements.removeAt(index)
+
+        override fun set(index: Int, element: T): T = elements.set(index, element)
+    }
+
+    /** A set whose elements are only loaded on first access, while holding [lock]. */
+    private class LazySet<T>(lock: Any, load: () -> List<T>) : AbstractMutableSet<T>() {
+        private val elements by lazy(lock) { load().toMutableSet() }
+
+        override val size: Int
+            get() = elements.size
+
+        override fun contains(element: T): Boolean = element in elements
+
+        override fun add(element: T): Boolean = elements.add(element)
+
+        override fun iterator(): MutableIterator<T> = elements.iterator()
+    }
+
+    /** The columns that hold the attributes of the nodes. */
+    internal enum class Column {
+        CLASS,
+        NAME,
+        LOCAL_NAME,
+        PARENT_NAME,
+        DELIMITER,
+        CODE,
+        FILE,
+        START_LINE,
+        START_COLUMN,
+        END_LINE,
+        END_COLUMN,
+        FLAGS
+    }
+
+    /**
+     * The relations between the nodes that are stored as adjacency lists. Each edge carries a
+     * label: the index of the AST field in [astFields] for [AST], the branch of EOG edges (or
+     * [NO_BRANCH]), nothing for DFG edges and the index of the field in [referenceFields] for
+     * [REFERENCE].
+     */
+    enum class Relation {
+        AST,
+        NEXT_EOG,
+        PREV_EOG,
+        NEXT_DFG,
+        PREV_DFG,
+        REFERENCE
+    }
+
+    companion object {
+        const val COLUMNS_FILE = "columns.bin"
+
+        private const val MAGIC = 0x4350474f // "CPGO"
+        private const val VERSION = 3
+        private const val FOOTER_SIZE = 16
+        private const val CHUNK_SIZE = 1 shl 30
+
+        internal const val NO_STRING = -1
+        internal const val FLAG_INFERRED = 1
+        internal const val FLAG_IMPLICIT = 2
+
+        private const val NO_BRANCH = -1
+
+        /**
+         * The fields that hold the AST children of a node class, in the same order as they are
+         * visited by [de.fraunhofer.aisec.cpg.helpers.SubgraphWalker.getAstChildren].
+         */
+        private val astFields =
+            object : ClassValue<List<Field>>() {
+                override fun computeValue(type: Class<*>): List<Field> {
+                    val inherited = type.superclass?.let { get(it) } ?: listOf()
+                    val declared =
+                        type.declaredFields.filter {
+                            it.getAnnotation(SubGraph::class.java)?.value?.contains("AST") == true
+                        }
+                    declared.forEach { it.trySetAccessible() }
+
+                    return inherited + declared
+                }
+            }
+
+        /** The fields of [Node] that hold the EOG and DFG edges, which have their own relations. */
+        private val FLOW_FIELDS = setOf("prevEOGEdges", "nextEOGEdges", "prevDFG", "nextDFG")
+
+        /**
+         * The fields that hold all other references of a node class to nodes, either directly or
+         * in a collection of nodes or [PropertyEdge]s.
+         */
+        private val referenceFields =
+            object : ClassValue<List<Field>>() {
+                override fun computeValue(type: Class<*>): List<Field> {
+                    val inherited = type.superclass?.let { get(it) } ?: listOf()
+                    val declared = type.declaredFields.filter(::isReferenceField)
+                    declared.forEach { it.trySetAccessible() }
+
+                    return inherited + declared
+                }
+            }
+
+        /** Whether a node class can be created by [create], i.e., without arguments. */
+        private val instantiable =
+            object : ClassValue<Boolean>() {
+                override fun computeValue(type: Class<*>): Boolean {
+                    return type.declaredConstructors.any { it.parameterCount == 0 }
+                }
+            }
+
+        /**
+         * Stores [result] in [directory] and opens it as an [OffHeapGraph]. Afterwards, the
+         * [result] is no longer needed and can be garbage collected.
+         */
+        @JvmStatic
+        fun write(result: TranslationResult, directory: Path): OffHeapGraph {
+            Files.createDirectories(directory)
+            ColumnWriter(result).write(directory)
+
+            return open(directory)
+        }
+
+        /** Opens an [OffHeapGraph] that was previously written to [directory]. */
+        @JvmStatic
+        fun open(directory: Path): OffHeapGraph {
+            return OffHeapGraph(directory)
+        }
+
+        /** Returns the neighbors of [node] in [relation], along with the label of each edge. */
+        internal fun edges(node: Node, relation: Relation): List<Pair<Node, Int>> {
+            return when (relation) {
+                Relation.AST -> astEdges(node)
+                Relation.NEXT_EOG -> node.nextEOGEdges.map { Pair(it.end, branch(it)) }
+                Relation.PREV_EOG -> node.prevEOGEdges.map { Pair(it.start, branch(it)) }
+                Relation.NEXT_DFG -> node.nextDFG.map { Pair(it, 0) }
+                Relation.PREV_DFG -> node.prevDFG.map { Pair(it, 0) }
+                Relation.REFERENCE -> referenceEdges(node)
+            }
+        }
+
+        private fun referenceEdges(node: Node): List<Pair<Node, Int>> {
+            val edges = mutableListOf<Pair<Node, Int>>()
+            for ((index, field) in referenceFields.get(node.javaClass).withIndex()) {
+                val value = field.get(node) ?: continue
+                val elements = if (value is Collection<*>) value else listOf(value)
+                for (element in elements) {
+                    val target =
+                        when {
+                            element !is PropertyEdge<*> -> element
+                            isOutgoing(field) -> element.end
+                            else -> element.start
+                        }
+                    if (target is Node && instantiable.get(target.javaClass)) {
+                        edges += Pair(target, index)
+                    }
+                }
+            }
+
+            return edges
+        }
+
+        private fun isReferenceField(field: Field): Boolean {
+            val ignored =
+                Modifier.isStatic(field.modifiers) ||
+                    Modifier.isTransient(field.modifiers) ||
+                    field.isAnnotationPresent(Transient::class.java) ||
+                    field.getAnnotation(SubGraph::class.java)?.value?.contains("AST") == true ||
+                    (field.declaringClass == Node::class.java && field.name in FLOW_FIELDS)
+
+            return !ignored &&
+                (Node::class.java.isAssignableFrom(field.type) ||
+                    Collection::class.java.isAssignableFrom(field.type))
+        }
+
+        private fun isPropertyEdgeField(field: Field): Boolean {
+            return field.genericType is ParameterizedType &&
+                PropertyEdge.checkForPropertyEdge(field, listOf<Any>())
+        }
+
+        private fun astEdges(node: Node): List<Pair<Node, Int>> {
+            val edges = mutableListOf<Pair<Node, Int>>()
+            for ((index, field) in astFields.get(node.javaClass).withIndex()) {
+                var value = field.get(node) ?: continue
+                if (PropertyEdge.checkForPropertyEdge(field, value)) {
+                    @Suppress("UNCHECKED_CAST")
+                    val propertyEdges = value as List<PropertyEdge<Node>>
+                    value = PropertyEdge.unwrap(propertyEdges, isOutgoing(field))
+                }
+
+                when (value) {
+                    is Node -> edges += Pair(value, index)
+                    is Collection<*> -> value.forEach { if (it is Node) edges += Pair(it, index) }
+                }
+            }
+
+            return edges
+        }
+
+        private fun branch(edge: PropertyEdge<Node>): Int {
+            return when (edge.getProperty(Properties.BRANCH)) {
+                true -> 1
+                false -> 0
+                else -> NO_BRANCH
+            }
+        }
+
+        private fun isOutgoing(field: Field): Boolean {
+            return field.getAnnotation(Relationship::class.java)?.direction != "INCOMING"
+        }
+
+        /** Adds [child] to the [field] of [parent], just like a frontend would. */
+        private fun addChild(parent: Node, field: Field, child: Node) {
+            val value = field.get(parent)
+            if (value !is MutableCollection<*>) {
+                field.set(parent, child)
+                return
+            }
+
+            val element: Any =
+                if (PropertyEdge.checkForPropertyEdge(field, value)) {
+                    val edge =
+                        if (isOutgoing(field)) PropertyEdge(parent, child)
+                        else PropertyEdge(child, parent)
+                    edge.addProperty(Properties.INDEX, value.size)
+                    edge
+                } else {
+                    child
+                }
+
+            @Suppress("UNCHECKED_CAST") val elements = value as MutableCollection<Any>
+            try {
+                elements.add(element)
+            } catch (e: UnsupportedOperationException) {
+                // Some fields are initialized with immutable empty collections
+                val copy: MutableCollection<Any> =
+                    if (field.type.isAssignableFrom(ArrayList::class.java)) ArrayList(elements)
+                    else LinkedHashSet(elements)
+                copy.add(element)
+                field.set(parent, copy)
+            }
+        }
+
+        private fun eogEdge(start: Node, end: Node, branch: Int): PropertyEdge<Node> {
+            val edge = PropertyEdge(start, end)
+            if (branch != NO_BRANCH) {
+                edge.addProperty(Properties.BRANCH, branch == 1)
+            }
+
+            return edge
+        }
+    }
+
+    /** Writes the columns of a [TranslationResult]. */
+    private class ColumnWriter(private val result: TranslationResult) {
+        private val nodes = ArrayList<Node>()
+        private val ids = IdentityHashMap<Node, Int>()
+        private val strings = LinkedHashMap<String, Int>()
+        private var position = 0L
+
+        fun write(directory: Path) {
+            result.translationUnits.forEach(::add)
+            val translationUnitCount = nodes.size
+            result.additionalNodes.forEach(::add)
+
+            // Assign ids in breadth-first order, so that related nodes are close to each other
+            var i = 0
+            while (i < nodes.size) {
+                val node = nodes[i++]
+                Relation.values().forEach { relation ->
+                    edges(node, relation).forEach { add(it.first) }
+                }
+            }
+
+            val sections = mutableListOf<Long>()
+            Files.newOutputStream(directory.resolve(COLUMNS_FILE)).use { stream ->
+                val out = DataOutputStream(BufferedOutputStream(stream, Snapshot.BUFFER_SIZE))
+
+                for (column in Column.values()) {
+                    sections += section { nodes.forEach { writeInt(out, value(it, column)) } }
+                }
+                for (relation in Relation.values()) {
+                    sections += section {
+                        var offset = 0
+                        writeInt(out, offset)
+                        for (node in nodes) {
+                            offset += edges(node, relation).size
+                            writeInt(out, offset)
+                        }
+                    }
+                    sections += section {
+                        nodes.forEach { node ->
+                            edges(node, relation).forEach { writeInt(out, ids.getValue(it.first)) }
+                        }
+                    }
+                    sections += section {
+                        nodes.forEach { node ->
+                            edges(node, relation).forEach { writeInt(out, it.second) }
+                        }
+                    }
+                }
+
+                // The string data is written first, so we know the offsets of the strings. A
+                // string never crosses the boundary of a chunk, so it can be read from one buffer.
+                val stringOffsets = LongArray(strings.size + 1)
+                val dataStart = position
+                val data = section {
+                    var index = 0
+                    for (string in strings.keys) {
+                        val bytes = string.toByteArray(Charsets.UTF_8)
+                        if (bytes.size > CHUNK_SIZE) {
+                            throw IOException("String is too large for an off-heap graph")
+                        }
+                        val offsetInChunk = (position - dataStart) % CHUNK_SIZE
+                        if (offsetInChunk + bytes.size > CHUNK_SIZE) {
+                            repeat((CHUNK_SIZE - offsetInChunk).toInt()) { writeByte(out, 0) }
+                        }
+                        stringOffsets[index++] = position
+                        out.write(bytes)
+                        position += bytes.size
+                    }
+                    stringOffsets[index] = position
+                }
+                sections += section {
+                    stringOffsets.forEach {
+                        out.writeLong(it - dataStart)
+                        position += 8
+                    }
+                }
+                sections += data
+
+                val trailerOffset = position
+                out.writeInt(nodes.size)
+                out.writeInt(translationUnitCount)
+                out.writeInt(strings.size)
+                sections.forEach(out::writeLong)
+                out.writeInt(MAGIC)
+                out.writeInt(VERSION)
+                out.writeLong(trailerOffset)
+                out.flush()
+            }
+        }
+
+        private fun add(node: Node) {
+            if (!ids.containsKey(node)) {
+                ids[node] = nodes.size
+                nodes += node
+            }
+        }
+
+        /** Runs [block] and returns the offset and length of the section it wrote. */
+        private inline fun section(block: () -> Unit): List<Long> {
+            val start = position
+            block()
+
+            return listOf(start, position - start)
+        }
+
+        private fun writeInt(out: DataOutputStream, value: Int) {
+            out.writeInt(value)
+            position += 4
+        }
+
+        private fun writeByte(out: DataOutputStream, value: Int) {
+            out.writeByte(value)
+            position++
+        }
+
+        private fun value(node: Node, column: Column): Int {
+            val region = node.location?.region
+            return when (column) {
+                Column.CLASS -> string(node.javaClass.name)
+                Column.NAME -> string(node.fullName.toString())
+                Column.LOCAL_NAME -> string(node.fullName.localName)
+                Column.PARENT_NAME -> string(node.fullName.parent?.toString())
+                Column.DELIMITER -> string(node.fullName.parent?.delimiter ?: "")
+                Column.CODE -> string(node.code)
+                Column.FILE -> string(node.location?.artifactLocation?.uri?.toString())
+                Column.START_LINE -> region?.startLine ?: -1
+                Column.START_COLUMN -> region?.startColumn ?: -1
+                Column.END_LINE -> region?.endLine ?: -1
+                Column.END_COLUMN -> region?.endColumn ?: -1
+                Column.FLAGS ->
+                    (if (node.isInferred) FLAG_INFERRED else 0) or
+                        (if (node.isImplicit) FLAG_IMPLICIT else 0)
+            }
+        }
+
+        private fun string(value: String?): Int {
+            return value?.let { strings.computeIfAbsent(it) { strings.size } } ?: NO_STRING
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.helpers.snapshot
+
+import de.fraunhofer.aisec.cpg.TranslationResult
+import de.fraunhofer.aisec.cpg.graph.edge.PropertyEdge
+import de.fraunhofer.aisec.cpg.passes.scopes.ScopeManager
+import java.io.BufferedInputStream
+import java.io.InputStream
+import java.io.OutputStream
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+/**
+ * Saves and loads binary snapshots of a (fully analyzed) [TranslationResult], so that a graph can
+ * be re-opened later without having to run the frontends and passes again.
+ *
+ * A snapshot contains the complete object graph that is reachable from the translation units, the
+ * additional nodes and the [ScopeManager] of the result, i.e., all nodes, their AST, EOG, DFG and
+ * other edges (including [PropertyEdge]s and their properties), types, scopes, names and locations.
+ * The graph is stored field by field using reflection, so it is not necessary to adjust the format
+ * if a node class gets a new property. Objects that only exist during the translation, such as
+ * frontends, passes or the configuration, are not part of a snapshot; fields referring to them are
+ * left empty when loading.
+ *
+ * The format consists of a string table, a table of all classes and their fields, the class of
+ * every object and finally the field values of all objects. When loading, all objects are allocated
+ * first and then populated in one sequential pass over the data, which is why the load time is
+ * mostly bound by the I/O bandwidth. Snapshots are written in a streaming fashion and can be read
+ * either from a stream or from a memory-mapped file.
+ *
+ * Global state that is not part of the [TranslationResult], e.g., the types registered at the
+ * [de.fraunhofer.aisec.cpg.graph.TypeManager], is not restored.
+ */
+object Snapshot {
+    internal const val MAGIC = 0x43504753 // "CPGS"
+    internal const val VERSION = 1
+    internal const val BUFFER_SIZE = 1 shl 16
+
+    /** Writes a snapshot of [result] to the file at [path]. */
+    @JvmStatic
+    fun save(result: TranslationResult, path: Path) {
+        Files.newOutputStream(path).use { save(result, it) }
+    }
+
+    /** Writes a snapshot of [result] to [out]. The stream is flushed, but not closed. */
+    @JvmStatic
+    fun save(result: TranslationResult, out: OutputStream) {
+        SnapshotWriter(result).write(out)
+    }
+
+    /**
+     * Loads a snapshot from the file at [path]. If [memoryMapped] is true, the file is mapped into
+     * memory instead of being read through a stream. Files larger than 2 GiB are always streamed.
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun load(path: Path, memoryMapped: Boolean = true): TranslationResult {
+        if (memoryMapped) {
+            FileChannel.open(path, StandardOpenOption.READ).use { channel ->
+                if (channel.size() <= Int.MAX_VALUE) {
+                    val buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    return SnapshotReader(BufferInput(buffer)).read()
+                }
+            }
+        }
+
+        return Files.newInputStream(path).use { load(it) }
+    }
+
+    /** Loads a snapshot from [input]. The stream is not closed. */
+    @JvmStatic
+    fun load(input: InputStream): TranslationResult {
+        return SnapshotReader(StreamInput(BufferedInputStream(input, BUFFER_SIZE))).read()
+    }
+}
@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.helpers.snapshot
+
+import de.fraunhofer.aisec.cpg.TranslationConfiguration
+import de.fraunhofer.aisec.cpg.TranslationManager
+import de.fraunhofer.aisec.cpg.TranslationResult
+import de.fraunhofer.aisec.cpg.frontends.Handler
+import de.fraunhofer.aisec.cpg.frontends.LanguageFrontend
+import de.fraunhofer.aisec.cpg.graph.GraphModifications
+import de.fraunhofer.aisec.cpg.graph.TypeManager
+import de.fraunhofer.aisec.cpg.helpers.MeasurementHolder
+import de.fraunhofer.aisec.cpg.passes.Pass
+import java.io.DataOutputStream
+import java.io.EOFException
+import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
+import java.lang.reflect.Field
+import java.lang.reflect.Modifier
+import java.nio.ByteBuffer
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedDeque
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.locks.ReentrantLock
+import java.util.concurrent.locks.ReentrantReadWriteLock
+
+/** The tags that precede every value in the body of an object. */
+internal object Tag {
+    const val NULL = 0
+    /** A value that cannot be stored. The field keeps its default value when loading. */
+    const val SKIP = 1
+    const val TRUE = 2
+    const val FALSE = 3
+    const val BYTE = 4
+    const val SHORT = 5
+    const val CHAR = 6
+    const val INT = 7
+    const val LONG = 8
+    const val FLOAT = 9
+    const val DOUBLE = 10
+    const val STRING = 11
+    /** A reference to another object of the snapshot by its id. */
+    const val REF = 12
+    const val ENUM = 13
+    const val CLASS = 14
+    const val KCLASS = 15
+    const val BIG_INTEGER = 16
+    const val BIG_DECIMAL = 17
+    const val URI = 18
+    const val FILE = 19
+    const val PATH = 20
+    const val UUID = 21
+    const val ATOMIC_INTEGER = 22
+    const val ATOMIC_LONG = 23
+    const val ATOMIC_BOOLEAN = 24
+}
+
+/** Describes how an object is stored in and restored from a snapshot. */
+internal enum class Kind {
+    /** The [de.fraunhofer.aisec.cpg.TranslationResult] itself, which is always the first object. */
+    RESULT,
+    /** An object that is stored field by field. */
+    OBJECT,
+    /** A Kotlin `object`, which is restored by referring to its `INSTANCE`. */
+    SINGLETON,
+    /** An object without state (e.g., a lock), which is simply re-created. */
+    FRESH,
+    ARRAY,
+    COLLECTION,
+    MAP,
+    ENUM_MAP
+}
+
+/**
+ * Decides which classes can be stored in a snapshot and how. Everything that belongs to the graph
+ * itself is stored field by field, whereas the well-known collections of the JDK are stored by
+ * their elements. Objects that only exist during the translation are skipped.
+ */
+internal object Classes {
+    /** Classes (and their subclasses) that are never part of a snapshot. */
+    private val excluded =
+        listOf(
+            LanguageFrontend::class.java,
+            Handler::class.java,
+            Pass::class.java,
+            TranslationManager::class.java,
+            TranslationConfiguration::class.java,
+            TypeManager::class.java,
+            MeasurementHolder::class.java,
+            ClassLoader::class.java,
+            Thread::class.java
+        )
+
+    private val platformPrefixes = listOf("java.", "javax.", "jdk.", "sun.", "com.sun.")
+
+    /** Collections that can be re-created with their no-argument constructor. */
+    private val collections: Set<Class<*>> =
+        setOf(
+            ArrayList::class.java,
+            LinkedList::class.java,
+            Vector::class.java,
+            Stack::class.java,
+            HashSet::class.java,
+            LinkedHashSet::class.java,
+            TreeSet::class.java,
+            java.util.ArrayDeque::class.java,
+            CopyOnWriteArrayList::class.java,
+            ConcurrentLinkedQueue::class.java,
+            ConcurrentLinkedDeque::class.java
+        )
+
+    /** Maps that can be re-created with their no-argument constructor. */
+    private val maps: Set<Class<*>> =
+        setOf(
+            HashMap::class.java,
+            LinkedHashMap::class.java,
+            TreeMap::class.java,
+            IdentityHashMap::class.java,
+            WeakHashMap::class.java,
+            Hashtable::class.java,
+            ConcurrentHashMap::class.java
+        )
+
+    private val fresh: Set<Class<*>> =
+        setOf(
+            Any::class.java,
+            GraphModifications::class.java,
+            ReentrantLock::class.java,
+            ReentrantReadWriteLock::class.java
+        )
+
+    /** The package of the graph itself, i.e., nodes, edges, scopes, names and locations. */
+    private const val GRAPH_PACKAGE = "de.fraunhofer.aisec.cpg."
+
+    /** Value types outside of [GRAPH_PACKAGE] which are stored field by field. */
+    private val values: Set<Class<*>> = setOf(Pair::class.java, Triple::class.java)
+
+    private val kinds =
+        object : ClassValue<Kind?>() {
+            override fun computeValue(type: Class<*>) = computeKind(type)
+        }
+
+    /** Returns the [Kind] of objects of class [cls] or `null`, if they cannot be stored. */
+    fun kindOf(cls: Class<*>): Kind? = kinds.get(cls)
+
+    /**
+     * Returns whether objects of class [cls] may be restored as [kind]. The reader allocates the
+     * classes named in a snapshot without invoking their constructors, so a (tampered) file must
+     * not be able to name arbitrary classes. Only the classes of the graph, a few value types and
+     * the collections that the writer uses are accepted, and only with the kind they are written
+     * with.
+     */
+    fun isRestorable(cls: Class<*>, kind: Kind): Boolean {
+        if (kind == Kind.RESULT) {
+            return cls == TranslationResult::class.java
+        }
+        if (kindOf(cls) != kind) {
+            return false
+        }
+
+        return when (kind) {
+            Kind.OBJECT,
+            Kind.SINGLETON -> cls.name.startsWith(GRAPH_PACKAGE) || cls in values
+            Kind.COLLECTION -> cls in collections
+            Kind.MAP -> cls in maps
+            // Arrays, enum maps and fresh objects do not run any code of the classes they refer to
+            else -> true
+        }
+    }
+
+    /**
+     * Returns the class that is used to restore the collection or map [obj]. Unknown
+     * implementations (e.g., unmodifiable wrappers) as well as sorted collections with a custom
+     * comparator fall back to a collection with the same iteration order.
+     */
+    fun restoredClassOf(obj: Any): Class<*> {
+        val cls = obj.javaClass
+        return when {
+            obj is SortedSet<*> && obj.comparator() != null -> LinkedHashSet::class.java
+            obj is SortedMap<*, *> && obj.comparator() != null -> LinkedHashMap::class.java
+            cls in collections || cls in maps -> cls
+            obj is Set<*> -> LinkedHashSet::class.java
+            obj is Queue<*> -> java.util.ArrayDeque::class.java
+            obj is Collection<*> -> ArrayList::class.java
+            else -> LinkedHashMap::class.java
+        }
+    }
+
+    /**
+     * Returns whether the contents of the collection class [cls] depend on the hash codes (or the
+     * order) of their elements. Since the hash code of a node depends on its fields, these
+     * collections can only be filled once all other objects are fully restored.
+     */
+    fun isHashed(cls: Class<*>): Boolean {
+        return !(List::class.java.isAssignableFrom(cls) ||
+            java.util.ArrayDeque::class.java.isAssignableFrom(cls) ||
+            ConcurrentLinkedQueue::class.java.isAssignableFrom(cls) ||
+            ConcurrentLinkedDeque::class.java.isAssignableFrom(cls) ||
+            cls == IdentityHashMap::class.java ||
+            cls == EnumMap::class.java)
+    }
+
+    /** Returns all instance fields of [cls] and its superclasses that are stored in a snapshot. */
+    fun fieldsOf(cls: Class<*>): List<Field> {
+        val fields = mutableListOf<Field>()
+        var current: Class<*>? = cls
+        while (current != null && current != Any::class.java) {
+            for (field in current.declaredFields) {
+                if (!Modifier.isStatic(field.modifiers) && !field.isSynthetic) {
+                    field.isAccessible = true
+                    fields += field
+                }
+            }
+            current = current.superclass
+        }
+
+        return fields
+    }
+
+    private fun computeKind(cls: Class<*>): Kind? {
+        return when {
+            cls.isArray -> Kind.ARRAY
+            cls == EnumMap::class.java -> Kind.ENUM_MAP
+            cls in fresh -> Kind.FRESH
+            isPlatform(cls) && Map::class.java.isAssignableFrom(cls) -> Kind.MAP
+            isPlatform(cls) && Collection::class.java.isAssignableFrom(cls) -> Kind.COLLECTION
+            isPlatform(cls) || cls.isSynthetic || cls.name.contains("\$\$Lambda") -> null
+            excluded.any { it.isAssignableFrom(cls) } -> null
+            singletonOf(cls) != null -> Kind.SINGLETON
+            // Kotlin's own immutable collections (e.g., emptyList) are restored as JDK collections
+            cls.name.startsWith("kotlin.") && Map::class.java.isAssignableFrom(cls) -> Kind.MAP
+            cls.name.startsWith("kotlin.") && Collection::class.java.isAssignableFrom(cls) ->
+                Kind.COLLECTION
+            else -> Kind.OBJECT
+        }
+    }
+
+    /** Returns the `INSTANCE` of [cls], if it is a Kotlin `object`. */
+    fun singletonOf(cls: Class<*>): Any? {
+        val field =
+            cls.declaredFields.firstOrNull {
+                it.name == "INSTANCE" && it.type == cls && Modifier.isStatic(it.modifiers)
+            }
+
+        return field?.let {
+            it.isAccessible = true
+            it.get(null)
+        }
+    }
+
+    private fun isPlatform(cls: Class<*>): Boolean {
+        return platformPrefixes.any { cls.name.startsWith(it) }
+    }
+}
+
+/** Writes the primitive values of a snapshot. Integers are stored as variable-length quantities. */
+internal class SnapshotOutput(out: OutputStream) {
+    private val out = DataOutputStream(out)
+
+    fun writeByte(value: Int) = out.writeByte(value)
+
+    fun writeVarInt(value: Int) = writeVarLong(value.toLong() and 0xFFFFFFFFL)
+
+    fun writeVarLong(value: Long) {
+        var remaining = value
+        while (remaining and 0x7FL.inv() != 0L) {
+            out.writeByte(((remaining and 0x7F) or 0x80).toInt())
+            remaining = remaining ushr 7
+        }
+        out.writeByte(remaining.toInt())
+    }
+
+    /** Writes a signed value, so that small negative numbers are also stored compactly. */
+    fun writeSignedVarLong(value: Long) = writeVarLong((value shl 1) xor (value shr 63))
+
+    fun writeLong(value: Long) = out.writeLong(value)
+
+    fun writeInt(value: Int) = out.writeInt(value)
+
+    fun writeBytes(bytes: ByteArray) {
+        writeVarInt(bytes.size)
+        out.write(bytes)
+    }
+
+    fun writeString(value: String) = writeBytes(value.toByteArray(Charsets.UTF_8))
+
+    fun flush() = out.flush()
+}
+
+/** Reads the primitive values written by [SnapshotOutput]. */
+internal abstract class SnapshotInput {
+    /** Reads an unsigned byte. */
+    abstract fun readByte(): Int
+
+    protected abstract fun readFully(count: Int): ByteArray
+
+    fun readVarInt(): Int = readVarLong().toInt()
+
+    fun readVarLong(): Long {
+        var result = 0L
+        var shift = 0
+        while (true) {
+            val b = readByte()
+            result = result or ((b and 0x7F).toLong() shl shift)
+            if (b and 0x80 == 0) {
+                return result
+            }
+            shift += 7
+            if (shift > 63) {
+                throw IOException("Malformed snapshot: variable-length quantity is too long")
+            }
+        }
+    }
+
+    fun readSignedVarLong(): Long {
+        val value = readVarLong()
+        return (value ushr 1) xor -(value and 1)
+    }
+
+    fun readInt(): Int {
+        return (readByte() shl 24) or (readByte() shl 16) or (readByte() shl 8) or readByte()
+    }
+
+    fun readLong(): Long {
+        return (readInt().toLong() shl 32) or (readInt().toLong() and 0xFFFFFFFFL)
+    }
+
+    fun readBytes(): ByteArray = readFully(readVarInt())
+
+    open fun readString(): String = String(readBytes(), Charsets.UTF_8)
+}
+
+/** Reads a snapshot from a (memory-mapped) [ByteBuffer]. */
+internal class BufferInput(private val buffer: ByteBuffer) : SnapshotInput() {
+    override fun readByte(): Int {
+        if (!buffer.hasRemaining()) {
+            throw EOFException("Unexpected end of snapshot")
+        }
+
+        return buffer.get().toInt() and 0xFF
+    }
+
+    override fun readFully(count: Int): ByteArray {
+        if (count > buffer.remaining()) {
+            throw EOFException("Unexpected end of snapshot")
+        }
+
+        return ByteArray(count).also { buffer.get(it) }
+    }
+}
+
+/** Reads a snapshot from an [InputStream], which should be buffered. */
+internal class StreamInput(private val input: InputStream) : SnapshotInput() {
+    override fun readByte(): Int {
+        val b = input.read()
+        if (b < 0) {
+            throw EOFException("Unexpected end of snapshot")
+        }
+
+        return b
+    }
+
+    override fun readFully(count: Int): ByteArray {
+        val bytes = input.readNBytes(count)
+        if (bytes.size != count) {
+            throw EOFException("Unexpected end of snapshot")
+        }
+
+        return bytes
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.helpers.snapshot
+
+import de.fraunhofer.aisec.cpg.TranslationResult
+import de.fraunhofer.aisec.cpg.graph.Component
+import de.fraunhofer.aisec.cpg.graph.Node
+import de.fraunhofer.aisec.cpg.passes.scopes.ScopeManager
+import java.io.File
+import java.io.IOException
+import java.lang.reflect.Field
+import java.math.BigDecimal
+import java.math.BigInteger
+import java.net.URI
+import java.nio.file.Paths
+import java.util.*
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import sun.misc.Unsafe
+
+/**
+ * Reads a [Snapshot] written by the [SnapshotWriter]. All objects are allocated (without invoking
+ * any constructor) before their fields are populated, so that cyclic references, e.g., between the
+ * nodes and their edges, can be restored in a single pass.
+ */
+internal class SnapshotReader(private val input: SnapshotInput) {
+    private class ClassEntry(val cls: Class<*>, val kind: Kind, val fields: Array<Field?>)
+
+    /** Marks a value that was skipped when writing the snapshot. */
+    private object Skipped
+
+    private lateinit var strings: Array<String>
+    private lateinit var classes: Array<ClassEntry>
+    private lateinit var objects: Array<Any?>
+    private lateinit var objectClasses: Array<ClassEntry>
+
+    /** The contents of collections and maps, which are added once all objects are populated. */
+    private val contents = mutableListOf<Pair<Any, Array<Any?>>>()
+
+    fun read(): TranslationResult {
+        if (input.readInt() != Snapshot.MAGIC) {
+            throw IOException("Not a snapshot")
+        }
+        val version = input.readVarInt()
+        if (version != Snapshot.VERSION) {
+            throw IOException("Unsupported snapshot version $version")
+        }
+
+        strings = Array(input.readVarInt()) { input.readString() }
+        classes = Array(input.readVarInt()) { readClass() }
+
+        allocate()
+        for (id in objects.indices) {
+            populate(id)
+        }
+
+        // Lists and other collections that do not depend on the hash codes of their elements can
+        // be filled right away. All others are filled in reverse order of discovery, so that nested
+        // collections (which are discovered later) are complete before they are hashed.
+        val (hashed, plain) = contents.partition { Classes.isHashed(it.first.javaClass) }
+        plain.forEach { fill(it.first, it.second) }
+        hashed.asReversed().forEach { fill(it.first, it.second) }
+
+        return objects[0] as TranslationResult
+    }
+
+    private fun readClass(): ClassEntry {
+        val name = strings[input.readVarInt()]
+        val ordinal = input.readByte()
+        val kind =
+            Kind.values().getOrNull(ordinal)
+                ?: throw IOException("Malformed snapshot: unknown kind $ordinal of class $name")
+        val cls = classForName(name)
+        if (!Classes.isRestorable(cls, kind)) {
+            throw IOException("Malformed snapshot: class $name cannot be restored as $kind")
+        }
+
+        val fields =
+            Array(input.readVarInt()) {
+                val declaringClass = classForName(strings[input.readVarInt()])
+                val field = strings[input.readVarInt()]
+                try {
+                    declaringClass.getDeclaredField(field).apply { isAccessible = true }
+                } catch (e: NoSuchFieldException) {
+                    // The class has changed since the snapshot was written, ignore the value
+                    null
+                }
+            }
+
+        return ClassEntry(cls, kind, fields)
+    }
+
+    private fun allocate() {
+        objects = arrayOfNulls(input.readVarInt())
+        var scopeManager = -1
+        objectClasses =
+            Array(objects.size) { id ->
+                val entry = classes[input.readVarInt()]
+                objects[id] =
+                    when (entry.kind) {
+                        Kind.RESULT -> {
+                            scopeManager = input.readVarInt()
+                            null
+                        }
+                        Kind.OBJECT -> unsafe.allocateInstance(entry.cls)
+                        Kind.SINGLETON -> Classes.singletonOf(entry.cls)
+                        Kind.ARRAY ->
+                            java.lang.reflect.Array.newInstance(
+                                entry.cls.componentType,
+                                input.readVarInt()
+                            )
+                        Kind.ENUM_MAP -> newEnumMap(enumClassForName(readString()))
+                        Kind.FRESH,
+                        Kind.COLLECTION,
+                        Kind.MAP -> entry.cls.getDeclaredConstructor().newInstance()
+                    }
+                entry
+            }
+
+        if (objectClasses.firstOrNull()?.kind != Kind.RESULT || scopeManager < 0) {
+            throw IOException("Malformed snapshot: missing translation result")
+        }
+        objects[0] = TranslationResult(null, objects[scopeManager] as ScopeManager)
+    }
+
+    private fun populate(id: Int) {
+        val obj = objects[id]!!
+        val entry = objectClasses[id]
+        when (entry.kind) {
+            Kind.RESULT -> {
+                val result = obj as TranslationResult
+                readValue() // the scope manager, which is already set
+                val components = readValue() as List<*>
+                val additionalNodes = readValue() as Set<*>
+                contents += Pair(result, arrayOf(components, additionalNodes))
+            }
+            Kind.OBJECT -> {
+                for (field in entry.fields) {
+                    val value = readValue()
+                    if (field != null && value !== Skipped) {
+                        set(field, obj, value)
+                    }
+                }
+            }
+            Kind.ARRAY -> {
+                for (i in 0 until java.lang.reflect.Array.getLength(obj)) {
+                    val value = readValue()
+                    if (value !== Skipped) {
+                        java.lang.reflect.Array.set(obj, i, value)
+                    }
+                }
+            }
+            Kind.COLLECTION,
+            Kind.MAP,
+            Kind.ENUM_MAP -> {
+                val size = (readValue() as Int) * if (entry.kind == Kind.COLLECTION) 1 else 2
+                contents += Pair(obj, Array(size) { readValue() })
+            }
+            Kind.SINGLETON,
+            Kind.FRESH -> {}
+        }
+    }
+
+    private fun set(field: Field, obj: Any, value: Any?) {
+        try {
+            field.set(obj, value)
+        } catch (e: IllegalArgumentException) {
+            // This happens if a field has a more specific type than the collection we restored or
+            // if the snapshot is malformed. Either way, the restored graph would be incomplete.
+            throw IOException(
+                "Could not restore field $field with a value of type ${value?.javaClass?.name}",
+                e
+            )
+        }
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun fill(obj: Any, values: Array<Any?>) {
+        when (obj) {
+            is TranslationResult -> {
+                (values[0] as List<*>).forEach { obj.addComponent(it as Component) }
+                obj.additionalNodes.addAll(values[1] as Set<Node>)
+            }
+            is MutableCollection<*> -> {
+                val collection = obj as MutableCollection<Any?>
+                values.forEach { if (it !== Skipped) collection.add(it) }
+            }
+            is MutableMap<*, *> -> {
+                val map = obj as MutableMap<Any?, Any?>
+                for (i in values.indices step 2) {
+                    if (values[i] !== Skipped) {
+                        map[values[i]] = values[i + 1].takeIf { it !== Skipped }
+                    }
+                }
+            }
+        }
+    }
+
+    private fun readValue(): Any? {
+        return when (val tag = input.readByte()) {
+            Tag.NULL -> null
+            Tag.SKIP -> Skipped
+            Tag.TRUE -> true
+            Tag.FALSE -> false
+            Tag.BYTE -> input.readSignedVarLong().toByte()
+            Tag.SHORT -> input.readSignedVarLong().toShort()
+            Tag.CHAR -> input.readVarInt().toChar()
+            Tag.INT -> input.readSignedVarLong().toInt()
+            Tag.LONG -> input.readSignedVarLong()
+            Tag.FLOAT -> Float.fromBits(input.readInt())
+            Tag.DOUBLE -> Double.fromBits(input.readLong())
+            Tag.STRING -> strings[input.readVarInt()]
+            Tag.REF -> objects[input.readVarInt()]
+            Tag.ENUM -> enumValue(enumClassForName(readString()), readString())
+            Tag.CLASS -> classForName(readString())
+            Tag.KCLASS -> classForName(readString()).kotlin
+            Tag.BIG_INTEGER -> BigInteger(readString())
+            Tag.BIG_DECIMAL -> BigDecimal(readString())
+            Tag.URI -> URI(readString())
+            Tag.FILE -> File(readString())
+            Tag.PATH -> Paths.get(readString())
+            Tag.UUID -> UUID.fromString(readString())
+            Tag.ATOMIC_INTEGER -> AtomicInteger(input.readSignedVarLong().toInt())
+            Tag.ATOMIC_LONG -> AtomicLong(input.readSignedVarLong())
+            Tag.ATOMIC_BOOLEAN -> AtomicBoolean(input.readByte() != 0)
+            else -> throw IOException("Malformed snapshot: unknown tag $tag")
+        }
+    }
+
+    private fun readString(): String = strings[input.readVarInt()]
+
+    private fun classForName(name: String): Class<*> {
+        return try {
+            Class.forName(name, false, SnapshotReader::class.java.classLoader)
+        } catch (e: ClassNotFoundException) {
+            throw IOException("Snapshot refers to unknown class $name", e)
+        }
+    }
+
+    private fun enumClassForName(name: String): Class<*> {
+        val cls = classForName(name)
+        if (!cls.isEnum) {
+            throw IOException("Malformed snapshot: $name is not an enum")
+        }
+
+        return cls
+    }
+
+    companion object {
+        private val unsafe: Unsafe =
+            Unsafe::class.java.getDeclaredField("theUnsafe").let {
+                it.isAccessible = true
+                it.get(null) as Unsafe
+            }
+
+        @Suppress("UNCHECKED_CAST")
+        private fun newEnumMap(keyType: Class<*>): EnumMap<*, *> {
+            return EnumMap<DummyEnum, Any?>(keyType as Class<DummyEnum>)
+        }
+
+        @Suppress("UNCHECKED_CAST")
+        private fun enumValue(type: Class<*>, name: String): Enum<*> {
+            return java.lang.Enum.valueOf(type as Class<DummyEnum>, name)
+        }
+
+        /** Only used to satisfy the type checker when creating enums of an unknown type. */
+        private enum class DummyEnum
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.helpers.snapshot
+
+import de.fraunhofer.aisec.cpg.TranslationManager
+import de.fraunhofer.aisec.cpg.TranslationResult
+import de.fraunhofer.aisec.cpg.TranslationUnitSink
+import de.fraunhofer.aisec.cpg.graph.declarations.TranslationUnitDeclaration
+import java.io.File
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ * A [TranslationUnitSink] that stores every translation unit of a streaming analysis (see
+ * [TranslationManager.analyzeStreaming]) as a [Snapshot] in [directory], so that it can be loaded
+ * individually later.
+ */
+class SnapshotSink(private val directory: Path) : TranslationUnitSink {
+    private val written = mutableListOf<Path>()
+
+    /** The snapshots that were written so far, in the order of the translation units. */
+    val files: List<Path>
+        @Synchronized get() = written.toList()
+
+    @Synchronized
+    override fun accept(result: TranslationResult, tu: TranslationUnitDeclaration) {
+        Files.createDirectories(directory)
+
+        val path = directory.resolve("%05d-%s.snapshot".format(written.size, File(tu.name).name))
+        Snapshot.save(result, path)
+        written += path
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.helpers.snapshot
+
+import de.fraunhofer.aisec.cpg.TranslationResult
+import java.io.BufferedOutputStream
+import java.io.File
+import java.io.OutputStream
+import java.lang.reflect.Field
+import java.math.BigDecimal
+import java.math.BigInteger
+import java.net.URI
+import java.nio.file.Path
+import java.util.*
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.reflect.KClass
+import org.slf4j.LoggerFactory
+
+/**
+ * Writes a [Snapshot] of a [TranslationResult]. The object graph is first traversed once to assign
+ * ids to all objects and to collect the strings and classes, which are then written in front of the
+ * object bodies. This way, the reader can allocate all objects before populating them.
+ */
+internal class SnapshotWriter(private val result: TranslationResult) {
+    private class ClassEntry(val index: Int, val cls: Class<*>, val kind: Kind) {
+        val fields: List<Field> = if (kind == Kind.OBJECT) Classes.fieldsOf(cls) else listOf()
+    }
+
+    private val ids = IdentityHashMap<Any, Int>()
+    private val objects = mutableListOf<Any>()
+    private val objectClasses = mutableListOf<ClassEntry>()
+    private val classes = LinkedHashMap<Class<*>, ClassEntry>()
+    private val strings = HashMap<String, Int>()
+    private val stringTable = mutableListOf<String>()
+    private val skipped = mutableSetOf<Class<*>>()
+
+    /** A copy of the components, since the result only exposes an unmodifiable view on them. */
+    private val components = ArrayList(result.components)
+
+    fun write(out: OutputStream) {
+        discover()
+
+        val output = SnapshotOutput(BufferedOutputStream(out, Snapshot.BUFFER_SIZE))
+        output.writeInt(Snapshot.MAGIC)
+        output.writeVarInt(Snapshot.VERSION)
+
+        output.writeVarInt(stringTable.size)
+        stringTable.forEach(output::writeString)
+
+        output.writeVarInt(classes.size)
+        for (entry in classes.values) {
+            output.writeVarInt(indexOf(entry.cls.name))
+            output.writeByte(entry.kind.ordinal)
+            output.writeVarInt(entry.fields.size)
+            for (field in entry.fields) {
+                output.writeVarInt(indexOf(field.declaringClass.name))
+                output.writeVarInt(indexOf(field.name))
+            }
+        }
+
+        output.writeVarInt(objects.size)
+        for ((id, obj) in objects.withIndex()) {
+            val entry = objectClasses[id]
+            output.writeVarInt(entry.index)
+            when (entry.kind) {
+                Kind.RESULT -> output.writeVarInt(ids.getValue(result.scopeManager))
+                Kind.ARRAY -> output.writeVarInt(java.lang.reflect.Array.getLength(obj))
+                Kind.ENUM_MAP ->
+                    output.writeVarInt(indexOf(enumKeyClass(obj as EnumMap<*, *>)!!.name))
+                else -> {}
+            }
+        }
+
+        for ((id, obj) in objects.withIndex()) {
+            val entry = objectClasses[id]
+            forEachValue(obj, entry) { writeValue(output, it) }
+        }
+
+        output.flush()
+
+        if (skipped.isNotEmpty()) {
+            log.debug("Skipped objects of the following classes: {}", skipped)
+        }
+    }
+
+    /** Assigns an id to every reachable object in breadth-first order. */
+    private fun discover() {
+        register(result)
+        register(result.scopeManager)
+
+        var i = 0
+        while (i < objects.size) {
+            val obj = objects[i]
+            forEachValue(obj, objectClasses[i], ::visit)
+            i++
+        }
+    }
+
+    private fun visit(value: Any?) {
+        when (val tag = tagOf(value)) {
+            Tag.STRING -> string(value as String)
+            Tag.ENUM -> {
+                string((value as Enum<*>).declaringClass.name)
+                string(value.name)
+            }
+            Tag.CLASS -> string((value as Class<*>).name)
+            Tag.KCLASS -> string((value as KClass<*>).java.name)
+            Tag.REF -> register(value!!)
+            else -> if (tag >= Tag.BIG_INTEGER && tag <= Tag.UUID) string(value.toString())
+        }
+    }
+
+    private fun register(obj: Any) {
+        if (ids.containsKey(obj)) {
+            return
+        }
+
+        val kind =
+            when {
+                obj === result -> Kind.RESULT
+                obj is EnumMap<*, *> -> Kind.ENUM_MAP
+                else -> Classes.kindOf(obj.javaClass) ?: return
+            }
+        val restored =
+            when (kind) {
+                Kind.COLLECTION,
+                Kind.MAP -> Classes.restoredClassOf(obj)
+                else -> obj.javaClass
+            }
+
+        ids[obj] = objects.size
+        objects += obj
+        objectClasses +=
+            classes.computeIfAbsent(restored) {
+                val entry = ClassEntry(classes.size, restored, kind)
+                string(restored.name)
+                entry.fields.forEach {
+                    string(it.declaringClass.name)
+                    string(it.name)
+                }
+                entry
+            }
+        if (obj is EnumMap<*, *>) {
+            string(enumKeyClass(obj)!!.name)
+        }
+    }
+
+    /** Calls [action] for every value stored in the body of [obj], in the order of the format. */
+    private inline fun forEachValue(obj: Any, entry: ClassEntry, action: (Any?) -> Unit) {
+        when (entry.kind) {
+            Kind.RESULT -> {
+                action(result.scopeManager)
+                action(components)
+                action(result.additionalNodes)
+            }
+            Kind.OBJECT -> entry.fields.forEach { action(it.get(obj)) }
+            Kind.ARRAY -> {
+                if (!obj.javaClass.componentType.isPrimitive) {
+                    (obj as Array<*>).forEach(action)
+                } else {
+                    val length = java.lang.reflect.Array.getLength(obj)
+                    for (i in 0 until length) {
+                        action(java.lang.reflect.Array.get(obj, i))
+                    }
+                }
+            }
+            Kind.COLLECTION -> {
+                val elements = (obj as Collection<*>).toTypedArray()
+                action(elements.size)
+                elements.forEach(action)
+            }
+            Kind.MAP,
+            Kind.ENUM_MAP -> {
+                val entries = (obj as Map<*, *>).entries.toTypedArray()
+                action(entries.size)
+                for (e in entries) {
+                    action(e.key)
+                    action(e.value)
+                }
+            }
+            Kind.SINGLETON,
+            Kind.FRESH -> {}
+        }
+    }
+
+    private fun writeValue(output: SnapshotOutput, value: Any?) {
+        val tag = tagOf(value)
+        output.writeByte(tag)
+        when (tag) {
+            Tag.BYTE -> output.writeSignedVarLong((value as Byte).toLong())
+            Tag.SHORT -> output.writeSignedVarLong((value as Short).toLong())
+            Tag.CHAR -> output.writeVarInt((value as Char).code)
+            Tag.INT -> output.writeSignedVarLong((value as Int).toLong())
+            Tag.LONG -> output.writeSignedVarLong(value as Long)
+            Tag.FLOAT -> output.writeInt((value as Float).toRawBits())
+            Tag.DOUBLE -> output.writeLong((value as Double).toRawBits())
+            Tag.STRING -> output.writeVarInt(indexOf(value as String))
+            Tag.REF -> output.writeVarInt(ids.getValue(value))
+            Tag.ENUM -> {
+                output.writeVarInt(indexOf((value as Enum<*>).declaringClass.name))
+                output.writeVarInt(indexOf(value.name))
+            }
+            Tag.CLASS -> output.writeVarInt(indexOf((value as Class<*>).name))
+            Tag.KCLASS -> output.writeVarInt(indexOf((value as KClass<*>).java.name))
+            Tag.BIG_INTEGER,
+            Tag.BIG_DECIMAL,
+            Tag.URI,
+            Tag.FILE,
+            Tag.PATH,
+            Tag.UUID -> output.writeVarInt(indexOf(value.toString()))
+            Tag.ATOMIC_INTEGER -> output.writeSignedVarLong((value as AtomicInteger).toLong())
+            Tag.ATOMIC_LONG -> output.writeSignedVarLong((value as AtomicLong).get())
+            Tag.ATOMIC_BOOLEAN -> output.writeByte(if ((value as AtomicBoolean).get()) 1 else 0)
+        }
+    }
+
+    private fun tagOf(value: Any?): Int {
+        return when (value) {
+            null -> Tag.NULL
+            is String -> Tag.STRING
+            is Boolean -> if (value) Tag.TRUE else Tag.FALSE
+            is Byte -> Tag.BYTE
+            is Short -> Tag.SHORT
+            is Char -> Tag.CHAR
+            is Int -> Tag.INT
+            is Long -> Tag.LONG
+            is Float -> Tag.FLOAT
+            is Double -> Tag.DOUBLE
+            is Enum<*> -> Tag.ENUM
+            is Class<*> -> Tag.CLASS
+            is KClass<*> -> Tag.KCLASS
+            is BigInteger -> Tag.BIG_INTEGER
+            is BigDecimal -> Tag.BIG_DECIMAL
+            is URI -> Tag.URI
+            is File -> Tag.FILE
+            is Path -> Tag.PATH
+            is UUID -> Tag.UUID
+            is AtomicInteger -> Tag.ATOMIC_INTEGER
+            is AtomicLong -> Tag.ATOMIC_LONG
+            is AtomicBoolean -> Tag.ATOMIC_BOOLEAN
+            else -> if (isStorable(value)) Tag.REF else Tag.SKIP
+        }
+    }
+
+    private fun isStorable(value: Any): Boolean {
+        val storable =
+            when {
+                ids.containsKey(value) -> true
+                value is EnumMap<*, *> -> enumKeyClass(value) != null
+                else -> Classes.kindOf(value.javaClass) != null
+            }
+        if (!storable) {
+            skipped += value.javaClass
+        }
+
+        return storable
+    }
+
+    private fun string(value: String): Int {
+        return strings.computeIfAbsent(value) {
+            stringTable += it
+            stringTable.size - 1
+        }
+    }
+
+    private fun indexOf(value: String): Int = strings.getValue(value)
+
+    /**
+     * Returns the key type of [map]. The type is only accessible through reflection, if the
+     * `java.util` package is opened to us, otherwise we derive it from the keys. Empty maps of an
+     * unknown key type are skipped.
+     */
+    private fun enumKeyClass(map: EnumMap<*, *>): Class<*>? {
+        return (map.keys.firstOrNull() as Enum<*>?)?.declaringClass
+            ?: keyTypeField?.let { it.get(map) as Class<*> }
+    }
+
+    companion object {
+        private val log = LoggerFactory.getLogger(SnapshotWriter::class.java)
+
+        private val keyTypeField: Field? =
+            try {
+                EnumMap::class.java.getDeclaredField("keyType").apply { isAccessible = true }
+            } catch (e: Exception) {
+                // The field is not accessible without opening java.base
+                null
+            }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.passes
+
+import de.fraunhofer.aisec.cpg.graph.GraphModifications
+import de.fraunhofer.aisec.cpg.graph.declarations.FunctionDeclaration
+import de.fraunhofer.aisec.cpg.graph.declarations.RecordDeclaration
+import de.fraunhofer.aisec.cpg.graph.statements.expressions.CallExpression
+import de.fraunhofer.aisec.cpg.graph.types.Type
+import de.fraunhofer.aisec.cpg.helpers.MeasurementHolder
+import de.fraunhofer.aisec.cpg.helpers.StatisticsHolder
+import de.fraunhofer.aisec.cpg.passes.scopes.Scope
+import de.fraunhofer.aisec.cpg.passes.scopes.ScopeManager
+import java.util.*
+
+/**
+ * Caches the results of the side effect free lookups of the [CallResolver]. In real code, the same
+ * combination of callee name, argument types and lookup scope occurs many times (e.g., logging
+ * calls or getters), but each lookup walks the scopes or the methods of a record and compares the
+ * signature of every candidate.
+ *
+ * Entries are keyed by the (qualified) name of the callee, the types of the arguments and the
+ * [Scope] or [RecordDeclaration] in which the lookup starts. Since inferred functions and records
+ * change the outcome of the lookups, the cache is cleared whenever a declaration was inferred in
+ * the graph of the call in the meantime (see [GraphModifications.inferenceCount]), or when calls of
+ * another graph are resolved.
+ */
+class CallResolutionCache {
+    /** The kind of lookup, so that lookups with the same parameters do not collide. */
+    enum class Kind {
+        /** [ScopeManager.resolveFunction] */
+        FUNCTION,
+        /** [ScopeManager.resolveFunctionStopScopeTraversalOnDefinition] */
+        FUNCTION_BY_NAME,
+        /** [CallResolver.getInvocationCandidatesFromRecord] */
+        RECORD_METHOD
+    }
+
+    /**
+     * The key of a lookup. The [origin] (a scope or a record) is compared by identity, since
+     * different scopes can contain declarations of the same name.
+     */
+    private class Key(
+        val kind: Kind,
+        val name: String,
+        val fqn: String?,
+        val signature: List<Type?>,
+        val origin: Any?
+    ) {
+        private val hash =
+            Objects.hash(kind, name, fqn, signature) * 31 + System.identityHashCode(origin)
+
+        override fun equals(other: Any?): Boolean {
+            return other is Key &&
+                hash == other.hash &&
+                kind == other.kind &&
+                origin === other.origin &&
+                name == other.name &&
+                fqn == other.fqn &&
+                signature == other.signature
+        }
+
+        override fun hashCode(): Int {
+            return hash
+        }
+    }
+
+    private val entries = HashMap<Key, List<FunctionDeclaration>>()
+    private var modifications: GraphModifications? = null
+    private var generation = 0L
+
+    /** The number of lookups that were answered from the cache. */
+    var hits = 0L
+        private set
+
+    /** The number of lookups that needed to be computed. */
+    var misses = 0L
+        private set
+
+    /**
+     * The number of times the cache was cleared because of inferred declarations or because of a
+     * switch to another graph.
+     */
+    var invalidations = 0L
+        private set
+
+    /**
+     * Returns the cached result of a lookup of [kind] for [call] starting at [origin], or computes
+     * and caches it using [lookup]. [name] is the name that is looked up, which defaults to the name
+     * of the call. If [withSignature] is false, the argument types of the call are not part of the
+     * key, because the lookup only considers the name.
+     */
+    fun getOrCompute(
+        kind: Kind,
+        call: CallExpression,
+        origin: Any?,
+        name: String = call.name,
+        withSignature: Boolean = true,
+        lookup: () -> List<FunctionDeclaration>
+    ): List<FunctionDeclaration> {
+        val modifications = GraphModifications.of(call)
+        if (modifications !== this.modifications || generation != modifications.inferenceCount) {
+            if (entries.isNotEmpty()) {
+                entries.clear()
+                invalidations++
+            }
+            this.modifications = modifications
+            generation = modifications.inferenceCount
+        }
+
+        val key =
+            Key(kind, name, call.fqn, if (withSignature) call.signature else listOf(), origin)
+        val cached = entries[key]
+        if (cached != null) {
+            hits++
+            return cached
+        }
+
+        misses++
+        val result = lookup()
+        // The lookup itself might have inferred something, in which case we do not know whether
+        // the result is still valid for later calls
+        if (generation == modifications.inferenceCount) {
+            entries[key] = result
+        }
+
+        return result
+    }
+
+    /** The share of lookups that were answered from the cache. */
+    val hitRate: Double
+        get() = if (hits + misses == 0L) 0.0 else hits.toDouble() / (hits + misses)
+
+    /** Adds the hit rate of the cache as measurements to [holder]. */
+    fun addTo(holder: StatisticsHolder) {
+        val measurement =
+            MeasurementHolder(
+                CallResolutionCache::class.java,
+                "Call resolution cache",
+                true,
+                holder
+            )
+        val rate = "%.1f".format(Locale.ROOT, hitRate * 100)
+        measurement.addMeasurement(
+            "Call resolution cache",
+            "$hits hits, $misses misses ($rate% hit rate), $invalidations invalidations"
+        )
+    }
+
+    /** Clears the cache and its statistics. */
+    fun clear() {
+        entries.clear()
+        hits = 0
+        misses = 0
+        invalidations = 0
+        modifications = null
+        generation = 0
+    }
+}
@@ -38,7 +38,7 @@ import de.fraunhofer.aisec.cpg.graph.duplicate
 import de.fraunhofer.aisec.cpg.graph.newConstructExpression
 import de.fraunhofer.aisec.cpg.graph.statements.expressions.*
 import de.fraunhofer.aisec.cpg.graph.types.*
-import de.fraunhofer.aisec.cpg.helpers.SubgraphWalker.ScopedWalker
+import de.fraunhofer.aisec.cpg.helpers.FusedWalker
 import de.fraunhofer.aisec.cpg.passes.inference.inferFunction
 import de.fraunhofer.aisec.cpg.passes.inference.inferMethod
 import de.fraunhofer.aisec.cpg.passes.inference.startInference
@@ -73,35 +73,42 @@ open class CallResolver : SymbolResolverPass() {
      */
     private val containingType = mutableMapOf<FunctionDeclaration, Type>()
 
+    /** The names of the records that were found before the initializers were fixed. */
+    private var knownRecords = setOf<String>()
+
+    /** Caches the lookups of invocation candidates of this pass. */
+    val resolutionCache = CallResolutionCache()
+
     override fun cleanup() {
         containingType.clear()
+        knownRecords = setOf()
+        resolutionCache.clear()
     }
 
     override fun accept(translationResult: TranslationResult) {
         scopeManager = translationResult.scopeManager
         config = translationResult.config
-
-        walker = ScopedWalker(scopeManager)
-        walker.registerHandler { _, _, currNode -> walker.collectDeclarations(currNode) }
-        walker.registerHandler { node, _ -> findRecords(node) }
-        walker.registerHandler { node, _ -> findTemplates(node) }
-        walker.registerHandler { currentClass, _, currentNode ->
-            registerMethods(currentClass, currentNode)
+        recordIndex = RecordIndex.of(translationResult)
+
+        val fusedWalker = FusedWalker(scopeManager)
+        walker = fusedWalker.walker
+        fusedWalker.registerHandler(COLLECT) { _, _, node -> walker.collectDeclarations(node) }
+        fusedWalker.registerHandler(COLLECT) { _, _, node -> findTemplates(node) }
+        fusedWalker.registerHandler(COLLECT) { currentClass, _, node ->
+            registerMethods(currentClass, node)
         }
 
-        for (tu in translationResult.translationUnits) {
-            walker.iterate(tu)
-        }
-        walker.clearCallbacks()
-        walker.registerHandler { node, _ -> fixInitializers(node) }
-        for (tu in translationResult.translationUnits) {
-            walker.iterate(tu)
-        }
-        walker.clearCallbacks()
-        walker.registerHandler { node, _ -> resolve(node) }
-        for (tu in translationResult.translationUnits) {
-            walker.iterate(tu)
-        }
+        // All records need to be known before we can fix initializers and resolve calls. Calls can
+        // infer new records, which must not influence the initializers, so we remember the records
+        // that are known at this point.
+        fusedWalker.registerBarrier(COLLECT) { knownRecords = recordIndex.typeNames.toHashSet() }
+
+        // Both only depend on the current node, so they share a single walk
+        fusedWalker.registerHandler(FIX_INITIALIZERS) { _, _, node -> fixInitializers(node) }
+        fusedWalker.registerHandler(RESOLVE) { _, _, node -> resolve(node) }
+        fusedWalker.iterate(translationResult.translationUnits)
+
+        resolutionCache.addTo(translationResult)
     }
 
     private fun registerMethods(currentClass: RecordDeclaration?, currentNode: Node) {
@@ -115,7 +122,7 @@ open class CallResolver : SymbolResolverPass() {
         if (node is VariableDeclaration) {
             // check if we have the corresponding class for this type
             val typeString = node.type.root.name
-            if (typeString in recordMap) {
+            if (typeString in knownRecords) {
                 val currInitializer = node.initializer
                 if (currInitializer == null && node.isImplicitInitializerAllowed) {
                     val initializer = node.newConstructExpression("()")
@@ -239,7 +246,7 @@ open class CallResolver : SymbolResolverPass() {
                     currentTU
                 )
             } else {
-                val invocationCandidates = scopeManager.resolveFunction(call).toMutableList()
+                val invocationCandidates = resolveFunction(call).toMutableList()
 
                 if (invocationCandidates.isEmpty()) {
                     // If we have no candidates, we create an inferred FunctionDeclaration
@@ -278,7 +285,7 @@ open class CallResolver : SymbolResolverPass() {
                 call.name.split("\\.".toRegex()).dropLastWhile { it.isEmpty() }.toTypedArray()
             if (nameParts.isNotEmpty()) {
                 val records =
-                    possibleContainingTypes.mapNotNull { recordMap[it.root.typeName] }.toSet()
+                    possibleContainingTypes.mapNotNull { recordIndex[it.root.typeName] }.toSet()
                 invocationCandidates =
                     getInvocationCandidatesFromParents(nameParts[nameParts.size - 1], call, records)
                         .toMutableList()
@@ -305,7 +312,14 @@ open class CallResolver : SymbolResolverPass() {
                 )
                 .toMutableList()
         } else {
-            scopeManager.resolveFunction(call).toMutableList()
+            resolveFunction(call).toMutableList()
+        }
+    }
+
+    private fun resolveFunction(call: CallExpression): List<FunctionDeclaration> {
+        val scope = scopeManager.currentScope
+        return resolutionCache.getOrCompute(CallResolutionCache.Kind.FUNCTION, call, scope) {
+            scopeManager.resolveFunction(call, scope)
         }
     }
 
@@ -324,11 +338,11 @@ open class CallResolver : SymbolResolverPass() {
         if (invocationCandidates.isEmpty()) {
             possibleContainingTypes
                 .mapNotNull {
-                    var record = recordMap[it.root.typeName]
+                    var record = recordIndex[it.root.typeName]
                     if (record == null && config?.inferenceConfiguration?.inferRecords == true) {
                         record = it.startInference().inferRecordDeclaration(it, currentTU)
                         // update the record map
-                        if (record != null) recordMap[it.root.typeName] = record
+                        if (record != null) recordIndex[it.root.typeName] = record
                     }
                     record
                 }
@@ -345,12 +359,21 @@ open class CallResolver : SymbolResolverPass() {
      * @return true if we should stop searching parent, false otherwise
      */
     private fun shouldSearchForInvokesInParent(call: CallExpression): Boolean {
-        return scopeManager.resolveFunctionStopScopeTraversalOnDefinition(call).isEmpty()
+        return resolutionCache
+            .getOrCompute(
+                CallResolutionCache.Kind.FUNCTION_BY_NAME,
+                call,
+                scopeManager.currentScope,
+                withSignature = false
+            ) {
+                scopeManager.resolveFunctionStopScopeTraversalOnDefinition(call)
+            }
+            .isEmpty()
     }
 
     private fun resolveConstructExpression(constructExpression: ConstructExpression) {
         val typeName = constructExpression.type.typeName
-        val recordDeclaration = recordMap[typeName]
+        val recordDeclaration = recordIndex[typeName]
         constructExpression.instantiates = recordDeclaration
         for (template in templateList) {
             if (
@@ -391,7 +414,7 @@ open class CallResolver : SymbolResolverPass() {
 
     private fun resolveExplicitConstructorInvocation(eci: ExplicitConstructorInvocation) {
         if (eci.containingClass != null) {
-            val recordDeclaration = recordMap[eci.containingClass]
+            val recordDeclaration = recordIndex[eci.containingClass]
             val signature = eci.arguments.map { it.type }
             if (recordDeclaration != null) {
                 val constructor =
@@ -443,7 +466,7 @@ open class CallResolver : SymbolResolverPass() {
             curClass.staticImportStatements
                 .filter { it.endsWith(".$name") }
                 .map { it.substring(0, it.lastIndexOf('.')) }
-                .mapNotNull { recordMap[it] }
+                .mapNotNull { recordIndex[it] }
 
         for (recordDeclaration in containingRecords) {
             val inferred =
@@ -484,19 +507,28 @@ open class CallResolver : SymbolResolverPass() {
     ): List<FunctionDeclaration> {
         if (recordDeclaration == null) return listOf()
 
-        val namePattern =
+        fun namePattern() =
             Pattern.compile(
                 "(" + Pattern.quote(recordDeclaration.name) + "\\.)?" + Pattern.quote(name)
             )
         return if (call.language is HasComplexCallResolution) {
+            // Not cached, since the language might modify the call, e.g., to add default arguments
             (call.language as HasComplexCallResolution).refineInvocationCandidatesFromRecord(
                 recordDeclaration,
                 call,
-                namePattern
+                namePattern()
             )
         } else {
-            recordDeclaration.methods.filter {
-                namePattern.matcher(it.name).matches() && it.hasSignature(call.signature)
+            resolutionCache.getOrCompute(
+                CallResolutionCache.Kind.RECORD_METHOD,
+                call,
+                recordDeclaration,
+                name ?: ""
+            ) {
+                val namePattern = namePattern()
+                recordDeclaration.methods.filter {
+                    namePattern.matcher(it.name).matches() && it.hasSignature(call.signature)
+                }
             }
         }
     }
@@ -602,6 +634,11 @@ open class CallResolver : SymbolResolverPass() {
     companion object {
         val LOGGER: Logger = LoggerFactory.getLogger(CallResolver::class.java)
 
+        /** The phases of the [FusedWalker] used by this pass. */
+        private const val COLLECT = 0
+        private const val FIX_INITIALIZERS = 1
+        private const val RESOLVE = 2
+
         /**
          * Adds implicit duplicates of the TemplateParams to the implicit ConstructExpression
          *
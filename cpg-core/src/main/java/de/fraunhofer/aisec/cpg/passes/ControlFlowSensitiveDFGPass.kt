@@ -31,12 +31,14 @@ import de.fraunhofer.aisec.cpg.graph.declarations.Declaration
 import de.fraunhofer.aisec.cpg.graph.declarations.FunctionDeclaration
 import de.fraunhofer.aisec.cpg.graph.declarations.VariableDeclaration
 import de.fraunhofer.aisec.cpg.graph.edge.Properties
-import de.fraunhofer.aisec.cpg.graph.statements.*
 import de.fraunhofer.aisec.cpg.graph.statements.expressions.BinaryOperator
 import de.fraunhofer.aisec.cpg.graph.statements.expressions.DeclaredReferenceExpression
 import de.fraunhofer.aisec.cpg.graph.statements.expressions.UnaryOperator
+import de.fraunhofer.aisec.cpg.helpers.IdentitySet
 import de.fraunhofer.aisec.cpg.helpers.SubgraphWalker.IterativeGraphWalker
 import de.fraunhofer.aisec.cpg.passes.order.DependsOn
+import de.fraunhofer.aisec.cpg.passes.order.TranslationUnitLocal
+import java.util.*
 
 /**
  * This pass determines the data flows of DeclaredReferenceExpressions which refer to a
@@ -46,6 +48,7 @@ import de.fraunhofer.aisec.cpg.passes.order.DependsOn
  */
 @DependsOn(EvaluationOrderGraphPass::class)
 @DependsOn(DFGPass::class)
+@TranslationUnitLocal
 open class ControlFlowSensitiveDFGPass : Pass() {
     override fun cleanup() {
         // Nothing to do
@@ -91,158 +94,257 @@ open class ControlFlowSensitiveDFGPass : Pass() {
      * - Assignments of the form "variable = rhs"
      * - Assignments with an operation e.g. of the form "variable += rhs"
      * - Read operations on a variable
+     *
+     * The analysis is a classic reaching definitions analysis: The EOG of the function is split
+     * into [BasicBlock]s, all write operations of the function are numbered densely and the writes
+     * that reach the beginning of each block are computed as a fixpoint over bit-vectors.
+     * Afterwards, the DFG edges are added in a single pass over each block.
      */
     private fun handleFunction(node: FunctionDeclaration) {
-        // The list of nodes that we have to consider and the last write operations to the different
-        // variables.
-        val worklist =
-            mutableListOf<Pair<Node, MutableMap<Declaration, MutableList<Node>>>>(
-                Pair(node, mutableMapOf())
-            )
-
-        // Different points which could be the cause of a loop (in a non-broken program). We
-        // consider ForStatements, WhileStatements, ForEachStatements, DoStatements and
-        // GotoStatements
-        val loopPoints = mutableMapOf<Node, MutableMap<Declaration, MutableSet<Node>>>()
-
-        // Iterate through the worklist
+        val blocks = buildBasicBlocks(node)
+
+        // The write operations of the function, indexed by their number, and the declarations they
+        // write to
+        val writes = mutableListOf<Node>()
+        val writtenDecls = mutableListOf<Declaration>()
+        // All write operations per declaration
+        val writesOf = IdentityHashMap<Declaration, BitSet>()
+        // The number of the write operation that is performed by an EOG node
+        val writeNumbers = IdentityHashMap<Node, Int>()
+
+        for (block in blocks) {
+            for (current in block.nodes) {
+                val (decl, written) = writeOf(current) ?: continue
+                val number = writes.size
+                writes += written
+                writtenDecls += decl
+                writesOf.computeIfAbsent(decl) { BitSet() }.set(number)
+                writeNumbers[current] = number
+
+                // Only the last write to a declaration within the block leaves the block
+                block.gen.andNot(writesOf[decl]!!)
+                block.gen.set(number)
+            }
+        }
+
+        // A write kills all other writes to the same declaration. We need to know all writes of
+        // the function first, so that the kill sets also contain writes of later blocks. Since the
+        // gen set contains one write for each declaration written in the block, it is sufficient
+        // to look at these.
+        for (block in blocks) {
+            forEachSetBit(block.gen) { block.kill.or(writesOf[writtenDecls[it]]!!) }
+        }
+
+        // Iterate until the writes reaching each block do not change anymore
+        val worklist = ArrayDeque(blocks)
+        val inWorklist = BitSet()
+        inWorklist.set(0, blocks.size)
         while (worklist.isNotEmpty()) {
-            // The node we will analyze now and the map of the last write statements to a variable.
-            val (currentNode, previousWrites) = worklist.removeFirst()
-            // We will set this if we write to a variable
-            var writtenDecl: Declaration? = null
-            var currentWritten = currentNode
-
-            val initializer = (currentNode as? VariableDeclaration)?.initializer
-            if (initializer != null) {
-                // A variable declaration with an initializer => The initializer flows to the
-                // declaration.
-                currentNode.addPrevDFG(initializer)
-
-                // We wrote something to this variable declaration
-                writtenDecl = currentNode
-
-                // Add the node to the list of previous write nodes in this path
-                previousWrites[currentNode] = mutableListOf(currentNode)
-            } else if (isIncOrDec(currentNode)) {
-                // Increment or decrement => Add the prevWrite of the input to the input. After the
-                // operation, the prevWrite of the input's variable is this node.
-                val input = (currentNode as UnaryOperator).input as DeclaredReferenceExpression
-                // We write to the variable in the input
-                writtenDecl = input.refersTo
-
-                if (writtenDecl != null) {
-                    previousWrites[writtenDecl]?.lastOrNull()?.let { input.addPrevDFG(it) }
-
-                    // TODO: Do we want to have a flow from the input back to the input? This can
-                    //  cause problems if the DFG is not iterated through appropriately. The
-                    //  following line would remove it:
-                    // currentNode.removeNextDFG(input)
-
-                    // Add the whole node to the list of previous write nodes in this path. This
-                    // prevents some weird circular dependencies.
-                    previousWrites
-                        .computeIfAbsent(writtenDecl, ::mutableListOf)
-                        .add(currentNode.input)
-                    currentWritten = currentNode.input
-                }
-            } else if (isSimpleAssignment(currentNode)) {
-                // We write to the target => the rhs flows to the lhs
-                (currentNode as BinaryOperator).rhs?.let { currentNode.lhs.addPrevDFG(it) }
-
-                // Only the lhs is the last write statement here and the variable which is written
-                // to.
-                writtenDecl = (currentNode.lhs as DeclaredReferenceExpression).refersTo
-
-                if (writtenDecl != null) {
-                    previousWrites
-                        .computeIfAbsent(writtenDecl, ::mutableListOf)
-                        .add(currentNode.lhs)
-                    currentWritten = currentNode.lhs
-                }
-            } else if (isCompoundAssignment(currentNode)) {
-                // We write to the lhs, but it also serves as an input => We first get all previous
-                // writes to the lhs and then add the flow from lhs and rhs to the current node.
-
-                // The write operation goes to the variable in the lhs
-                writtenDecl =
-                    ((currentNode as BinaryOperator).lhs as? DeclaredReferenceExpression)?.refersTo
-
-                if (writtenDecl != null) {
-                    // Data flows from the last writes to the lhs variable to this node
-                    previousWrites[writtenDecl]?.lastOrNull()?.let {
-                        currentNode.lhs.addPrevDFG(it)
-                    }
-                    currentNode.addPrevDFG(currentNode.lhs)
+            val block = worklist.removeFirst()
+            inWorklist.clear(block.id)
 
-                    // Data flows from whatever is the rhs to this node
-                    currentNode.rhs?.let { currentNode.addPrevDFG(it) }
+            block.reachIn.clear()
+            for (predecessor in block.predecessors) {
+                block.reachIn.or(predecessor.reachOut)
+            }
 
-                    // TODO: Similar to the ++ case: Should the DFG edge go back to the reference?
-                    //  If it shouldn't, remove the following statement:
-                    currentNode.lhs.addPrevDFG(currentNode)
+            val reachOut = block.reachIn.clone() as BitSet
+            reachOut.andNot(block.kill)
+            reachOut.or(block.gen)
 
-                    // The whole current node is the place of the last update, not (only) the lhs!
-                    previousWrites
-                        .computeIfAbsent(writtenDecl, ::mutableListOf)
-                        .add(currentNode.lhs)
-                    currentWritten = currentNode.lhs
-                }
-            } else if ((currentNode as? DeclaredReferenceExpression)?.access == AccessValues.READ) {
-                // We only read the variable => Get previous write which have been collected in the
-                // other steps
-                previousWrites[currentNode.refersTo]?.lastOrNull()?.let {
-                    currentNode.addPrevDFG(it)
+            if (reachOut != block.reachOut) {
+                block.reachOut = reachOut
+                for (successor in block.successors) {
+                    if (!inWorklist.get(successor.id)) {
+                        inWorklist.set(successor.id)
+                        worklist.add(successor)
+                    }
                 }
             }
+        }
 
-            // Check for loops: No loop statement with the same state as before and no write which
-            // is already in the current chain of writes too often (=twice).
-            if (
-                !loopDetection(currentNode, writtenDecl, currentWritten, previousWrites, loopPoints)
-            ) {
-                // We add all the next steps in the eog to the worklist unless the exact same thing
-                // is already included in the list.
-                currentNode.nextEOGEdges
-                    .filter { it.getProperty(Properties.UNREACHABLE) != true }
-                    .map { it.end }
-                    .forEach {
-                        // currentNode.nextEOG.forEach {
-                        val newPair = Pair(it, copyMap(previousWrites))
-                        if (!worklistHasSimilarPair(worklist, newPair)) worklist.add(newPair)
-                        // if (newPair !in worklist) worklist.add(newPair)
+        // Now we know which writes reach which node and can add the DFG edges
+        for (block in blocks) {
+            val reaching = block.reachIn.clone() as BitSet
+            for (current in block.nodes) {
+                addFlows(current) { decl ->
+                    val candidates = writesOf[decl]
+                    if (candidates == null) {
+                        listOf()
+                    } else {
+                        val reachingWrites = reaching.clone() as BitSet
+                        reachingWrites.and(candidates)
+
+                        val list = mutableListOf<Node>()
+                        forEachSetBit(reachingWrites) { list += writes[it] }
+                        list
                     }
+                }
+
+                val number = writeNumbers[current] ?: continue
+                reaching.andNot(writesOf[writtenDecls[number]]!!)
+                reaching.set(number)
+            }
+        }
+    }
+
+    /**
+     * Returns the declaration written by [node] and the node that represents this write operation
+     * or `null` if [node] does not write to a declaration.
+     */
+    private fun writeOf(node: Node): Pair<Declaration, Node>? {
+        return when {
+            node is VariableDeclaration && node.initializer != null -> Pair(node, node)
+            isIncOrDec(node) -> {
+                val input = (node as UnaryOperator).input as DeclaredReferenceExpression
+                input.refersTo?.let { Pair(it, input) }
+            }
+            isSimpleAssignment(node) || isCompoundAssignment(node) -> {
+                val lhs = (node as BinaryOperator).lhs as DeclaredReferenceExpression
+                lhs.refersTo?.let { Pair(it, lhs) }
             }
+            else -> null
         }
     }
 
     /**
-     * Determines if there's an item in the [worklist] which has the same last write for each
-     * declaration in the [newPair]. If this is the case, we can ignore it because all that changed
-     * was the path through the EOG to reach this state but apparently, all the writes in the
-     * different branches are obsoleted by one common write access which happens afterwards.
+     * Adds the DFG edges of [currentNode]. [reachingWrites] returns the write operations to a
+     * declaration which reach the [currentNode].
      */
-    private fun worklistHasSimilarPair(
-        worklist: MutableList<Pair<Node, MutableMap<Declaration, MutableList<Node>>>>,
-        newPair: Pair<Node, MutableMap<Declaration, MutableList<Node>>>
-    ): Boolean {
-        for (existingPair in worklist) {
-            if (existingPair.first == newPair.first) {
-                // The next nodes match. Now check the last writes for each declaration.
-                var allWritesMatch = true
-                for ((lastWriteDecl, lastWriteList) in newPair.second) {
-                    // We will generate the same "prev DFG" with the item that is already in the
-                    // list
-                    allWritesMatch =
-                        allWritesMatch &&
-                            existingPair.second[lastWriteDecl]?.last() == lastWriteList.last()
+    private fun addFlows(currentNode: Node, reachingWrites: (Declaration?) -> List<Node>) {
+        val initializer = (currentNode as? VariableDeclaration)?.initializer
+        if (initializer != null) {
+            // A variable declaration with an initializer => The initializer flows to the
+            // declaration.
+            currentNode.addPrevDFG(initializer)
+        } else if (isIncOrDec(currentNode)) {
+            // Increment or decrement => Add the prevWrite of the input to the input. After the
+            // operation, the prevWrite of the input's variable is this node.
+            val input = (currentNode as UnaryOperator).input as DeclaredReferenceExpression
+            reachingWrites(input.refersTo).forEach { input.addPrevDFG(it) }
+
+            // TODO: Do we want to have a flow from the input back to the input? This can
+            //  cause problems if the DFG is not iterated through appropriately. The
+            //  following line would remove it:
+            // currentNode.removeNextDFG(input)
+        } else if (isSimpleAssignment(currentNode)) {
+            // We write to the target => the rhs flows to the lhs
+            (currentNode as BinaryOperator).rhs?.let { currentNode.lhs.addPrevDFG(it) }
+        } else if (isCompoundAssignment(currentNode)) {
+            // We write to the lhs, but it also serves as an input => We first get all previous
+            // writes to the lhs and then add the flow from lhs and rhs to the current node.
+            val lhs = (currentNode as BinaryOperator).lhs as DeclaredReferenceExpression
+
+            // Data flows from the last writes to the lhs variable to this node
+            reachingWrites(lhs.refersTo).forEach { lhs.addPrevDFG(it) }
+            currentNode.addPrevDFG(lhs)
+
+            // Data flows from whatever is the rhs to this node
+            currentNode.rhs?.let { currentNode.addPrevDFG(it) }
+
+            // TODO: Similar to the ++ case: Should the DFG edge go back to the reference?
+            //  If it shouldn't, remove the following statement:
+            lhs.addPrevDFG(currentNode)
+        } else if ((currentNode as? DeclaredReferenceExpression)?.access == AccessValues.READ) {
+            // We only read the variable => Get previous write which have been collected in the
+            // other steps
+            reachingWrites(currentNode.refersTo).forEach { currentNode.addPrevDFG(it) }
+        }
+    }
+
+    private inline fun forEachSetBit(bits: BitSet, action: (Int) -> Unit) {
+        var i = bits.nextSetBit(0)
+        while (i >= 0) {
+            action(i)
+            i = bits.nextSetBit(i + 1)
+        }
+    }
+
+    /** A sequence of EOG nodes without branches or joins in between. */
+    private class BasicBlock(val id: Int) {
+        val nodes = mutableListOf<Node>()
+        val successors = mutableListOf<BasicBlock>()
+        val predecessors = mutableListOf<BasicBlock>()
+
+        /** The writes of this block which reach its end. */
+        val gen = BitSet()
+        /** All writes to declarations which are written in this block. */
+        val kill = BitSet()
+
+        /** The writes that reach the beginning of this block. */
+        var reachIn = BitSet()
+        /** The writes that reach the end of this block. */
+        var reachOut = BitSet()
+    }
+
+    /**
+     * Splits the EOG of [function], i.e. all nodes which are reachable from it via reachable EOG
+     * edges, into [BasicBlock]s. The block of the function itself is the first one.
+     */
+    private fun buildBasicBlocks(function: FunctionDeclaration): List<BasicBlock> {
+        val successors = IdentityHashMap<Node, List<Node>>()
+        val predecessorCount = IdentityHashMap<Node, Int>()
+
+        val stack = ArrayDeque<Node>()
+        stack.add(function)
+        successors[function] = listOf()
+        while (stack.isNotEmpty()) {
+            val current = stack.removeLast()
+            val next =
+                current.nextEOGEdges
+                    .filter { it.getProperty(Properties.UNREACHABLE) != true }
+                    .map { it.end }
+            successors[current] = next
+
+            for (n in next) {
+                predecessorCount[n] = predecessorCount.getOrDefault(n, 0) + 1
+                if (!successors.containsKey(n)) {
+                    successors[n] = listOf()
+                    stack.add(n)
+                }
+            }
+        }
+
+        // A node starts a new block if it is the entry, a join point or a branch target
+        val leaders = IdentitySet<Node>()
+        leaders.add(function)
+        for ((current, next) in successors) {
+            if (predecessorCount.getOrDefault(current, 0) != 1) {
+                leaders.add(current)
+            }
+            if (next.size != 1) {
+                leaders.addAll(next)
+            }
+        }
+
+        val blocks = mutableListOf<BasicBlock>()
+        val blockOf = IdentityHashMap<Node, BasicBlock>()
+        // Make sure that the function itself is handled first
+        for (leader in listOf(function) + leaders.filter { it !== function }) {
+            val block = BasicBlock(blocks.size)
+            blocks += block
+            blockOf[leader] = block
+
+            var current = leader
+            while (true) {
+                block.nodes += current
+                val next = successors[current]!!
+                if (next.size != 1 || next[0] in leaders) {
+                    break
                 }
-                // We found a matching pair in the worklist? Done. Otherwise, maybe there's another
-                // pair...
-                if (allWritesMatch) return true
+                current = next[0]
+            }
+        }
+
+        for (block in blocks) {
+            for (next in successors[block.nodes.last()]!!) {
+                val successor = blockOf[next]!!
+                block.successors += successor
+                successor.predecessors += block
             }
         }
-        return false
+
+        return blocks
     }
 
     /**
@@ -265,59 +367,4 @@ open class ControlFlowSensitiveDFGPass : Pass() {
         currentNode is UnaryOperator &&
             (currentNode.operatorCode == "++" || currentNode.operatorCode == "--") &&
             (currentNode.input as? DeclaredReferenceExpression)?.refersTo != null
-
-    /**
-     * Determines if the [currentNode] is a loop point has already been visited with the exact same
-     * state before. Changes the state saved in the [loopPoints] by adding the current
-     * [previousWrites].
-     *
-     * @return true if a loop was detected, false otherwise
-     */
-    private fun loopDetection(
-        currentNode: Node,
-        writtenDecl: Declaration?,
-        currentWritten: Node,
-        previousWrites: MutableMap<Declaration, MutableList<Node>>,
-        loopPoints: MutableMap<Node, MutableMap<Declaration, MutableSet<Node>>>
-    ): Boolean {
-        if (
-            currentNode is ForStatement ||
-                currentNode is WhileStatement ||
-                currentNode is ForEachStatement ||
-                currentNode is DoStatement ||
-                currentNode is GotoStatement ||
-                currentNode is ContinueStatement
-        ) {
-            // Loop detection: This is a point which could serve as a loop, so we check all
-            // states which we have seen before in this place.
-            val state = loopPoints.computeIfAbsent(currentNode) { mutableMapOf() }
-            if (
-                previousWrites.all { (decl, prevs) ->
-                    decl in state && prevs.last() in state[decl]!!
-                }
-            ) {
-                // The current state of last write operations has already been seen before =>
-                // Nothing new => Do not add the next eog steps!
-                return true
-            }
-            // Add the current state for future loop detections.
-            previousWrites.forEach { (decl, prevs) ->
-                state.computeIfAbsent(decl, ::mutableSetOf).add(prevs.last())
-            }
-        }
-        return writtenDecl != null &&
-            previousWrites[writtenDecl]!!.filter { it == currentWritten }.size >= 2
-    }
-
-    /** Copies the map */
-    private fun copyMap(
-        map: Map<Declaration, MutableList<Node>>
-    ): MutableMap<Declaration, MutableList<Node>> {
-        val result = mutableMapOf<Declaration, MutableList<Node>>()
-        for ((k, v) in map) {
-            result[k] = mutableListOf()
-            result[k]?.addAll(v)
-        }
-        return result
-    }
 }
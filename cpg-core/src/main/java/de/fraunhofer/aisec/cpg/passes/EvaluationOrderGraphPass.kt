@@ -41,6 +41,7 @@ import de.fraunhofer.aisec.cpg.graph.types.TypeParser
 import de.fraunhofer.aisec.cpg.helpers.SubgraphWalker
 import de.fraunhofer.aisec.cpg.helpers.Util
 import de.fraunhofer.aisec.cpg.passes.order.DependsOn
+import de.fraunhofer.aisec.cpg.passes.order.TranslationUnitLocal
 import de.fraunhofer.aisec.cpg.passes.scopes.*
 import java.util.*
 import org.slf4j.LoggerFactory
@@ -72,6 +73,7 @@ import org.slf4j.LoggerFactory
  */
 @Suppress("MemberVisibilityCanBePrivate")
 @DependsOn(CallResolver::class)
+@TranslationUnitLocal
 open class EvaluationOrderGraphPass : Pass() {
     protected val map = mutableMapOf<Class<out Node>, CallableInterface<Node>>()
     private var currentEOG = mutableListOf<Node>()
@@ -239,7 +241,7 @@ open class EvaluationOrderGraphPass : Pass() {
                 next.end.removePrevEOGEntry(unvisitedNode)
             }
 
-            unvisitedNode.nextEOGEdges.clear()
+            unvisitedNode.clearNextEOG()
         }
     }
 
@@ -347,8 +349,9 @@ open class EvaluationOrderGraphPass : Pass() {
             scopeManager.leaveScope(node.recordDeclaration!!)
         }
 
-        // Set default argument evaluation nodes
-        val funcDeclNextEOG = node.nextEOG
+        // Set default argument evaluation nodes. We need a copy of the next EOG nodes, since the
+        // default arguments are added to the EOG of the function below.
+        val funcDeclNextEOG = node.nextEOG.toList()
         currentEOG.clear()
         currentEOG.add(node)
         var defaultArg: Expression? = null
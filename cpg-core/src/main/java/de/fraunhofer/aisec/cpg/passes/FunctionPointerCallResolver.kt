@@ -43,7 +43,6 @@ import de.fraunhofer.aisec.cpg.helpers.SubgraphWalker.ScopedWalker
 import de.fraunhofer.aisec.cpg.passes.order.DependsOn
 import de.fraunhofer.aisec.cpg.passes.order.RequiredFrontend
 import java.util.*
-import java.util.function.Consumer
 
 /**
  * This [Pass] is responsible for resolving function pointer calls, i.e., [CallExpression] nodes
@@ -62,6 +61,11 @@ import java.util.function.Consumer
 class FunctionPointerCallResolver : Pass() {
     private lateinit var walker: ScopedWalker
     private var inferDfgForUnresolvedCalls = false
+    private val pointsTo = FunctionPointsToAnalysis()
+    private val candidates =
+        IdentityHashMap<
+            Set<FunctionDeclaration>, MutableMap<FunctionPointerType, List<FunctionDeclaration>>
+        >()
 
     override fun accept(t: TranslationResult) {
         scopeManager = t.scopeManager
@@ -116,53 +120,67 @@ class FunctionPointerCallResolver : Pass() {
 
     private fun handleFunctionPointerCall(call: CallExpression, pointer: Node?) {
         val pointerType = (pointer as HasType).type as FunctionPointerType
-        val invocationCandidates: MutableList<FunctionDeclaration> = ArrayList()
-        val work: Deque<Node> = ArrayDeque()
-        val seen = IdentitySet<Node>()
-        work.push(pointer)
-        while (!work.isEmpty()) {
-            val curr = work.pop()
-            if (!seen.add(curr)) {
-                continue
-            }
-
-            if (curr is FunctionDeclaration) {
-                // Even if it is a function declaration, the dataflow might just come from a
-                // situation where the target of a fptr is passed through via a return value. Keep
-                // searching if return type or signature don't match
-
-                // In some languages, there might be no explicit return type. In this case we are
-                // using a single void return type.
-                val returnType: Type =
-                    if (curr.returnTypes.isEmpty()) {
-                        IncompleteType()
-                    } else {
-                        // TODO(oxisto): support multiple return types
-                        curr.returnTypes[0]
-                    }
-                if (
-                    TypeManager.getInstance()
-                        .isSupertypeOf(pointerType.returnType, returnType, call) &&
-                        curr.hasSignature(pointerType.parameters)
-                ) {
-                    invocationCandidates.add(curr)
-                    // We have found a target. Don't follow this path any further, but still
-                    // continue the other paths that might be left, as we could have several
-                    // potential targets at
-                    // runtime
-                    continue
-                }
-            }
-            curr.prevDFG.forEach(Consumer(work::push))
-        }
+        val invocationCandidates = candidatesFor(pointsTo.pointsTo(pointer), pointerType, call)
 
         call.invokes = invocationCandidates
         // We have to update the dfg edges because this call could now be resolved (which was not
         // the case before).
         DFGPass().handleCallExpression(call, inferDfgForUnresolvedCalls)
+
+        // The call and the parameters of its targets received new DFG edges, which might change
+        // the memoized points-to sets
+        if (pointsTo.refresh(listOf(call) + invocationCandidates.flatMap { it.parameters })) {
+            candidates.clear()
+        }
+    }
+
+    /**
+     * Filters the functions that flow into a function pointer ([targets]) down to those that
+     * match the [pointerType]. Since many pointers share the same points-to set (e.g., all calls
+     * through the same struct field), the result is cached per set and pointer type.
+     */
+    private fun candidatesFor(
+        targets: Set<FunctionDeclaration>,
+        pointerType: FunctionPointerType,
+        call: CallExpression
+    ): List<FunctionDeclaration> {
+        if (targets.isEmpty()) {
+            return listOf()
+        }
+
+        return candidates
+            .computeIfAbsent(targets) { HashMap() }
+            .computeIfAbsent(pointerType) {
+                val ordered = (targets as? IdentitySet)?.toSortedList() ?: targets.toList()
+                ordered.filter { matches(it, pointerType, call) }
+            }
+    }
+
+    private fun matches(
+        function: FunctionDeclaration,
+        pointerType: FunctionPointerType,
+        call: CallExpression
+    ): Boolean {
+        // Even if it is a function declaration, the dataflow might just come from a situation
+        // where the target of a fptr is passed through via a return value. The points-to set
+        // therefore also contains functions whose return type or signature does not match.
+
+        // In some languages, there might be no explicit return type. In this case we are using a
+        // single void return type.
+        val returnType: Type =
+            if (function.returnTypes.isEmpty()) {
+                IncompleteType()
+            } else {
+                // TODO(oxisto): support multiple return types
+                function.returnTypes[0]
+            }
+
+        return TypeManager.getInstance().isSupertypeOf(pointerType.returnType, returnType, call) &&
+            function.hasSignature(pointerType.parameters)
     }
 
     override fun cleanup() {
-        // Nothing to do
+        pointsTo.clear()
+        candidates.clear()
     }
 }
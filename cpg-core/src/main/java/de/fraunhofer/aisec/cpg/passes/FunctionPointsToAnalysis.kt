@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.passes
+
+import de.fraunhofer.aisec.cpg.graph.Node
+import de.fraunhofer.aisec.cpg.graph.declarations.FunctionDeclaration
+import de.fraunhofer.aisec.cpg.helpers.IdentitySet
+import java.util.*
+import kotlin.math.min
+
+/**
+ * A flow-insensitive points-to analysis that computes, for a [Node], the set of
+ * [FunctionDeclaration]s that can reach it via (backwards) DFG edges. This is the set of possible
+ * targets of a function pointer, before any signature matching is applied.
+ *
+ * The sets are computed lazily and memoized per node, so that several function pointer calls that
+ * share a common origin (e.g., a struct field that holds a dispatch table entry) only traverse the
+ * DFG once. Nodes that are part of a DFG cycle form a strongly connected component, whose members
+ * all share the same set. Likewise, a node that only receives facts from a single predecessor
+ * shares the set of its predecessor, so that long assignment chains do not copy their sets.
+ *
+ * Since the sets are memoized, the DFG must not be modified behind the back of this analysis.
+ * Whenever DFG edges are added to a node, [refresh] needs to be called with the affected nodes.
+ */
+class FunctionPointsToAnalysis {
+    private val memo = IdentityHashMap<Node, Set<FunctionDeclaration>>()
+
+    /** Returns the [FunctionDeclaration]s that flow into [node]. */
+    fun pointsTo(node: Node): Set<FunctionDeclaration> {
+        memo[node]?.let {
+            return it
+        }
+
+        compute(node)
+
+        return memo[node] ?: emptySet()
+    }
+
+    /**
+     * Checks, whether the memoized sets of [nodes] are still valid after DFG edges have been added
+     * to them. If any of them would change, all memoized sets are discarded, since they might have
+     * been derived from the stale ones. Returns `true` in this case.
+     *
+     * Since the sets of a DFG cycle are derived from each other, a removed edge cannot always be
+     * detected locally. [clear] needs to be called instead if edges are removed.
+     */
+    fun refresh(nodes: Collection<Node>): Boolean {
+        for (node in nodes) {
+            val old = memo[node] ?: continue
+
+            val fresh = IdentitySet<FunctionDeclaration>()
+            if (node is FunctionDeclaration) {
+                fresh.add(node)
+            }
+            node.prevDFG.forEach { fresh.addAll(pointsTo(it)) }
+
+            if (fresh.size != old.size || !old.containsAll(fresh)) {
+                clear()
+                return true
+            }
+        }
+
+        return false
+    }
+
+    /** Discards all memoized sets. */
+    fun clear() {
+        memo.clear()
+    }
+
+    /**
+     * Computes the sets for [root] and all its (transitive) DFG predecessors that are not yet
+     * memoized, using an iterative version of Tarjan's algorithm on the prevDFG edges. Components
+     * are completed in reverse topological order, so all predecessors outside a component are
+     * already memoized once we reach it.
+     */
+    private fun compute(root: Node) {
+        val index = IdentityHashMap<Node, Int>()
+        val lowLink = IdentityHashMap<Node, Int>()
+        val stack = ArrayList<Node>()
+        val onStack = IdentitySet<Node>()
+        val work: Deque<Pair<Node, Iterator<Node>>> = ArrayDeque()
+
+        fun visit(node: Node) {
+            index[node] = index.size
+            lowLink[node] = index[node]
+            stack.add(node)
+            onStack.add(node)
+            work.push(Pair(node, node.prevDFG.iterator()))
+        }
+
+        visit(root)
+        while (work.isNotEmpty()) {
+            val (node, preds) = work.peek()
+            if (preds.hasNext()) {
+                val pred = preds.next()
+                if (memo.containsKey(pred)) {
+                    continue
+                }
+
+                val predIndex = index[pred]
+                if (predIndex == null) {
+                    visit(pred)
+                } else if (pred in onStack) {
+                    lowLink[node] = min(lowLink[node]!!, predIndex)
+                }
+                continue
+            }
+
+            work.pop()
+
+            val low = lowLink[node]!!
+            if (low == index[node]) {
+                val component = ArrayList<Node>()
+                do {
+                    val member = stack.removeAt(stack.size - 1)
+                    onStack.remove(member)
+                    component.add(member)
+                } while (member !== node)
+
+                val facts = collect(component)
+                component.forEach { memo[it] = facts }
+            }
+
+            work.peek()?.let { (parent, _) -> lowLink[parent] = min(lowLink[parent]!!, low) }
+        }
+    }
+
+    /**
+     * Gathers the facts of a strongly connected [component], i.e., the functions that are part of
+     * it and the memoized sets of all predecessors outside of it.
+     */
+    private fun collect(component: List<Node>): Set<FunctionDeclaration> {
+        val own = component.filterIsInstance<FunctionDeclaration>()
+        val incoming = IdentitySet<Set<FunctionDeclaration>>()
+        for (member in component) {
+            for (pred in member.prevDFG) {
+                // Predecessors without a memoized set belong to this component
+                val facts = memo[pred] ?: continue
+                if (facts.isNotEmpty()) {
+                    incoming.add(facts)
+                }
+            }
+        }
+
+        if (own.isEmpty() && incoming.size <= 1) {
+            return incoming.firstOrNull() ?: emptySet()
+        }
+
+        val facts = IdentitySet<FunctionDeclaration>()
+        facts.addAll(own)
+        incoming.forEach { facts.addAll(it) }
+
+        return facts
+    }
+}
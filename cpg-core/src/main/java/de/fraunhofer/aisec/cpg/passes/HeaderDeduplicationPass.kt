@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.passes
+
+import de.fraunhofer.aisec.cpg.TranslationResult
+import de.fraunhofer.aisec.cpg.graph.HasType
+import de.fraunhofer.aisec.cpg.graph.Node
+import de.fraunhofer.aisec.cpg.graph.TypeManager
+import de.fraunhofer.aisec.cpg.graph.declarations.ConstructorDeclaration
+import de.fraunhofer.aisec.cpg.graph.declarations.Declaration
+import de.fraunhofer.aisec.cpg.graph.declarations.FunctionDeclaration
+import de.fraunhofer.aisec.cpg.graph.declarations.MethodDeclaration
+import de.fraunhofer.aisec.cpg.graph.declarations.RecordDeclaration
+import de.fraunhofer.aisec.cpg.graph.declarations.TranslationUnitDeclaration
+import de.fraunhofer.aisec.cpg.graph.edge.PropertyEdge
+import de.fraunhofer.aisec.cpg.graph.statements.expressions.CallExpression
+import de.fraunhofer.aisec.cpg.graph.statements.expressions.ConstructExpression
+import de.fraunhofer.aisec.cpg.graph.statements.expressions.DeclaredReferenceExpression
+import de.fraunhofer.aisec.cpg.graph.types.ObjectType
+import de.fraunhofer.aisec.cpg.helpers.IdentitySet
+import de.fraunhofer.aisec.cpg.helpers.SubgraphWalker
+import de.fraunhofer.aisec.cpg.passes.order.ExecuteBefore
+import de.fraunhofer.aisec.cpg.sarif.PhysicalLocation
+import java.util.*
+
+/**
+ * Merges declarations that originate from the same location in a shared header file, but have been
+ * created once for every translation unit that includes the header (which is the case, if
+ * [de.fraunhofer.aisec.cpg.TranslationConfiguration.loadIncludes] is active).
+ *
+ * Top-level declarations are grouped by their location, kind, name and (in case of functions)
+ * their signature. The instance of the first translation unit is kept as the canonical one, all
+ * other structurally identical copies are removed from their translation unit and the scopes, and
+ * all references to them (or any of their AST children) are rewired to the canonical instance.
+ * Copies that differ structurally, for example because of a different set of macros, are kept.
+ *
+ * This pass needs to run before any of the resolving passes and must be registered explicitly.
+ */
+@ExecuteBefore(TypeHierarchyResolver::class)
+@ExecuteBefore(ImportResolver::class)
+@ExecuteBefore(VariableUsageResolver::class)
+@ExecuteBefore(CallResolver::class)
+class HeaderDeduplicationPass : Pass() {
+
+    /** The key by which declarations from the same header location are identified. */
+    private data class DeclarationKey(
+        val location: PhysicalLocation,
+        val kind: Class<out Declaration>,
+        val name: String,
+        val signature: String?
+    )
+
+    override fun accept(result: TranslationResult) {
+        val canonicals =
+            mutableMapOf<DeclarationKey, Pair<TranslationUnitDeclaration, Declaration>>()
+        val replacements = IdentityHashMap<Node, Node>()
+        val duplicates = IdentitySet<Node>()
+
+        for (tu in result.translationUnits) {
+            for (declaration in tu.declarations) {
+                val location = declaration.location ?: continue
+                val key =
+                    DeclarationKey(
+                        location,
+                        declaration.javaClass,
+                        declaration.name,
+                        (declaration as? FunctionDeclaration)?.signature
+                    )
+
+                val canonical = canonicals.putIfAbsent(key, Pair(tu, declaration)) ?: continue
+                // Within one translation unit, two declarations with the same key are not copies
+                // of each other
+                if (canonical.first === tu) {
+                    continue
+                }
+
+                if (collectReplacements(declaration, canonical.second, replacements)) {
+                    duplicates.add(declaration)
+                }
+            }
+        }
+
+        if (duplicates.isEmpty()) {
+            return
+        }
+
+        // Keep the definitions that each copy of a prototype was linked to in its own translation
+        // unit
+        for ((duplicate, canonical) in replacements) {
+            if (
+                duplicate is FunctionDeclaration &&
+                    canonical is FunctionDeclaration &&
+                    canonical.definition == null
+            ) {
+                canonical.definition = duplicate.definition
+            }
+        }
+
+        for (tu in result.translationUnits) {
+            removeDuplicates(tu.declarationsPropertyEdge, duplicates)
+            removeDuplicates(tu.namespacesPropertyEdge, duplicates)
+        }
+
+        scopeManager.replaceNodes(replacements)
+
+        for (tu in result.translationUnits) {
+            for (node in SubgraphWalker.flattenAST(tu)) {
+                rewire(node, replacements)
+            }
+        }
+
+        // Types are not part of the AST, but object types refer to their record as well
+        val typeManager = TypeManager.getInstance()
+        val types =
+            synchronized(typeManager.firstOrderTypes) { typeManager.firstOrderTypes.toList() }
+        types.forEach { rewire(it, replacements) }
+
+        log.info(
+            "Merged {} duplicate header declarations ({} nodes)",
+            duplicates.size,
+            replacements.size
+        )
+    }
+
+    /**
+     * Pairs the AST of [duplicate] with the AST of [canonical] and stores the pairs in
+     * [replacements]. Returns false and leaves [replacements] untouched if both are not
+     * structurally identical.
+     */
+    private fun collectReplacements(
+        duplicate: Node,
+        canonical: Node,
+        replacements: MutableMap<Node, Node>
+    ): Boolean {
+        val duplicateNodes = preOrder(duplicate)
+        val canonicalNodes = preOrder(canonical)
+        if (duplicateNodes.size != canonicalNodes.size) {
+            return false
+        }
+
+        for (i in duplicateNodes.indices) {
+            val d = duplicateNodes[i]
+            val c = canonicalNodes[i]
+            if (d.javaClass != c.javaClass || d.name != c.name || d.location != c.location) {
+                return false
+            }
+        }
+
+        for (i in duplicateNodes.indices) {
+            replacements[duplicateNodes[i]] = canonicalNodes[i]
+        }
+
+        return true
+    }
+
+    /** Returns the AST of [node] in a deterministic pre-order. */
+    private fun preOrder(node: Node): List<Node> {
+        val visited = IdentitySet<Node>()
+        val nodes = mutableListOf<Node>()
+        val worklist = mutableListOf(node)
+
+        while (worklist.isNotEmpty()) {
+            val current = worklist.removeAt(worklist.lastIndex)
+            if (!visited.add(current)) {
+                continue
+            }
+
+            nodes.add(current)
+            worklist.addAll(SubgraphWalker.getAstChildren(current).asReversed())
+        }
+
+        return nodes
+    }
+
+    private fun <T : Node> removeDuplicates(
+        edges: MutableList<PropertyEdge<T>>,
+        duplicates: Set<Node>
+    ) {
+        if (edges.removeIf { it.end in duplicates }) {
+            PropertyEdge.applyIndexProperty(edges)
+        }
+    }
+
+    /** Redirects all references of [node] to replaced declarations to their canonical instance. */
+    private fun rewire(node: Node, replacements: Map<Node, Node>) {
+        when (node) {
+            is DeclaredReferenceExpression -> {
+                val refersTo = node.refersTo
+                if (refersTo != null) {
+                    replacements[refersTo]?.let { node.refersTo = it as Declaration }
+                }
+            }
+            is MethodDeclaration -> {
+                node.recordDeclaration?.let { record ->
+                    replacements[record]?.let { node.recordDeclaration = it as RecordDeclaration }
+                }
+            }
+            is RecordDeclaration -> {
+                if (node.superTypeDeclarations.any { it in replacements }) {
+                    node.superTypeDeclarations =
+                        node.superTypeDeclarations.mapTo(HashSet()) {
+                            replacements[it] as? RecordDeclaration ?: it
+                        }
+                }
+            }
+            is ObjectType -> {
+                node.recordDeclaration?.let { record ->
+                    replacements[record]?.let { node.recordDeclaration = it as RecordDeclaration }
+                }
+            }
+        }
+
+        // The constructor also sets the invokes edge, so it needs to be rewired first
+        if (node is ConstructExpression) {
+            node.constructor?.let { constructor ->
+                replacements[constructor]?.let { node.constructor = it as ConstructorDeclaration }
+            }
+            node.instantiates?.let { instantiates ->
+                replacements[instantiates]?.let { node.instantiates = it as Declaration }
+            }
+        }
+
+        if (node is CallExpression && node.invokes.any { it in replacements }) {
+            node.invokes = node.invokes.map { replacements[it] as? FunctionDeclaration ?: it }
+        }
+
+        if (node is FunctionDeclaration) {
+            node.definition?.let { definition ->
+                replacements[definition]?.let { node.definition = it as FunctionDeclaration }
+            }
+        }
+
+        if (node is HasType) {
+            (node.type?.root as? ObjectType)?.let { rewire(it, replacements) }
+        }
+    }
+
+    override fun cleanup() {
+        // nothing to do
+    }
+}
@@ -50,7 +50,7 @@ fun CallResolver.handleSuperCall(curClass: RecordDeclaration, call: CallExpressi
     if (call.base!!.name == "super") {
         // Direct superclass, either defined explicitly or java.lang.Object by default
         if (curClass.superClasses.isNotEmpty()) {
-            target = recordMap[curClass.superClasses[0].root.typeName]
+            target = recordIndex[curClass.superClasses[0].root.typeName]
         } else {
             Util.warnWithFileLocation(
                 call,
@@ -80,13 +80,13 @@ fun CallResolver.handleSpecificSupertype(
     val baseName = call.base!!.name.substring(0, call.base!!.name.lastIndexOf(".super"))
     if (TypeParser.createFrom(baseName, curClass.language) in curClass.implementedInterfaces) {
         // Basename is an interface -> BaseName.super refers to BaseName itself
-        return recordMap[baseName]
+        return recordIndex[baseName]
     } else {
         // BaseName refers to an enclosing class -> BaseName.super is BaseName's superclass
-        val base = recordMap[baseName]
+        val base = recordIndex[baseName]
         if (base != null) {
             if (base.superClasses.isNotEmpty()) {
-                return recordMap[base.superClasses[0].root.typeName]
+                return recordIndex[base.superClasses[0].root.typeName]
             } else {
                 Util.warnWithFileLocation(
                     call,
@@ -119,6 +119,13 @@ abstract class Pass protected constructor() : Consumer<TranslationResult> {
                 false
             }
 
+    /**
+     * Whether this pass only works on the nodes of a single translation unit, see
+     * [TranslationUnitLocal].
+     */
+    val isTranslationUnitLocal: Boolean
+        get() = this.javaClass.isAnnotationPresent(TranslationUnitLocal::class.java)
+
     /**
      * Check if the pass requires a specific language frontend and if that frontend has been
      * executed.
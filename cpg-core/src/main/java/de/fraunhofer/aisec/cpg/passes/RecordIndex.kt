@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.passes
+
+import de.fraunhofer.aisec.cpg.TranslationResult
+import de.fraunhofer.aisec.cpg.graph.Node
+import de.fraunhofer.aisec.cpg.graph.declarations.EnumDeclaration
+import de.fraunhofer.aisec.cpg.graph.declarations.RecordDeclaration
+import de.fraunhofer.aisec.cpg.graph.types.TypeParser
+import de.fraunhofer.aisec.cpg.processing.IVisitor
+import de.fraunhofer.aisec.cpg.processing.strategy.Strategy
+
+/**
+ * An index of all [RecordDeclaration]s (and [EnumDeclaration]s) of a [TranslationResult], which
+ * is shared by the [TypeHierarchyResolver], the [VariableUsageResolver] and the [CallResolver].
+ * Instead of collecting the records in each of these passes, the index is built once per result
+ * (see [of]) and allows to look up a record
+ * * by the name of its type (e.g., `java.lang.String`), which is the same key that the passes used
+ * for their own record maps before,
+ * * by the name of the record itself, which can differ from the type name,
+ * * by a namespace suffix of its type name (e.g., `String` or `lang.String`), which replaces a
+ * linear search through all type names for unqualified names.
+ *
+ * Records that are inferred by a pass need to be added using [set], so that later passes see them
+ * as well.
+ */
+class RecordIndex {
+    private val byTypeName = LinkedHashMap<String, RecordDeclaration>()
+    private val byName = LinkedHashMap<String, RecordDeclaration>()
+    private val bySuffix = HashMap<String, String>()
+
+    /** All enums, in the order in which they were found. */
+    val enums = mutableListOf<EnumDeclaration>()
+
+    /** The number of translation units that the index was built from. */
+    private var translationUnits = 0
+
+    /** The type names of all records, in the order in which they were found. */
+    val typeNames: Set<String>
+        get() = byTypeName.keys
+
+    /** All records, unique by their type name. */
+    val records: Collection<RecordDeclaration>
+        get() = byTypeName.values
+
+    /** All records, unique by their name. */
+    val recordsByName: Collection<RecordDeclaration>
+        get() = byName.values
+
+    /** Returns the record with the type name [typeName]. */
+    operator fun get(typeName: String): RecordDeclaration? {
+        return byTypeName[typeName]
+    }
+
+    /** Returns true, if there is a record with the type name [typeName]. */
+    operator fun contains(typeName: String): Boolean {
+        return typeName in byTypeName
+    }
+
+    /** Registers [record] under [typeName], e.g., after the record was inferred. */
+    operator fun set(typeName: String, record: RecordDeclaration) {
+        if (byTypeName.put(typeName, record) == null) {
+            indexSuffixes(typeName)
+        }
+        byName.putIfAbsent(record.name, record)
+    }
+
+    /** Returns the record with the name [name]. */
+    fun byName(name: String): RecordDeclaration? {
+        return byName[name]
+    }
+
+    /**
+     * Returns the first type name (in the order in which the records were found) that ends with
+     * `.[suffix]`, or null if there is none.
+     */
+    fun findBySuffix(suffix: String): String? {
+        return bySuffix[suffix]
+    }
+
+    /** Adds [record] under its type name, unless there is a record with this type name already. */
+    fun add(record: RecordDeclaration) {
+        // The type name is not the same as the node's name! So, we have to be careful when using
+        // the index!
+        val typeName = TypeParser.createFrom(record.name, record.language).typeName
+        if (byTypeName.putIfAbsent(typeName, record) == null) {
+            indexSuffixes(typeName)
+        }
+        byName.putIfAbsent(record.name, record)
+    }
+
+    private fun indexSuffixes(typeName: String) {
+        // TODO: Is the "." correct here for all languages?
+        var dot = typeName.indexOf('.')
+        while (dot >= 0) {
+            bySuffix.putIfAbsent(typeName.substring(dot + 1), typeName)
+            dot = typeName.indexOf('.', dot + 1)
+        }
+    }
+
+    companion object {
+        /**
+         * Returns the index of [result]. It is built on the first request and cached in the
+         * [TranslationResult.getScratch] storage, until translation units are added to the result.
+         */
+        @JvmStatic
+        fun of(result: TranslationResult): RecordIndex {
+            val key = RecordIndex::class.java.name
+            val cached = result.scratch[key] as? RecordIndex
+            if (cached != null && cached.translationUnits == result.translationUnits.size) {
+                return cached
+            }
+
+            return build(result).also { result.scratch[key] = it }
+        }
+
+        /** Builds a new (uncached) index of all records and enums of [result]. */
+        @JvmStatic
+        fun build(result: TranslationResult): RecordIndex {
+            val index = RecordIndex()
+            for (tu in result.translationUnits) {
+                // Using a visitor to avoid loops in the AST
+                tu.accept(
+                    { Strategy.AST_FORWARD(it) },
+                    object : IVisitor<Node?>() {
+                        override fun visit(child: Node) {
+                            if (child is RecordDeclaration) {
+                                index.add(child)
+                            } else if (child is EnumDeclaration) {
+                                index.enums.add(child)
+                            }
+                        }
+                    }
+                )
+            }
+            index.translationUnits = result.translationUnits.size
+
+            return index
+        }
+    }
+}
@@ -25,6 +25,7 @@
  */
 package de.fraunhofer.aisec.cpg.passes
 
+import de.fraunhofer.aisec.cpg.TranslationResult
 import de.fraunhofer.aisec.cpg.frontends.HasSuperClasses
 import de.fraunhofer.aisec.cpg.graph.*
 import de.fraunhofer.aisec.cpg.graph.declarations.*
@@ -36,21 +37,14 @@ abstract class SymbolResolverPass : Pass() {
     protected lateinit var walker: SubgraphWalker.ScopedWalker
     lateinit var currentTU: TranslationUnitDeclaration
 
-    val recordMap = mutableMapOf<String, RecordDeclaration>()
+    /** The shared [RecordIndex] of the current [TranslationResult]. */
+    var recordIndex = RecordIndex()
+        protected set
+
     protected val enumMap = mutableMapOf<Type, EnumDeclaration>()
     protected val templateList = mutableListOf<TemplateDeclaration>()
     protected val superTypesMap = mutableMapOf<String, List<Type>>()
 
-    /** Maps the name of the type of record declarations to its declaration. */
-    protected fun findRecords(node: Node) {
-        if (node is RecordDeclaration) {
-            // The type name is not the same as the node's name! So, we have to be careful when
-            // using the map!
-            val type = TypeParser.createFrom(node.name, node.language)
-            recordMap.putIfAbsent(type.typeName, node)
-        }
-    }
-
     /** Maps the type of enums to its declaration. */
     protected fun findEnums(node: Node) {
         if (node is EnumDeclaration) {
@@ -94,8 +88,9 @@ abstract class SymbolResolverPass : Pass() {
     }
 
     protected fun collectSupertypes() {
-        val currSuperTypes = recordMap.mapValues { (_, value) -> value.superTypes }
-        superTypesMap.putAll(currSuperTypes)
+        for (typeName in recordIndex.typeNames) {
+            recordIndex[typeName]?.let { superTypesMap[typeName] = it.superTypes }
+        }
     }
 
     /**
@@ -118,7 +113,7 @@ abstract class SymbolResolverPass : Pass() {
 
     override fun cleanup() {
         superTypesMap.clear()
-        recordMap.clear()
+        recordIndex = RecordIndex()
         enumMap.clear()
         templateList.clear()
     }
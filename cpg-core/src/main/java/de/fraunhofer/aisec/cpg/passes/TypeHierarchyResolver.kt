@@ -26,14 +26,10 @@
 package de.fraunhofer.aisec.cpg.passes
 
 import de.fraunhofer.aisec.cpg.TranslationResult
-import de.fraunhofer.aisec.cpg.graph.Node
-import de.fraunhofer.aisec.cpg.graph.declarations.EnumDeclaration
 import de.fraunhofer.aisec.cpg.graph.declarations.MethodDeclaration
 import de.fraunhofer.aisec.cpg.graph.declarations.RecordDeclaration
 import de.fraunhofer.aisec.cpg.graph.types.Type
 import de.fraunhofer.aisec.cpg.helpers.SubgraphWalker
-import de.fraunhofer.aisec.cpg.processing.IVisitor
-import de.fraunhofer.aisec.cpg.processing.strategy.Strategy
 import java.util.*
 
 /**
@@ -54,21 +50,22 @@ import java.util.*
  * information in the graph might not be fully correct
  */
 open class TypeHierarchyResolver : Pass() {
-    protected val recordMap = mutableMapOf<String, RecordDeclaration>()
-    protected val enums = mutableListOf<EnumDeclaration>()
+    /** The shared [RecordIndex] of the current [TranslationResult]. */
+    protected var recordIndex = RecordIndex()
 
     override fun accept(translationResult: TranslationResult) {
-        for (tu in translationResult.translationUnits) {
-            findRecordsAndEnums(tu)
-        }
-        for (recordDecl in recordMap.values) {
+        recordIndex = RecordIndex.of(translationResult)
+
+        for (recordDecl in recordIndex.recordsByName) {
             val supertypeRecords = findSupertypeRecords(recordDecl)
             val allMethodsFromSupertypes = getAllMethodsFromSupertypes(supertypeRecords)
             analyzeOverridingMethods(recordDecl, allMethodsFromSupertypes)
         }
-        for (enumDecl in enums) {
+        for (enumDecl in recordIndex.enums) {
             val directSupertypeRecords =
-                enumDecl.superTypes.mapNotNull { s: Type -> recordMap[s.toString()] }.toSet()
+                enumDecl.superTypes
+                    .mapNotNull { s: Type -> recordIndex.byName(s.toString()) }
+                    .toSet()
             val allSupertypes =
                 directSupertypeRecords.map { findSupertypeRecords(it) }.flatten().toSet()
             enumDecl.superTypeDeclarations = allSupertypes
@@ -77,22 +74,6 @@ open class TypeHierarchyResolver : Pass() {
         translationResult.translationUnits.forEach { SubgraphWalker.refreshType(it) }
     }
 
-    protected fun findRecordsAndEnums(node: Node) {
-        // Using a visitor to avoid loops in the AST
-        node.accept(
-            { Strategy.AST_FORWARD(it) },
-            object : IVisitor<Node?>() {
-                override fun visit(child: Node) {
-                    if (child is RecordDeclaration) {
-                        recordMap.putIfAbsent(child.name, child)
-                    } else if (child is EnumDeclaration) {
-                        enums.add(child)
-                    }
-                }
-            }
-        )
-    }
-
     protected fun getAllMethodsFromSupertypes(
         supertypeRecords: Set<RecordDeclaration>
     ): List<MethodDeclaration> {
@@ -101,7 +82,7 @@ open class TypeHierarchyResolver : Pass() {
 
     protected fun findSupertypeRecords(recordDecl: RecordDeclaration): Set<RecordDeclaration> {
         val superTypeDeclarations =
-            recordDecl.superTypes.mapNotNull { recordMap[it.typeName] }.toSet()
+            recordDecl.superTypes.mapNotNull { recordIndex.byName(it.typeName) }.toSet()
         recordDecl.superTypeDeclarations = superTypeDeclarations
         return superTypeDeclarations
     }
@@ -119,6 +100,6 @@ open class TypeHierarchyResolver : Pass() {
     }
 
     override fun cleanup() {
-        // nothing to do
+        recordIndex = RecordIndex()
     }
 }
@@ -37,10 +37,11 @@ import de.fraunhofer.aisec.cpg.graph.statements.expressions.DeclaredReferenceExp
 import de.fraunhofer.aisec.cpg.graph.statements.expressions.MemberCallExpression
 import de.fraunhofer.aisec.cpg.graph.statements.expressions.MemberExpression
 import de.fraunhofer.aisec.cpg.graph.types.*
-import de.fraunhofer.aisec.cpg.helpers.SubgraphWalker.ScopedWalker
+import de.fraunhofer.aisec.cpg.helpers.FusedWalker
 import de.fraunhofer.aisec.cpg.helpers.Util
 import de.fraunhofer.aisec.cpg.passes.inference.startInference
 import de.fraunhofer.aisec.cpg.passes.order.DependsOn
+import de.fraunhofer.aisec.cpg.passes.order.TranslationUnitLocal
 import java.util.regex.Pattern
 import org.slf4j.LoggerFactory
 
@@ -61,34 +62,34 @@ import org.slf4j.LoggerFactory
  * rather makes their "refersTo" point to the appropriate [ValueDeclaration].
  */
 @DependsOn(TypeHierarchyResolver::class)
+@TranslationUnitLocal
 open class VariableUsageResolver : SymbolResolverPass() {
 
     override fun accept(result: TranslationResult) {
         scopeManager = result.scopeManager
         config = result.config
+        recordIndex = RecordIndex.of(result)
 
-        walker = ScopedWalker(scopeManager)
-        for (tu in result.translationUnits) {
-            currentTU = tu
-            walker.clearCallbacks()
-            walker.registerHandler { _, _, currNode -> walker.collectDeclarations(currNode) }
-            walker.registerHandler { node, _ -> findRecords(node) }
-            walker.registerHandler { node, _ -> findEnums(node) }
-            walker.iterate(currentTU)
+        val fusedWalker = FusedWalker(scopeManager)
+        walker = fusedWalker.walker
+        fusedWalker.registerHandler(COLLECT) { _, _, node ->
+            if (node is TranslationUnitDeclaration) {
+                currentTU = node
+            }
         }
+        fusedWalker.registerHandler(COLLECT) { _, _, node -> walker.collectDeclarations(node) }
+        fusedWalker.registerHandler(COLLECT) { _, _, node -> findEnums(node) }
 
-        collectSupertypes()
+        // Usages can only be resolved once all records and their supertypes are known
+        fusedWalker.registerBarrier(COLLECT) { collectSupertypes() }
 
-        for (tu in result.translationUnits) {
-            walker.clearCallbacks()
-            walker.registerHandler { curClass, _, node -> resolveFieldUsages(curClass, node) }
-            walker.iterate(tu)
-        }
-        for (tu in result.translationUnits) {
-            walker.clearCallbacks()
-            walker.registerHandler(::resolveLocalVarUsage)
-            walker.iterate(tu)
+        // A member expression is visited before its base, so the field usages of a node are always
+        // resolved before its local usages and both can share a single walk
+        fusedWalker.registerHandler(FIELD_USAGES) { curClass, _, node ->
+            resolveFieldUsages(curClass, node)
         }
+        fusedWalker.registerHandler(LOCAL_USAGES, ::resolveLocalVarUsage)
+        fusedWalker.iterate(result.translationUnits)
     }
 
     private fun resolveFunctionPtr(
@@ -116,7 +117,7 @@ open class VariableUsageResolver : SymbolResolverPass() {
 
         return handleUnknownFunction(
             if (containingClass != null) {
-                recordMap[containingClass.typeName]
+                recordIndex[containingClass.typeName]
             } else {
                 null
             },
@@ -167,7 +168,7 @@ open class VariableUsageResolver : SymbolResolverPass() {
             refersTo == null &&
                 !current.isStaticAccess &&
                 recordDeclType != null &&
-                recordDeclType.typeName in recordMap
+                recordDeclType.typeName in recordIndex
         ) {
             // Maybe we are referring to a field instead of a local var
             if (language != null && language.namespaceDelimiter in current.name) {
@@ -238,7 +239,7 @@ open class VariableUsageResolver : SymbolResolverPass() {
             ) {
                 if (curClass != null && curClass.superClasses.isNotEmpty()) {
                     val superType = curClass.superClasses[0]
-                    val superRecord = recordMap[superType.typeName]
+                    val superRecord = recordIndex[superType.typeName]
                     if (superRecord == null) {
                         log.error(
                             "Could not find referring super type ${superType.typeName} for ${curClass.name} in the record map. Will set the super type to java.lang.Object"
@@ -280,12 +281,8 @@ open class VariableUsageResolver : SymbolResolverPass() {
                 }
             } else if (baseTarget is RecordDeclaration) {
                 var baseType = TypeParser.createFrom(baseTarget.name, baseTarget.language)
-                if (baseType.typeName !in recordMap) {
-                    val containingT = baseType
-                    val fqnResolvedType =
-                        recordMap.keys.firstOrNull {
-                            it.endsWith("." + containingT.name)
-                        } // TODO: Is the "." correct here for all languages?
+                if (baseType.typeName !in recordIndex) {
+                    val fqnResolvedType = recordIndex.findBySuffix(baseType.name)
                     if (fqnResolvedType != null) {
                         baseType = TypeParser.createFrom(fqnResolvedType, baseTarget.language)
                     }
@@ -295,8 +292,8 @@ open class VariableUsageResolver : SymbolResolverPass() {
             }
         }
         var baseType = current.base.type
-        if (baseType.typeName !in recordMap) {
-            val fqnResolvedType = recordMap.keys.firstOrNull { it.endsWith("." + baseType.name) }
+        if (baseType.typeName !in recordIndex) {
+            val fqnResolvedType = recordIndex.findBySuffix(baseType.name)
             if (fqnResolvedType != null) {
                 baseType = TypeParser.createFrom(fqnResolvedType, baseType.language)
             }
@@ -313,8 +310,8 @@ open class VariableUsageResolver : SymbolResolverPass() {
         // check if this refers to an enum
         return if (reference.type in enumMap) {
             enumMap[reference.type]
-        } else if (reference.type.typeName in recordMap) {
-            recordMap[reference.type.typeName]
+        } else if (reference.type.typeName in recordIndex) {
+            recordIndex[reference.type.typeName]
         } else {
             null
         }
@@ -331,9 +328,9 @@ open class VariableUsageResolver : SymbolResolverPass() {
         }
         val simpleName = Util.getSimpleName(reference.language, reference.name)
         var member: FieldDeclaration? = null
-        if (containingClass !is UnknownType && containingClass.typeName in recordMap) {
+        if (containingClass !is UnknownType && containingClass.typeName in recordIndex) {
             member =
-                recordMap[containingClass.typeName]!!
+                recordIndex[containingClass.typeName]!!
                     .fields
                     .filter { it.name == simpleName }
                     .map { it.definition }
@@ -343,7 +340,7 @@ open class VariableUsageResolver : SymbolResolverPass() {
             member =
                 superTypesMap
                     .getOrDefault(containingClass.typeName, listOf())
-                    .mapNotNull { recordMap[it.typeName] }
+                    .mapNotNull { recordIndex[it.typeName] }
                     .flatMap { it.fields }
                     .filter { it.name == simpleName }
                     .map { it.definition }
@@ -361,7 +358,7 @@ open class VariableUsageResolver : SymbolResolverPass() {
             return handleUnknownField(base.elementType, name, type)
         }
 
-        if (base.typeName !in recordMap) {
+        if (base.typeName !in recordIndex) {
             // No matching record in the map? If we should infer it, we do so, otherwise we stop.
             if (config?.inferenceConfiguration?.inferRecords != true) return null
 
@@ -374,10 +371,10 @@ open class VariableUsageResolver : SymbolResolverPass() {
                 }
             val record = base.startInference().inferRecordDeclaration(base, currentTU, kind)
             // update the record map
-            if (record != null) recordMap[base.typeName] = record
+            if (record != null) recordIndex[base.typeName] = record
         }
 
-        val recordDeclaration = recordMap[base.typeName]
+        val recordDeclaration = recordIndex[base.typeName]
         if (recordDeclaration == null) {
             log.error(
                 "There is no matching record in the record map. Can't identify which field is used."
@@ -443,5 +440,10 @@ open class VariableUsageResolver : SymbolResolverPass() {
 
     companion object {
         private val log = LoggerFactory.getLogger(VariableUsageResolver::class.java)
+
+        /** The phases of the [FusedWalker] used by this pass. */
+        private const val COLLECT = 0
+        private const val FIELD_USAGES = 1
+        private const val LOCAL_USAGES = 2
     }
 }
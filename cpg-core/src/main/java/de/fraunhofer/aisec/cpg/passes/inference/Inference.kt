@@ -48,7 +48,8 @@ import org.slf4j.LoggerFactory
  * Since this class implements [IsInferredProvider], all nodes that are created using the node
  * builder functions, will automatically have [Node.isInferred] set to true.
  */
-class Inference(val start: Node) : LanguageProvider, IsInferredProvider {
+class Inference(val start: Node) :
+    LanguageProvider, IsInferredProvider, GraphModificationsProvider {
     val log: Logger = LoggerFactory.getLogger(Inference::class.java)
 
     override val language: Language<out LanguageFrontend>?
@@ -100,6 +101,7 @@ class Inference(val start: Node) : LanguageProvider, IsInferredProvider {
         inferred.type = returnType
 
         // TODO: Handle multiple return values?
+        GraphModifications.of(start).declarationInferred()
         if (declarationHolder is RecordDeclaration) {
             declarationHolder.addMethod(inferred as MethodDeclaration)
             if (isStatic) {
@@ -122,6 +124,7 @@ class Inference(val start: Node) : LanguageProvider, IsInferredProvider {
         inferred.parameters = createInferredParameters(signature)
 
         (start as? RecordDeclaration)?.addConstructor(inferred)
+        GraphModifications.of(start).declarationInferred()
         return inferred
     }
 
@@ -230,6 +233,7 @@ class Inference(val start: Node) : LanguageProvider, IsInferredProvider {
         val inferred = newFunctionTemplateDeclaration(name, code)
         inferred.isInferred = true
 
+        GraphModifications.of(start).declarationInferred()
         val inferredRealization: FunctionDeclaration =
             if (record != null) {
                 record.addDeclaration(inferred)
@@ -295,11 +299,15 @@ class Inference(val start: Node) : LanguageProvider, IsInferredProvider {
 
         // add this record declaration to the current TU (this bypasses the scope manager)
         currentTU.addDeclaration(declaration)
+        GraphModifications.of(start).declarationInferred()
         return declaration
     }
 
     override val isInferred: Boolean
         get() = true
+
+    override val modifications: GraphModifications?
+        get() = start.modifications
 }
 
 /** Provides information about the inference status of a node. */
@@ -34,6 +34,7 @@ import de.fraunhofer.aisec.cpg.graph.statements.expressions.DeclaredReferenceExp
 import de.fraunhofer.aisec.cpg.graph.types.FunctionPointerType
 import de.fraunhofer.aisec.cpg.graph.types.IncompleteType
 import de.fraunhofer.aisec.cpg.graph.types.Type
+import de.fraunhofer.aisec.cpg.helpers.IdentitySet
 import de.fraunhofer.aisec.cpg.helpers.Util
 import de.fraunhofer.aisec.cpg.processing.IVisitor
 import de.fraunhofer.aisec.cpg.processing.strategy.Strategy
@@ -56,7 +57,15 @@ import org.slf4j.LoggerFactory
  * than adding the declaration to the node itself. This ensures that all declarations are properly
  * registered in the scope map and can be resolved later.
  */
-class ScopeManager : ScopeProvider {
+class ScopeManager
+@JvmOverloads
+constructor(
+    /**
+     * The modifications of the graph that is built with this scope manager. Scope managers that
+     * build parts of the same graph, e.g., when parsing in parallel, share them.
+     */
+    override val modifications: GraphModifications = GraphModifications()
+) : ScopeProvider, GraphModificationsProvider {
     /**
      * A map associating each CPG node with its scope. The key type is intentionally a nullable
      * [Node] because the [GlobalScope] is not associated to a CPG node when it is first created. It
@@ -185,6 +194,53 @@ class ScopeManager : ScopeProvider {
         }
     }
 
+    /**
+     * Replaces nodes that have been merged into a canonical instance, e.g. by the
+     * [de.fraunhofer.aisec.cpg.passes.HeaderDeduplicationPass]. Scopes of replaced nodes are either
+     * removed in favor of the scope of the canonical node (their remaining children are moved
+     * there) or re-associated with the canonical node. Replaced declarations are removed from all
+     * scopes and typedefs are redirected to their canonical declaration.
+     *
+     * @param replacements an identity-based map from each replaced node to its canonical node
+     */
+    fun replaceNodes(replacements: Map<Node, Node>) {
+        val scopes = IdentitySet<Scope>()
+        scopes.addAll(scopeMap.values)
+
+        for ((replaced, canonical) in replacements) {
+            val scope = scopeMap.remove(replaced) ?: continue
+            val target = scopeMap[canonical]
+            if (target == null) {
+                scope.astNode = canonical
+                scopeMap[canonical] = scope
+            } else if (target !== scope) {
+                for (child in scope.children) {
+                    if (child.astNode?.let { it in replacements } != true) {
+                        child.parent = target
+                        target.children.add(child)
+                    }
+                }
+                scope.parent?.children?.remove(scope)
+                scopes.remove(scope)
+            }
+        }
+
+        for (scope in scopes) {
+            // merged name scopes might still point to one of the replaced nodes
+            scope.astNode?.let { node -> replacements[node]?.let { scope.astNode = it } }
+
+            if (scope is ValueDeclarationScope) {
+                scope.valueDeclarations.removeIf { it in replacements }
+                scope.typedefs.replaceAll { _, typedef ->
+                    replacements[typedef] as? TypedefDeclaration ?: typedef
+                }
+            }
+            if (scope is StructureDeclarationScope) {
+                scope.structureDeclarations.removeIf { it in replacements }
+            }
+        }
+    }
+
     /**
      * Pushes the scope on the current scope stack. Used internally by [enterScope].
      *
@@ -25,6 +25,7 @@
  */
 package de.fraunhofer.aisec.cpg.sarif;
 
+import de.fraunhofer.aisec.cpg.helpers.Interner;
 import java.net.URI;
 import java.util.Objects;
 import org.jetbrains.annotations.NotNull;
@@ -48,12 +49,26 @@ public class PhysicalLocation {
 
   public static class ArtifactLocation {
 
+    private static final Interner<ArtifactLocation> POOL = new Interner<>();
+
     @NotNull private final URI uri;
 
     public ArtifactLocation(@NotNull URI uri) {
       this.uri = uri;
     }
 
+    /**
+     * Returns the shared artifact location of the given URI. Since all nodes of a file have the
+     * same artifact location, this avoids keeping a separate copy of it (and its URI) per node.
+     *
+     * @param uri the URI of the artifact
+     * @return the artifact location
+     */
+    @NotNull
+    public static ArtifactLocation of(@NotNull URI uri) {
+      return POOL.intern(new ArtifactLocation(uri));
+    }
+
     @NotNull
     public URI getUri() {
       return this.uri;
@@ -83,7 +98,11 @@ public class PhysicalLocation {
   @NotNull private Region region;
 
   public PhysicalLocation(URI uri, @NotNull Region region) {
-    this.artifactLocation = new ArtifactLocation(uri);
+    this(ArtifactLocation.of(uri), region);
+  }
+
+  public PhysicalLocation(@NotNull ArtifactLocation artifactLocation, @NotNull Region region) {
+    this.artifactLocation = artifactLocation;
     this.region = region;
   }
 
@@ -25,27 +25,48 @@
  */
 package de.fraunhofer.aisec.cpg
 
+import de.fraunhofer.aisec.cpg.TestUtils.analyze
 import de.fraunhofer.aisec.cpg.TestUtils.analyzeAndGetFirstTU
 import de.fraunhofer.aisec.cpg.frontends.TestLanguageFrontend
 import de.fraunhofer.aisec.cpg.frontends.cpp.CPPLanguage
 import de.fraunhofer.aisec.cpg.frontends.cpp.CXXLanguageFrontend
+import de.fraunhofer.aisec.cpg.graph.AccessValues
 import de.fraunhofer.aisec.cpg.graph.Node
+import de.fraunhofer.aisec.cpg.graph.calls
+import de.fraunhofer.aisec.cpg.graph.declarations.FunctionDeclaration
 import de.fraunhofer.aisec.cpg.graph.declarations.TranslationUnitDeclaration
 import de.fraunhofer.aisec.cpg.graph.declarations.VariableDeclaration
 import de.fraunhofer.aisec.cpg.graph.edge.PropertyEdge
+import de.fraunhofer.aisec.cpg.graph.functions
+import de.fraunhofer.aisec.cpg.graph.get
 import de.fraunhofer.aisec.cpg.graph.newLiteral
+import de.fraunhofer.aisec.cpg.graph.refs
 import de.fraunhofer.aisec.cpg.graph.statements.expressions.InitializerListExpression
 import de.fraunhofer.aisec.cpg.graph.types.ObjectType
 import de.fraunhofer.aisec.cpg.graph.types.Type
+import de.fraunhofer.aisec.cpg.graph.variables
 import de.fraunhofer.aisec.cpg.helpers.Benchmark
+import de.fraunhofer.aisec.cpg.helpers.IdentitySet
+import de.fraunhofer.aisec.cpg.helpers.MeasurementHolder
 import de.fraunhofer.aisec.cpg.helpers.SubgraphWalker
+import de.fraunhofer.aisec.cpg.helpers.snapshot.OffHeapGraph
+import de.fraunhofer.aisec.cpg.helpers.snapshot.Snapshot
+import de.fraunhofer.aisec.cpg.passes.ControlFlowSensitiveDFGPass
+import de.fraunhofer.aisec.cpg.passes.FunctionPointerCallResolver
+import de.fraunhofer.aisec.cpg.sarif.PhysicalLocation
+import java.lang.management.ManagementFactory
+import java.net.URI
+import java.nio.file.Path
 import java.time.Duration
 import java.time.temporal.ChronoUnit
 import kotlin.io.path.writeText
 import kotlin.test.Ignore
 import kotlin.test.Test
+import kotlin.test.assertEquals
 import kotlin.test.assertNotNull
+import kotlin.test.assertTrue
 import org.junit.jupiter.api.assertTimeout
+import org.junit.jupiter.api.io.TempDir
 
 class PerformanceRegressionTest {
     /**
@@ -123,6 +144,254 @@ class PerformanceRegressionTest {
         }
     }
 
+    /**
+     * Generates a large function with many local variables that are written inside a loop and a
+     * switch statement. Before the [ControlFlowSensitiveDFGPass] was based on a reaching
+     * definitions analysis, the number of states of such a function exploded.
+     */
+    @Test
+    fun testControlFlowSensitiveDFGLargeFunction() {
+        val variables = 200
+        val code = StringBuilder("int large(int n) {\n")
+        for (i in 0 until variables) {
+            code.append("  int v$i = $i;\n")
+        }
+        code.append("  for (int i = 0; i < n; i++) {\n")
+        code.append("    switch (i % $variables) {\n")
+        for (i in 0 until variables) {
+            code.append("      case $i: v$i = v${(i + 1) % variables} + i; break;\n")
+        }
+        code.append("    }\n")
+        code.append("  }\n")
+        code.append("  return v0;\n")
+        code.append("}\n")
+
+        val tmp = kotlin.io.path.createTempFile("large_function", ".c")
+        tmp.writeText(code.toString())
+
+        assertTimeout(Duration.of(30, ChronoUnit.SECONDS)) {
+            val b = Benchmark(PerformanceRegressionTest::class.java, "Large function")
+            val tu =
+                analyzeAndGetFirstTU(listOf(tmp.toFile()), tmp.parent, true) {
+                    it.useParallelFrontends(false)
+                }
+            b.addMeasurement()
+
+            // The read of v1 in case 0 is reached by its initializer and the write in case 1
+            val v1 = tu.variables["v1"]
+            assertNotNull(v1)
+            val reads = tu.refs.filter { it.refersTo == v1 && it.access == AccessValues.READ }
+            assertTrue(reads.isNotEmpty())
+            assertTrue(reads.all { it.prevDFG.size == 2 })
+        }
+    }
+
+    /**
+     * Generates a dispatch table, i.e., a global function pointer that is assigned many different
+     * handlers and then called from many call sites. Each call site needs the same set of
+     * candidates, which the [FunctionPointerCallResolver] computes only once using its memoized
+     * points-to sets.
+     */
+    @Test
+    fun testFunctionPointerDispatchTable() {
+        val handlers = 50
+        val callSites = 1000
+        val code = StringBuilder("int (*dispatch)(int);\n")
+        for (i in 0 until handlers) {
+            code.append("int h$i(int x) { return x + $i; }\n")
+            code.append("void install$i() { dispatch = &h$i; }\n")
+        }
+        for (i in 0 until callSites) {
+            code.append("int call$i(int x) { return dispatch(x); }\n")
+        }
+
+        val tmp = kotlin.io.path.createTempFile("dispatch_table", ".c")
+        tmp.writeText(code.toString())
+
+        assertTimeout(Duration.of(60, ChronoUnit.SECONDS)) {
+            val b = Benchmark(PerformanceRegressionTest::class.java, "Dispatch table")
+            val tu =
+                analyzeAndGetFirstTU(listOf(tmp.toFile()), tmp.parent, true) {
+                    it.useParallelFrontends(false)
+                }
+            b.addMeasurement()
+
+            val targets = tu.functions.filter { it.name.startsWith("h") }.toSet()
+            assertEquals(handlers, targets.size)
+
+            val calls = tu.calls.filter { it.name == "dispatch" }
+            assertEquals(callSites, calls.size)
+            assertTrue(calls.all { it.invokes.toSet() == targets })
+        }
+    }
+
+    /**
+     * Measures the time it takes to load a snapshot of an analyzed graph and the time it takes to
+     * analyze the same code again. Loading should be considerably faster, since no frontend or
+     * pass needs to run. The times are only logged, since they depend on the machine.
+     */
+    @Test
+    fun testSnapshotLoad(@TempDir directory: Path) {
+        val file = directory.resolve("snapshot.c")
+        file.writeText(generateFunctions(500))
+        val snapshot = directory.resolve("snapshot.cpg")
+
+        assertTimeout(Duration.of(120, ChronoUnit.SECONDS)) {
+            var b = Benchmark(PerformanceRegressionTest::class.java, "Analysis")
+            val result =
+                analyze(listOf(file.toFile()), directory, true) { it.useParallelFrontends(false) }
+            b.addMeasurement()
+
+            b = Benchmark(PerformanceRegressionTest::class.java, "Save snapshot")
+            Snapshot.save(result, snapshot)
+            b.addMeasurement()
+
+            b = Benchmark(PerformanceRegressionTest::class.java, "Load snapshot")
+            val loaded = Snapshot.load(snapshot)
+            b.addMeasurement()
+
+            assertEquals(result.functions.size, loaded.functions.size)
+            assertEquals(result.calls.size, loaded.calls.size)
+        }
+    }
+
+    /**
+     * Compares the heap that is needed for a large synthetic graph with the heap that is needed if
+     * the graph is stored in an [OffHeapGraph], as well as the time spent in garbage collection
+     * while querying it.
+     */
+    @Test
+    fun testOffHeapGraph(@TempDir tmp: Path) {
+        val file = tmp.resolve("offheap.c")
+        file.writeText(generateFunctions(2000))
+        val directory = tmp.resolve("graph")
+        val stats = MeasurementHolder(PerformanceRegressionTest::class.java, "Off-heap graph", true)
+
+        assertTimeout(Duration.of(300, ChronoUnit.SECONDS)) {
+            val (graph, functions, dfgEdges) = writeOffHeapGraph(file, directory, stats)
+
+            // Only the handles remain, the graph itself can be collected
+            stats.addMeasurement("Heap without graph", "${usedHeap()} MB")
+
+            graph.use {
+                val gcTime = gcTime()
+                val query = Benchmark(PerformanceRegressionTest::class.java, "Off-heap query")
+                assertEquals(functions, it.nodes.count { n -> n.isA<FunctionDeclaration>() })
+                assertTrue(it.nodes.sumOf { n -> n.nextDFG.size } >= dfgEdges)
+                query.addMeasurement()
+                stats.addMeasurement("GC time during query", "${gcTime() - gcTime} ms")
+            }
+        }
+    }
+
+    /**
+     * Analyzes [file] and stores the result in an [OffHeapGraph] in [directory]. Returns the graph
+     * together with the number of functions and DFG edges of the result, which is no longer
+     * reachable afterwards.
+     */
+    private fun writeOffHeapGraph(
+        file: Path,
+        directory: Path,
+        stats: MeasurementHolder
+    ): Triple<OffHeapGraph, Int, Int> {
+        val result =
+            analyze(listOf(file.toFile()), file.parent, true) { it.useParallelFrontends(false) }
+        val functions = result.functions.size
+        val dfgEdges = SubgraphWalker.flattenAST(result).sumOf { it.nextDFG.size }
+        stats.addMeasurement("Heap with graph", "${usedHeap()} MB")
+
+        val b = Benchmark(PerformanceRegressionTest::class.java, "Write off-heap graph")
+        val graph = OffHeapGraph.write(result, directory)
+        b.addMeasurement()
+
+        return Triple(graph, functions, dfgEdges)
+    }
+
+    /**
+     * Compares the heap that is needed for a large synthetic C++ project, in which names and
+     * locations are interned, with the heap that is needed if every node had its own copy of them.
+     */
+    @Test
+    fun testInterning(@TempDir directory: Path) {
+        val files =
+            (0 until 20).map { f ->
+                val code =
+                    "namespace project {\nnamespace module$f {\n" +
+                        generateFunctions(200, "function", "value", "result") +
+                        "}\n}\n"
+
+                val file = directory.resolve("module$f.cpp")
+                file.writeText(code)
+                file.toFile()
+            }
+        val stats = MeasurementHolder(PerformanceRegressionTest::class.java, "Interning", true)
+
+        assertTimeout(Duration.of(300, ChronoUnit.SECONDS)) {
+            val result = analyze(files, directory, true) { it.useParallelFrontends(false) }
+            val nodes = SubgraphWalker.flattenAST(result).filter { it.location != null }
+
+            // All nodes of a file share one artifact location
+            val artifactLocations = IdentitySet<PhysicalLocation.ArtifactLocation>()
+            nodes.forEach { artifactLocations += it.location!!.artifactLocation }
+            assertEquals(files.size, artifactLocations.size)
+
+            // Equal local names are the same instance
+            val localNames = IdentitySet<String>()
+            nodes.forEach { localNames += it.name }
+            assertEquals(nodes.map { it.name }.toSet().size, localNames.size)
+
+            val interned = usedHeap()
+            stats.addMeasurement("Nodes", "${nodes.size}")
+            stats.addMeasurement("Heap with interning", "$interned MB")
+
+            // Give every node its own copy, like it was before interning
+            for (node in nodes) {
+                val location = node.location!!
+                val uri = URI(location.artifactLocation.uri.toString())
+                node.location =
+                    PhysicalLocation(PhysicalLocation.ArtifactLocation(uri), location.region)
+                node.fullName.localName = String(node.fullName.localName.toCharArray())
+            }
+
+            val copied = usedHeap()
+            stats.addMeasurement("Heap without interning", "$copied MB")
+            // Keep the graph reachable until here
+            assertEquals(files.size, result.translationUnits.size)
+        }
+    }
+
+    /**
+     * Generates [count] C functions, which are named [function] followed by their index. Each of
+     * them computes a [local] variable from its [parameter] and, depending on it, calls the
+     * function with half its index.
+     */
+    private fun generateFunctions(
+        count: Int,
+        function: String = "f",
+        parameter: String = "a",
+        local: String = "b"
+    ): String {
+        val code = StringBuilder()
+        for (i in 0 until count) {
+            code.append("int $function$i(int $parameter) { int $local = $parameter * $i;")
+            code.append(" if ($local > 10) { $local = $function${i / 2}($local); }")
+            code.append(" return $local; }\n")
+        }
+
+        return code.toString()
+    }
+
+    private fun usedHeap(): Long {
+        System.gc()
+        val runtime = Runtime.getRuntime()
+
+        return (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024)
+    }
+
+    private fun gcTime(): Long {
+        return ManagementFactory.getGarbageCollectorMXBeans().sumOf { it.collectionTime }
+    }
+
     fun doNothing(node: Node) {
         for (child in SubgraphWalker.getAstChildren(node)) {
             doNothing(child)
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg
+
+import de.fraunhofer.aisec.cpg.SymbolCatalog.Kind
+import de.fraunhofer.aisec.cpg.graph.calls
+import de.fraunhofer.aisec.cpg.graph.declarations.TranslationUnitDeclaration
+import de.fraunhofer.aisec.cpg.graph.functions
+import de.fraunhofer.aisec.cpg.graph.refs
+import java.io.File
+import java.nio.file.Path
+import kotlin.test.*
+
+class StreamingAnalysisTest : BaseTest() {
+    @Test
+    @Throws(Exception::class)
+    fun testStreaming() {
+        val topLevel = Path.of("src", "test", "resources", "streaming")
+        val config =
+            TranslationConfiguration.builder()
+                .sourceLocations(
+                    topLevel.resolve("main.c").toFile(),
+                    topLevel.resolve("util.c").toFile()
+                )
+                .topLevel(topLevel.toFile())
+                .defaultPasses()
+                .defaultLanguages()
+                .build()
+        val manager = TranslationManager.builder().config(config).build()
+
+        val files = mutableListOf<String>()
+        var finished: SymbolCatalog? = null
+        val catalog =
+            manager
+                .analyzeStreaming(
+                    object : TranslationUnitSink {
+                        override fun accept(
+                            result: TranslationResult,
+                            tu: TranslationUnitDeclaration
+                        ) {
+                            files += File(tu.name).name
+
+                            // Each file is analyzed on its own
+                            assertEquals(listOf(tu), result.translationUnits)
+
+                            // The translation-unit-local passes were executed
+                            val function = tu.functions.first { it.isDefinition }
+                            assertTrue(function.nextEOG.isNotEmpty())
+                            assertTrue(tu.refs.any { it.refersTo != null })
+                            assertTrue(tu.refs.any { it.prevDFG.isNotEmpty() })
+
+                            // ... as well as the passes they depend on, e.g., the CallResolver
+                            assertTrue(tu.calls.all { it.invokes.isNotEmpty() })
+                        }
+
+                        override fun finish(catalog: SymbolCatalog) {
+                            finished = catalog
+                        }
+                    }
+                )
+                .get()
+
+        assertEquals(listOf("main.c", "util.c"), files)
+        assertSame(catalog, finished)
+        assertEquals(2, catalog.translationUnits.size)
+
+        // The catalog contains the global symbols of all files and prefers definitions
+        val scale = catalog.lookup("scale", Kind.FUNCTION)
+        assertNotNull(scale)
+        assertTrue(scale.isDefinition)
+        assertTrue(scale.file.endsWith("util.c"))
+        assertEquals(2, catalog["scale"].size)
+        assertEquals("struct", catalog.lookup("point", Kind.RECORD)?.type)
+        assertEquals("int", catalog.lookup("counter", Kind.VARIABLE)?.type)
+        assertNull(catalog.lookup("a", Kind.VARIABLE))
+    }
+}
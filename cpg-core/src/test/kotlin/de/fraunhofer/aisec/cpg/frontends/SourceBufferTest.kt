@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.frontends
+
+import de.fraunhofer.aisec.cpg.BaseTest
+import de.fraunhofer.aisec.cpg.TestUtils
+import de.fraunhofer.aisec.cpg.TranslationConfiguration
+import de.fraunhofer.aisec.cpg.TranslationResult
+import de.fraunhofer.aisec.cpg.frontends.java.JavaLanguage
+import de.fraunhofer.aisec.cpg.frontends.java.JavaLanguageFrontend
+import de.fraunhofer.aisec.cpg.helpers.SubgraphWalker
+import de.fraunhofer.aisec.cpg.passes.scopes.ScopeManager
+import de.fraunhofer.aisec.cpg.sarif.Region
+import java.nio.file.Files
+import java.nio.file.Path
+import kotlin.io.path.createTempFile
+import kotlin.io.path.deleteIfExists
+import kotlin.test.*
+
+class SourceBufferTest : BaseTest() {
+    private val topLevel = Path.of("src", "test", "resources")
+
+    @Test
+    fun testOffsets() {
+        val buffer = SourceBuffer.of("int a;\n  int b;\n")
+        assertEquals(3, buffer.lines)
+        assertEquals(0, buffer.offsetOf(1, 1))
+        assertEquals(9, buffer.offsetOf(2, 3))
+        assertEquals(-1, buffer.offsetOf(2, 20))
+        assertEquals(-1, buffer.offsetOf(4, 1))
+        assertEquals("int b;", buffer.code(Region(2, 3, 2, 9)))
+        assertEquals("a;\n  int", buffer.code(Region(1, 5, 2, 6)))
+        assertNull(buffer.code(Region(2, 3, 1, 1)))
+        assertTrue(buffer.regionMatches(9, 15, "int b;"))
+        assertFalse(buffer.regionMatches(9, 15, "int a;"))
+    }
+
+    @Test
+    fun testMemoryMapped() {
+        val ascii = createTempFile("source", ".c")
+        val unicode = createTempFile("source", ".c")
+        try {
+            Files.writeString(ascii, "int a;\nint b;")
+            Files.writeString(unicode, "// ä\nint b;")
+
+            val mapped = SourceBuffer.load(ascii, true)
+            assertTrue(mapped.isMemoryMapped)
+            assertEquals("int b;", mapped.code(Region(2, 1, 2, 7)))
+            assertTrue(mapped.regionMatches(0, 6, "int a;"))
+
+            // Non-ASCII files are decoded into a string instead
+            val decoded = SourceBuffer.load(unicode, true)
+            assertFalse(decoded.isMemoryMapped)
+            assertEquals("// ä", decoded.code(Region(1, 1, 1, 5)))
+        } finally {
+            ascii.deleteIfExists()
+            unicode.deleteIfExists()
+        }
+    }
+
+    @Test
+    fun testCodeFromSourceBuffers() {
+        val eager = analyze(false)
+        val lazy = analyze(true)
+
+        val expectedNodes = eager.translationUnits.flatMap { SubgraphWalker.flattenAST(it) }
+        val actualNodes = lazy.translationUnits.flatMap { SubgraphWalker.flattenAST(it) }
+        assertEquals(expectedNodes.size, actualNodes.size)
+        for ((expected, actual) in expectedNodes.zip(actualNodes)) {
+            assertEquals(expected.code, actual.code)
+            assertEquals(expected.location, actual.location)
+        }
+
+        // Most nodes should share the buffers of their files instead of storing their code
+        val buffered = actualNodes.filter { it.sourceBuffer != null }
+        assertTrue(buffered.size > actualNodes.size / 2)
+        assertEquals(lazy.translationUnits.size, buffered.map { it.sourceBuffer }.distinct().size)
+
+        // Subregions are directly read from the buffer
+        val frontend =
+            JavaLanguageFrontend(
+                JavaLanguage(),
+                TranslationConfiguration.builder().build(),
+                ScopeManager()
+            )
+        val node = buffered.first { it.location!!.region.startLine != it.location!!.region.endLine }
+        val region = node.location!!.region
+        val subRegion = Region(region.startLine, region.startColumn, region.endLine, 1)
+        assertEquals(
+            node.code!!.substringBeforeLast('\n') + "\n",
+            frontend.getCodeOfSubregion(node, region, subRegion)
+        )
+    }
+
+    private fun analyze(codeFromSourceBuffers: Boolean): TranslationResult {
+        return TestUtils.analyze(
+            listOf(
+                topLevel.resolve("functionPointers/func_ptr.cpp").toFile(),
+                topLevel.resolve("dfg/BasicSlice.java").toFile()
+            ),
+            topLevel,
+            true
+        ) {
+            it.codeFromSourceBuffers(codeFromSourceBuffers, true)
+        }
+    }
+}
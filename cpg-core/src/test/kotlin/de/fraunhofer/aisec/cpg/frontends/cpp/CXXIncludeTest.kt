@@ -256,4 +256,40 @@ internal class CXXIncludeTest : BaseTest() {
             translationUnitDeclarations[0].getDeclarationAs(0, RecordDeclaration::class.java)
         assertNull(recordDeclaration)
     }
+
+    @Test
+    fun testHeaderCache() {
+        val path = File("src/test/resources/include.h").absolutePath
+        val cache = CXXHeaderCache()
+
+        assertTrue(cache.inclusionExists(path))
+        assertFalse(cache.inclusionExists("$path.does-not-exist"))
+
+        // candidates of the same include name are answered from its resolution in the search path
+        val directory = File(path).parent
+        val searchPath = listOf(File(directory, "does-not-exist").path, directory)
+        assertFalse(cache.inclusionExists(File(searchPath[0], "include.h").path, searchPath))
+        assertTrue(cache.inclusionExists(path, searchPath))
+        assertFalse(cache.inclusionExists(File(directory, "missing.h").path, searchPath))
+
+        val first = cache.getContent(path)
+        assertNotNull(first)
+        assertEquals(0, cache.hits.get())
+        assertEquals(1, cache.misses.get())
+
+        // the second request should be served from the cache, but in a new content object
+        val second = cache.getContent(path)
+        assertNotNull(second)
+        assertNotSame(first, second)
+        assertEquals(1, cache.hits.get())
+        assertEquals(1, cache.misses.get())
+        assertEquals(first.source.length, second.source.length)
+
+        // a cache that is too small to hold the file should always read it again
+        val tinyCache = CXXHeaderCache(1)
+        assertNotNull(tinyCache.getContent(path))
+        assertNotNull(tinyCache.getContent(path))
+        assertEquals(0, tinyCache.hits.get())
+        assertEquals(2, tinyCache.misses.get())
+    }
 }
@@ -47,6 +47,7 @@ import java.util.function.Consumer
 import java.util.stream.Collectors
 import kotlin.collections.set
 import kotlin.test.*
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPASTFunctionDefinition
 
 internal class CXXLanguageFrontendTest : BaseTest() {
     @Test
@@ -1337,6 +1338,20 @@ internal class CXXLanguageFrontendTest : BaseTest() {
         assertFalse(func.isInferred)
     }
 
+    @Test
+    @Throws(Exception::class)
+    fun testHandlerStatistics() {
+        val file = File("src/test/resources/cxx/functiondecl.cpp")
+        val result =
+            analyze(listOf(file), file.parentFile.toPath(), false) {
+                it.collectHandlerStatistics(true)
+            }
+
+        val measurements =
+            result.benchmarks.flatMap { it.measurements.keys }.filter { it.contains("Handler ") }
+        assertTrue(measurements.any { it.contains(CPPASTFunctionDefinition::class.java.name) })
+    }
+
     private fun createTypeFrom(typename: String, resolveAlias: Boolean) =
         TypeParser.createFrom(typename, CPPLanguage(), resolveAlias, null)
 }
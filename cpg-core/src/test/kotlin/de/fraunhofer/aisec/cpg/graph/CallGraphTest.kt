@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.graph
+
+import de.fraunhofer.aisec.cpg.TranslationConfiguration
+import de.fraunhofer.aisec.cpg.TranslationManager
+import de.fraunhofer.aisec.cpg.graph.declarations.FunctionDeclaration
+import java.io.File
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertNotNull
+import kotlin.test.assertNotSame
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+
+class CallGraphTest {
+    @Test
+    fun testCallGraph() {
+        val config =
+            TranslationConfiguration.builder()
+                .sourceLocations(File("src/test/resources/calls/Recursion.java"))
+                .defaultPasses()
+                .defaultLanguages()
+                .build()
+
+        val analyzer = TranslationManager.builder().config(config).build()
+        val result = analyzer.analyze().get()
+
+        val graph = CallGraph.of(result)
+        assertSame(graph, CallGraph.of(result))
+
+        val main = result.functions["main"]
+        assertNotNull(main)
+        val isEven = result.functions["isEven"]
+        assertNotNull(isEven)
+        val isOdd = result.functions["isOdd"]
+        assertNotNull(isOdd)
+        val factorial = result.functions["factorial"]
+        assertNotNull(factorial)
+        val leaf = result.functions["leaf"]
+        assertNotNull(leaf)
+
+        assertEquals(listOf(isEven, factorial, leaf), graph.callees(main))
+        assertEquals(listOf<FunctionDeclaration>(isOdd), graph.callees(isEven))
+        assertEquals(listOf<FunctionDeclaration>(isEven), graph.callers(isOdd))
+        assertEquals(listOf<FunctionDeclaration>(isOdd, main), graph.callers(isEven))
+        assertEquals(setOf<FunctionDeclaration>(main), result.callersOf(leaf))
+        assertEquals(1, graph.callSites(leaf).size)
+        assertEquals(2, graph.callSites(factorial).size)
+        assertEquals(graph.callSites(leaf), result.callsByName("leaf"))
+
+        // isEven and isOdd are mutually recursive, factorial calls itself
+        assertEquals(setOf<FunctionDeclaration>(isEven, isOdd), graph.componentOf(isOdd).toSet())
+        assertEquals(listOf<FunctionDeclaration>(factorial), graph.componentOf(factorial))
+        assertTrue(graph.isRecursive(isEven))
+        assertTrue(graph.isRecursive(factorial))
+        assertFalse(graph.isRecursive(leaf))
+        assertFalse(graph.isRecursive(main))
+
+        // Every component must come before the components it calls
+        val position = graph.components.withIndex().associate { (i, c) -> c to i }
+        for (caller in graph.functions) {
+            for (callee in graph.callees(caller)) {
+                assertTrue(
+                    position.getValue(graph.componentOf(caller)) <=
+                        position.getValue(graph.componentOf(callee))
+                )
+            }
+        }
+        assertEquals(graph.components.reversed(), graph.bottomUpComponents)
+
+        // Modifying the invokes edges of another graph does not invalidate the cached graph
+        val other = analyzer.analyze().get()
+        other.calls.first().invokes = listOf()
+        assertSame(graph, CallGraph.of(result))
+
+        // Modifying the invokes edges invalidates the cached graph
+        val call = graph.callSites(leaf).first()
+        call.invokes = listOf(isOdd)
+        val updated = CallGraph.of(result)
+        assertNotSame(graph, updated)
+        assertTrue(updated.callSites(leaf).isEmpty())
+        assertEquals(listOf<FunctionDeclaration>(isEven, main), updated.callers(isOdd))
+
+        // So do modifications of the edge list itself
+        call.invokesRelationship.clear()
+        val cleared = CallGraph.of(result)
+        assertNotSame(updated, cleared)
+        assertEquals(listOf<FunctionDeclaration>(isEven), cleared.callers(isOdd))
+
+        call.addInvoke(leaf)
+        assertEquals(listOf<FunctionDeclaration>(main), CallGraph.of(result).callers(leaf))
+    }
+}
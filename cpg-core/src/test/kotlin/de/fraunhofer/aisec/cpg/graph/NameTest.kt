@@ -59,5 +59,30 @@ internal class NameTest {
 
         val name = Name.parse(fqn, "::")
         assertEquals(fqn, name.toString())
+
+        // The strings of the namespaces are shared between parsed names, but not the names
+        // themselves, so that modifying one of them does not affect the other
+        val other = Name.parse("std::vector", "::")
+        assertSame(name.parent?.localName, other.parent?.localName)
+        assertNotSame(name.parent, other.parent)
+        other.parent?.localName = "boost"
+        assertEquals(fqn, name.toString())
+    }
+
+    @Test
+    fun testModify() {
+        val parent = Name("std")
+        val name = Name("string", parent, "::")
+        assertEquals("std::string", name.toString())
+        val hashCode = name.hashCode()
+
+        // The cached string must not be used anymore if the name or its parent changes
+        name.localName = "vector"
+        assertEquals("std::vector", name.toString())
+        assertNotEquals(hashCode, name.hashCode())
+
+        parent.localName = "boost"
+        assertEquals("boost::vector", name.toString())
+        assertEquals(Name("vector", Name("boost"), "::").hashCode(), name.hashCode())
     }
 }
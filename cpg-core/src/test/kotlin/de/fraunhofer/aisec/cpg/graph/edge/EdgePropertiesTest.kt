@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.graph.edge
+
+import de.fraunhofer.aisec.cpg.graph.statements.expressions.Literal
+import java.util.*
+import kotlin.test.*
+
+class EdgePropertiesTest {
+    @Test
+    fun testInlineProperties() {
+        val properties = EdgeProperties()
+        assertTrue(properties.isEmpty())
+
+        properties[Properties.INDEX] = 1000
+        properties[Properties.BRANCH] = false
+        properties[Properties.UNREACHABLE] = true
+        properties[Properties.NAME] = "a"
+
+        assertEquals(4, properties.size)
+        assertEquals(1000, properties[Properties.INDEX])
+        assertEquals(false, properties[Properties.BRANCH])
+        assertEquals(true, properties[Properties.UNREACHABLE])
+        assertEquals("a", properties[Properties.NAME])
+
+        // must be equal to a regular map with the same content
+        val map = EnumMap<Properties, Any?>(Properties::class.java)
+        map[Properties.INDEX] = 1000
+        map[Properties.BRANCH] = false
+        map[Properties.UNREACHABLE] = true
+        map[Properties.NAME] = "a"
+        assertEquals<Map<Properties, Any?>>(map, properties)
+        assertEquals(map.hashCode(), properties.hashCode())
+
+        // null values remove the property
+        properties[Properties.BRANCH] = null
+        assertFalse(properties.containsKey(Properties.BRANCH))
+        assertEquals(3, properties.size)
+
+        // values that do not fit into the inline fields are still stored
+        properties[Properties.INDEX] = -1L
+        assertEquals(-1L, properties[Properties.INDEX])
+        assertEquals(3, properties.size)
+
+        properties.clear()
+        assertTrue(properties.isEmpty())
+    }
+
+    @Test
+    fun testEntries() {
+        val properties = EdgeProperties()
+        properties[Properties.INDEX] = 1
+        properties[Properties.BRANCH] = true
+        properties[Properties.NAME] = "a"
+
+        // the entries are backed by the map
+        val entries = properties.entries
+        assertEquals(3, entries.size)
+
+        entries.first { it.key == Properties.INDEX }.setValue(2)
+        assertEquals(2, properties[Properties.INDEX])
+
+        val iterator = entries.iterator()
+        while (iterator.hasNext()) {
+            if (iterator.next().key == Properties.BRANCH) {
+                iterator.remove()
+            }
+        }
+        assertFalse(properties.containsKey(Properties.BRANCH))
+
+        entries.removeIf { it.key == Properties.NAME }
+        assertEquals(mapOf<Properties, Any?>(Properties.INDEX to 2), properties)
+        assertEquals(1, entries.size)
+    }
+
+    @Test
+    fun testCopy() {
+        val start = Literal<Int>()
+        val end = Literal<Int>()
+        val edge = PropertyEdge(start, end)
+        edge.addProperty(Properties.INDEX, 1)
+        edge.addProperty(Properties.BRANCH, true)
+
+        val copy = PropertyEdge(edge)
+        assertEquals(edge, copy)
+
+        copy.addProperty(Properties.BRANCH, false)
+        assertEquals(true, edge.getProperty(Properties.BRANCH))
+        assertNotEquals(edge, copy)
+    }
+
+    @Test
+    fun testNodeView() {
+        val start = Literal<Int>()
+        val end = Literal<Int>()
+        start.addNextEOG(PropertyEdge(start, end))
+
+        val view = start.nextEOG
+        assertEquals(listOf<Any>(end), view)
+
+        start.clearNextEOG()
+        assertTrue(view.isEmpty())
+    }
+}
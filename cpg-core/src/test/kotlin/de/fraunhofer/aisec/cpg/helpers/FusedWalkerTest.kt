@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.helpers
+
+import de.fraunhofer.aisec.cpg.graph.declarations.FunctionDeclaration
+import de.fraunhofer.aisec.cpg.graph.declarations.TranslationUnitDeclaration
+import de.fraunhofer.aisec.cpg.passes.scopes.ScopeManager
+import kotlin.test.Test
+import kotlin.test.assertEquals
+
+class FusedWalkerTest {
+    @Test
+    fun testFusion() {
+        val tu = TranslationUnitDeclaration()
+        tu.name = "tu"
+        val f1 = FunctionDeclaration()
+        f1.name = "f1"
+        val f2 = FunctionDeclaration()
+        f2.name = "f2"
+        tu.addDeclaration(f1)
+        tu.addDeclaration(f2)
+
+        val trace = mutableListOf<String>()
+        val walker = FusedWalker(ScopeManager())
+        walker.registerHandler(2) { _, _, node -> trace += "2:${node.name}" }
+        walker.registerHandler(0) { _, _, node -> trace += "0:${node.name}" }
+        walker.registerHandler(1) { _, parent, node -> trace += "1:${parent?.name}>${node.name}" }
+        walker.registerBarrier(0) { trace += "barrier" }
+        walker.iterate(listOf(tu))
+
+        // Phase 0 runs on its own, phases 1 and 2 share a walk and are ordered per node
+        assertEquals(2, walker.walks)
+        assertEquals(
+            listOf(
+                "0:tu",
+                "0:f1",
+                "0:f2",
+                "barrier",
+                "1:null>tu",
+                "2:tu",
+                "1:tu>f1",
+                "2:f1",
+                "1:tu>f2",
+                "2:f2"
+            ),
+            trace
+        )
+
+        // Without any barrier, everything is done in a single walk
+        trace.clear()
+        walker.clear()
+        walker.registerHandler(1) { _, _, node -> trace += "1:${node.name}" }
+        walker.registerHandler(0) { _, _, node -> trace += "0:${node.name}" }
+        walker.iterate(listOf(tu))
+        assertEquals(1, walker.walks)
+        assertEquals(listOf("0:tu", "1:tu", "0:f1", "1:f1", "0:f2", "1:f2"), trace)
+    }
+}
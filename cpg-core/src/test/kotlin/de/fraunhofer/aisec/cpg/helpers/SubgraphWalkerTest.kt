@@ -33,6 +33,8 @@ import de.fraunhofer.aisec.cpg.graph.declarations.FunctionDeclaration
 import de.fraunhofer.aisec.cpg.graph.declarations.NamespaceDeclaration
 import de.fraunhofer.aisec.cpg.graph.declarations.RecordDeclaration
 import de.fraunhofer.aisec.cpg.graph.declarations.TranslationUnitDeclaration
+import de.fraunhofer.aisec.cpg.graph.statements.CompoundStatement
+import de.fraunhofer.aisec.cpg.graph.statements.expressions.DeclaredReferenceExpression
 import java.io.File
 import kotlin.test.*
 
@@ -70,4 +72,36 @@ internal class SubgraphWalkerTest : BaseTest() {
 
         assertEquals(listOf<Node>(tu, name, func), flat)
     }
+
+    @Test
+    fun testIterativeWalkerVisitsEqualNodes() {
+        // Two different nodes, which are equal according to Node.equals
+        val block = CompoundStatement()
+        val first = DeclaredReferenceExpression()
+        first.name = "a"
+        val second = DeclaredReferenceExpression()
+        second.name = "a"
+        block.addStatement(first)
+        block.addStatement(second)
+        assertEquals<Node>(first, second)
+
+        val visited = mutableListOf<Node>()
+        val parents = mutableListOf<Node?>()
+        val exited = mutableListOf<Node>()
+        val walker = SubgraphWalker.IterativeGraphWalker()
+        walker.registerOnNodeVisit { visited += it }
+        walker.registerOnNodeVisit2 { _, parent -> parents += parent }
+        walker.registerOnScopeExit { exited += it }
+        walker.iterate(block)
+
+        assertEquals(3, visited.size)
+        assertSame(block, visited[0])
+        assertSame(first, visited[1])
+        assertSame(second, visited[2])
+        assertEquals(listOf(null, block, block), parents)
+        assertEquals(3, exited.size)
+        assertSame(first, exited[0])
+        assertSame(second, exited[1])
+        assertSame(block, exited[2])
+    }
 }
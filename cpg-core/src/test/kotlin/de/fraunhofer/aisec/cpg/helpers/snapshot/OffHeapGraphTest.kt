@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.helpers.snapshot
+
+import de.fraunhofer.aisec.cpg.BaseTest
+import de.fraunhofer.aisec.cpg.TestUtils
+import de.fraunhofer.aisec.cpg.graph.declarations.FunctionDeclaration
+import de.fraunhofer.aisec.cpg.graph.declarations.TranslationUnitDeclaration
+import de.fraunhofer.aisec.cpg.graph.calls
+import de.fraunhofer.aisec.cpg.graph.functions
+import de.fraunhofer.aisec.cpg.graph.refs
+import de.fraunhofer.aisec.cpg.graph.statements.expressions.CallExpression
+import de.fraunhofer.aisec.cpg.graph.statements.expressions.DeclaredReferenceExpression
+import de.fraunhofer.aisec.cpg.helpers.SubgraphWalker
+import java.nio.file.Path
+import kotlin.test.*
+import org.junit.jupiter.api.io.TempDir
+
+class OffHeapGraphTest : BaseTest() {
+    @Test
+    @Throws(Exception::class)
+    fun testOffHeapGraph(@TempDir directory: Path) {
+        val topLevel = Path.of("src", "test", "resources")
+        val result =
+            TestUtils.analyze(
+                listOf(
+                    topLevel.resolve("functionPointers/func_ptr.cpp").toFile(),
+                    topLevel.resolve("dfg/BasicSlice.java").toFile()
+                ),
+                topLevel,
+                true
+            )
+
+        OffHeapGraph.write(result, directory).use { graph ->
+            // The translation units are the first nodes
+            assertEquals(
+                result.translationUnits.map { it.name },
+                graph.translationUnits.map { it.name }
+            )
+            assertTrue(graph.translationUnits.all { it.isA<TranslationUnitDeclaration>() })
+
+            // Queries on the handles work without materializing any node
+            val functions = graph.nodes.filter { it.isA<FunctionDeclaration>() }.toList()
+            assertEquals(result.functions.size, functions.size)
+            val astNodes = result.translationUnits.sumOf { SubgraphWalker.flattenAST(it).size }
+            assertTrue(graph.size >= astNodes)
+
+            // A single node is materialized together with its AST subtree
+            val function = functions.first { it.astChildren.isNotEmpty() }
+            val node = function.node
+            assertIs<FunctionDeclaration>(node)
+            assertEquals(function.name, node.fullName.toString())
+            assertSame(node, function.node)
+            assertEquals(function.astChildren.map { it.name }, node.astChildren.map { it.name })
+            for (child in function.astChildren) {
+                assertTrue(node.astChildren.any { it === child.node })
+            }
+
+            // Its edges are complete, even though the other nodes were not materialized before
+            assertEquals(function.nextEOG.map { it.node }, node.nextEOG)
+            assertEquals(function.prevDFG.map { it.node }.toSet(), node.prevDFG)
+
+            // The handles agree with the materialized nodes, once all of them are materialized
+            val nodes = graph.nodes.map { it.node }.toList()
+            assertEquals(result.functions.size, nodes.filterIsInstance<FunctionDeclaration>().size)
+            for (handle in graph.nodes) {
+                val materialized = handle.node
+                assertSame(nodes[handle.id], materialized)
+                assertEquals(materialized.javaClass, handle.nodeClass)
+                assertEquals(materialized.javaClass.name, handle.className)
+                assertEquals(materialized.fullName.toString(), handle.name)
+                assertEquals(materialized.code, handle.code)
+                assertEquals(materialized.location, handle.location)
+                assertEquals(materialized.isInferred, handle.isInferred)
+                assertEquals(materialized.isImplicit, handle.isImplicit)
+                assertEquals(
+                    SubgraphWalker.getAstChildren(materialized).toList(),
+                    handle.astChildren.map { it.node }
+                )
+                assertEquals(materialized.nextEOG.toSet(), handle.nextEOG.map { it.node }.toSet())
+                assertEquals(materialized.prevEOG.toSet(), handle.prevEOG.map { it.node }.toSet())
+                assertEquals(materialized.nextDFG, handle.nextDFG.map { it.node }.toSet())
+                assertEquals(materialized.prevDFG, handle.prevDFG.map { it.node }.toSet())
+            }
+
+            // References, calls and types are restored as well. The nodes are in a different order.
+            val refs = nodes.filterIsInstance<DeclaredReferenceExpression>()
+            assertEquals(
+                result.refs.mapNotNull { it.refersTo?.name?.toString() }.sorted(),
+                refs.mapNotNull { it.refersTo?.name?.toString() }.sorted()
+            )
+            val invokes = { calls: List<CallExpression> ->
+                calls.map { call -> call.invokes.joinToString { it.name.toString() } }.sorted()
+            }
+            assertEquals(invokes(result.calls), invokes(nodes.filterIsInstance<CallExpression>()))
+            val types = { functions: List<FunctionDeclaration> ->
+                functions.map { it.type.name.toString() }.sorted()
+            }
+            assertEquals(
+                types(result.functions),
+                types(nodes.filterIsInstance<FunctionDeclaration>())
+            )
+
+            assertEquals(graph[0], graph.translationUnits.first())
+            assertFailsWith<IndexOutOfBoundsException> { graph[graph.size] }
+        }
+
+        // The graph can be opened again
+        OffHeapGraph.open(directory).use { graph ->
+            assertEquals(result.translationUnits.size, graph.translationUnits.size)
+        }
+    }
+}
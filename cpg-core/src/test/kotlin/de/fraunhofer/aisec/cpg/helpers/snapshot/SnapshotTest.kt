@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.helpers.snapshot
+
+import de.fraunhofer.aisec.cpg.BaseTest
+import de.fraunhofer.aisec.cpg.TestUtils
+import de.fraunhofer.aisec.cpg.TranslationConfiguration
+import de.fraunhofer.aisec.cpg.TranslationManager
+import de.fraunhofer.aisec.cpg.TranslationResult
+import de.fraunhofer.aisec.cpg.graph.HasType
+import de.fraunhofer.aisec.cpg.graph.Node
+import de.fraunhofer.aisec.cpg.graph.calls
+import de.fraunhofer.aisec.cpg.graph.edge.Properties
+import de.fraunhofer.aisec.cpg.graph.functions
+import de.fraunhofer.aisec.cpg.graph.get
+import de.fraunhofer.aisec.cpg.helpers.IdentitySet
+import de.fraunhofer.aisec.cpg.helpers.SubgraphWalker
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+import kotlin.io.path.createTempFile
+import kotlin.io.path.deleteIfExists
+import kotlin.test.*
+
+class SnapshotTest : BaseTest() {
+    private val topLevel = Path.of("src", "test", "resources")
+
+    private fun analyze(): TranslationResult {
+        return TestUtils.analyze(
+            listOf(
+                topLevel.resolve("functionPointers/func_ptr.cpp").toFile(),
+                topLevel.resolve("dfg/BasicSlice.java").toFile()
+            ),
+            topLevel,
+            true
+        )
+    }
+
+    @Test
+    @Throws(Exception::class)
+    fun testRoundTrip() {
+        val result = analyze()
+
+        val file = createTempFile("cpg", ".snapshot")
+        try {
+            Snapshot.save(result, file)
+
+            assertSameGraph(result, Snapshot.load(file))
+            assertSameGraph(result, Snapshot.load(file, false))
+        } finally {
+            file.deleteIfExists()
+        }
+    }
+
+    @Test
+    @Throws(Exception::class)
+    fun testStreams() {
+        val result = analyze()
+
+        val out = ByteArrayOutputStream()
+        Snapshot.save(result, out)
+        val bytes = out.toByteArray()
+        val loaded = Snapshot.load(ByteArrayInputStream(bytes))
+        assertSameGraph(result, loaded)
+
+        // A loaded graph can be saved again
+        val again = ByteArrayOutputStream()
+        Snapshot.save(loaded, again)
+        assertSameGraph(result, Snapshot.load(ByteArrayInputStream(again.toByteArray())))
+
+        // Truncated and foreign data is rejected
+        assertFailsWith<IOException> {
+            Snapshot.load(ByteArrayInputStream(bytes.copyOf(bytes.size / 2)))
+        }
+        assertFailsWith<IOException> { Snapshot.load(ByteArrayInputStream(ByteArray(16))) }
+
+        // Classes other than the ones of the graph cannot be instantiated by a tampered snapshot
+        val tampered = replace(bytes, "java.util.ArrayList", "java.lang.Throwable")
+        assertFailsWith<IOException> { Snapshot.load(ByteArrayInputStream(tampered)) }
+        assertFalse(Classes.isRestorable(ProcessBuilder::class.java, Kind.OBJECT))
+        assertFalse(Classes.isRestorable(Node::class.java, Kind.COLLECTION))
+        assertTrue(Classes.isRestorable(Node::class.java, Kind.OBJECT))
+    }
+
+    /** Replaces the first occurrence of the string [old] in [bytes] with [new] of the same size. */
+    private fun replace(bytes: ByteArray, old: String, new: String): ByteArray {
+        val index = String(bytes, Charsets.ISO_8859_1).indexOf(old)
+        assertTrue(index >= 0)
+        val copy = bytes.copyOf()
+        new.toByteArray(Charsets.ISO_8859_1).copyInto(copy, index)
+
+        return copy
+    }
+
+    @Test
+    @Throws(Exception::class)
+    fun testSnapshotSink() {
+        val topLevel = Path.of("src", "test", "resources", "streaming")
+        val config =
+            TranslationConfiguration.builder()
+                .sourceLocations(
+                    topLevel.resolve("main.c").toFile(),
+                    topLevel.resolve("util.c").toFile()
+                )
+                .topLevel(topLevel.toFile())
+                .defaultPasses()
+                .defaultLanguages()
+                .build()
+
+        val directory = Files.createTempDirectory("cpg")
+        val sink = SnapshotSink(directory)
+        TranslationManager.builder().config(config).build().analyzeStreaming(sink).get()
+
+        // Every translation unit is stored in its own snapshot
+        assertEquals(2, sink.files.size)
+        val util = Snapshot.load(sink.files[1])
+        assertEquals(1, util.translationUnits.size)
+        assertNotNull(util.functions["scale"])
+
+        directory.toFile().deleteRecursively()
+    }
+
+    private fun assertSameGraph(expected: TranslationResult, actual: TranslationResult) {
+        assertEquals(
+            expected.translationUnits.map { it.name },
+            actual.translationUnits.map { it.name }
+        )
+
+        val expectedNodes = expected.translationUnits.flatMap { SubgraphWalker.flattenAST(it) }
+        val actualNodes = actual.translationUnits.flatMap { SubgraphWalker.flattenAST(it) }
+        assertEquals(expectedNodes.size, actualNodes.size)
+
+        for ((e, a) in expectedNodes.zip(actualNodes)) {
+            assertNotSame(e, a)
+            assertSame(e.javaClass, a.javaClass)
+            assertEquals(e.fullName, a.fullName)
+            assertEquals(e.code, a.code)
+            assertEquals(e.location, a.location)
+            assertEquals(e.nextEOG.size, a.nextEOG.size)
+            assertEquals(e.prevEOG.size, a.prevEOG.size)
+            assertEquals(e.nextDFG.size, a.nextDFG.size)
+            assertEquals(e.prevDFG.size, a.prevDFG.size)
+            assertEquals(
+                e.nextEOGEdges.map { it.getProperty(Properties.BRANCH) },
+                a.nextEOGEdges.map { it.getProperty(Properties.BRANCH) }
+            )
+            if (e is HasType) {
+                assertEquals(e.type.name, (a as HasType).type.name)
+            }
+
+            // Hash-based collections must work with the restored nodes
+            assertEquals(e.nextDFG.map { it.name }.toSet(), a.nextDFG.map { it.name }.toSet())
+            a.nextDFG.forEach { assertTrue(it in a.nextDFG) }
+            a.prevDFG.forEach { assertTrue(a in it.nextDFG) }
+        }
+
+        // Edges point to the restored nodes rather than copies of them
+        val actualSet = IdentitySet<Node>()
+        actualSet.addAll(actualNodes)
+        for (node in actualNodes) {
+            node.nextEOGEdges.forEach { assertSame(node, it.start) }
+        }
+
+        // Calls are still resolved to the declarations in the loaded graph
+        for ((e, a) in expected.calls.zip(actual.calls)) {
+            assertEquals(e.invokes.map { it.name }, a.invokes.map { it.name })
+            a.invokes.forEach { assertTrue(it in actualSet || it.isInferred) }
+        }
+
+        // Scopes refer to the restored nodes as well
+        val scopeManager = actual.scopeManager
+        val expectedScopes = expected.scopeManager.filterScopes { true }
+        val actualScopes = scopeManager.filterScopes { true }
+        assertEquals(expectedScopes.size, actualScopes.size)
+        for (tu in actual.translationUnits) {
+            val scope = scopeManager.lookupScope(tu)
+            assertNotNull(scope)
+            assertSame(tu, scope.astNode)
+        }
+    }
+}
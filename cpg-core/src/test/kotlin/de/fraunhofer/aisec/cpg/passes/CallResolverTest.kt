@@ -753,6 +753,41 @@ class CallResolverTest : BaseTest() {
         assertEquals(2, declarations.size)
     }
 
+    @Test
+    @Throws(Exception::class)
+    fun testResolutionCache() {
+        val file = File("src/test/resources/resolutioncache/RepeatedCalls.java")
+        val result = TestUtils.analyze(listOf(file), file.parentFile.toPath(), true)
+
+        val record = result.records["RepeatedCalls"]
+        assertNotNull(record)
+        val log = record.methods.firstOrNull { it.name == "log" && !it.isInferred }
+        assertNotNull(log)
+
+        // All calls with the same signature share the result of the cached lookup
+        val logCalls = result.calls.filter { it.name == "log" }
+        assertEquals(5, logCalls.size)
+        assertEquals(4, logCalls.count { it.invokes == listOf(log) })
+
+        // The inferred method for log(1) must not end up in the cached lookups of log(String)
+        val inferred = logCalls.single { it.invokes != listOf(log) }.invokes.single()
+        assertTrue(inferred.isInferred)
+
+        val measurement =
+            result.benchmarkResults.entries.firstOrNull {
+                it[0].toString().endsWith("Call resolution cache")
+            }
+        assertNotNull(measurement)
+
+        val stats = measurement[1].toString()
+        val hits = Regex("(\\d+) hits").find(stats)?.groupValues?.get(1)?.toLong()
+        assertNotNull(hits)
+        assertTrue(hits >= 3, stats)
+        val invalidations = Regex("(\\d+) invalidations").find(stats)?.groupValues?.get(1)?.toLong()
+        assertNotNull(invalidations)
+        assertTrue(invalidations >= 1, stats)
+    }
+
     companion object {
         private val topLevel = Path.of("src", "test", "resources", "calls")
     }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.passes
+
+import de.fraunhofer.aisec.cpg.graph.Node
+import de.fraunhofer.aisec.cpg.graph.declarations.FunctionDeclaration
+import de.fraunhofer.aisec.cpg.graph.declarations.ParamVariableDeclaration
+import de.fraunhofer.aisec.cpg.graph.declarations.VariableDeclaration
+import de.fraunhofer.aisec.cpg.graph.statements.expressions.CallExpression
+import de.fraunhofer.aisec.cpg.graph.statements.expressions.DeclaredReferenceExpression
+import kotlin.test.*
+
+class FunctionPointsToAnalysisTest {
+    @Test
+    fun testAliasingThroughCall() {
+        // fp id(fp p) { return p; }
+        // fp a = id(&h); fp b = a; fp c = id(&g);
+        val h = function("h")
+        val g = function("g")
+        val p = node(ParamVariableDeclaration(), "p")
+        val returned = node(DeclaredReferenceExpression(), "returned")
+        val refH = node(DeclaredReferenceExpression(), "refH")
+        val refG = node(DeclaredReferenceExpression(), "refG")
+        val call1 = node(CallExpression(), "call1")
+        val call2 = node(CallExpression(), "call2")
+        val a = node(VariableDeclaration(), "a")
+        val b = node(VariableDeclaration(), "b")
+        val c = node(VariableDeclaration(), "c")
+
+        refH.addPrevDFG(h)
+        refG.addPrevDFG(g)
+        p.addPrevDFG(refH)
+        p.addPrevDFG(refG)
+        returned.addPrevDFG(p)
+        call1.addPrevDFG(returned)
+        call2.addPrevDFG(returned)
+        a.addPrevDFG(call1)
+        b.addPrevDFG(a)
+        c.addPrevDFG(call2)
+
+        val analysis = FunctionPointsToAnalysis()
+        val pointsToB = analysis.pointsTo(b)
+        assertEquals(2, pointsToB.size)
+        assertTrue(h in pointsToB)
+        assertTrue(g in pointsToB)
+
+        // Both call sites of id alias the same functions, so the nodes share the memoized set
+        assertSame(pointsToB, analysis.pointsTo(a))
+        assertSame(pointsToB, analysis.pointsTo(c))
+        assertSame(pointsToB, analysis.pointsTo(p))
+        assertEquals(setOf<Node>(h), analysis.pointsTo(refH))
+    }
+
+    @Test
+    fun testRefresh() {
+        val h = function("h")
+        val k = function("k")
+        val a = node(VariableDeclaration(), "a")
+        val b = node(VariableDeclaration(), "b")
+        a.addPrevDFG(h)
+        b.addPrevDFG(a)
+
+        val analysis = FunctionPointsToAnalysis()
+        assertEquals(setOf<Node>(h), analysis.pointsTo(b))
+
+        // An edge which does not change any memoized set keeps the memo
+        b.addPrevDFG(h)
+        assertFalse(analysis.refresh(listOf(b)))
+
+        // The memoized set is stale until the modified node is refreshed
+        a.addPrevDFG(k)
+        assertEquals(setOf<Node>(h), analysis.pointsTo(b))
+        assertTrue(analysis.refresh(listOf(a)))
+        assertEquals(setOf<Node>(h, k), analysis.pointsTo(b))
+
+        // The members of a cycle share their set
+        val m = function("m")
+        a.addPrevDFG(b)
+        assertFalse(analysis.refresh(listOf(a)))
+        b.addPrevDFG(m)
+        assertTrue(analysis.refresh(listOf(b)))
+        assertEquals(setOf<Node>(h, k, m), analysis.pointsTo(a))
+        assertSame(analysis.pointsTo(a), analysis.pointsTo(b))
+    }
+
+    private fun function(name: String) = node(FunctionDeclaration(), name)
+
+    private fun <T : Node> node(node: T, name: String): T {
+        node.name = name
+        return node
+    }
+}
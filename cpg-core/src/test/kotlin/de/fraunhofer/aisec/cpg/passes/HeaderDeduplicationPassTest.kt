@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.passes
+
+import de.fraunhofer.aisec.cpg.TestUtils
+import de.fraunhofer.aisec.cpg.graph.*
+import de.fraunhofer.aisec.cpg.graph.declarations.FunctionDeclaration
+import de.fraunhofer.aisec.cpg.graph.statements.expressions.ConstructExpression
+import de.fraunhofer.aisec.cpg.graph.types.ObjectType
+import java.io.File
+import java.nio.file.Path
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertNotNull
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+
+class HeaderDeduplicationPassTest {
+    companion object {
+        private val topLevel = Path.of("src", "test", "resources", "cxx", "dedup")
+        private val files = listOf(File("$topLevel/a.cpp"), File("$topLevel/b.cpp"))
+    }
+
+    @Test
+    fun testWithoutDeduplication() {
+        val result = TestUtils.analyze(files, topLevel, true)
+
+        assertEquals(2, result.records.filter { it.name == "Shared" }.size)
+    }
+
+    @Test
+    fun testDeduplication() {
+        val result =
+            TestUtils.analyze(files, topLevel, true) {
+                it.registerPass(HeaderDeduplicationPass())
+            }
+
+        val shared = result.records.filter { it.name == "Shared" }
+        assertEquals(1, shared.size)
+
+        val record = shared.first()
+        assertEquals(1, record.methods.size)
+        assertEquals(1, record.fields.size)
+
+        // the out-of-line definition in a.cpp must point to the canonical record
+        val get = result.methods.firstOrNull { it.name == "get" && it.isDefinition }
+        assertNotNull(get)
+        assertSame(record, get.recordDeclaration)
+
+        // only one prototype of helper is left and it knows its definition from a.cpp
+        val prototypes = result.functions.filter { it.name == "helper" && !it.isDefinition }
+        assertEquals(1, prototypes.size)
+        assertNotNull(prototypes.first().definition)
+
+        val call = result.calls.firstOrNull { it.name == "helper" }
+        assertNotNull(call)
+        assertTrue(call.invokes.isNotEmpty())
+    }
+
+    @Test
+    fun testConstructedInTwoTranslationUnits() {
+        val result =
+            TestUtils.analyze(
+                listOf(File("$topLevel/c.cpp"), File("$topLevel/d.cpp")),
+                topLevel,
+                true
+            ) { it.registerPass(HeaderDeduplicationPass()) }
+
+        val widgets = result.records.filter { it.name == "Widget" }
+        assertEquals(1, widgets.size)
+        val widget = widgets.first()
+
+        // Both translation units construct the canonical record with its constructor
+        val constructs = result.allChildren<ConstructExpression> { it.type.name == "Widget" }
+        assertEquals(2, constructs.size)
+        for (construct in constructs) {
+            assertSame(widget, construct.instantiates)
+            val constructor = construct.constructor
+            assertNotNull(constructor)
+            assertSame(widget, constructor.recordDeclaration)
+            assertEquals(listOf<FunctionDeclaration>(constructor), construct.invokes)
+        }
+
+        // The variables of both translation units have a type that refers to the canonical record
+        for (variable in result.variables.filter { it.name == "w" }) {
+            assertSame(widget, (variable.type as? ObjectType)?.recordDeclaration)
+        }
+
+        val special = result.records.filter { it.name == "Special" }
+        assertEquals(1, special.size)
+        assertEquals(setOf(widget), special.first().superTypeDeclarations)
+    }
+}
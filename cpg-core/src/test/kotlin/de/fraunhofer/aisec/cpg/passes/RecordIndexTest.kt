@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.passes
+
+import de.fraunhofer.aisec.cpg.BaseTest
+import de.fraunhofer.aisec.cpg.TestUtils
+import de.fraunhofer.aisec.cpg.graph.declarations.RecordDeclaration
+import java.nio.file.Path
+import kotlin.test.*
+
+class RecordIndexTest : BaseTest() {
+    @Test
+    @Throws(Exception::class)
+    fun testRecordIndex() {
+        val topLevel = Path.of("src", "test", "resources", "compiling", "hierarchy", "multistep")
+        val result = TestUtils.analyze("java", topLevel, true)
+
+        val index = RecordIndex.of(result)
+        assertSame(index, RecordIndex.of(result))
+        assertEquals(6, index.records.count { it.name.startsWith("multistep.") })
+
+        val root = index["multistep.Root"]
+        assertNotNull(root)
+        assertSame(root, index.byName("multistep.Root"))
+        assertTrue("multistep.Level0" in index)
+
+        // The type hierarchy resolver uses the index to look up the super types
+        val level0 = index["multistep.Level0"]
+        assertNotNull(level0)
+        assertEquals(setOf(root), level0.superTypeDeclarations)
+
+        // Unqualified names are resolved using the namespace suffix
+        assertEquals("multistep.Root", index.findBySuffix("Root"))
+        assertNull(index.findBySuffix("oot"))
+        assertNull(index.findBySuffix("Missing"))
+
+        // Inferred records are added to the index, but do not replace the first record with the
+        // same suffix
+        val inferred = RecordDeclaration()
+        inferred.name = "other.Root"
+        index["other.Root"] = inferred
+        assertSame(inferred, index["other.Root"])
+        assertSame(inferred, index.byName("other.Root"))
+        assertEquals("multistep.Root", index.findBySuffix("Root"))
+    }
+}
@@ -0,0 +1,31 @@
+public class Recursion {
+  static boolean isEven(int n) {
+    if (n == 0) {
+      return true;
+    }
+    return isOdd(n - 1);
+  }
+
+  static boolean isOdd(int n) {
+    if (n == 0) {
+      return false;
+    }
+    return isEven(n - 1);
+  }
+
+  static int factorial(int n) {
+    if (n <= 1) {
+      return 1;
+    }
+    return n * factorial(n - 1);
+  }
+
+  static int leaf() {
+    return 1;
+  }
+
+  public static void main(String[] args) {
+    isEven(factorial(3));
+    leaf();
+  }
+}
@@ -0,0 +1,5 @@
+#include "shared.h"
+
+number Shared::get() { return value; }
+
+number helper(number n) { return n + 1; }
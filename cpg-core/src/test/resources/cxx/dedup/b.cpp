@@ -0,0 +1,6 @@
+#include "shared.h"
+
+int main() {
+  Shared s;
+  return helper(s.get());
+}
@@ -0,0 +1,8 @@
+#include "widget.h"
+
+Widget::Widget(int v) : value(v) {}
+
+int first() {
+  Widget w(1);
+  return w.value;
+}
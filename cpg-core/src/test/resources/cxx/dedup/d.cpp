@@ -0,0 +1,6 @@
+#include "widget.h"
+
+int second() {
+  Widget w(2);
+  return w.value;
+}
@@ -0,0 +1,13 @@
+#pragma once
+
+typedef int number;
+
+class Shared {
+public:
+  number get();
+
+private:
+  number value;
+};
+
+number helper(number n);
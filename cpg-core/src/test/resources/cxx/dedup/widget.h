@@ -0,0 +1,13 @@
+#pragma once
+
+class Widget {
+public:
+  Widget(int v);
+
+  int value;
+};
+
+class Special : public Widget {
+public:
+  Special();
+};
@@ -0,0 +1,19 @@
+public class RepeatedCalls {
+
+  private void log(String message) {}
+
+  private int get() {
+    return 1;
+  }
+
+  public void run() {
+    log("first");
+    log("second");
+    log("third");
+    get();
+    get();
+    // inferred
+    log(1);
+    log("fourth");
+  }
+}
@@ -0,0 +1,10 @@
+int scale(int value, int factor);
+
+int main() {
+  int a = 2;
+  int b = scale(a, 3);
+  if (b > 4) {
+    b = 4;
+  }
+  return b;
+}
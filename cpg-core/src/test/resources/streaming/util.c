@@ -0,0 +1,12 @@
+struct point {
+  int x;
+  int y;
+};
+
+int counter = 0;
+
+int scale(int value, int factor) {
+  int result = value * factor;
+  counter++;
+  return result;
+}
@@ -32,7 +32,7 @@ import (
 )
 
 func NewString(s string) *jnigi.ObjectRef {
-	o, err := env.NewObject("java/lang/String", []byte(s))
+	o, err := env().NewObject("java/lang/String", []byte(s))
 	if err != nil {
 		log.Fatal(err)
 
@@ -43,7 +43,7 @@ func NewString(s string) *jnigi.ObjectRef {
 
 func NewInteger(i int) *jnigi.ObjectRef {
 	// TODO: Use Integer.valueOf
-	o, err := env.NewObject("java/lang/Integer", i)
+	o, err := env().NewObject("java/lang/Integer", i)
 	if err != nil {
 		log.Fatal(err)
 
@@ -54,7 +54,7 @@ func NewInteger(i int) *jnigi.ObjectRef {
 
 func NewDouble(d float64) *jnigi.ObjectRef {
 	// TODO: Use Integer.valueOf
-	o, err := env.NewObject("java/lang/Double", d)
+	o, err := env().NewObject("java/lang/Double", d)
 	if err != nil {
 		log.Fatal(err)
 
@@ -52,7 +52,7 @@ func (n *IncludeDeclaration) SetName(s string) error {
 }
 
 func (n *IncludeDeclaration) SetFilename(s string) error {
-	return (*jnigi.ObjectRef)(n).SetField(env, "filename", NewString(s))
+	return (*jnigi.ObjectRef)(n).SetField(env(), "filename", NewString(s))
 }
 
 func (f *FunctionDeclaration) SetName(s string) error {
@@ -75,17 +75,17 @@ func (f *FunctionDeclaration) SetReturnTypes(types []*Type) (err error) {
 	// https://github.com/timob/jnigi/issues/60
 	var funcDecl = jnigi.WrapJObject(uintptr((*jnigi.ObjectRef)(f).JObject()), "de/fraunhofer/aisec/cpg/graph/declarations/FunctionDeclaration", false)
 
-	err = (*jnigi.ObjectRef)(funcDecl).CallMethod(env, "setReturnTypes", nil, list.Cast("java/util/List"))
+	err = (*jnigi.ObjectRef)(funcDecl).CallMethod(env(), "setReturnTypes", nil, list.Cast("java/util/List"))
 
 	return
 }
 
 func (f *FunctionDeclaration) AddParameter(p *ParamVariableDeclaration) {
-	(*jnigi.ObjectRef)(f).CallMethod(env, "addParameter", nil, (*jnigi.ObjectRef)(p))
+	(*jnigi.ObjectRef)(f).CallMethod(env(), "addParameter", nil, (*jnigi.ObjectRef)(p))
 }
 
 func (f *FunctionDeclaration) SetBody(s *Statement) (err error) {
-	err = (*jnigi.ObjectRef)(f).CallMethod(env, "setBody", nil, (*jnigi.ObjectRef)(s).Cast("de/fraunhofer/aisec/cpg/graph/statements/Statement"))
+	err = (*jnigi.ObjectRef)(f).CallMethod(env(), "setBody", nil, (*jnigi.ObjectRef)(s).Cast("de/fraunhofer/aisec/cpg/graph/statements/Statement"))
 
 	return
 }
@@ -99,12 +99,12 @@ func (m *MethodDeclaration) SetType(t *Type) {
 }
 
 func (m *MethodDeclaration) SetReceiver(v *VariableDeclaration) error {
-	return (*jnigi.ObjectRef)(m).SetField(env, "receiver", (*jnigi.ObjectRef)(v))
+	return (*jnigi.ObjectRef)(m).SetField(env(), "receiver", (*jnigi.ObjectRef)(v))
 }
 
 func (m *MethodDeclaration) GetReceiver() *VariableDeclaration {
 	o := jnigi.NewObjectRef("de/fraunhofer/aisec/cpg/graph/declarations/VariableDeclaration")
-	err := (*jnigi.ObjectRef)(m).GetField(env, "receiver", o)
+	err := (*jnigi.ObjectRef)(m).GetField(env(), "receiver", o)
 
 	if err != nil {
 		log.Fatal(err)
@@ -143,7 +143,7 @@ func (v *VariableDeclaration) IsNil() bool {
 }
 
 func (v *VariableDeclaration) SetInitializer(e *Expression) (err error) {
-	err = (*jnigi.ObjectRef)(v).CallMethod(env, "setInitializer", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
+	err = (*jnigi.ObjectRef)(v).CallMethod(env(), "setInitializer", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
 
 	return
 }
@@ -154,7 +154,7 @@ func (v *VariableDeclaration) Declaration() *Declaration {
 
 func (t *TranslationUnitDeclaration) GetIncludeByName(s string) *IncludeDeclaration {
 	var i = jnigi.NewObjectRef("de/fraunhofer/aisec/cpg/graph/declarations/IncludeDeclaration")
-	err := (*jnigi.ObjectRef)(t).CallMethod(env, "getIncludeByName", i, NewString(s))
+	err := (*jnigi.ObjectRef)(t).CallMethod(env(), "getIncludeByName", i, NewString(s))
 	if err != nil {
 		log.Fatal(err)
 		debug.PrintStack()
@@ -168,17 +168,17 @@ func (r *RecordDeclaration) SetName(s string) error {
 }
 
 func (r *RecordDeclaration) SetKind(s string) error {
-	return (*jnigi.ObjectRef)(r).SetField(env, "kind", NewString(s))
+	return (*jnigi.ObjectRef)(r).SetField(env(), "kind", NewString(s))
 }
 
 func (r *RecordDeclaration) AddMethod(m *MethodDeclaration) (err error) {
-	err = (*jnigi.ObjectRef)(r).CallMethod(env, "addMethod", nil, (*jnigi.ObjectRef)(m))
+	err = (*jnigi.ObjectRef)(r).CallMethod(env(), "addMethod", nil, (*jnigi.ObjectRef)(m))
 
 	return
 }
 
 func (r *RecordDeclaration) AddSuperClass(t *Type) (err error) {
-	(*jnigi.ObjectRef)(r).CallMethod(env, "addSuperClass", nil, t)
+	(*jnigi.ObjectRef)(r).CallMethod(env(), "addSuperClass", nil, t)
 
 	return
 }
@@ -196,5 +196,5 @@ func (r *CompoundStatement) IsNil() bool {
 }
 
 func (c *CaseStatement) SetCaseExpression(e *Expression) error {
-	return (*jnigi.ObjectRef)(c).SetField(env, "caseExpression", (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
+	return (*jnigi.ObjectRef)(c).SetField(env(), "caseExpression", (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
 }
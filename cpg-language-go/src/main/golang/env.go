@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package cpg
+
+/*
+#include <pthread.h>
+#include <stdint.h>
+
+static uintptr_t currentThread() {
+	return (uintptr_t) pthread_self();
+}
+*/
+import "C"
+
+import (
+	"log"
+	"sync"
+
+	"tekao.net/jnigi"
+)
+
+// envs holds the JNI environment for each native thread that currently executes a call coming
+// from the JVM. A JNIEnv is only valid on the thread it was handed to, so we cannot keep a single
+// global one if several frontends call into this library concurrently. Since cgo keeps a goroutine
+// locked to the calling thread for the duration of a call from C, the thread is a safe key.
+var envs sync.Map
+
+// InitEnv registers the JNI environment for the current thread. It must be paired with a call to
+// ReleaseEnv once the call from the JVM returns.
+func InitEnv(e *jnigi.Env) {
+	envs.Store(uintptr(C.currentThread()), e)
+}
+
+// ReleaseEnv removes the JNI environment of the current thread.
+func ReleaseEnv() {
+	envs.Delete(uintptr(C.currentThread()))
+}
+
+// Env returns the JNI environment of the current thread.
+func Env() *jnigi.Env {
+	e, ok := envs.Load(uintptr(C.currentThread()))
+	if !ok {
+		log.Fatal("no JNI environment registered for the current thread")
+	}
+
+	return e.(*jnigi.Env)
+}
+
+func env() *jnigi.Env {
+	return Env()
+}
@@ -70,15 +70,15 @@ func (c *CallExpression) SetName(s string) {
 }
 
 func (c *CallExpression) SetFqn(s string) {
-	(*jnigi.ObjectRef)(c).SetField(env, "fqn", NewString(s))
+	(*jnigi.ObjectRef)(c).SetField(env(), "fqn", NewString(s))
 }
 
 func (c *CastExpression) SetExpression(e *Expression) {
-	(*jnigi.ObjectRef)(c).CallMethod(env, "setExpression", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
+	(*jnigi.ObjectRef)(c).CallMethod(env(), "setExpression", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
 }
 
 func (c *CastExpression) SetCastType(t *Type) {
-	(*jnigi.ObjectRef)(c).CallMethod(env, "setCastType", nil, t)
+	(*jnigi.ObjectRef)(c).CallMethod(env(), "setCastType", nil, t)
 }
 
 func (c *MemberCallExpression) SetName(s string) {
@@ -90,11 +90,11 @@ func (c *MemberCallExpression) SetFqn(s string) {
 }
 
 func (m *MemberCallExpression) SetBase(e *Expression) {
-	(*jnigi.ObjectRef)(m).SetField(env, "base", (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
+	(*jnigi.ObjectRef)(m).SetField(env(), "base", (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
 }
 
 func (m *MemberCallExpression) SetMember(n *Node) {
-	(*jnigi.ObjectRef)(m).SetField(env, "member", (*jnigi.ObjectRef)(n).Cast("de/fraunhofer/aisec/cpg/graph/Node"))
+	(*jnigi.ObjectRef)(m).SetField(env(), "member", (*jnigi.ObjectRef)(n).Cast("de/fraunhofer/aisec/cpg/graph/Node"))
 }
 
 func (m *MemberCallExpression) Expression() *Expression {
@@ -102,12 +102,12 @@ func (m *MemberCallExpression) Expression() *Expression {
 }
 
 func (m *MemberExpression) SetBase(e *Expression) {
-	(*jnigi.ObjectRef)(m).SetField(env, "base", (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
+	(*jnigi.ObjectRef)(m).SetField(env(), "base", (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
 }
 
 func (m *MemberExpression) GetBase() *Expression {
 	var expr Expression
-	err := (*jnigi.ObjectRef)(m).GetField(env, "base", &expr)
+	err := (*jnigi.ObjectRef)(m).GetField(env(), "base", &expr)
 	if err != nil {
 		log.Fatal(err)
 	}
@@ -128,27 +128,27 @@ func (r *DeclaredReferenceExpression) Node() *Node {
 }
 
 func (c *CallExpression) AddArgument(e *Expression) {
-	(*jnigi.ObjectRef)(c).CallMethod(env, "addArgument", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
+	(*jnigi.ObjectRef)(c).CallMethod(env(), "addArgument", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
 }
 
 func (b *BinaryOperator) SetLHS(e *Expression) {
-	(*jnigi.ObjectRef)(b).CallMethod(env, "setLhs", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
+	(*jnigi.ObjectRef)(b).CallMethod(env(), "setLhs", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
 }
 
 func (b *BinaryOperator) SetRHS(e *Expression) {
-	(*jnigi.ObjectRef)(b).CallMethod(env, "setRhs", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
+	(*jnigi.ObjectRef)(b).CallMethod(env(), "setRhs", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
 }
 
 func (b *BinaryOperator) SetOperatorCode(s string) (err error) {
-	return (*jnigi.ObjectRef)(b).SetField(env, "operatorCode", NewString(s))
+	return (*jnigi.ObjectRef)(b).SetField(env(), "operatorCode", NewString(s))
 }
 
 func (u *UnaryOperator) SetInput(e *Expression) {
-	(*jnigi.ObjectRef)(u).CallMethod(env, "setInput", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
+	(*jnigi.ObjectRef)(u).CallMethod(env(), "setInput", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
 }
 
 func (u *UnaryOperator) SetOperatorCode(s string) (err error) {
-	return (*jnigi.ObjectRef)(u).SetField(env, "operatorCode", NewString(s))
+	return (*jnigi.ObjectRef)(u).SetField(env(), "operatorCode", NewString(s))
 }
 
 func (l *Literal) SetType(t *Type) {
@@ -165,7 +165,7 @@ func (l *Literal) SetValue(value interface{}) {
 
 	// basic types should be just fine, i guess?
 
-	(*jnigi.ObjectRef)(l).SetField(env, "value", value)
+	(*jnigi.ObjectRef)(l).SetField(env(), "value", value)
 }
 
 func (r *DeclaredReferenceExpression) SetName(s string) {
@@ -173,43 +173,43 @@ func (r *DeclaredReferenceExpression) SetName(s string) {
 }
 
 func (r *DeclaredReferenceExpression) SetRefersTo(d *Declaration) {
-	(*jnigi.ObjectRef)(r).CallMethod(env, "setRefersTo", nil, (*jnigi.ObjectRef)(d).Cast("de/fraunhofer/aisec/cpg/graph/declarations/Declaration"))
+	(*jnigi.ObjectRef)(r).CallMethod(env(), "setRefersTo", nil, (*jnigi.ObjectRef)(d).Cast("de/fraunhofer/aisec/cpg/graph/declarations/Declaration"))
 }
 
 func (r *ArrayCreationExpression) AddDimension(e *Expression) {
-	(*jnigi.ObjectRef)(r).CallMethod(env, "addDimension", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
+	(*jnigi.ObjectRef)(r).CallMethod(env(), "addDimension", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
 }
 
 func (r *ArraySubscriptionExpression) SetArrayExpression(e *Expression) {
-	(*jnigi.ObjectRef)(r).CallMethod(env, "setArrayExpression", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
+	(*jnigi.ObjectRef)(r).CallMethod(env(), "setArrayExpression", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
 }
 
 func (r *ArraySubscriptionExpression) SetSubscriptExpression(e *Expression) {
-	(*jnigi.ObjectRef)(r).CallMethod(env, "setSubscriptExpression", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
+	(*jnigi.ObjectRef)(r).CallMethod(env(), "setSubscriptExpression", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
 }
 
 func (c *ConstructExpression) AddArgument(e *Expression) {
-	(*jnigi.ObjectRef)(c).CallMethod(env, "addArgument", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
+	(*jnigi.ObjectRef)(c).CallMethod(env(), "addArgument", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
 }
 
 func (c *ConstructExpression) AddPrevDFG(n *Node) {
-	(*jnigi.ObjectRef)(c).CallMethod(env, "addPrevDFG", nil, (*jnigi.ObjectRef)(n).Cast("de/fraunhofer/aisec/cpg/graph/Node"))
+	(*jnigi.ObjectRef)(c).CallMethod(env(), "addPrevDFG", nil, (*jnigi.ObjectRef)(n).Cast("de/fraunhofer/aisec/cpg/graph/Node"))
 }
 
 func (n *NewExpression) SetInitializer(e *Expression) (err error) {
-	err = (*jnigi.ObjectRef)(n).CallMethod(env, "setInitializer", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
+	err = (*jnigi.ObjectRef)(n).CallMethod(env(), "setInitializer", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
 
 	return
 }
 
 func (c *InitializerListExpression) AddInitializer(e *Expression) {
-	(*jnigi.ObjectRef)(c).CallMethod(env, "addInitializer", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
+	(*jnigi.ObjectRef)(c).CallMethod(env(), "addInitializer", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
 }
 
 func (k *KeyValueExpression) SetKey(e *Expression) {
-	(*jnigi.ObjectRef)(k).CallMethod(env, "setKey", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
+	(*jnigi.ObjectRef)(k).CallMethod(env(), "setKey", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
 }
 
 func (k *KeyValueExpression) SetValue(e *Expression) {
-	(*jnigi.ObjectRef)(k).CallMethod(env, "setValue", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
+	(*jnigi.ObjectRef)(k).CallMethod(env(), "setValue", nil, (*jnigi.ObjectRef)(e).Cast("de/fraunhofer/aisec/cpg/graph/statements/expressions/Expression"))
 }
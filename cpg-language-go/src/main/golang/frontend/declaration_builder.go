@@ -34,7 +34,7 @@ import (
 )
 
 func (frontend *GoLanguageFrontend) NewTranslationUnitDeclaration(fset *token.FileSet, astNode ast.Node, name string, code string) *cpg.TranslationUnitDeclaration {
-	tu, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/declarations/TranslationUnitDeclaration")
+	tu, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/declarations/TranslationUnitDeclaration")
 	if err != nil {
 		log.Fatal(err)
 		debug.PrintStack()
@@ -50,7 +50,7 @@ func (frontend *GoLanguageFrontend) NewTranslationUnitDeclaration(fset *token.Fi
 }
 
 func (frontend *GoLanguageFrontend) NewNamespaceDeclaration(fset *token.FileSet, astNode ast.Node, name string, code string) *cpg.NamespaceDeclaration {
-	tu, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/declarations/NamespaceDeclaration")
+	tu, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/declarations/NamespaceDeclaration")
 	if err != nil {
 		log.Fatal(err)
 		debug.PrintStack()
@@ -66,7 +66,7 @@ func (frontend *GoLanguageFrontend) NewNamespaceDeclaration(fset *token.FileSet,
 }
 
 func (frontend *GoLanguageFrontend) NewIncludeDeclaration(fset *token.FileSet, astNode ast.Node) *cpg.IncludeDeclaration {
-	tu, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/declarations/IncludeDeclaration")
+	tu, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/declarations/IncludeDeclaration")
 	if err != nil {
 		log.Fatal(err)
 		debug.PrintStack()
@@ -80,7 +80,7 @@ func (frontend *GoLanguageFrontend) NewIncludeDeclaration(fset *token.FileSet, a
 }
 
 func (frontend *GoLanguageFrontend) NewFunctionDeclaration(fset *token.FileSet, astNode ast.Node) *cpg.FunctionDeclaration {
-	tu, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/declarations/FunctionDeclaration")
+	tu, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/declarations/FunctionDeclaration")
 	if err != nil {
 		log.Fatal(err)
 		debug.PrintStack()
@@ -94,7 +94,7 @@ func (frontend *GoLanguageFrontend) NewFunctionDeclaration(fset *token.FileSet,
 }
 
 func (frontend *GoLanguageFrontend) NewMethodDeclaration(fset *token.FileSet, astNode ast.Node) *cpg.MethodDeclaration {
-	tu, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/declarations/MethodDeclaration")
+	tu, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/declarations/MethodDeclaration")
 	if err != nil {
 		log.Fatal(err)
 		debug.PrintStack()
@@ -108,7 +108,7 @@ func (frontend *GoLanguageFrontend) NewMethodDeclaration(fset *token.FileSet, as
 }
 
 func (frontend *GoLanguageFrontend) NewRecordDeclaration(fset *token.FileSet, astNode ast.Node) *cpg.RecordDeclaration {
-	tu, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/declarations/RecordDeclaration")
+	tu, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/declarations/RecordDeclaration")
 	if err != nil {
 		log.Fatal(err)
 		debug.PrintStack()
@@ -122,7 +122,7 @@ func (frontend *GoLanguageFrontend) NewRecordDeclaration(fset *token.FileSet, as
 }
 
 func (frontend *GoLanguageFrontend) NewVariableDeclaration(fset *token.FileSet, astNode ast.Node) *cpg.VariableDeclaration {
-	tu, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/declarations/VariableDeclaration")
+	tu, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/declarations/VariableDeclaration")
 	if err != nil {
 		log.Fatal(err)
 		debug.PrintStack()
@@ -136,7 +136,7 @@ func (frontend *GoLanguageFrontend) NewVariableDeclaration(fset *token.FileSet,
 }
 
 func (frontend *GoLanguageFrontend) NewParamVariableDeclaration(fset *token.FileSet, astNode ast.Node) *cpg.ParamVariableDeclaration {
-	tu, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/declarations/ParamVariableDeclaration")
+	tu, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/declarations/ParamVariableDeclaration")
 	if err != nil {
 		log.Fatal(err)
 		debug.PrintStack()
@@ -150,7 +150,7 @@ func (frontend *GoLanguageFrontend) NewParamVariableDeclaration(fset *token.File
 }
 
 func (frontend *GoLanguageFrontend) NewFieldDeclaration(fset *token.FileSet, astNode ast.Node) *cpg.FieldDeclaration {
-	tu, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/declarations/FieldDeclaration")
+	tu, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/declarations/FieldDeclaration")
 	if err != nil {
 		log.Fatal(err)
 		debug.PrintStack()
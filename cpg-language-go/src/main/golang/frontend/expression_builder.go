@@ -33,7 +33,7 @@ import (
 )
 
 func (frontend *GoLanguageFrontend) NewCallExpression(fset *token.FileSet, astNode ast.Node) *cpg.CallExpression {
-	c, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/CallExpression")
+	c, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/CallExpression")
 	if err != nil {
 		log.Fatal(err)
 
@@ -47,7 +47,7 @@ func (frontend *GoLanguageFrontend) NewCallExpression(fset *token.FileSet, astNo
 }
 
 func (frontend *GoLanguageFrontend) NewCastExpression(fset *token.FileSet, astNode ast.Node) *cpg.CastExpression {
-	c, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/CastExpression")
+	c, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/CastExpression")
 	if err != nil {
 		log.Fatal(err)
 
@@ -61,7 +61,7 @@ func (frontend *GoLanguageFrontend) NewCastExpression(fset *token.FileSet, astNo
 }
 
 func (frontend *GoLanguageFrontend) NewMemberExpression(fset *token.FileSet, astNode ast.Node) *cpg.MemberExpression {
-	c, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/MemberExpression")
+	c, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/MemberExpression")
 	if err != nil {
 		log.Fatal(err)
 
@@ -75,7 +75,7 @@ func (frontend *GoLanguageFrontend) NewMemberExpression(fset *token.FileSet, ast
 }
 
 func (frontend *GoLanguageFrontend) NewMemberCallExpression(fset *token.FileSet, astNode ast.Node) *cpg.MemberCallExpression {
-	c, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/MemberCallExpression")
+	c, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/MemberCallExpression")
 	if err != nil {
 		log.Fatal(err)
 
@@ -89,7 +89,7 @@ func (frontend *GoLanguageFrontend) NewMemberCallExpression(fset *token.FileSet,
 }
 
 func (frontend *GoLanguageFrontend) NewNewExpression(fset *token.FileSet, astNode ast.Node) *cpg.NewExpression {
-	c, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/NewExpression")
+	c, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/NewExpression")
 	if err != nil {
 		log.Fatal(err)
 
@@ -103,7 +103,7 @@ func (frontend *GoLanguageFrontend) NewNewExpression(fset *token.FileSet, astNod
 }
 
 func (frontend *GoLanguageFrontend) NewArrayCreationExpression(fset *token.FileSet, astNode ast.Node) *cpg.ArrayCreationExpression {
-	c, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/ArrayCreationExpression")
+	c, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/ArrayCreationExpression")
 	if err != nil {
 		log.Fatal(err)
 
@@ -117,7 +117,7 @@ func (frontend *GoLanguageFrontend) NewArrayCreationExpression(fset *token.FileS
 }
 
 func (frontend *GoLanguageFrontend) NewArraySubscriptionExpression(fset *token.FileSet, astNode ast.Node) *cpg.ArraySubscriptionExpression {
-	c, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/ArraySubscriptionExpression")
+	c, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/ArraySubscriptionExpression")
 	if err != nil {
 		log.Fatal(err)
 
@@ -131,7 +131,7 @@ func (frontend *GoLanguageFrontend) NewArraySubscriptionExpression(fset *token.F
 }
 
 func (frontend *GoLanguageFrontend) NewConstructExpression(fset *token.FileSet, astNode ast.Node) *cpg.ConstructExpression {
-	c, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/ConstructExpression")
+	c, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/ConstructExpression")
 	if err != nil {
 		log.Fatal(err)
 
@@ -145,7 +145,7 @@ func (frontend *GoLanguageFrontend) NewConstructExpression(fset *token.FileSet,
 }
 
 func (frontend *GoLanguageFrontend) NewInitializerListExpression(fset *token.FileSet, astNode ast.Node) *cpg.InitializerListExpression {
-	l, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/InitializerListExpression")
+	l, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/InitializerListExpression")
 	if err != nil {
 		log.Fatal(err)
 
@@ -159,7 +159,7 @@ func (frontend *GoLanguageFrontend) NewInitializerListExpression(fset *token.Fil
 }
 
 func (frontend *GoLanguageFrontend) NewBinaryOperator(fset *token.FileSet, astNode ast.Node) *cpg.BinaryOperator {
-	c, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/BinaryOperator")
+	c, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/BinaryOperator")
 	if err != nil {
 		log.Fatal(err)
 
@@ -173,7 +173,7 @@ func (frontend *GoLanguageFrontend) NewBinaryOperator(fset *token.FileSet, astNo
 }
 
 func (frontend *GoLanguageFrontend) NewUnaryOperator(fset *token.FileSet, astNode ast.Node) *cpg.UnaryOperator {
-	c, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/UnaryOperator")
+	c, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/UnaryOperator")
 	if err != nil {
 		log.Fatal(err)
 
@@ -187,7 +187,7 @@ func (frontend *GoLanguageFrontend) NewUnaryOperator(fset *token.FileSet, astNod
 }
 
 func (frontend *GoLanguageFrontend) NewLiteral(fset *token.FileSet, astNode ast.Node) *cpg.Literal {
-	l, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/Literal")
+	l, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/Literal")
 	if err != nil {
 		log.Fatal(err)
 
@@ -201,7 +201,7 @@ func (frontend *GoLanguageFrontend) NewLiteral(fset *token.FileSet, astNode ast.
 }
 
 func (frontend *GoLanguageFrontend) NewDeclaredReferenceExpression(fset *token.FileSet, astNode ast.Node) *cpg.DeclaredReferenceExpression {
-	l, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/DeclaredReferenceExpression")
+	l, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/DeclaredReferenceExpression")
 	if err != nil {
 		log.Fatal(err)
 
@@ -215,7 +215,7 @@ func (frontend *GoLanguageFrontend) NewDeclaredReferenceExpression(fset *token.F
 }
 
 func (frontend *GoLanguageFrontend) NewKeyValueExpression(fset *token.FileSet, astNode ast.Node) *cpg.KeyValueExpression {
-	k, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/KeyValueExpression")
+	k, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/expressions/KeyValueExpression")
 	if err != nil {
 		log.Fatal(err)
 
@@ -38,8 +38,6 @@ import (
 	"tekao.net/jnigi"
 )
 
-var env *jnigi.Env
-
 type GoLanguageFrontend struct {
 	*jnigi.ObjectRef
 	File       *ast.File
@@ -47,12 +45,13 @@ type GoLanguageFrontend struct {
 	CommentMap ast.CommentMap
 }
 
-func InitEnv(e *jnigi.Env) {
-	env = e
+// env returns the JNI environment of the thread we are currently running on.
+func env() *jnigi.Env {
+	return cpg.Env()
 }
 
 func (g *GoLanguageFrontend) SetCurrentTU(tu *cpg.TranslationUnitDeclaration) {
-	err := g.SetField(env, "currentTU", (*jnigi.ObjectRef)(tu))
+	err := g.SetField(env(), "currentTU", (*jnigi.ObjectRef)(tu))
 
 	if err != nil {
 		log.Fatal(err)
@@ -61,7 +60,7 @@ func (g *GoLanguageFrontend) SetCurrentTU(tu *cpg.TranslationUnitDeclaration) {
 
 func (g *GoLanguageFrontend) GetCurrentTU() *cpg.TranslationUnitDeclaration {
 	var tu = jnigi.NewObjectRef("de/fraunhofer/aisec/cpg/graph/declarations/TranslationUnitDeclaration")
-	err := g.GetField(env, "currentTU", tu)
+	err := g.GetField(env(), "currentTU", tu)
 	if err != nil {
 		log.Fatal(err)
 	}
@@ -78,7 +77,7 @@ func (g *GoLanguageFrontend) GetCodeFromRawNode(fset *token.FileSet, astNode ast
 
 func (g *GoLanguageFrontend) GetScopeManager() *cpg.ScopeManager {
 	var scope = jnigi.NewObjectRef("de/fraunhofer/aisec/cpg/passes/scopes/ScopeManager")
-	err := g.GetField(env, "scopeManager", scope)
+	err := g.GetField(env(), "scopeManager", scope)
 	if err != nil {
 		log.Fatal(err)
 	}
@@ -88,7 +87,7 @@ func (g *GoLanguageFrontend) GetScopeManager() *cpg.ScopeManager {
 
 func (g *GoLanguageFrontend) getLog() (logger *jnigi.ObjectRef, err error) {
 	logger = jnigi.NewObjectRef("org/slf4j/Logger")
-	err = env.GetStaticField("de/fraunhofer/aisec/cpg/frontends/LanguageFrontend", "log", logger)
+	err = env().GetStaticField("de/fraunhofer/aisec/cpg/frontends/LanguageFrontend", "log", logger)
 
 	return
 }
@@ -100,7 +99,7 @@ func (g *GoLanguageFrontend) LogInfo(format string, args ...interface{}) (err er
 		return
 	}
 
-	err = logger.CallMethod(env, "info", nil, cpg.NewString(fmt.Sprintf(format, args...)))
+	err = logger.CallMethod(env(), "info", nil, cpg.NewString(fmt.Sprintf(format, args...)))
 
 	return
 }
@@ -112,7 +111,7 @@ func (g *GoLanguageFrontend) LogDebug(format string, args ...interface{}) (err e
 		return
 	}
 
-	err = logger.CallMethod(env, "debug", nil, cpg.NewString(fmt.Sprintf(format, args...)))
+	err = logger.CallMethod(env(), "debug", nil, cpg.NewString(fmt.Sprintf(format, args...)))
 
 	return
 }
@@ -124,14 +123,14 @@ func (g *GoLanguageFrontend) LogError(format string, args ...interface{}) (err e
 		return
 	}
 
-	err = logger.CallMethod(env, "error", nil, cpg.NewString(fmt.Sprintf(format, args...)))
+	err = logger.CallMethod(env(), "error", nil, cpg.NewString(fmt.Sprintf(format, args...)))
 
 	return
 }
 
 func (g *GoLanguageFrontend) GetLanguage() (l *cpg.Language, err error) {
 	l = new(cpg.Language)
-	err = g.ObjectRef.CallMethod(env, "getLanguage", l)
+	err = g.ObjectRef.CallMethod(env(), "getLanguage", l)
 
 	return
 }
@@ -153,7 +152,7 @@ func updateLocation(fset *token.FileSet, node *cpg.Node, astNode ast.Node) {
 		return
 	}
 
-	uri, err := env.NewObject("java/net/URI", cpg.NewString(file.Name()))
+	uri, err := env().NewObject("java/net/URI", cpg.NewString(file.Name()))
 	if err != nil {
 		log.Fatal(err)
 	}
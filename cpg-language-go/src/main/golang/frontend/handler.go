@@ -855,7 +855,7 @@ func (this *GoLanguageFrontend) handleCallExpr(fset *token.FileSet, callExpr *as
 		return this.handleMakeExpr(fset, callExpr)
 	}
 
-	isMemberExpression, err := (*jnigi.ObjectRef)(reference).IsInstanceOf(env, "de/fraunhofer/aisec/cpg/graph/statements/expressions/MemberExpression")
+	isMemberExpression, err := (*jnigi.ObjectRef)(reference).IsInstanceOf(env(), "de/fraunhofer/aisec/cpg/graph/statements/expressions/MemberExpression")
 	if err != nil {
 		log.Fatal(err)
 
@@ -930,7 +930,7 @@ func (this *GoLanguageFrontend) handleNewExpr(fset *token.FileSet, callExpr *ast
 
 	// new is a pointer, so need to reference the type with a pointer
 	var pointer = jnigi.NewObjectRef("de/fraunhofer/aisec/cpg/graph/types/PointerType$PointerOrigin")
-	err := env.GetStaticField("de/fraunhofer/aisec/cpg/graph/types/PointerType$PointerOrigin", "POINTER", pointer)
+	err := env().GetStaticField("de/fraunhofer/aisec/cpg/graph/types/PointerType$PointerOrigin", "POINTER", pointer)
 	if err != nil {
 		log.Fatal(err)
 	}
@@ -1255,7 +1255,7 @@ func (this *GoLanguageFrontend) handleType(typeExpr ast.Expr) *cpg.Type {
 		t := this.handleType(v.X)
 
 		var i = jnigi.NewObjectRef("de/fraunhofer/aisec/cpg/graph/types/PointerType$PointerOrigin")
-		err = env.GetStaticField("de/fraunhofer/aisec/cpg/graph/types/PointerType$PointerOrigin", "POINTER", i)
+		err = env().GetStaticField("de/fraunhofer/aisec/cpg/graph/types/PointerType$PointerOrigin", "POINTER", i)
 		if err != nil {
 			log.Fatal(err)
 		}
@@ -1267,7 +1267,7 @@ func (this *GoLanguageFrontend) handleType(typeExpr ast.Expr) *cpg.Type {
 		t := this.handleType(v.Elt)
 
 		var i = jnigi.NewObjectRef("de/fraunhofer/aisec/cpg/graph/types/PointerType$PointerOrigin")
-		err = env.GetStaticField("de/fraunhofer/aisec/cpg/graph/types/PointerType$PointerOrigin", "ARRAY", i)
+		err = env().GetStaticField("de/fraunhofer/aisec/cpg/graph/types/PointerType$PointerOrigin", "ARRAY", i)
 		if err != nil {
 			log.Fatal(err)
 		}
@@ -1325,7 +1325,7 @@ func (this *GoLanguageFrontend) handleType(typeExpr ast.Expr) *cpg.Type {
 			log.Fatal(err)
 		}
 
-		var t, err = env.NewObject("de/fraunhofer/aisec/cpg/graph/types/FunctionType",
+		var t, err = env().NewObject("de/fraunhofer/aisec/cpg/graph/types/FunctionType",
 			name,
 			parametersTypesList.Cast("java/util/List"),
 			returnTypesList.Cast("java/util/List"),
@@ -33,7 +33,7 @@ import (
 )
 
 func (frontend *GoLanguageFrontend) NewCompoundStatement(fset *token.FileSet, astNode ast.Node) *cpg.CompoundStatement {
-	s, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/CompoundStatement")
+	s, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/CompoundStatement")
 	if err != nil {
 		log.Fatal(err)
 
@@ -47,7 +47,7 @@ func (frontend *GoLanguageFrontend) NewCompoundStatement(fset *token.FileSet, as
 }
 
 func (frontend *GoLanguageFrontend) NewReturnStatement(fset *token.FileSet, astNode ast.Node) *cpg.ReturnStatement {
-	s, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/ReturnStatement")
+	s, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/ReturnStatement")
 	if err != nil {
 		log.Fatal(err)
 
@@ -61,7 +61,7 @@ func (frontend *GoLanguageFrontend) NewReturnStatement(fset *token.FileSet, astN
 }
 
 func (frontend *GoLanguageFrontend) NewDeclarationStatement(fset *token.FileSet, astNode ast.Node) *cpg.DeclarationStatement {
-	s, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/DeclarationStatement")
+	s, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/DeclarationStatement")
 	if err != nil {
 		log.Fatal(err)
 
@@ -75,7 +75,7 @@ func (frontend *GoLanguageFrontend) NewDeclarationStatement(fset *token.FileSet,
 }
 
 func (frontend *GoLanguageFrontend) NewIfStatement(fset *token.FileSet, astNode ast.Node) *cpg.IfStatement {
-	s, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/IfStatement")
+	s, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/IfStatement")
 	if err != nil {
 		log.Fatal(err)
 
@@ -89,7 +89,7 @@ func (frontend *GoLanguageFrontend) NewIfStatement(fset *token.FileSet, astNode
 }
 
 func (frontend *GoLanguageFrontend) NewForStatement(fset *token.FileSet, astNode ast.Node) *cpg.ForStatement {
-	s, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/ForStatement")
+	s, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/ForStatement")
 	if err != nil {
 		log.Fatal(err)
 
@@ -103,7 +103,7 @@ func (frontend *GoLanguageFrontend) NewForStatement(fset *token.FileSet, astNode
 }
 
 func (frontend *GoLanguageFrontend) NewSwitchStatement(fset *token.FileSet, astNode ast.Node) *cpg.SwitchStatement {
-	s, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/SwitchStatement")
+	s, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/SwitchStatement")
 	if err != nil {
 		log.Fatal(err)
 
@@ -117,7 +117,7 @@ func (frontend *GoLanguageFrontend) NewSwitchStatement(fset *token.FileSet, astN
 }
 
 func (frontend *GoLanguageFrontend) NewCaseStatement(fset *token.FileSet, astNode ast.Node) *cpg.CaseStatement {
-	s, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/CaseStatement")
+	s, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/CaseStatement")
 	if err != nil {
 		log.Fatal(err)
 
@@ -131,7 +131,7 @@ func (frontend *GoLanguageFrontend) NewCaseStatement(fset *token.FileSet, astNod
 }
 
 func (frontend *GoLanguageFrontend) NewDefaultStatement(fset *token.FileSet, astNode ast.Node) *cpg.DefaultStatement {
-	s, err := env.NewObject("de/fraunhofer/aisec/cpg/graph/statements/DefaultStatement")
+	s, err := env().NewObject("de/fraunhofer/aisec/cpg/graph/statements/DefaultStatement")
 	if err != nil {
 		log.Fatal(err)
 
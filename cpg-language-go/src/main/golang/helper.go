@@ -32,14 +32,14 @@ type Castable interface {
 }
 
 func ListOf[T Castable](slice []T) (list *jnigi.ObjectRef, err error) {
-	list, err = env.NewObject("java/util/ArrayList")
+	list, err = env().NewObject("java/util/ArrayList")
 	if err != nil {
 		return nil, err
 	}
 
 	for _, t := range slice {
 		var dummy bool
-		if err := list.CallMethod(env, "add", &dummy, t.Cast("java/lang/Object")); err != nil {
+		if err := list.CallMethod(env(), "add", &dummy, t.Cast("java/lang/Object")); err != nil {
 			return nil, err
 		}
 	}
@@ -48,7 +48,7 @@ func ListOf[T Castable](slice []T) (list *jnigi.ObjectRef, err error) {
 }
 
 func StringOf(str string) (obj *jnigi.ObjectRef, err error) {
-	obj, err = env.NewObject("java/lang/String", []byte(str))
+	obj, err = env().NewObject("java/lang/String", []byte(str))
 	if err != nil {
 		return nil, err
 	}
@@ -31,14 +31,28 @@ import (
 	"go/ast"
 	"go/parser"
 	"go/token"
+	"os"
+	"sync"
+	"sync/atomic"
 
 	"log"
 	"unsafe"
 
+	"golang.org/x/mod/modfile"
 	"tekao.net/jnigi"
 )
 
-//#include <jni.h>
+/*
+#include <jni.h>
+#include <stdlib.h>
+
+static void throwTranslationException(JNIEnv *env, const char *message) {
+	jclass cls = (*env)->FindClass(env, "de/fraunhofer/aisec/cpg/frontends/TranslationException");
+	if (cls != NULL) {
+		(*env)->ThrowNew(env, cls, message);
+	}
+}
+*/
 import "C"
 
 func main() {
@@ -49,24 +63,15 @@ func main() {
 func Java_de_fraunhofer_aisec_cpg_frontends_golang_GoLanguageFrontend_parseInternal(envPointer *C.JNIEnv, thisPtr C.jobject, arg1 C.jobject, arg2 C.jobject, arg3 C.jobject) C.jobject {
 	env := jnigi.WrapEnv(unsafe.Pointer(envPointer))
 
-	goFrontend := &frontend.GoLanguageFrontend{
-		jnigi.WrapJObject(
-			uintptr(thisPtr),
-			"de/fraunhofer/aisec/cpg/frontends/golang/GoLanguageFrontend",
-			false,
-		),
-		nil,
-		nil,
-		ast.CommentMap{},
-	}
+	cpg.InitEnv(env)
+	defer cpg.ReleaseEnv()
+
+	goFrontend := newFrontend(thisPtr)
 
 	srcObject := jnigi.WrapJObject(uintptr(arg1), "java/lang/String", false)
 	pathObject := jnigi.WrapJObject(uintptr(arg2), "java/lang/String", false)
 	topLevelObject := jnigi.WrapJObject(uintptr(arg3), "java/lang/String", false)
 
-	frontend.InitEnv(env)
-	cpg.InitEnv(env)
-
 	var src []byte
 	err := srcObject.CallMethod(env, "getBytes", &src)
 	if err != nil {
@@ -91,19 +96,169 @@ func Java_de_fraunhofer_aisec_cpg_frontends_golang_GoLanguageFrontend_parseInter
 		log.Fatal(err)
 	}
 
-	goFrontend.CommentMap = ast.NewCommentMap(fset, file, file.Comments)
-
 	_, err = goFrontend.ParseModule(string(topLevel))
 	if err != nil {
 		goFrontend.LogError("Error occurred while looking for Go modules file: %v", err)
 	}
 
-	goFrontend.File = file
+	tu, err := handleFile(goFrontend, fset, file, string(path))
+	if err != nil {
+		log.Fatal(err)
+	}
 
-	tu, err := goFrontend.HandleFile(fset, file, string(path))
+	return C.jobject((*jnigi.ObjectRef)(tu).JObject())
+}
+
+// parsedPackage holds the files of a package that were parsed by parsePackageInternal until their
+// translation units are built by buildFileInternal.
+type parsedPackage struct {
+	fset   *token.FileSet
+	paths  []string
+	files  []*ast.File
+	errs   []error
+	module *modfile.File
+}
+
+var (
+	packages    sync.Map
+	nextPackage int64
+)
+
+//export Java_de_fraunhofer_aisec_cpg_frontends_golang_GoLanguageFrontend_parsePackageInternal
+func Java_de_fraunhofer_aisec_cpg_frontends_golang_GoLanguageFrontend_parsePackageInternal(envPointer *C.JNIEnv, thisPtr C.jobject, arg1 C.jobject, arg2 C.jobject) C.jlong {
+	env := jnigi.WrapEnv(unsafe.Pointer(envPointer))
+
+	cpg.InitEnv(env)
+	defer cpg.ReleaseEnv()
+
+	goFrontend := newFrontend(thisPtr)
+
+	pathsObject := jnigi.WrapJObject(uintptr(arg1), "java/lang/String", true)
+	topLevelObject := jnigi.WrapJObject(uintptr(arg2), "java/lang/String", false)
+
+	var paths []string
+	for _, o := range env.FromObjectArray(pathsObject) {
+		var path []byte
+		err := o.CallMethod(env, "getBytes", &path)
+		if err != nil {
+			log.Fatal(err)
+		}
+
+		paths = append(paths, string(path))
+	}
+
+	var topLevel []byte
+	err := topLevelObject.CallMethod(env, "getBytes", &topLevel)
 	if err != nil {
 		log.Fatal(err)
 	}
 
+	// The module file is the same for all files of the package, so we only need to look at it once
+	_, err = goFrontend.ParseModule(string(topLevel))
+	if err != nil {
+		goFrontend.LogError("Error occurred while looking for Go modules file: %v", err)
+	}
+
+	// Reading and parsing the files does not involve the JVM at all, so we can do this
+	// concurrently. The token.FileSet is safe for concurrent use.
+	pkg := &parsedPackage{
+		fset:   token.NewFileSet(),
+		paths:  paths,
+		files:  make([]*ast.File, len(paths)),
+		errs:   make([]error, len(paths)),
+		module: goFrontend.Module,
+	}
+
+	var wg sync.WaitGroup
+	for i, path := range paths {
+		wg.Add(1)
+
+		go func(i int, path string) {
+			defer wg.Done()
+
+			src, err := os.ReadFile(path)
+			if err != nil {
+				pkg.errs[i] = err
+				return
+			}
+
+			pkg.files[i], pkg.errs[i] = parser.ParseFile(pkg.fset, path, src, parser.ParseComments)
+		}(i, path)
+	}
+
+	wg.Wait()
+
+	handle := atomic.AddInt64(&nextPackage, 1)
+	packages.Store(handle, pkg)
+
+	return C.jlong(handle)
+}
+
+//export Java_de_fraunhofer_aisec_cpg_frontends_golang_GoLanguageFrontend_buildFileInternal
+func Java_de_fraunhofer_aisec_cpg_frontends_golang_GoLanguageFrontend_buildFileInternal(envPointer *C.JNIEnv, thisPtr C.jobject, arg1 C.jlong, arg2 C.jint) C.jobject {
+	env := jnigi.WrapEnv(unsafe.Pointer(envPointer))
+
+	cpg.InitEnv(env)
+	defer cpg.ReleaseEnv()
+
+	p, ok := packages.Load(int64(arg1))
+	if !ok {
+		throwTranslationException(envPointer, "the package of the file was already released")
+		return nil
+	}
+
+	pkg := p.(*parsedPackage)
+	i := int(arg2)
+
+	// A file that cannot be parsed only fails its own translation unit
+	if pkg.errs[i] != nil {
+		throwTranslationException(envPointer, pkg.errs[i].Error())
+		return nil
+	}
+
+	// The translation unit is built on the thread of the calling frontend, using its scope manager
+	goFrontend := newFrontend(thisPtr)
+	goFrontend.Module = pkg.module
+
+	tu, err := handleFile(goFrontend, pkg.fset, pkg.files[i], pkg.paths[i])
+	if err != nil {
+		throwTranslationException(envPointer, err.Error())
+		return nil
+	}
+
 	return C.jobject((*jnigi.ObjectRef)(tu).JObject())
 }
+
+//export Java_de_fraunhofer_aisec_cpg_frontends_golang_GoLanguageFrontend_releasePackageInternal
+func Java_de_fraunhofer_aisec_cpg_frontends_golang_GoLanguageFrontend_releasePackageInternal(envPointer *C.JNIEnv, thisPtr C.jobject, arg1 C.jlong) {
+	packages.Delete(int64(arg1))
+}
+
+// throwTranslationException raises a TranslationException with the given message in the JVM. It
+// is thrown once the native method returns.
+func throwTranslationException(envPointer *C.JNIEnv, message string) {
+	msg := C.CString(message)
+	defer C.free(unsafe.Pointer(msg))
+
+	C.throwTranslationException(envPointer, msg)
+}
+
+func newFrontend(thisPtr C.jobject) *frontend.GoLanguageFrontend {
+	return &frontend.GoLanguageFrontend{
+		jnigi.WrapJObject(
+			uintptr(thisPtr),
+			"de/fraunhofer/aisec/cpg/frontends/golang/GoLanguageFrontend",
+			false,
+		),
+		nil,
+		nil,
+		ast.CommentMap{},
+	}
+}
+
+func handleFile(goFrontend *frontend.GoLanguageFrontend, fset *token.FileSet, file *ast.File, path string) (*cpg.TranslationUnitDeclaration, error) {
+	goFrontend.CommentMap = ast.NewCommentMap(fset, file, file.Comments)
+	goFrontend.File = file
+
+	return goFrontend.HandleFile(fset, file, path)
+}
@@ -34,35 +34,35 @@ import (
 type Node jnigi.ObjectRef
 
 func (n *Node) SetName(s string) error {
-	return (*jnigi.ObjectRef)(n).CallMethod(env, "setName", nil, NewString(s))
+	return (*jnigi.ObjectRef)(n).CallMethod(env(), "setName", nil, NewString(s))
 }
 
 func (n *Node) SetLanguge(l *Language) error {
-	return (*jnigi.ObjectRef)(n).CallMethod(env, "setLanguage", nil, l)
+	return (*jnigi.ObjectRef)(n).CallMethod(env(), "setLanguage", nil, l)
 }
 
 func (n *Node) SetCode(s string) error {
-	return (*jnigi.ObjectRef)(n).SetField(env, "code", NewString(s))
+	return (*jnigi.ObjectRef)(n).SetField(env(), "code", NewString(s))
 }
 
 func (n *Node) SetComment(s string) error {
-	return (*jnigi.ObjectRef)(n).SetField(env, "comment", NewString(s))
+	return (*jnigi.ObjectRef)(n).SetField(env(), "comment", NewString(s))
 }
 
 func (n *Node) SetLocation(location *PhysicalLocation) error {
-	return (*jnigi.ObjectRef)(n).SetField(env, "location", (*jnigi.ObjectRef)(location))
+	return (*jnigi.ObjectRef)(n).SetField(env(), "location", (*jnigi.ObjectRef)(location))
 }
 
 func (n *Node) GetName() string {
 	var o = jnigi.NewObjectRef("java/lang/String")
-	_ = (*jnigi.ObjectRef)(n).CallMethod(env, "getName", o)
+	_ = (*jnigi.ObjectRef)(n).CallMethod(env(), "getName", o)
 
 	if o == nil {
 		return ""
 	}
 
 	var b []byte
-	err := o.CallMethod(env, "getBytes", &b)
+	err := o.CallMethod(env(), "getBytes", &b)
 	if err != nil {
 		log.Fatal(err)
 	}
@@ -31,37 +31,37 @@ type ScopeManager jnigi.ObjectRef
 type Scope jnigi.ObjectRef
 
 func (s *ScopeManager) EnterScope(n *Node) {
-	(*jnigi.ObjectRef)(s).CallMethod(env, "enterScope", nil, (*jnigi.ObjectRef)(n).Cast("de/fraunhofer/aisec/cpg/graph/Node"))
+	(*jnigi.ObjectRef)(s).CallMethod(env(), "enterScope", nil, (*jnigi.ObjectRef)(n).Cast("de/fraunhofer/aisec/cpg/graph/Node"))
 }
 
 func (s *ScopeManager) LeaveScope(n *Node) (err error) {
 	var scope = jnigi.NewObjectRef("de/fraunhofer/aisec/cpg/passes/scopes/Scope")
-	err = (*jnigi.ObjectRef)(s).CallMethod(env, "leaveScope", scope, (*jnigi.ObjectRef)(n).Cast("de/fraunhofer/aisec/cpg/graph/Node"))
+	err = (*jnigi.ObjectRef)(s).CallMethod(env(), "leaveScope", scope, (*jnigi.ObjectRef)(n).Cast("de/fraunhofer/aisec/cpg/graph/Node"))
 
 	return err
 }
 
 func (s *ScopeManager) ResetToGlobal(n *Node) {
-	(*jnigi.ObjectRef)(s).CallMethod(env, "resetToGlobal", nil, (*jnigi.ObjectRef)(n).Cast("de/fraunhofer/aisec/cpg/graph/declarations/TranslationUnitDeclaration"))
+	(*jnigi.ObjectRef)(s).CallMethod(env(), "resetToGlobal", nil, (*jnigi.ObjectRef)(n).Cast("de/fraunhofer/aisec/cpg/graph/declarations/TranslationUnitDeclaration"))
 }
 
 func (s *ScopeManager) GetCurrentScope() *Scope {
 	var o = jnigi.NewObjectRef("de/fraunhofer/aisec/cpg/passes/scopes/Scope")
-	(*jnigi.ObjectRef)(s).CallMethod(env, "getCurrentScope", o)
+	(*jnigi.ObjectRef)(s).CallMethod(env(), "getCurrentScope", o)
 
 	return (*Scope)(o)
 }
 
 func (s *ScopeManager) GetCurrentFunction() *FunctionDeclaration {
 	var o = jnigi.NewObjectRef("de/fraunhofer/aisec/cpg/graph/declarations/FunctionDeclaration")
-	(*jnigi.ObjectRef)(s).CallMethod(env, "getCurrentFunction", o)
+	(*jnigi.ObjectRef)(s).CallMethod(env(), "getCurrentFunction", o)
 
 	return (*FunctionDeclaration)(o)
 }
 
 func (s *ScopeManager) GetCurrentBlock() *CompoundStatement {
 	var o = jnigi.NewObjectRef("de/fraunhofer/aisec/cpg/graph/statements/CompoundStatement")
-	(*jnigi.ObjectRef)(s).CallMethod(env, "getCurrentBlock", o)
+	(*jnigi.ObjectRef)(s).CallMethod(env(), "getCurrentBlock", o)
 
 	return (*CompoundStatement)(o)
 }
@@ -69,7 +69,7 @@ func (s *ScopeManager) GetCurrentBlock() *CompoundStatement {
 func (s *ScopeManager) GetRecordForName(scope *Scope, recordName string) (record *RecordDeclaration, err error) {
 	var o = jnigi.NewObjectRef("de/fraunhofer/aisec/cpg/graph/declarations/RecordDeclaration")
 
-	err = (*jnigi.ObjectRef)(s).CallMethod(env,
+	err = (*jnigi.ObjectRef)(s).CallMethod(env(),
 		"getRecordForName",
 		o,
 		(*jnigi.ObjectRef)(scope).Cast("de/fraunhofer/aisec/cpg/passes/scopes/Scope"),
@@ -81,7 +81,7 @@ func (s *ScopeManager) GetRecordForName(scope *Scope, recordName string) (record
 }
 
 func (s *ScopeManager) AddDeclaration(d *Declaration) (err error) {
-	err = (*jnigi.ObjectRef)(s).CallMethod(env, "addDeclaration", nil, (*jnigi.ObjectRef)(d).Cast("de/fraunhofer/aisec/cpg/graph/declarations/Declaration"))
+	err = (*jnigi.ObjectRef)(s).CallMethod(env(), "addDeclaration", nil, (*jnigi.ObjectRef)(d).Cast("de/fraunhofer/aisec/cpg/graph/declarations/Declaration"))
 
 	return
 }
@@ -34,8 +34,6 @@ import (
 	"log"
 )
 
-var env *jnigi.Env
-
 type Type struct{ *jnigi.ObjectRef }
 
 func (t *Type) ConvertToGo(o *jnigi.ObjectRef) error {
@@ -78,13 +76,9 @@ func (*UnknownType) GetClassName() string {
 
 type HasType jnigi.ObjectRef
 
-func InitEnv(e *jnigi.Env) {
-	env = e
-}
-
 func TypeParser_createFrom(s string, l *Language) *Type {
 	var t Type
-	err := env.CallStaticMethod("de/fraunhofer/aisec/cpg/graph/types/TypeParser", "createFrom", &t, NewString(s), l)
+	err := env().CallStaticMethod("de/fraunhofer/aisec/cpg/graph/types/TypeParser", "createFrom", &t, NewString(s), l)
 	if err != nil {
 		log.Fatal(err)
 
@@ -95,7 +89,7 @@ func TypeParser_createFrom(s string, l *Language) *Type {
 
 func UnknownType_getUnknown(l *Language) *UnknownType {
 	var t UnknownType
-	err := env.CallStaticMethod("de/fraunhofer/aisec/cpg/graph/types/UnknownType", "getUnknownType", &t, l)
+	err := env().CallStaticMethod("de/fraunhofer/aisec/cpg/graph/types/UnknownType", "getUnknownType", &t, l)
 	if err != nil {
 		log.Fatal(err)
 
@@ -106,7 +100,7 @@ func UnknownType_getUnknown(l *Language) *UnknownType {
 
 func (t *Type) GetRoot() *Type {
 	var root Type
-	err := t.CallMethod(env, "getRoot", &root)
+	err := t.CallMethod(env(), "getRoot", &root)
 	if err != nil {
 		log.Fatal(err)
 	}
@@ -116,7 +110,7 @@ func (t *Type) GetRoot() *Type {
 
 func (t *Type) Reference(o *jnigi.ObjectRef) *Type {
 	var refType Type
-	err := t.CallMethod(env, "reference", &refType, (*jnigi.ObjectRef)(o).Cast("de/fraunhofer/aisec/cpg/graph/types/PointerType$PointerOrigin"))
+	err := t.CallMethod(env(), "reference", &refType, (*jnigi.ObjectRef)(o).Cast("de/fraunhofer/aisec/cpg/graph/types/PointerType$PointerOrigin"))
 
 	if err != nil {
 		log.Fatal(err)
@@ -127,13 +121,13 @@ func (t *Type) Reference(o *jnigi.ObjectRef) *Type {
 
 func (h *HasType) SetType(t *Type) {
 	if t != nil {
-		(*jnigi.ObjectRef)(h).CallMethod(env, "setType", nil, t.Cast("de/fraunhofer/aisec/cpg/graph/types/Type"))
+		(*jnigi.ObjectRef)(h).CallMethod(env(), "setType", nil, t.Cast("de/fraunhofer/aisec/cpg/graph/types/Type"))
 	}
 }
 
 func (h *HasType) GetType() *Type {
 	var t Type
-	err := (*jnigi.ObjectRef)(h).CallMethod(env, "getType", &t)
+	err := (*jnigi.ObjectRef)(h).CallMethod(env(), "getType", &t)
 	if err != nil {
 		log.Fatal(err)
 	}
@@ -145,7 +139,7 @@ func (t *ObjectType) AddGeneric(g *Type) {
 	// Stupid workaround, since casting does not work. See
 	// https://github.com/timob/jnigi/issues/60
 	var objType = jnigi.WrapJObject(uintptr(t.JObject()), "de/fraunhofer/aisec/cpg/graph/types/ObjectType", false)
-	err := objType.CallMethod(env, "addGeneric", nil, g.Cast("de/fraunhofer/aisec/cpg/graph/types/Type"))
+	err := objType.CallMethod(env(), "addGeneric", nil, g.Cast("de/fraunhofer/aisec/cpg/graph/types/Type"))
 	if err != nil {
 		log.Fatal(err)
 	}
@@ -154,7 +148,7 @@ func (t *ObjectType) AddGeneric(g *Type) {
 func FunctionType_ComputeType(decl *FunctionDeclaration) (t *Type, err error) {
 	var funcType Type
 
-	err = env.CallStaticMethod("de/fraunhofer/aisec/cpg/graph/types/FunctionType", "computeType", &t, decl)
+	err = env().CallStaticMethod("de/fraunhofer/aisec/cpg/graph/types/FunctionType", "computeType", &t, decl)
 	if err != nil {
 		return nil, err
 	}
@@ -36,6 +36,13 @@ class GoLanguage : Language<GoLanguageFrontend>() {
     override val namespaceDelimiter = "."
     override val frontend: KClass<out GoLanguageFrontend> = GoLanguageFrontend::class
 
+    /**
+     * If true, all files of a Go package are parsed at once, instead of file-by-file. Since every
+     * configuration registers its own instance of the language, this only affects the translations
+     * that use this instance. See [GoLanguageFrontend].
+     */
+    var parseWholePackages = false
+
     override fun newFrontend(
         config: TranslationConfiguration,
         scopeManager: ScopeManager
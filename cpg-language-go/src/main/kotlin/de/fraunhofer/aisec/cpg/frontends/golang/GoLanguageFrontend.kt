@@ -35,8 +35,23 @@ import de.fraunhofer.aisec.cpg.passes.scopes.ScopeManager
 import de.fraunhofer.aisec.cpg.sarif.PhysicalLocation
 import java.io.File
 import java.io.FileOutputStream
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.atomic.AtomicInteger
 
-@SupportsParallelParsing(false)
+/**
+ * The language frontend for Go. The actual parsing and building of the nodes happens in native code
+ * (`libcpgo`), which is called using JNI.
+ *
+ * By default, each file is handed to the native side individually. If
+ * [GoLanguage.parseWholePackages] is set, the first file of a package (i.e., a directory) that is
+ * requested hands all files of the package to the native side in one call, which parses them
+ * concurrently and keeps their syntax trees. The translation unit of each file is then built by the
+ * frontend that requests it, on its own thread and with its own [ScopeManager], just like when the
+ * file is parsed on its own. A file that cannot be parsed only fails its own translation unit.
+ */
+@SupportsParallelParsing(true)
 class GoLanguageFrontend(
     language: Language<GoLanguageFrontend>,
     config: TranslationConfiguration,
@@ -81,8 +96,28 @@ class GoLanguageFrontend(
         }
     }
 
+    /**
+     * The files of a package that were parsed by the native side, which keeps their syntax trees
+     * under [handle] until the translation units of all [files] have been built.
+     */
+    private class ParsedPackage(val handle: Long, val files: List<String>) {
+        val remaining = AtomicInteger(files.size)
+    }
+
+    /**
+     * Holds the (pending) results of parsing whole packages, identified by their directory. A
+     * package is removed once all its translation units have been built. There is one instance
+     * per translation, which is shared by all its frontends (see
+     * [de.fraunhofer.aisec.cpg.graph.GraphModifications.shared]).
+     */
+    private class Packages : ConcurrentHashMap<File, CompletableFuture<ParsedPackage>>()
+
     @Throws(TranslationException::class)
     override fun parse(file: File): TranslationUnitDeclaration {
+        if ((language as? GoLanguage)?.parseWholePackages == true) {
+            return parsePackageOf(file)
+        }
+
         return parseInternal(
             file.readText(Charsets.UTF_8),
             file.path,
@@ -90,6 +125,76 @@ class GoLanguageFrontend(
         )
     }
 
+    /**
+     * Returns the translation unit of [file], which is parsed together with all other files of its
+     * package. Only the first frontend that requests a file of a particular package actually
+     * parses it, all others wait for its result.
+     */
+    @Throws(TranslationException::class)
+    private fun parsePackageOf(file: File): TranslationUnitDeclaration {
+        val packages = scopeManager.modifications.shared(Packages::class.java) { Packages() }
+        val dir = file.absoluteFile.parentFile
+        val future = CompletableFuture<ParsedPackage>()
+        val existing = packages.putIfAbsent(dir, future)
+
+        if (existing == null) {
+            try {
+                val files = packageFiles(dir, file).map { it.path }
+                val handle =
+                    parsePackageInternal(
+                        files.toTypedArray(),
+                        config.topLevel?.absolutePath ?: dir.path
+                    )
+                future.complete(ParsedPackage(handle, files))
+            } catch (ex: Throwable) {
+                packages.remove(dir)
+                future.completeExceptionally(ex)
+            }
+        }
+
+        val parsed =
+            try {
+                (existing ?: future).get()
+            } catch (ex: ExecutionException) {
+                throw TranslationException(ex)
+            }
+
+        val index = parsed.files.indexOf(file.absoluteFile.path)
+        if (index < 0) {
+            throw TranslationException("${file.path} was not parsed as part of its package")
+        }
+
+        try {
+            return buildFileInternal(parsed.handle, index)
+        } finally {
+            if (parsed.remaining.decrementAndGet() == 0) {
+                packages.remove(dir)
+                releasePackageInternal(parsed.handle)
+            }
+        }
+    }
+
+    /**
+     * Collects all Go files in [dir] that are part of the configuration. We cannot simply take all
+     * files in the directory, since the user might only have selected some of them.
+     */
+    private fun packageFiles(dir: File, file: File): List<File> {
+        val candidates =
+            dir.listFiles { f -> f.isFile && language.handlesFile(f) }?.map { it.absoluteFile }
+                ?: listOf()
+
+        val selected =
+            candidates.filter { candidate ->
+                config.sourceLocations.any {
+                    val location = it.absoluteFile
+                    location == candidate ||
+                        (location.isDirectory && candidate.startsWith(location))
+                }
+            }
+
+        return (selected + file.absoluteFile).distinct()
+    }
+
     override fun <T> getCodeFromRawNode(astNode: T): String? {
         // this is handled by native code
         return null
@@ -107,4 +212,19 @@ class GoLanguageFrontend(
         path: String,
         topLevel: String
     ): TranslationUnitDeclaration
+
+    /**
+     * Parses the files at [paths] concurrently and returns a handle to their syntax trees, which is
+     * used by [buildFileInternal]. The handle needs to be released with [releasePackageInternal].
+     */
+    private external fun parsePackageInternal(paths: Array<String>, topLevel: String): Long
+
+    /**
+     * Builds the translation unit of the [index]-th file of the package with the given [handle]
+     * using this frontend. Throws a [TranslationException] if the file could not be parsed.
+     */
+    @Throws(TranslationException::class)
+    private external fun buildFileInternal(handle: Long, index: Int): TranslationUnitDeclaration
+
+    private external fun releasePackageInternal(handle: Long)
 }
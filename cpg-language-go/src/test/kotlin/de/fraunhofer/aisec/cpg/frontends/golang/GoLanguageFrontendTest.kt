@@ -781,4 +781,35 @@ class GoLanguageFrontendTest : BaseTest() {
 
         assertNotNull(tu)
     }
+
+    @Test
+    fun testParseWholePackage() {
+        val topLevel = Path.of("src", "test", "resources", "golang", "package")
+
+        val result =
+            analyze(
+                listOf(topLevel.resolve("a.go").toFile(), topLevel.resolve("b.go").toFile()),
+                topLevel,
+                true
+            ) {
+                it.registerLanguage(GoLanguage().apply { parseWholePackages = true })
+            }
+
+        assertEquals(2, result.translationUnits.size)
+
+        val main = result.functions["main"]
+        assertNotNull(main)
+
+        val myFunc = result.functions["myFunc"]
+        assertNotNull(myFunc)
+
+        // b.go is built with its own scope manager, whose scopes are merged into the result
+        val scope = result.scopeManager.lookupScope("p")
+        assertNotNull(scope)
+        assertTrue(scope.valueDeclarations.contains(myFunc))
+
+        val call = main.calls.firstOrNull()
+        assertNotNull(call)
+        assertTrue(call.invokes.contains(myFunc))
+    }
 }
@@ -0,0 +1,5 @@
+package p
+
+func myFunc(i int) int {
+    return i
+}
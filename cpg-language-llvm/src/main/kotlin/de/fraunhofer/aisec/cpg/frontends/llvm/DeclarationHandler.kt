@@ -197,13 +197,15 @@ class DeclarationHandler(lang: LLVMIRLanguageFrontend) :
                 replaceCharsInName(LLVMGetStructName(typeRef).string)
             }
 
-        // try to see, if the struct already exists as a record declaration
+        // try to see, if the struct already exists as a record declaration, either in our scope
+        // or in another module of this translation
         var record =
             frontend.scopeManager
                 .resolve<RecordDeclaration>(frontend.scopeManager.globalScope, true) {
                     it.name == name
                 }
                 .firstOrNull()
+                ?: frontend.typeCache.getRecord(name)
 
         // if yes, return it
         if (record != null) {
@@ -240,6 +242,13 @@ class DeclarationHandler(lang: LLVMIRLanguageFrontend) :
 
         frontend.scopeManager.leaveScope(record)
 
+        // make it available to the other modules. If another module was faster, we use its record
+        // instead, so that all modules agree on one declaration
+        val canonical = frontend.typeCache.putRecord(record)
+        if (canonical !== record) {
+            return canonical
+        }
+
         // add it to the global scope
         frontend.scopeManager.globalScope?.addDeclaration(record, true)
 
@@ -256,8 +265,9 @@ class DeclarationHandler(lang: LLVMIRLanguageFrontend) :
         alreadyVisited: MutableMap<LLVMTypeRef, Type?>
     ): String {
         val typeStr = LLVMPrintTypeToString(typeRef).string
-        if (typeStr in frontend.typeCache && frontend.typeCache[typeStr] != null) {
-            return frontend.typeCache[typeStr]!!.name
+        val cached = frontend.typeCache.getType(typeStr)
+        if (cached != null) {
+            return cached.name
         }
 
         var name = "literal"
@@ -59,7 +59,13 @@ class LLVMIRLanguageFrontend(
     val statementHandler = StatementHandler(this)
     val declarationHandler = DeclarationHandler(this)
     val expressionHandler = ExpressionHandler(this)
-    val typeCache = mutableMapOf<String, Type>()
+
+    /**
+     * The cache of already translated types. It is shared with all other LLVM frontends of the
+     * same translation, so that types used by several modules are only constructed once.
+     */
+    val typeCache =
+        scopeManager.modifications.shared(LLVMTypeCache::class.java) { LLVMTypeCache() }
 
     val phiList = mutableListOf<LLVMValueRef>()
 
@@ -183,8 +189,9 @@ class LLVMIRLanguageFrontend(
         alreadyVisited: MutableMap<LLVMTypeRef, Type?> = mutableMapOf()
     ): Type {
         val typeStr = LLVMPrintTypeToString(typeRef).string
-        if (typeStr in typeCache && typeCache[typeStr] != null) {
-            return typeCache[typeStr]!!
+        val cached = typeCache.getType(typeStr)
+        if (cached != null) {
+            return cached
         }
         if (typeRef in alreadyVisited && alreadyVisited[typeRef] != null) {
             return alreadyVisited[typeRef]!!
@@ -214,8 +221,7 @@ class LLVMIRLanguageFrontend(
                 }
             }
         alreadyVisited[typeRef] = res
-        typeCache[typeStr] = res
-        return res
+        return typeCache.putType(typeStr, res)
     }
 
     override fun <T : Any?> getCodeFromRawNode(astNode: T): String? {
@@ -236,11 +242,22 @@ class LLVMIRLanguageFrontend(
 
     override fun <S : Any?, T : Any?> setComment(s: S, ctx: T) {}
 
-    /** Determines if a struct with [name] exists in the scope. */
+    override fun cleanup() {
+        super.cleanup()
+        typeCache.clear()
+    }
+
+    /**
+     * Determines if a struct with [name] exists in the scope or was already declared by another
+     * module of this translation.
+     */
     fun isKnownStructTypeName(name: String): Boolean {
-        return this.scopeManager
-            .resolve<RecordDeclaration>(this.scopeManager.globalScope, true) { it.name == name }
-            .isNotEmpty()
+        return typeCache.hasRecord(name) ||
+            this.scopeManager
+                .resolve<RecordDeclaration>(this.scopeManager.globalScope, true) {
+                    it.name == name
+                }
+                .isNotEmpty()
     }
 
     fun getOperandValueAtIndex(instr: LLVMValueRef, idx: Int): Expression {
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2022, Fraunhofer AISEC. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *                    $$$$$$\  $$$$$$$\   $$$$$$\
+ *                   $$  __$$\ $$  __$$\ $$  __$$\
+ *                   $$ /  \__|$$ |  $$ |$$ /  \__|
+ *                   $$ |      $$$$$$$  |$$ |$$$$\
+ *                   $$ |      $$  ____/ $$ |\_$$ |
+ *                   $$ |  $$\ $$ |      $$ |  $$ |
+ *                   \$$$$$   |$$ |      \$$$$$   |
+ *                    \______/ \__|       \______/
+ *
+ */
+package de.fraunhofer.aisec.cpg.frontends.llvm
+
+import de.fraunhofer.aisec.cpg.graph.GraphModifications
+import de.fraunhofer.aisec.cpg.graph.declarations.RecordDeclaration
+import de.fraunhofer.aisec.cpg.graph.types.Type
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * A cache of already translated LLVM types, which is shared among all [LLVMIRLanguageFrontend]
+ * instances that belong to the same translation (see [GraphModifications.shared]). Large programs
+ * (e.g., whole-program dumps of LTO builds) consist of many modules which all declare the same
+ * structs, so we only want to construct their [Type] and [RecordDeclaration] once, regardless which
+ * module (and which thread, if the frontends run in parallel) encounters them first.
+ *
+ * Types are identified by their textual representation as printed by LLVM, which is the name for
+ * identified (named) structs and the full layout for all other types.
+ */
+class LLVMTypeCache {
+    private val types = ConcurrentHashMap<String, Type>()
+    private val records = ConcurrentHashMap<String, RecordDeclaration>()
+
+    /** Returns the cached type for the LLVM type string [typeStr], if it exists. */
+    fun getType(typeStr: String): Type? {
+        return types[typeStr]
+    }
+
+    /**
+     * Caches [type] for [typeStr]. If another frontend was faster, the already cached type is
+     * returned instead, so that all frontends agree on one instance.
+     */
+    fun putType(typeStr: String, type: Type): Type {
+        return types.putIfAbsent(typeStr, type) ?: type
+    }
+
+    /** Returns the record declaration of the struct with the name [name], if it exists. */
+    fun getRecord(name: String): RecordDeclaration? {
+        return records[name]
+    }
+
+    /**
+     * Caches [record] under its name. If another frontend was faster, the already cached record is
+     * returned instead.
+     */
+    fun putRecord(record: RecordDeclaration): RecordDeclaration {
+        return records.putIfAbsent(record.name, record) ?: record
+    }
+
+    /** Returns true, if a record with the name [name] is cached. */
+    fun hasRecord(name: String): Boolean {
+        return records.containsKey(name)
+    }
+
+    fun clear() {
+        types.clear()
+        records.clear()
+    }
+}
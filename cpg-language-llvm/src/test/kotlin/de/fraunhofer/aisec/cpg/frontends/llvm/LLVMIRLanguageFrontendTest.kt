@@ -32,6 +32,9 @@ import de.fraunhofer.aisec.cpg.graph.byNameOrNull
 import de.fraunhofer.aisec.cpg.graph.declarations.FunctionDeclaration
 import de.fraunhofer.aisec.cpg.graph.declarations.RecordDeclaration
 import de.fraunhofer.aisec.cpg.graph.declarations.VariableDeclaration
+import de.fraunhofer.aisec.cpg.graph.functions
+import de.fraunhofer.aisec.cpg.graph.get
+import de.fraunhofer.aisec.cpg.graph.records
 import de.fraunhofer.aisec.cpg.graph.statements.*
 import de.fraunhofer.aisec.cpg.graph.statements.expressions.*
 import de.fraunhofer.aisec.cpg.graph.types.ObjectType
@@ -128,6 +131,37 @@ class LLVMIRLanguageFrontendTest {
         assertEquals("^", xor.operatorCode)
     }
 
+    @Test
+    fun testStructSharedAcrossModules() {
+        val topLevel = Path.of("src", "test", "resources", "llvm")
+        val result =
+            TestUtils.analyze(
+                listOf(
+                    topLevel.resolve("struct.ll").toFile(),
+                    topLevel.resolve("struct2.ll").toFile()
+                ),
+                topLevel,
+                true
+            ) { it.registerLanguage<LLVMIRLanguage>() }
+
+        assertEquals(2, result.translationUnits.size)
+
+        // both modules declare the struct, but it should only be constructed once
+        val records = result.records.filter { it.name == "struct.ST" }
+        assertEquals(1, records.size)
+
+        val st = records.first()
+        val foo = result.functions["foo"]
+        assertNotNull(foo)
+        val bar = result.functions["bar"]
+        assertNotNull(bar)
+
+        val fooType = foo.parameters.firstOrNull()?.type?.dereference() as? ObjectType
+        val barType = bar.parameters.firstOrNull()?.type?.dereference() as? ObjectType
+        assertSame(st, fooType?.recordDeclaration)
+        assertSame(st, barType?.recordDeclaration)
+    }
+
     @Test
     fun testIdentifiedStruct() {
         val topLevel = Path.of("src", "test", "resources", "llvm")
@@ -0,0 +1,14 @@
+; A second module which uses the same structs as struct.ll
+;
+; int bar(struct ST *s) {
+;   return s->X;
+; }
+
+%struct.RT = type { i8, [10 x [20 x i32]], i8 }
+%struct.ST = type { i32, double, %struct.RT }
+
+define i32 @bar(%struct.ST* %s) nounwind uwtable readnone optsize ssp {
+  %x = getelementptr inbounds %struct.ST, %struct.ST* %s, i64 0, i32 0
+  %val = load i32, i32* %x
+  ret i32 %val
+}